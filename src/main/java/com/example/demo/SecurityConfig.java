@@ -1,41 +1,49 @@
 package com.example.demo;
 
-import javax.sql.DataSource;
-
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.provisioning.JdbcUserDetailsManager;
-import org.springframework.security.provisioning.UserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.LoginUrlAuthenticationEntryPoint;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+
+import com.example.demo.user.AdaptivePasswordEncoder;
 
 /**
  * セキュリティの設定を行うための設定クラスです。
  * {@code @EnableWebSecurity} を付与し、{@code @Configuration} アノテーションを持ちます。
+ * <p>ログイン時の認証情報は、{@link com.example.demo.user.LoginUserDetailsService}が1回のSQLで取得します。
  */
 @EnableWebSecurity
 @Configuration
 public class SecurityConfig {
 
-	/** ユーザーIDとパスワードとアカウントの有効性を取得するSQL */
-	private static final String USER_SQL = "SELECT user_id, encrypted_password as password, enabled FROM m_user WHERE user_id = ?";
-
-	/** ユーザーIDと権限を取得するSQL */
-	private static final String ROLE_SQL = "SELECT user_id, role FROM m_user WHERE user_id = ?";
-
 	/**
 	 * パスワードのエンコードに使用するPasswordEncoderを提供します。
+	 * <p>BCryptの強度は、起動時に実行環境で計測した所要時間から決定します。
+	 * @param strength 強度(0の場合は計測して決定)
+	 * @param targetMillis 1回のハッシュ化の目標時間(ミリ秒)
+	 * @param minStrength 強度の下限
+	 * @param maxStrength 強度の上限
+	 * @param parallelism 同時にハッシュ化する件数(0の場合はCPUコア数)
+	 * @param queueSize ハッシュ化の待機件数の上限
 	 * @return PasswordEncoderオブジェクト
 	 */
 	@Bean
-	public PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+	public AdaptivePasswordEncoder passwordEncoder(@Value("${user.password.strength:0}") int strength,
+			@Value("${user.password.target-millis:250}") long targetMillis,
+			@Value("${user.password.min-strength:10}") int minStrength,
+			@Value("${user.password.max-strength:16}") int maxStrength,
+			@Value("${user.password.parallelism:0}") int parallelism,
+			@Value("${user.password.queue-size:100}") int queueSize) {
+		return new AdaptivePasswordEncoder(strength, targetMillis, minStrength, maxStrength, parallelism, queueSize);
 	}
 
 	/**
@@ -69,6 +77,7 @@ public class SecurityConfig {
 				.requestMatchers("/signup").permitAll() // 新規ユーザー登録画面は直リンクOK
 				.requestMatchers("/user/list").hasAnyAuthority("ROLE_ADMIN","ROLE_TOP")// ユーザ一覧機能は管理権限ユーザと上位ユーザに許可
 				.requestMatchers("/user/**").hasAuthority("ROLE_ADMIN") // ユーザ管理機能は管理権限ユーザに許可
+				.requestMatchers("/admin/**").hasAuthority("ROLE_ADMIN") // 全ユーザを対象とする機能は管理権限ユーザに許可
 				.requestMatchers("/h2-console/**").permitAll() // XXX h2-console使用時は有効にする.
 				.anyRequest().authenticated(); // それ以外は直リンク禁止
 
@@ -80,6 +89,13 @@ public class SecurityConfig {
 				.passwordParameter("password") // ログインページのパスワード
 				.defaultSuccessUrl("/", true); // ログイン成功後の遷移先
 
+		// JSON API(/api/**)はBASIC認証に対応し、未認証の場合はログインページへ遷移せず401を返却
+		http.httpBasic();
+		http.exceptionHandling().defaultAuthenticationEntryPointFor(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED),
+				new AntPathRequestMatcher("/api/**"));
+		http.exceptionHandling().defaultAuthenticationEntryPointFor(new LoginUrlAuthenticationEntryPoint("/login"),
+				AnyRequestMatcher.INSTANCE); // 画面はこれまでどおりログインページへ遷移
+
 		//ログアウト処理
 		http.logout().logoutRequestMatcher(new AntPathRequestMatcher("/logout"))
 				.logoutUrl("/logout") //ログアウト処理のパス
@@ -93,17 +109,4 @@ public class SecurityConfig {
 		return http.build();
 	}
 
-	/**
-	 * ユーザー情報の管理を行うUserDetailsManagerを生成します。
-	 * @param dataSource データソース
-	 * @return UserDetailsManagerオブジェクト
-	 */
-    @Bean
-    public UserDetailsManager users(DataSource dataSource) {
-        JdbcUserDetailsManager users = new JdbcUserDetailsManager(dataSource);
-        users.setUsersByUsernameQuery(USER_SQL);
-        users.setAuthoritiesByUsernameQuery(ROLE_SQL);
-        return users;
-    }
-
 }
@@ -4,6 +4,7 @@ import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.support.ReloadableResourceBundleMessageSource;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 import org.springframework.web.client.RestTemplate;
 
@@ -13,19 +14,21 @@ import org.springframework.web.client.RestTemplate;
  * <p>DIの設定やシステム環境設定、システム全体に関わる定数を
  * 設定するために利用し、その他の設定に関しては
  * application.propertiesファイルに記述します。
+ * <p>{@code @Scheduled}による定期実行を有効にします。
  *
  * @author 情報太郎
  *
  */
 @Configuration
+@EnableScheduling
 public class WebConfig {
 
-	/** ファイル出力パス */
-	public static final String OUTPUT_PATH = "target/";
-
 	/** CSVファイル名 */
 	public static final String FILENAME_TASK_CSV = "tasklist.csv";
 
+	/** 全ユーザのタスク出力(gzip圧縮CSV)のファイル名 */
+	public static final String FILENAME_TASK_EXPORT = "tasklist_all.csv.gz";
+
 	/**
 	 * RestTemplateライブラリのインスタンスを生成します。
 	 *
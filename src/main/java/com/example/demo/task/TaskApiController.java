@@ -0,0 +1,199 @@
+package com.example.demo.task;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.Principal;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * タスク管理機能のJSON API(バージョン1)を表す。
+ *
+ * <p>画面({@link TaskController})と同じ業務ロジック({@link TaskService})を利用し、
+ * 結果をHTMLではなくJSONで返却します。JSONの形式は{@link TaskJson}をご覧ください。
+ *
+ * <ul>
+ * <li>GET    /api/v1/tasks          ：一覧(after, beforeのカーソルでページング)</li>
+ * <li>POST   /api/v1/tasks          ：登録(201、Locationヘッダに登録したタスクのURL)</li>
+ * <li>POST   /api/v1/tasks/complete ：一括完了</li>
+ * <li>POST   /api/v1/tasks/{id}/complete：完了(200、ログイン中のユーザのタスクでない場合は404)</li>
+ * <li>DELETE /api/v1/tasks/{id}     ：削除(204、ログイン中のユーザのタスクでない場合は404)</li>
+ * <li>GET    /api/v1/tasks/export   ：CSV出力</li>
+ * </ul>
+ * <p>入力チェックでエラーとなった場合は400を返却します。<br>
+ * 完了・削除で{@code version}パラメータ(取得時の版数)を指定した場合、取得後に他の処理で更新されていれば409を返却します。
+ *
+ * @author 情報太郎
+ */
+@RestController
+@RequestMapping("/api/v1/tasks")
+public class TaskApiController {
+
+	/* タスク管理の業務ロジッククラス */
+	@Autowired
+	private TaskService taskService;
+
+	/* タスクの入力チェック */
+	@Autowired
+	private TaskValidator taskValidator;
+
+	/**
+	 * ログイン中のユーザに紐づく、タスク一覧を1ページ分返却します。
+	 *
+	 * @param after 次ページ取得用のカーソル(null可)
+	 * @param before 前ページ取得用のカーソル(null可)
+	 * @param principal ログイン中のユーザ情報を格納(null不可)
+	 * @return タスク一覧のJSON
+	 */
+	@GetMapping
+	public ResponseEntity<byte[]> list(@RequestParam(name = "after", required = false) String after,
+			@RequestParam(name = "before", required = false) String before,
+			Principal principal) {
+
+		TaskEntity taskEntity = taskService.selectPage(principal.getName(), after, before);
+		return json(HttpStatus.OK, TaskJson.writePage(taskEntity));
+	}
+
+	/**
+	 * タスクを登録します。
+	 *
+	 * @param body {@code {"title": "...", "limitday": "yyyy-MM-dd", "priority": 1}}(priorityは任意、null不可)
+	 * @param principal ログイン中のユーザ情報を格納(null不可)
+	 * @return 登録したタスクのJSON
+	 */
+	@PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<byte[]> create(@RequestBody byte[] body, Principal principal) {
+		TaskJson.CreateRequest request;
+		try {
+			request = TaskJson.readCreateRequest(body);
+		} catch (IOException e) {
+			return json(HttpStatus.BAD_REQUEST, TaskJson.writeError("JSONの形式が不正です"));
+		}
+
+		// 入力チェック(画面と同じルール)
+		TaskData input = taskValidator.toTaskData(principal.getName(), request.getTitle(), request.getLimitday(),
+				request.getPriority());
+		if (input == null) {
+			return json(HttpStatus.BAD_REQUEST, TaskJson.writeError("入力項目に不備があります"));
+		}
+
+		TaskData taskData = taskService.create(input);
+		if (taskData == null) {
+			return json(HttpStatus.INTERNAL_SERVER_ERROR, TaskJson.writeError("登録できませんでした"));
+		}
+		return ResponseEntity.created(URI.create("/api/v1/tasks/" + taskData.getId()))
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(TaskJson.writeTask(taskData));
+	}
+
+	/**
+	 * ログイン中のユーザの、指定された複数のタスクを一括で完了状態にします。
+	 *
+	 * @param body {@code {"ids": [1, 2]}}(null不可)
+	 * @param principal ログイン中のユーザ情報を格納(null不可)
+	 * @return タスクIDごとの処理結果のJSON
+	 */
+	@PostMapping(path = "/complete", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<byte[]> complete(@RequestBody byte[] body, Principal principal) {
+		List<Integer> ids;
+		try {
+			ids = TaskJson.readIds(body);
+		} catch (IOException e) {
+			return json(HttpStatus.BAD_REQUEST, TaskJson.writeError("JSONの形式が不正です"));
+		}
+		if (ids.isEmpty()) {
+			return json(HttpStatus.BAD_REQUEST, TaskJson.writeError("完了するタスクを指定してください"));
+		}
+
+		TaskBulkResult result = taskService.complateAll(principal.getName(), ids);
+		return json(HttpStatus.OK, TaskJson.writeBulkResult(result));
+	}
+
+	/**
+	 * ログイン中のユーザのタスクを完了状態にします。
+	 *
+	 * @param id タスクID
+	 * @param version 取得時の版数(nullの場合は比較しない)
+	 * @param principal ログイン中のユーザ情報を格納(null不可)
+	 * @return 完了したタスクのJSON(200)、取得後に更新されていた場合は409、対象のタスクがない場合は404
+	 */
+	@PostMapping("/{id}/complete")
+	public ResponseEntity<byte[]> completeOne(@PathVariable("id") int id,
+			@RequestParam(name = "version", required = false) Integer version,
+			Principal principal) {
+
+		TaskUpdateResult result = taskService.complate(principal.getName(), String.valueOf(id), version);
+		if (result != TaskUpdateResult.SUCCESS) {
+			return updateError(result);
+		}
+		List<TaskData> taskList = taskService.selectOwned(principal.getName(), List.of(id));
+		if (taskList.isEmpty()) {
+			return json(HttpStatus.NOT_FOUND, TaskJson.writeError("タスクが見つかりません"));
+		}
+		return json(HttpStatus.OK, TaskJson.writeTask(taskList.get(0)));
+	}
+
+	/**
+	 * ログイン中のユーザのタスクを削除します。
+	 *
+	 * @param id タスクID
+	 * @param version 取得時の版数(nullの場合は比較しない)
+	 * @param principal ログイン中のユーザ情報を格納(null不可)
+	 * @return 削除した場合は204、取得後に更新されていた場合は409、対象のタスクがない場合は404
+	 */
+	@DeleteMapping("/{id}")
+	public ResponseEntity<byte[]> delete(@PathVariable("id") int id,
+			@RequestParam(name = "version", required = false) Integer version,
+			Principal principal) {
+
+		if (version != null) {
+			TaskUpdateResult result = taskService.delete(principal.getName(), String.valueOf(id), version);
+			if (result != TaskUpdateResult.SUCCESS) {
+				return updateError(result);
+			}
+			return ResponseEntity.noContent().build();
+		}
+
+		// 他のユーザのタスクを削除しないよう、所有者を確認する一括削除を利用する
+		TaskBulkResult result = taskService.deleteAll(principal.getName(), List.of(id));
+		if (result.getSucceeded().isEmpty()) {
+			return json(HttpStatus.NOT_FOUND, TaskJson.writeError("タスクが見つかりません"));
+		}
+		return ResponseEntity.noContent().build();
+	}
+
+	/**
+	 * ログイン中のユーザのタスクをCSV形式で出力します。
+	 *
+	 * @param principal ログイン中のユーザ情報を格納(null不可)
+	 * @return CSV
+	 */
+	@GetMapping("/export")
+	public ResponseEntity<StreamingResponseBody> export(Principal principal) {
+		return taskService.taskListCsvOut(principal.getName());
+	}
+
+	private ResponseEntity<byte[]> updateError(TaskUpdateResult result) {
+		if (result == TaskUpdateResult.CONFLICT) {
+			return json(HttpStatus.CONFLICT, TaskJson.writeError("他の処理で更新されています。最新の状態を取得してください"));
+		}
+		return json(HttpStatus.NOT_FOUND, TaskJson.writeError("タスクが見つかりません"));
+	}
+
+	private ResponseEntity<byte[]> json(HttpStatus status, byte[] body) {
+		return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
+	}
+}
@@ -0,0 +1,61 @@
+package com.example.demo.task;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 完了から一定期間が経過したタスクを、定期的にアーカイブへ移動します。
+ *
+ * <p>{@code task.archive.interval-seconds}秒ごとに、完了から{@code task.archive.after-days}日が経過したタスクを
+ * {@code task.archive.batch-size}件ずつ、件数ごとに別のトランザクションで移動します。<br>
+ * 1回のトランザクションを小さくするため、移動中も一覧の表示・更新を長く待たせません。
+ * <p>移動に失敗した場合は、その回の移動を終了し、次回の実行で残りを移動します。
+ *
+ * @author 情報太郎
+ */
+@Component
+public class TaskArchiveJob {
+
+	/* タスク管理の業務ロジッククラス */
+	@Autowired
+	private TaskService taskService;
+
+	/** 完了から何日経過したタスクを移動するか */
+	@Value("${task.archive.after-days:30}")
+	private int afterDays;
+
+	/** 1回のトランザクションで移動する件数 */
+	@Value("${task.archive.batch-size:500}")
+	private int batchSize;
+
+	/**
+	 * 完了から一定期間が経過したタスクを、すべてアーカイブへ移動します。
+	 *
+	 * @return 移動した件数
+	 */
+	@Scheduled(initialDelayString = "${task.archive.interval-seconds:3600}",
+			fixedDelayString = "${task.archive.interval-seconds:3600}", timeUnit = TimeUnit.SECONDS)
+	public int run() {
+		Date threshold = Date.from(Instant.now().minus(afterDays, ChronoUnit.DAYS));
+		int total = 0;
+		int moved;
+		do {
+			try {
+				moved = taskService.archive(threshold, batchSize);
+			} catch (SQLException e) {
+				// 次回の実行で再度移動する
+				break;
+			}
+			total += moved;
+		} while (moved == batchSize);
+		return total;
+	}
+}
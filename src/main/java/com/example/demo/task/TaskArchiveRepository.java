@@ -0,0 +1,108 @@
+package com.example.demo.task;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 完了済みタスクのアーカイブに関わるDBアクセスを実現するクラスです。
+ *
+ * <p>完了から一定期間が経過したタスクを{@code task_t}から{@code task_archive}へ移動し、
+ * アーカイブしたタスクをページ単位で検索します。
+ * <p>処理が継続できない場合は、呼び出し元へ例外をスローします。<br>
+ * <strong>移動は複数のSQLで行うため、呼び出し元でトランザクションを開始してください。</strong>
+ *
+ * @author 情報太郎
+ *
+ */
+@Repository
+public class TaskArchiveRepository {
+
+	/** SQL アーカイブ対象の取得（完了日時の古い順） */
+	private static final String SQL_SELECT_ARCHIVABLE = "SELECT * FROM task_t WHERE complate = true AND complated_at < :threshold"
+			+ " order by complated_at LIMIT :limit";
+
+	/** SQL アーカイブテーブルへの複写 */
+	private static final String SQL_INSERT_ARCHIVE = "INSERT INTO task_archive(id, user_id, title, limitday, complate, priority, complated_at, version, archived_at)"
+			+ " SELECT id, user_id, title, limitday, complate, priority, complated_at, version, CURRENT_TIMESTAMP FROM task_t"
+			+ " WHERE id IN (:ids) AND complate = true";
+
+	/** SQL 複写したタスクの削除 */
+	private static final String SQL_DELETE_ARCHIVED = "DELETE FROM task_t WHERE id IN (:ids) AND complate = true";
+
+	/** SQL アーカイブの先頭ページ取得（タスクID降順） */
+	private static final String SQL_SELECT_FIRST_PAGE = "SELECT * FROM task_archive WHERE user_id = :userId"
+			+ " order by user_id, id DESC LIMIT :limit";
+
+	/** SQL アーカイブの次ページ取得（カーソル位置より前のタスクIDを降順） */
+	private static final String SQL_SELECT_NEXT_PAGE = "SELECT * FROM task_archive WHERE user_id = :userId AND id < :id"
+			+ " order by user_id, id DESC LIMIT :limit";
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbc;
+
+	/**
+	 * 完了日時が指定日時より前のタスクを、完了日時の古い順に指定件数だけ検索します。
+	 * @param threshold 完了日時の上限(この日時を含まない)
+	 * @param limit 取得件数の上限
+	 * @return 検索結果のリスト
+	 */
+	public List<TaskData> findArchivable(Date threshold, int limit) {
+		// クエリのパラメータを設定するマップ
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("threshold", threshold);
+		params.put("limit", limit);
+
+		return jdbc.query(SQL_SELECT_ARCHIVABLE, params, new TaskRowMapper());
+	}
+
+	/**
+	 * 指定されたタスクIDの完了済みタスクを、アーカイブテーブルへ移動します。
+	 *
+	 * <p>複写した件数と削除した件数が一致しない場合(移動中に削除された場合など)は例外をスローします。<br>
+	 * <strong>呼び出し元でロールバックしてください。</strong>
+	 *
+	 * @param ids 移動するタスクIDのリスト(空不可)
+	 * @return 移動した行数
+	 * @throws SQLException 複写した件数と削除した件数が一致しない場合にスローされる例外
+	 */
+	public int moveAll(Collection<Integer> ids) throws SQLException {
+		// クエリのパラメータを設定するマップ
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("ids", ids);
+
+		int insertRow = jdbc.update(SQL_INSERT_ARCHIVE, params);
+		int deleteRow = jdbc.update(SQL_DELETE_ARCHIVED, params);
+		if (insertRow != deleteRow) {
+			throw new SQLException("移動に失敗しました 複写件数:" + insertRow + " 削除件数:" + deleteRow);
+		}
+		return deleteRow;
+	}
+
+	/**
+	 * 指定されたユーザーIDのアーカイブを、タスクIDの降順に指定件数だけ検索します。
+	 * @param userId ユーザーID
+	 * @param before 検索開始位置のタスクID(このタスクIDは含まない、nullの場合は先頭から)
+	 * @param limit 取得件数の上限
+	 * @return 検索結果のリスト（タスクID降順）
+	 */
+	public List<TaskData> findPage(String userId, Integer before, int limit) {
+		// クエリのパラメータを設定するマップ
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		params.put("limit", limit);
+
+		if (before == null) {
+			return jdbc.query(SQL_SELECT_FIRST_PAGE, params, new TaskRowMapper());
+		}
+		params.put("id", before);
+		return jdbc.query(SQL_SELECT_NEXT_PAGE, params, new TaskRowMapper());
+	}
+}
@@ -0,0 +1,25 @@
+package com.example.demo.task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * タスクの一括操作(一括完了・一括削除)の実行結果です。
+ *
+ * <p>指定されたタスクIDごとに、処理できたか否かを保持します。<br>
+ * ログイン中のユーザのタスクでないIDや、存在しないIDは処理対象外となります。
+ *
+ * @author 情報太郎
+ */
+@Data
+public class TaskBulkResult {
+
+	/** 処理できたタスクIDのリスト */
+	private List<Integer> succeeded = new ArrayList<Integer>();
+
+	/** 処理対象外となったタスクIDのリスト */
+	private List<Integer> notFound = new ArrayList<Integer>();
+
+}
@@ -0,0 +1,62 @@
+package com.example.demo.task;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * カレンダー表示する期間のタスク情報を保持します。
+ *
+ * <p>月表示・週表示ともに、月曜日から日曜日までの1週間を1行として、期限日毎にタスクを保持します。<br>
+ * 月表示の場合は、前月・翌月の日も含めて週の単位で保持します。
+ *
+ * @author 情報太郎
+ */
+@Data
+public class TaskCalendar {
+
+	/** 月表示 */
+	public static final String VIEW_MONTH = "month";
+
+	/** 週表示 */
+	public static final String VIEW_WEEK = "week";
+
+	/** 表示形式(月表示・週表示) */
+	private String view;
+
+	/** 表示する期間の基準日(月表示の場合は月初日、週表示の場合は月曜日) */
+	private LocalDate date;
+
+	/** 前の期間の基準日 */
+	private LocalDate prev;
+
+	/** 次の期間の基準日 */
+	private LocalDate next;
+
+	/** 期間内のタスク件数 */
+	private int taskCount;
+
+	/** 1週間毎の日のリスト */
+	private List<List<Day>> weeks = new ArrayList<List<Day>>();
+
+	/**
+	 * カレンダーの1日分のタスク情報を保持します。
+	 */
+	@Data
+	public static class Day {
+
+		/** 日付 */
+		private LocalDate date;
+
+		/** 表示する期間内の日か(月表示で前月・翌月の日の場合はfalse) */
+		private boolean inPeriod;
+
+		/** 当日か */
+		private boolean today;
+
+		/** 期限日がこの日のタスクのリスト(期限日・タスクID昇順) */
+		private List<TaskData> taskList = new ArrayList<TaskData>();
+	}
+}
@@ -0,0 +1,244 @@
+package com.example.demo.task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * タスクの完了をメモリ上に溜め、まとめてDBへ反映します(ライトビハインド)。
+ *
+ * <p>{@code task.complate.write-behind.enabled}が有効な場合、タスクの完了時に1件ずつDBを更新せず、
+ * ユーザ毎の未反映のタスクIDとして保持します。以下のいずれかの契機で、未反映の全タスクを1回のバッチでDBへ反映します。
+ * <ul>
+ * <li>{@code task.complate.write-behind.flush-millis}ミリ秒ごと</li>
+ * <li>未反映の件数が{@code task.complate.write-behind.max-pending}件に達した場合</li>
+ * <li>アプリケーションの終了時</li>
+ * </ul>
+ * <p>一覧などの参照時は{@link #merge(String, List)}で未反映の完了をDBの検索結果へ重ねるため、
+ * ユーザは完了した直後から完了状態のタスクを参照できます。<br>
+ * DBへの反映中のタスクIDも、反映が終わるまでは未反映として扱います。
+ * 反映に失敗した場合は未反映へ戻し、次回の反映で再度更新します。
+ *
+ * @author 情報太郎
+ */
+@Component
+public class TaskComplateBuffer {
+
+	@Autowired
+	private TaskRepository taskRepository;
+
+	@Autowired
+	private TaskListCache taskListCache;
+
+	@Autowired
+	private TaskListVersion taskListVersion;
+
+	/** ライトビハインドの利用有無 */
+	private final boolean enabled;
+
+	/** 未反映の件数の上限(達した場合は即時に反映する) */
+	private final int maxPending;
+
+	/** ユーザID毎の未反映のタスクID */
+	private Map<String, Set<Integer>> pending = new HashMap<String, Set<Integer>>();
+
+	/** ユーザID毎のDBへ反映中のタスクID */
+	private Map<String, Set<Integer>> flushing = Collections.emptyMap();
+
+	/** 未反映の件数 */
+	private int pendingCount;
+
+	/** 終了処理の完了有無(完了後は即時に反映する) */
+	private boolean closed;
+
+	/** DBへの反映を1つずつ行うためのロック */
+	private final Object flushLock = new Object();
+
+	/**
+	 * バッファを生成します。
+	 *
+	 * @param enabled ライトビハインドの利用有無
+	 * @param maxPending 未反映の件数の上限
+	 */
+	public TaskComplateBuffer(@Value("${task.complate.write-behind.enabled:false}") boolean enabled,
+			@Value("${task.complate.write-behind.max-pending:100}") int maxPending) {
+		this.enabled = enabled;
+		this.maxPending = maxPending;
+	}
+
+	/**
+	 * ライトビハインドの利用有無を取得します。
+	 *
+	 * @return 利用する場合はtrue
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * 完了したタスクを未反映として追加します。
+	 *
+	 * <p>未反映の件数が上限に達した場合は、呼び出し元のスレッドでDBへ反映します。
+	 *
+	 * @param userId タスクを所有するユーザID(null不可)
+	 * @param id タスクID
+	 * @return 新たに追加した場合はtrue(未反映・反映中の場合はfalse)
+	 */
+	public boolean add(String userId, int id) {
+		boolean flush;
+		synchronized (this) {
+			if (contains(flushing, userId, id) || !pending.computeIfAbsent(userId, k -> new LinkedHashSet<Integer>()).add(id)) {
+				return false;
+			}
+			pendingCount++;
+			flush = closed || pendingCount >= maxPending;
+		}
+		if (flush) {
+			flush();
+		}
+		return true;
+	}
+
+	/**
+	 * タスクの完了が未反映(反映中を含む)かを判定します。
+	 *
+	 * @param userId タスクを所有するユーザID(null不可)
+	 * @param id タスクID
+	 * @return 未反映の場合はtrue
+	 */
+	public synchronized boolean isPending(String userId, int id) {
+		return contains(pending, userId, id) || contains(flushing, userId, id);
+	}
+
+	/**
+	 * 指定ユーザの未反映(反映中を含む)の件数を取得します。
+	 *
+	 * @param userId ユーザID(null不可)
+	 * @return 未反映の件数
+	 */
+	public synchronized int getPendingCount(String userId) {
+		return pending.getOrDefault(userId, Collections.emptySet()).size()
+				+ flushing.getOrDefault(userId, Collections.emptySet()).size();
+	}
+
+	/**
+	 * DBの検索結果のうち、完了が未反映のタスクを完了状態にします。
+	 *
+	 * <p>版数も反映後と同じ値(DBの版数 + 1)にするため、画面に表示した版数は反映の前後どちらでも利用できます。<br>
+	 * キャッシュ中の一覧へ取り消された完了が残らないよう、引数のリストと要素は変更せず、完了状態にするタスクは複製します。
+	 *
+	 * @param userId タスクを所有するユーザID(null不可)
+	 * @param taskList DBの検索結果(null不可)
+	 * @return 未反映の完了を重ねたタスクリスト(未反映のタスクがない場合は引数のタスクリスト)
+	 */
+	public synchronized List<TaskData> merge(String userId, List<TaskData> taskList) {
+		if (!pending.containsKey(userId) && !flushing.containsKey(userId)) {
+			return taskList;
+		}
+		List<TaskData> merged = new ArrayList<TaskData>(taskList.size());
+		for (TaskData taskData : taskList) {
+			if (!taskData.isComplate() && isPending(userId, taskData.getId())) {
+				TaskData copy = copyOf(taskData);
+				copy.setComplate(true);
+				copy.setVersion(taskData.getVersion() + 1);
+				merged.add(copy);
+			} else {
+				merged.add(taskData);
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * 未反映の全タスクを、1回のバッチでDBへ反映します。
+	 *
+	 * <p>反映後は、反映中に古い一覧がキャッシュされないよう、対象ユーザのキャッシュを破棄します。
+	 *
+	 * @return 更新した行数
+	 */
+	@Scheduled(fixedDelayString = "${task.complate.write-behind.flush-millis:200}", timeUnit = TimeUnit.MILLISECONDS)
+	public int flush() {
+		synchronized (flushLock) {
+			Map<String, Set<Integer>> batch;
+			synchronized (this) {
+				if (pending.isEmpty()) {
+					return 0;
+				}
+				batch = pending;
+				flushing = batch;
+				pending = new HashMap<String, Set<Integer>>();
+				pendingCount = 0;
+			}
+
+			int updated = 0;
+			try {
+				for (int row : taskRepository.updateAll(batch)) {
+					updated += row;
+				}
+			} catch (RuntimeException e) {
+				// 反映できなかったタスクIDは未反映へ戻す
+				synchronized (this) {
+					batch.forEach((userId, ids) -> {
+						Set<Integer> restored = pending.computeIfAbsent(userId, k -> new LinkedHashSet<Integer>());
+						restored.addAll(ids);
+						pendingCount += ids.size();
+					});
+					flushing = Collections.emptyMap();
+				}
+				throw e;
+			}
+
+			synchronized (this) {
+				flushing = Collections.emptyMap();
+			}
+			for (String userId : batch.keySet()) {
+				taskListCache.invalidate(userId);
+				taskListVersion.bump(userId);
+			}
+			return updated;
+		}
+	}
+
+	/**
+	 * アプリケーションの終了時に、未反映の全タスクをDBへ反映します。
+	 *
+	 * <p>以降に追加されたタスクは、追加のたびに即時に反映します。
+	 */
+	@PreDestroy
+	public void drain() {
+		synchronized (this) {
+			closed = true;
+		}
+		flush();
+	}
+
+	private static TaskData copyOf(TaskData taskData) {
+		TaskData copy = new TaskData();
+		copy.setId(taskData.getId());
+		copy.setUserId(taskData.getUserId());
+		copy.setTitle(taskData.getTitle());
+		copy.setLimitday(taskData.getLimitday());
+		copy.setComplate(taskData.isComplate());
+		copy.setPriority(taskData.getPriority());
+		copy.setComplatedAt(taskData.getComplatedAt());
+		copy.setVersion(taskData.getVersion());
+		return copy;
+	}
+
+	private static boolean contains(Map<String, Set<Integer>> ids, String userId, int id) {
+		Set<Integer> userIds = ids.get(userId);
+		return userIds != null && userIds.contains(id);
+	}
+}
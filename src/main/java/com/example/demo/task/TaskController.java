@@ -1,14 +1,25 @@
 package com.example.demo.task;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.security.Principal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * タスク管理機能を表す。
@@ -18,34 +29,253 @@ import org.springframework.web.bind.annotation.RequestParam;
  * <p>入力チェックを実施し、正しいデータ項目のみ処理します。
  * クライアント側でも入力チェックを実施することを推奨します。
  * 
+ * <p>登録・削除・完了は、X-Requested-Withヘッダに{@value #FRAGMENT_REQUEST}を指定した場合、
+ * 一覧画面全体ではなく、変更した行・メッセージ・件数の部分のみを返却します(画面はJavaScriptで部分更新します)。
+ * 
  * @author 情報太郎
  *
  */
 @Controller
 public class TaskController {
 
+	/** 部分更新を要求する場合のX-Requested-Withヘッダの値 */
+	private static final String FRAGMENT_REQUEST = "XMLHttpRequest";
+
+	/** 他の処理で更新されていた場合のメッセージ */
+	private static final String MESSAGE_CONFLICT = "他の画面で変更されたため、処理できませんでした。最新の状態を確認して、再度操作してください";
+
 	/* タスク管理の業務ロジッククラス */
 	@Autowired
 	private TaskService taskService;
 
+	/* タスクの入力チェック */
+	@Autowired
+	private TaskValidator taskValidator;
+
 	/**
 	 * ログイン中のユーザに紐づく、タスク一覧画面を表示します。
 	 * 
-	 * <p>本機能は、タスク管理機能の一覧機能を提供します。
+	 * <p>本機能は、タスク管理機能の一覧機能を提供します。<br>
+	 * 一覧はページ単位で表示し、カーソルにより前後のページへ移動します。
+	 * 
+	 * <p>タスク一覧の版数からETag・Last-Modifiedを設定します。
+	 * ブラウザが保持している一覧が最新の場合は、DBへの問い合わせと画面の生成を行わず304(Not Modified)を返却します。
 	 * 
+	 * @param after 次ページ取得用のカーソル(null可)
+	 * @param before 前ページ取得用のカーソル(null可)
 	 * @param principal ログイン中のユーザ情報を格納(null不可)
 	 * @param model Viewに値を渡すオブジェクト(null不可)
-	 * @return タスク一覧画面へのパス(null不可)
+	 * @param webRequest リクエスト・レスポンス情報を格納(null不可)
+	 * @return タスク一覧画面へのパス(304を返却する場合はnull)
 	 */
 	@GetMapping("/task")
-	public String getTaskList(Principal principal, Model model) {
+	public String getTaskList(@RequestParam(name = "after", required = false) String after,
+			                  @RequestParam(name = "before", required = false) String before,
+			Principal principal, Model model, ServletWebRequest webRequest) {
+
+		// 一覧の内容は、版数・カーソル・日付(期限切れの件数が変わるため)で決まる
+		TaskListVersion.Stamp stamp = taskService.selectVersion(principal.getName());
+		LocalDate today = LocalDate.now();
+		String etag = "\"" + stamp.getTag() + "-" + today + "-" + normalizeCursor(after) + "-" + normalizeCursor(before) + "\"";
+		long lastModified = Math.max(stamp.getLastModified(),
+				today.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+
+		// ブラウザには保持を許可し、表示のたびに最新かを確認させる
+		webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+		if (webRequest.checkNotModified(etag, lastModified)) {
+			return null;
+		}
+
+		return getTaskList(after, before, principal, model);
+	}
 
-		TaskEntity taskEntity = taskService.selectAll(principal.getName());
+	/**
+	 * ログイン中のユーザに紐づく、タスク一覧画面を表示します。
+	 * 
+	 * @param after 次ページ取得用のカーソル(null可)
+	 * @param before 前ページ取得用のカーソル(null可)
+	 * @param principal ログイン中のユーザ情報を格納(null不可)
+	 * @param model Viewに値を渡すオブジェクト(null不可)
+	 * @return タスク一覧画面へのパス(null不可)
+	 */
+	private String getTaskList(String after, String before, Principal principal, Model model) {
+		TaskEntity taskEntity = taskService.selectPage(principal.getName(), after, before);
 		model.addAttribute("taskEntity", taskEntity);
+		model.addAttribute("taskStats", taskService.selectStats(principal.getName()));
+		model.addAttribute("nextUp", taskService.selectNextUp(principal.getName()));
 
 		return "task/list";
 	}
 
+	/**
+	 * ログイン中のユーザに紐づくタスクを、件名で検索して一覧画面に表示します。
+	 * 
+	 * <p>本機能は、タスク管理機能の検索機能を提供します。<br>
+	 * 件名に検索語を含むタスクを表示します(英字の大文字・小文字、全角・半角は区別しません)。
+	 * 検索語が未入力の場合は、一覧画面の先頭ページを表示します。
+	 * 
+	 * @param q 検索語(null可)
+	 * @param principal ログイン中のユーザ情報を格納(null不可)
+	 * @param model Viewに値を渡すオブジェクト(null不可)
+	 * @return タスク一覧画面へのパス(null不可)
+	 */
+	@GetMapping("/task/search")
+	public String searchTask(@RequestParam(name = "q", required = false) String q,
+			Principal principal, Model model) {
+
+		if (q == null || q.isBlank()) {
+			return getTaskList(principal, model);
+		}
+
+		TaskEntity taskEntity = taskService.search(principal.getName(), q);
+		model.addAttribute("taskEntity", taskEntity);
+		model.addAttribute("taskStats", taskService.selectStats(principal.getName()));
+		model.addAttribute("nextUp", taskService.selectNextUp(principal.getName()));
+		model.addAttribute("query", q);
+
+		return "task/list";
+	}
+
+	/**
+	 * ログイン中のユーザに紐づく、タスク一覧画面の先頭ページを表示します。
+	 * 
+	 * @param principal ログイン中のユーザ情報を格納(null不可)
+	 * @param model Viewに値を渡すオブジェクト(null不可)
+	 * @return タスク一覧画面へのパス(null不可)
+	 */
+	private String getTaskList(Principal principal, Model model) {
+		return getTaskList(null, null, principal, model);
+	}
+
+	/**
+	 * ログイン中のユーザに紐づく、アーカイブ済みのタスク一覧画面を表示します。
+	 * 
+	 * <p>本機能は、タスク管理機能のアーカイブ参照機能を提供します。<br>
+	 * 完了から一定期間が経過し、一覧から移動したタスクを、アーカイブした順にページ単位で表示します。
+	 * 
+	 * @param before 次ページ取得用のカーソル(null可)
+	 * @param principal ログイン中のユーザ情報を格納(null不可)
+	 * @param model Viewに値を渡すオブジェクト(null不可)
+	 * @return アーカイブ一覧画面へのパス(null不可)
+	 */
+	@GetMapping("/task/archive")
+	public String getTaskArchive(@RequestParam(name = "before", required = false) String before,
+			Principal principal, Model model) {
+
+		model.addAttribute("archiveEntity", taskService.selectArchive(principal.getName(), before));
+		return "task/archive";
+	}
+
+	/**
+	 * ログイン中のユーザに紐づくタスクを、期限日毎にカレンダー形式で表示します。
+	 * 
+	 * <p>本機能は、タスク管理機能のカレンダー表示機能を提供します。<br>
+	 * 月表示・週表示を切り替えられ、前後の期間へ移動できます(前後の期間は事前に取得しています)。
+	 * 
+	 * @param view 表示形式(month・week、null可)
+	 * @param date 表示する期間に含まれる日(yyyy-MM-dd形式、null可)
+	 * @param principal ログイン中のユーザ情報を格納(null不可)
+	 * @param model Viewに値を渡すオブジェクト(null不可)
+	 * @return カレンダー画面へのパス(null不可)
+	 */
+	@GetMapping("/task/calendar")
+	public String getTaskCalendar(@RequestParam(name = "view", required = false) String view,
+			@RequestParam(name = "date", required = false) String date,
+			Principal principal, Model model) {
+
+		model.addAttribute("calendar", taskService.selectCalendar(principal.getName(), view, date));
+		return "task/calendar";
+	}
+
+	/**
+	 * ETagに含めるため、カーソルを正規化します。
+	 * 
+	 * @param cursor カーソル(null可)
+	 * @return 正規化したカーソル(未指定・不正な場合は空文字)
+	 */
+	private String normalizeCursor(String cursor) {
+		TaskCursor taskCursor = TaskCursor.decode(cursor);
+		return taskCursor == null ? "" : taskCursor.encode();
+	}
+
+	/**
+	 * 登録・削除・完了の結果として、タスク一覧画面、または部分更新用の画面を表示します。
+	 * 
+	 * @param requestedWith X-Requested-Withヘッダの値(null可)
+	 * @param principal ログイン中のユーザ情報を格納(null不可)
+	 * @param model Viewに値を渡すオブジェクト(null不可)
+	 * @param taskRows 追加・変更したタスクのリスト(null不可)
+	 * @param removedIds 削除したタスクIDのリスト(null不可)
+	 * @return タスク一覧画面、または部分更新用の画面へのパス(null不可)
+	 */
+	private String getTaskResult(String requestedWith, Principal principal, Model model,
+			List<TaskData> taskRows, List<Integer> removedIds) {
+		if (!isFragment(requestedWith)) {
+			return getTaskList(principal, model);
+		}
+		return getTaskFragment(principal, model, taskRows, removedIds);
+	}
+
+	/**
+	 * 変更した行・メッセージ・件数のみの、部分更新用の画面を表示します。
+	 * 
+	 * <p>一覧の再取得は行いません(次にやるタスクのみ、優先度順のインデックスから上位の件数分を取得します)。
+	 * 
+	 * @param principal ログイン中のユーザ情報を格納(null不可)
+	 * @param model Viewに値を渡すオブジェクト(null不可)
+	 * @param taskRows 追加・変更したタスクのリスト(null不可)
+	 * @param removedIds 削除したタスクIDのリスト(null不可)
+	 * @return 部分更新用の画面へのパス(null不可)
+	 */
+	private String getTaskFragment(Principal principal, Model model,
+			List<TaskData> taskRows, List<Integer> removedIds) {
+		model.addAttribute("taskStats", taskService.selectStats(principal.getName()));
+		model.addAttribute("nextUp", taskService.selectNextUp(principal.getName()));
+		model.addAttribute("taskRows", taskRows);
+		model.addAttribute("removedIds", removedIds);
+		return "task/mutation";
+	}
+
+	/**
+	 * 他の画面で変更されていたため、処理できなかったことを表示します。
+	 * 
+	 * <p>部分更新の場合は、対象のタスクの最新の行(削除済みの場合は行の削除)を返却し、そのまま再度操作できるようにします。
+	 * 
+	 * @param requestedWith X-Requested-Withヘッダの値(null可)
+	 * @param principal ログイン中のユーザ情報を格納(null不可)
+	 * @param model Viewに値を渡すオブジェクト(null不可)
+	 * @param id 操作したタスクID
+	 * @return タスク一覧画面、または部分更新用の画面へのパス(null不可)
+	 */
+	private String getConflictResult(String requestedWith, Principal principal, Model model, int id) {
+		model.addAttribute("errorMessage", MESSAGE_CONFLICT);
+		if (!isFragment(requestedWith)) {
+			return getTaskList(principal, model);
+		}
+		List<TaskData> taskRows = taskService.selectOwned(principal.getName(), List.of(id));
+		return getTaskFragment(principal, model, taskRows, taskRows.isEmpty() ? List.of(id) : List.of());
+	}
+
+	/**
+	 * 版数の文字列を数値へ変換します。
+	 * 
+	 * @param version 版数の文字列(null可、チェック済み)
+	 * @return 版数(未指定の場合はnull)
+	 */
+	private Integer toVersion(String version) {
+		return version == null ? null : Integer.valueOf(version);
+	}
+
+	/**
+	 * 部分更新を要求するリクエストかを判定します。
+	 * 
+	 * @param requestedWith X-Requested-Withヘッダの値(null可)
+	 * @return 部分更新を要求する場合はtrue
+	 */
+	private boolean isFragment(String requestedWith) {
+		return FRAGMENT_REQUEST.equals(requestedWith);
+	}
+
 
 	/**
 	 * 入力されたタスクをDBへ登録します。
@@ -54,30 +284,73 @@ public class TaskController {
 	 * 
 	 * @param title タスク内容の文字列を格納(null不可)
 	 * @param limit 期限日の文字列を格納(null不可)
+	 * @param priority 優先度の文字列を格納(未指定の場合は中、null可)
+	 * @param requestedWith X-Requested-Withヘッダの値(null可)
 	 * @param principal ログイン中のユーザ情報を格納(null不可)
 	 * @param model Viewに値を渡すオブジェクト(null不可)
-	 * @return タスク一覧画面へのパス(null不可)
+	 * @return タスク一覧画面、または部分更新用の画面へのパス(null不可)
 	 */
 	@PostMapping("/task/insert")
 	public String insertTask(@RequestParam(name = "title") String title,
 			                 @RequestParam(name = "limit") String limit,
+			                 @RequestParam(name = "priority", required = false) String priority,
+			@RequestHeader(name = "X-Requested-With", required = false) String requestedWith,
 			Principal principal, Model model) {
 		
-		// 入力チェック
-		boolean isValid = taskService.validate(title, limit);
-		if (!isValid) {
+		// 入力チェック(解析した期限日・優先度をそのまま登録に利用する)
+		TaskData input = taskValidator.toTaskData(principal.getName(), title, limit, priority);
+		if (input == null) {
 			model.addAttribute("errorMessage", "入力項目に不備があります");
-			return getTaskList(principal, model);
+			return getTaskResult(requestedWith, principal, model, List.of(), List.of());
 		}
 
 		// 実行結果を取得
-		boolean isSuccess = taskService.insert(principal.getName(), title, limit);
-		if (isSuccess) {
+		TaskData taskData = taskService.create(input);
+		if (taskData != null) {
 			model.addAttribute("message", "正常に登録されました");
 		} else {
 			model.addAttribute("errorMessage", "登録できませんでした。再度登録し直してください");
 		}
 		
+		return getTaskResult(requestedWith, principal, model,
+				taskData == null ? List.of() : List.of(taskData), List.of());
+	}
+
+	/**
+	 * アップロードされたファイルのタスクを一括でDBへ登録します。
+	 * 
+	 * <p>本機能は、タスク管理機能の一括登録機能を提供します。<br>
+	 * CSV(ヘッダ行に title, limitday を含む)またはJSON(拡張子 .json)に対応します。
+	 * 
+	 * @param file 登録するタスクを記載したファイル(null不可)
+	 * @param principal ログイン中のユーザ情報を格納(null不可)
+	 * @param model Viewに値を渡すオブジェクト(null不可)
+	 * @return タスク一覧画面へのパス(null不可)
+	 */
+	@PostMapping("/task/import")
+	public String importTask(@RequestParam("file") MultipartFile file, Principal principal, Model model) {
+
+		if (file.isEmpty()) {
+			model.addAttribute("errorMessage", "ファイルを選択してください");
+			return getTaskList(principal, model);
+		}
+
+		TaskImportResult importResult;
+		try (InputStream in = file.getInputStream()) {
+			importResult = taskService.importTasks(principal.getName(), file.getOriginalFilename(), in);
+		} catch (IOException e) {
+			model.addAttribute("errorMessage", "ファイルを読み込めませんでした。再度登録し直してください");
+			return getTaskList(principal, model);
+		}
+
+		model.addAttribute("importResult", importResult);
+		if (importResult.getErrorMessage() != null) {
+			model.addAttribute("errorMessage", importResult.getErrorMessage());
+		} else if (importResult.getErrorCount() > 0) {
+			model.addAttribute("errorMessage", importResult.getErrorCount() + "件のタスクが登録できませんでした");
+		}
+		model.addAttribute("message", importResult.getImportedCount() + "件のタスクを登録しました");
+
 		return getTaskList(principal, model);
 	}
 
@@ -86,26 +359,42 @@ public class TaskController {
 	 * 
 	 * <p>本機能は、タスク管理機能の削除機能を提供します。
 	 * 
+	 * <p>画面の表示後に他の画面で変更されていた場合は削除せず、最新の状態を表示します。
+	 * 
 	 * @param id タスクIDの文字列を格納(null不可)
+	 * @param version 画面に表示した時点の版数の文字列を格納(null可)
+	 * @param requestedWith X-Requested-Withヘッダの値(null可)
 	 * @param principal ログイン中のユーザ情報を格納(null不可)
 	 * @param model Viewに値を渡すオブジェクト(null不可)
-	 * @return タスク一覧画面へのパス(null不可)
+	 * @return タスク一覧画面、または部分更新用の画面へのパス(null不可)
 	 */
 	@PostMapping("/task/delete")
-	public String deleteTask(@RequestParam("id") String id, Principal principal, Model model) {
+	public String deleteTask(@RequestParam("id") String id,
+			@RequestParam(name = "version", required = false) String version,
+			@RequestHeader(name = "X-Requested-With", required = false) String requestedWith,
+			Principal principal, Model model) {
 		
-		boolean isValid = taskService.validate(id);
+		boolean isValid = taskValidator.isValidId(id) && (version == null || taskValidator.isValidId(version));
 		if(!isValid) {
+			if (isFragment(requestedWith)) {
+				model.addAttribute("errorMessage", "削除できませんでした。再度登録し直してください");
+				return getTaskFragment(principal, model, List.of(), List.of());
+			}
 			return "index";
 		}
 		
-		boolean isSuccess = taskService.delete(id);
+		TaskUpdateResult result = taskService.delete(principal.getName(), id, toVersion(version));
+		if (result == TaskUpdateResult.CONFLICT) {
+			return getConflictResult(requestedWith, principal, model, Integer.parseInt(id));
+		}
+		boolean isSuccess = result == TaskUpdateResult.SUCCESS;
 		if (isSuccess) {
 			model.addAttribute("message", "正常に削除されました");
 		} else {
 			model.addAttribute("errorMessage", "削除できませんでした。再度登録し直してください");
 		}
-		return getTaskList(principal, model);
+		return getTaskResult(requestedWith, principal, model,
+				List.of(), isSuccess ? List.of(Integer.parseInt(id)) : List.of());
 	}
 	
 	/**
@@ -113,45 +402,152 @@ public class TaskController {
 	 * 
 	 * <p>本機能は、タスク管理機能の状態変更機能を提供します。
 	 * 
+	 * <p>画面の表示後に他の画面で変更されていた場合は更新せず、最新の状態を表示します。
+	 * 
 	 * @param id タスクIDの文字列を格納(null不可)
+	 * @param version 画面に表示した時点の版数の文字列を格納(null可)
+	 * @param requestedWith X-Requested-Withヘッダの値(null可)
 	 * @param principal ログイン中のユーザ情報を格納(null不可)
 	 * @param model Viewに値を渡すオブジェクト(null不可)
-	 * @return タスク一覧画面へのパス(null不可)
+	 * @return タスク一覧画面、または部分更新用の画面へのパス(null不可)
 	 */
 	@PostMapping("/task/complate")
-	public String complateTask(@RequestParam("id") String id, Principal principal, Model model) {
+	public String complateTask(@RequestParam("id") String id,
+			@RequestParam(name = "version", required = false) String version,
+			@RequestHeader(name = "X-Requested-With", required = false) String requestedWith,
+			Principal principal, Model model) {
 		
-		boolean isValid = taskService.validate(id);
+		boolean isValid = taskValidator.isValidId(id) && (version == null || taskValidator.isValidId(version));
 		if(!isValid) {
+			if (isFragment(requestedWith)) {
+				model.addAttribute("errorMessage", "更新できませんでした。再度登録し直してください");
+				return getTaskFragment(principal, model, List.of(), List.of());
+			}
 			return "index";
 		}
 		
-		boolean isSuccess = taskService.complate(id);
+		TaskUpdateResult result = taskService.complate(principal.getName(), id, toVersion(version));
+		if (result == TaskUpdateResult.CONFLICT) {
+			return getConflictResult(requestedWith, principal, model, Integer.parseInt(id));
+		}
+		boolean isSuccess = result == TaskUpdateResult.SUCCESS;
 		if (isSuccess) {
 			model.addAttribute("message", "正常に更新されました");
 		} else {
 			model.addAttribute("errorMessage", "更新できませんでした。再度登録し直してください");
 		}
-		return getTaskList(principal, model);
+		if (!isFragment(requestedWith)) {
+			return getTaskList(principal, model);
+		}
+		List<TaskData> taskRows = isSuccess
+				? taskService.selectOwned(principal.getName(), List.of(Integer.parseInt(id)))
+				: List.of();
+		return getTaskFragment(principal, model, taskRows, List.of());
+	}
+
+	/**
+	 * 選択された複数のタスクをDBから一括で削除します。
+	 * 
+	 * <p>本機能は、タスク管理機能の一括削除機能を提供します。
+	 * 
+	 * @param ids タスクIDの文字列のリスト(null不可)
+	 * @param requestedWith X-Requested-Withヘッダの値(null可)
+	 * @param principal ログイン中のユーザ情報を格納(null不可)
+	 * @param model Viewに値を渡すオブジェクト(null不可)
+	 * @return タスク一覧画面、または部分更新用の画面へのパス(null不可)
+	 */
+	@PostMapping("/task/delete/bulk")
+	public String deleteBulkTask(@RequestParam(name = "ids", required = false) List<String> ids,
+			@RequestHeader(name = "X-Requested-With", required = false) String requestedWith,
+			Principal principal, Model model) {
+
+		List<Integer> taskIds = toTaskIds(ids);
+		if (taskIds == null) {
+			model.addAttribute("errorMessage", "削除するタスクを選択してください");
+			return getTaskResult(requestedWith, principal, model, List.of(), List.of());
+		}
+
+		TaskBulkResult result = taskService.deleteAll(principal.getName(), taskIds);
+		model.addAttribute("bulkResult", result);
+		if (result.getNotFound().isEmpty()) {
+			model.addAttribute("message", result.getSucceeded().size() + "件のタスクを削除しました");
+		} else {
+			model.addAttribute("errorMessage", result.getNotFound().size() + "件のタスクが削除できませんでした");
+		}
+		return getTaskResult(requestedWith, principal, model, List.of(), result.getSucceeded());
+	}
+
+	/**
+	 * 選択された複数のタスクの状態を一括で完了に変更します。
+	 * 
+	 * <p>本機能は、タスク管理機能の一括状態変更機能を提供します。
+	 * 
+	 * @param ids タスクIDの文字列のリスト(null不可)
+	 * @param requestedWith X-Requested-Withヘッダの値(null可)
+	 * @param principal ログイン中のユーザ情報を格納(null不可)
+	 * @param model Viewに値を渡すオブジェクト(null不可)
+	 * @return タスク一覧画面、または部分更新用の画面へのパス(null不可)
+	 */
+	@PostMapping("/task/complate/bulk")
+	public String complateBulkTask(@RequestParam(name = "ids", required = false) List<String> ids,
+			@RequestHeader(name = "X-Requested-With", required = false) String requestedWith,
+			Principal principal, Model model) {
+
+		List<Integer> taskIds = toTaskIds(ids);
+		if (taskIds == null) {
+			model.addAttribute("errorMessage", "完了するタスクを選択してください");
+			return getTaskResult(requestedWith, principal, model, List.of(), List.of());
+		}
+
+		TaskBulkResult result = taskService.complateAll(principal.getName(), taskIds);
+		model.addAttribute("bulkResult", result);
+		if (result.getNotFound().isEmpty()) {
+			model.addAttribute("message", result.getSucceeded().size() + "件のタスクを更新しました");
+		} else {
+			model.addAttribute("errorMessage", result.getNotFound().size() + "件のタスクが更新できませんでした");
+		}
+		if (!isFragment(requestedWith)) {
+			return getTaskList(principal, model);
+		}
+		return getTaskFragment(principal, model,
+				taskService.selectOwned(principal.getName(), result.getSucceeded()), List.of());
+	}
+
+	/**
+	 * 画面から受け取ったタスクIDの文字列を数値へ変換します。
+	 * 
+	 * @param ids タスクIDの文字列のリスト(null可)
+	 * @return タスクIDのリスト(未選択、または不正な値を含む場合はnull)
+	 */
+	private List<Integer> toTaskIds(List<String> ids) {
+		if (ids == null || ids.isEmpty()) {
+			return null;
+		}
+		List<Integer> taskIds = new ArrayList<Integer>(ids.size());
+		for (String id : ids) {
+			if (!taskValidator.isValidId(id)) {
+				return null;
+			}
+			taskIds.add(Integer.parseInt(id));
+		}
+		return taskIds;
 	}
 
 	/**
 	 * ログイン中のユーザに紐づく、タスクを全件CSVファイルに出力します。
 	 * 
-	 * <p>本機能は、タスク管理機能のCSV出力機能を提供します。
+	 * <p>本機能は、タスク管理機能のCSV出力機能を提供します。<br>
+	 * CSVはサーバ上にファイルを作成せず、レスポンスへ直接出力します。
 	 * 
 	 * @param principal ログイン中のユーザ情報を格納(null不可)
 	 * @param model Viewに値を渡すオブジェクト(null不可)
 	 * @return CSVファイル
 	 */
 	@PostMapping("/task/csv")
-	public ResponseEntity<byte[]> getTaskCsv(Principal principal, Model model) {
-
-		// CSVファイルをサーバ上に作成
-		ResponseEntity<byte[]> csv = taskService.taskListCsvOut(principal.getName());
+	public ResponseEntity<StreamingResponseBody> getTaskCsv(Principal principal, Model model) {
 
 		// CSVファイルを端末へ送信
-		return csv;
+		return taskService.taskListCsvOut(principal.getName());
 	}
 	
 }
@@ -0,0 +1,90 @@
+package com.example.demo.task;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.Base64;
+
+/**
+ * タスク一覧のページ位置を表すカーソルです。
+ *
+ * <p>一覧の並び順である (期限日, タスクID) の組をそのまま保持し、
+ * 次ページ・前ページの取得条件（シーク条件）として利用します。<br>
+ * 画面とのやり取りには、URLに埋め込める文字列（トークン）へ変換して利用します。
+ *
+ * @author 情報太郎
+ */
+public class TaskCursor {
+
+	/** トークン内の区切り文字 */
+	private static final String SEPARATOR = ":";
+
+	/** 期限日 */
+	private final Date limitday;
+
+	/** タスクID */
+	private final int id;
+
+	/**
+	 * カーソルを生成します。
+	 *
+	 * @param limitday 期限日(null不可)
+	 * @param id タスクID
+	 */
+	public TaskCursor(java.util.Date limitday, int id) {
+		this.limitday = new Date(limitday.getTime());
+		this.id = id;
+	}
+
+	/**
+	 * 指定されたタスクの位置を表すカーソルを生成します。
+	 *
+	 * @param taskData タスク情報(null不可)
+	 * @return カーソル
+	 */
+	public static TaskCursor of(TaskData taskData) {
+		return new TaskCursor(taskData.getLimitday(), taskData.getId());
+	}
+
+	/**
+	 * トークン文字列からカーソルを復元します。
+	 *
+	 * <p>トークンが未指定、または不正な形式の場合はnullを返却します。
+	 *
+	 * @param token トークン文字列
+	 * @return カーソル(復元できない場合はnull)
+	 */
+	public static TaskCursor decode(String token) {
+		if (token == null || token.isBlank()) {
+			return null;
+		}
+		try {
+			String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			String[] parts = value.split(SEPARATOR);
+			if (parts.length != 2) {
+				return null;
+			}
+			return new TaskCursor(Date.valueOf(parts[0]), Integer.parseInt(parts[1]));
+		} catch (IllegalArgumentException e) {
+			// Base64・日付・数値いずれかの形式不正
+			return null;
+		}
+	}
+
+	/**
+	 * カーソルをトークン文字列へ変換します。
+	 *
+	 * @return トークン文字列
+	 */
+	public String encode() {
+		String value = limitday.toString() + SEPARATOR + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public Date getLimitday() {
+		return limitday;
+	}
+
+	public int getId() {
+		return id;
+	}
+}
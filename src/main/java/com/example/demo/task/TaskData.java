@@ -13,6 +13,15 @@ import lombok.Data;
 @Data
 public class TaskData {
 
+	/** 優先度：高 */
+	public static final int PRIORITY_HIGH = 1;
+
+	/** 優先度：中(デフォルト値) */
+	public static final int PRIORITY_NORMAL = 2;
+
+	/** 優先度：低 */
+	public static final int PRIORITY_LOW = 3;
+
 	/**
 	 * タスクID：主キー、SQLにて自動採番
 	 */
@@ -38,5 +47,20 @@ public class TaskData {
 	 */
 	private boolean isComplate;
 
+	/**
+	 * 優先度：値が小さいほど優先度が高い(1:高、2:中、3:低)、デフォルト値は、2(中)
+	 */
+	private int priority = PRIORITY_NORMAL;
+
+	/**
+	 * 完了日時：完了状態にした日時、未完了の場合はnull
+	 */
+	private Date complatedAt;
+
+	/**
+	 * 版数：更新・削除の競合を検知するための番号、更新ごとに1ずつ増加する
+	 */
+	private int version;
+
 }
 
@@ -20,6 +20,12 @@ public class TaskEntity {
 	/** タスク情報のリスト */
 	private List<TaskData> taskList = new ArrayList<TaskData>();
 	
+	/** 次ページのカーソル(次ページがない場合はnull) */
+	private String nextCursor;
+
+	/** 前ページのカーソル(前ページがない場合はnull) */
+	private String prevCursor;
+
 	/** エラーメッセージ(表示用) */
 	private String errorMessage;
 
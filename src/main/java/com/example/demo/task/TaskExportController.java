@@ -0,0 +1,69 @@
+package com.example.demo.task;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.demo.WebConfig;
+
+/**
+ * 【管理者】全ユーザのタスクの出力機能を表す。
+ *
+ * <p>本機能は、監査向けに{@code task_t}の全件をgzip圧縮したCSVとして出力します。<br>
+ * CSVはサーバ上にファイルを作成せず、レスポンスへ直接出力します。
+ * <p><strong>この機能は管理者ロールのユーザのみが利用できます</strong>
+ *
+ * @author 情報太郎
+ *
+ */
+@RestController
+public class TaskExportController {
+
+	/* タスク全件出力の業務ロジッククラス */
+	@Autowired
+	private TaskExportService taskExportService;
+
+	/**
+	 * 【管理者】全ユーザのタスクを、gzip圧縮したCSVファイルに出力します。
+	 *
+	 * <p>出力は同時に1つのみ実行できます。既に出力中の場合は409(Conflict)を返却します。
+	 * <p>出力の開始はレスポンスの書き込み時に行うため、書き込みが実行されなかった場合も出力中のまま残りません。<br>
+	 * 同時に要求された場合は、後から書き込みを始めた方のレスポンスを中断します。
+	 *
+	 * @return gzip圧縮したCSVファイル
+	 */
+	@PostMapping("/admin/task/export")
+	public ResponseEntity<StreamingResponseBody> exportAll() {
+		if (taskExportService.getProgress().isRunning()) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).build();
+		}
+
+		HttpHeaders header = new HttpHeaders();
+		header.add("Content-Type", "application/gzip");
+		header.setContentDispositionFormData("filename", WebConfig.FILENAME_TASK_EXPORT);
+		return new ResponseEntity<StreamingResponseBody>(out -> {
+			TaskExportProgress progress = taskExportService.start();
+			if (progress == null) {
+				throw new IOException("既に出力中のため、出力を中断しました");
+			}
+			taskExportService.export(progress, out);
+		}, header, HttpStatus.OK);
+	}
+
+	/**
+	 * 【管理者】実行中、または最後に実行した出力の進捗を取得します。
+	 *
+	 * @return 出力の進捗
+	 */
+	@GetMapping("/admin/task/export/progress")
+	public TaskExportProgress getProgress() {
+		return taskExportService.getProgress();
+	}
+}
@@ -0,0 +1,107 @@
+package com.example.demo.task;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * タスク全件出力の進捗を表します。
+ *
+ * <p>出力中は複数のスレッドから更新されるため、件数は{@code Atomic*}で保持します。<br>
+ * JSONへ変換して、管理者の進捗確認に利用します。
+ *
+ * @author 情報太郎
+ */
+public class TaskExportProgress {
+
+	/** 出力対象の件数(開始時点) */
+	private volatile long totalRows;
+
+	/** シャード数 */
+	private volatile int totalShards;
+
+	/** 出力した件数 */
+	private final AtomicLong exportedRows = new AtomicLong();
+
+	/** 出力を終えたシャード数 */
+	private final AtomicInteger finishedShards = new AtomicInteger();
+
+	/** 出力したバイト数(圧縮後) */
+	private final AtomicLong writtenBytes = new AtomicLong();
+
+	/** 開始日時(未開始の場合はnull) */
+	private volatile Date startedAt;
+
+	/** 終了日時(出力中の場合はnull) */
+	private volatile Date finishedAt;
+
+	/** 失敗の有無 */
+	private volatile boolean failed;
+
+	void start() {
+		this.startedAt = new Date();
+	}
+
+	void plan(long totalRows, int totalShards) {
+		this.totalRows = totalRows;
+		this.totalShards = totalShards;
+	}
+
+	void addRows(long rows) {
+		exportedRows.addAndGet(rows);
+	}
+
+	int finishShard() {
+		return finishedShards.incrementAndGet();
+	}
+
+	void addBytes(long bytes) {
+		writtenBytes.addAndGet(bytes);
+	}
+
+	void finish(boolean failed) {
+		this.failed = failed;
+		this.finishedAt = new Date();
+	}
+
+	/**
+	 * 出力中かを判定します。
+	 *
+	 * @return 出力中の場合はtrue
+	 */
+	public boolean isRunning() {
+		return startedAt != null && finishedAt == null;
+	}
+
+	public long getTotalRows() {
+		return totalRows;
+	}
+
+	public int getTotalShards() {
+		return totalShards;
+	}
+
+	public long getExportedRows() {
+		return exportedRows.get();
+	}
+
+	public int getFinishedShards() {
+		return finishedShards.get();
+	}
+
+	public long getWrittenBytes() {
+		return writtenBytes.get();
+	}
+
+	public Date getStartedAt() {
+		return startedAt;
+	}
+
+	public Date getFinishedAt() {
+		return finishedAt;
+	}
+
+	public boolean isFailed() {
+		return failed;
+	}
+}
@@ -0,0 +1,274 @@
+package com.example.demo.task;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * 全ユーザのタスクを、gzip圧縮したCSVとして出力します(管理者向け)。
+ *
+ * <p>タスクをユーザIDの範囲で{@code task.export.shards}個のシャードに分け、
+ * {@code task.export.parallelism}スレッドの専用スレッドプールで並列に読み込みます。<br>
+ * 各シャードは約{@value #BLOCK_SIZE}文字ごとに行単位でgzipのメンバーへ圧縮し、出力スレッドが到着順に連結します。
+ * gzipは複数のメンバーの連結を1つのファイルとして展開できるため、出力全体で1つの{@code .csv.gz}になります。
+ * シャード間の行の順序は保証しません。
+ *
+ * <p>圧縮済みのブロックは最大{@code task.export.queue-blocks}個までしか待機させず、
+ * 出力先への書き込みが遅い場合は読み込みを待たせます。
+ * そのため、件数によらずメモリ使用量は(待機ブロック数 + スレッド数) × ブロックサイズ程度に収まります。
+ *
+ * <p>出力は同時に1つのみ実行でき、進捗は{@link #getProgress()}で参照できます。
+ * 出力の開始時に{@link TaskComplateBuffer}の未反映の完了をDBへ反映するため、完了直後のタスクも完了状態で出力します。
+ *
+ * @author 情報太郎
+ */
+@Log4j2
+@Service
+public class TaskExportService {
+
+	@Autowired
+	private TaskRepository taskRepository;
+
+	@Autowired
+	private TaskComplateBuffer taskComplateBuffer;
+
+	/** 1ブロックあたりの文字数(目安) */
+	private static final int BLOCK_SIZE = 64 * 1024;
+
+	/** シャードの終了を表すブロック */
+	private static final byte[] END_OF_SHARD = new byte[0];
+
+	/** シャード数 */
+	@Value("${task.export.shards:8}")
+	private int shardCount;
+
+	/** 出力待ちのブロック数の上限 */
+	@Value("${task.export.queue-blocks:16}")
+	private int queueBlocks;
+
+	/** シャードの読み込み用スレッドプール */
+	private final ExecutorService executor;
+
+	/** 実行中、または最後に実行した出力の進捗 */
+	private final AtomicReference<TaskExportProgress> progress = new AtomicReference<TaskExportProgress>(
+			new TaskExportProgress());
+
+	/**
+	 * サービスを生成します。
+	 *
+	 * @param parallelism シャードを並列に読み込むスレッド数
+	 */
+	public TaskExportService(@Value("${task.export.parallelism:4}") int parallelism) {
+		AtomicInteger threadCount = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+			Thread thread = new Thread(runnable, "task-export-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * 出力を開始します。
+	 *
+	 * @return 開始した出力の進捗(既に出力中の場合はnull)
+	 */
+	public TaskExportProgress start() {
+		TaskExportProgress current = progress.get();
+		TaskExportProgress next = new TaskExportProgress();
+		if (current.isRunning() || !progress.compareAndSet(current, next)) {
+			return null;
+		}
+		next.start();
+		return next;
+	}
+
+	/**
+	 * 実行中、または最後に実行した出力の進捗を取得します。
+	 *
+	 * @return 出力の進捗(未実行の場合は開始日時がnull)
+	 */
+	public TaskExportProgress getProgress() {
+		return progress.get();
+	}
+
+	/**
+	 * 全ユーザのタスクを、gzip圧縮したCSVとして出力先へ書き込みます。
+	 *
+	 * <p>{@link #start()}で開始した進捗を指定してください。書き込みが完了・失敗した時点で進捗を終了します。
+	 *
+	 * @param exportProgress {@link #start()}で開始した進捗(null不可)
+	 * @param out 出力先(null不可)
+	 * @throws IOException 読み込み、または出力先への書き込みに失敗した場合
+	 */
+	public void export(TaskExportProgress exportProgress, OutputStream out) throws IOException {
+		boolean failed = true;
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		try {
+			// DBから直接出力するため、未反映の完了を先に反映する
+			taskComplateBuffer.flush();
+			List<String> bounds = planShards(exportProgress);
+			BlockingQueue<byte[]> queue = new ArrayBlockingQueue<byte[]>(queueBlocks);
+			for (int i = 0; i < bounds.size(); i++) {
+				String from = bounds.get(i);
+				String to = i + 1 < bounds.size() ? bounds.get(i + 1) : null;
+				futures.add(executor.submit(() -> exportShard(from, to, queue, exportProgress)));
+			}
+
+			StringWriter header = new StringWriter();
+			new TaskRowCallbackHandler(header, true).writeHeader();
+			write(out, gzip(header.toString()), exportProgress);
+
+			// シャードの終了を数えながら、到着順にブロックを連結する
+			int finished = 0;
+			while (finished < futures.size()) {
+				byte[] block = queue.take();
+				if (block == END_OF_SHARD) {
+					finished++;
+				} else {
+					write(out, block, exportProgress);
+				}
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			out.flush();
+			failed = false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("出力を中断しました", e);
+		} catch (ExecutionException e) {
+			throw new IOException("シャードの読み込みに失敗しました", e.getCause());
+		} finally {
+			// 書き込みに失敗した場合は、読み込み中のシャードを中断する
+			futures.forEach(future -> future.cancel(true));
+			exportProgress.finish(failed);
+			log.info("タスク全件出力 終了 失敗:" + failed + " 件数:" + exportProgress.getExportedRows() + "/"
+					+ exportProgress.getTotalRows() + " バイト数:" + exportProgress.getWrittenBytes());
+		}
+	}
+
+	/**
+	 * ユーザ毎の件数から、各シャードの件数がおよそ等しくなるようにユーザIDの範囲を決めます。
+	 *
+	 * @param exportProgress 出力の進捗(null不可)
+	 * @return 各シャードの開始ユーザID(先頭は空文字、ユーザIDの昇順)
+	 */
+	List<String> planShards(TaskExportProgress exportProgress) {
+		long totalRows = taskRepository.countAll();
+		long rowsPerShard = Math.max(1, (totalRows + shardCount - 1) / shardCount);
+
+		List<String> bounds = new ArrayList<String>();
+		bounds.add("");
+		long[] rows = { 0 };
+		taskRepository.countByUser(rs -> {
+			// 前のユーザまでの件数がシャードの件数に達した場合は、このユーザから次のシャードとする
+			if (rows[0] >= rowsPerShard * bounds.size() && bounds.size() < shardCount) {
+				bounds.add(rs.getString("user_id"));
+			}
+			rows[0] += rs.getLong("count");
+		});
+		exportProgress.plan(totalRows, bounds.size());
+		log.info("タスク全件出力 開始 件数:" + totalRows + " シャード数:" + bounds.size());
+		return bounds;
+	}
+
+	/**
+	 * 1つのシャードを読み込み、圧縮したブロックを出力待ちへ追加します。
+	 *
+	 * @param from 開始ユーザID
+	 * @param to 終了ユーザID(nullの場合は上限なし)
+	 * @param queue 出力待ちのブロック
+	 * @param exportProgress 出力の進捗
+	 * @return なし
+	 * @throws InterruptedException 出力待ちへの追加中に中断された場合
+	 * @throws SQLException 出力待ちへの追加中に中断された場合
+	 */
+	private Void exportShard(String from, String to, BlockingQueue<byte[]> queue, TaskExportProgress exportProgress)
+			throws InterruptedException, SQLException {
+		try {
+			StringWriter buffer = new StringWriter(BLOCK_SIZE + 256);
+			TaskRowCallbackHandler csv = new TaskRowCallbackHandler(buffer, true);
+			long[] rows = { 0 };
+			taskRepository.exportRange(from, to, rs -> {
+				csv.processRow(rs);
+				rows[0]++;
+				if (buffer.getBuffer().length() >= BLOCK_SIZE) {
+					putBlock(queue, buffer);
+					exportProgress.addRows(rows[0]);
+					rows[0] = 0;
+				}
+			});
+			if (buffer.getBuffer().length() > 0) {
+				putBlock(queue, buffer);
+			}
+			exportProgress.addRows(rows[0]);
+			log.info("タスク全件出力 シャード完了 " + exportProgress.finishShard() + "/"
+					+ exportProgress.getTotalShards() + " ユーザID:" + from + "～" + (to == null ? "" : to));
+			return null;
+		} finally {
+			queue.put(END_OF_SHARD);
+		}
+	}
+
+	/**
+	 * 読み込んだ行を圧縮して出力待ちへ追加し、バッファを空にします。
+	 */
+	private void putBlock(BlockingQueue<byte[]> queue, StringWriter buffer) throws SQLException {
+		try {
+			queue.put(gzip(buffer.toString()));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("出力を中断しました", e);
+		}
+		buffer.getBuffer().setLength(0);
+	}
+
+	private void write(OutputStream out, byte[] block, TaskExportProgress exportProgress) throws IOException {
+		out.write(block);
+		exportProgress.addBytes(block.length);
+	}
+
+	/**
+	 * 文字列を1つのgzipのメンバーへ圧縮します。
+	 */
+	private static byte[] gzip(String text) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(text.length() / 4);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+			gzip.write(text.getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			// メモリ上への書き込みのため発生しない
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * アプリケーションの終了時に、読み込み中のシャードを中断します。
+	 */
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,208 @@
+package com.example.demo.task;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * タスク一括登録用のファイルを読み込みます。
+ *
+ * <p>以下の形式に対応します。
+ * <ul>
+ * <li>CSV：1行目はヘッダ行。{@code title}列と{@code limitday}列、任意で{@code priority}列を利用します(CSV出力の形式も可)</li>
+ * <li>JSON：{@code [{"title": "...", "limitday": "yyyy-MM-dd", "priority": 1}, ...]} 形式の配列({@code priority}は任意)</li>
+ * </ul>
+ * <p>ファイル全体をメモリに読み込まず、1件読み込むごとに{@link RowConsumer}へ渡します。
+ *
+ * @author 情報太郎
+ */
+public class TaskImportReader {
+
+	/** CSVの件名列名 */
+	private static final String COLUMN_TITLE = "title";
+
+	/** CSVの期限日列名 */
+	private static final String COLUMN_LIMITDAY = "limitday";
+
+	/** CSVの優先度列名 */
+	private static final String COLUMN_PRIORITY = "priority";
+
+	/** JSONの読み込みに利用するファクトリ(スレッドセーフ) */
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	/**
+	 * 読み込んだ1件分のタスクを受け取る処理です。
+	 */
+	@FunctionalInterface
+	public interface RowConsumer {
+
+		/**
+		 * 読み込んだ1件分のタスクを受け取ります。
+		 *
+		 * @param rowNumber 行番号(1始まり、CSVはヘッダ行を除く)
+		 * @param title 件名(未設定の場合はnull)
+		 * @param limitday 期限日(未設定の場合はnull)
+		 * @param priority 優先度(未設定の場合はnull)
+		 */
+		void accept(int rowNumber, String title, String limitday, String priority);
+	}
+
+	private TaskImportReader() {
+	}
+
+	/**
+	 * ファイル名の拡張子から形式を判定して読み込みます。
+	 *
+	 * <p>拡張子が{@code .json}の場合はJSON、それ以外はCSVとして読み込みます。
+	 *
+	 * @param fileName ファイル名(null可)
+	 * @param in 読み込み元(null不可)
+	 * @param consumer 1件ごとの処理(null不可)
+	 * @throws IOException 読み込みに失敗した場合、またはファイル形式が不正な場合
+	 */
+	public static void read(String fileName, InputStream in, RowConsumer consumer) throws IOException {
+		if (fileName != null && fileName.toLowerCase().endsWith(".json")) {
+			readJson(in, consumer);
+		} else {
+			readCsv(in, consumer);
+		}
+	}
+
+	/**
+	 * CSV形式のファイルを読み込みます。
+	 *
+	 * @param in 読み込み元(null不可)
+	 * @param consumer 1件ごとの処理(null不可)
+	 * @throws IOException 読み込みに失敗した場合、またはヘッダ行が不正な場合
+	 */
+	public static void readCsv(InputStream in, RowConsumer consumer) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+		// ヘッダ行から列の位置を特定
+		String headerLine = reader.readLine();
+		if (headerLine == null) {
+			return;
+		}
+		List<String> header = splitCsvLine(stripBom(headerLine));
+		int titleIndex = header.indexOf(COLUMN_TITLE);
+		int limitdayIndex = header.indexOf(COLUMN_LIMITDAY);
+		int priorityIndex = header.indexOf(COLUMN_PRIORITY);
+		if (titleIndex < 0 || limitdayIndex < 0) {
+			throw new IOException("ヘッダ行に" + COLUMN_TITLE + "列と" + COLUMN_LIMITDAY + "列が必要です");
+		}
+
+		int rowNumber = 0;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			rowNumber++;
+			if (line.isBlank()) {
+				continue;
+			}
+			List<String> columns = splitCsvLine(line);
+			consumer.accept(rowNumber, column(columns, titleIndex), column(columns, limitdayIndex),
+					priorityIndex < 0 ? null : column(columns, priorityIndex));
+		}
+	}
+
+	/**
+	 * JSON形式のファイルを読み込みます。
+	 *
+	 * @param in 読み込み元(null不可)
+	 * @param consumer 1件ごとの処理(null不可)
+	 * @throws IOException 読み込みに失敗した場合、またはJSONの構造が不正な場合
+	 */
+	public static void readJson(InputStream in, RowConsumer consumer) throws IOException {
+		try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+			if (parser.nextToken() != JsonToken.START_ARRAY) {
+				throw new IOException("JSONはタスクの配列で指定してください");
+			}
+
+			int rowNumber = 0;
+			JsonToken token;
+			while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+				if (token == null) {
+					throw new IOException("JSONの配列が閉じられていません");
+				}
+				rowNumber++;
+				if (token != JsonToken.START_OBJECT) {
+					// オブジェクト以外の要素は、内容の無い行として扱う
+					parser.skipChildren();
+					consumer.accept(rowNumber, null, null, null);
+					continue;
+				}
+
+				String title = null;
+				String limitday = null;
+				String priority = null;
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String field = parser.getCurrentName();
+					JsonToken value = parser.nextToken();
+					if (COLUMN_TITLE.equals(field) && value.isScalarValue()) {
+						title = parser.getValueAsString();
+					} else if (COLUMN_LIMITDAY.equals(field) && value.isScalarValue()) {
+						limitday = parser.getValueAsString();
+					} else if (COLUMN_PRIORITY.equals(field) && value.isScalarValue()) {
+						priority = parser.getValueAsString();
+					} else {
+						// 対象外の項目は読み飛ばす
+						parser.skipChildren();
+					}
+				}
+				consumer.accept(rowNumber, title, limitday, priority);
+			}
+		}
+	}
+
+	/**
+	 * CSVの1行を列に分割します。
+	 *
+	 * <p>ダブルクォートで囲まれた列(カンマ・エスケープされたダブルクォートを含む)に対応します。<br>
+	 * ユーザの一括登録など、タスク以外のCSVの読み込みにも利用します。
+	 *
+	 * @param line CSVの1行(null不可)
+	 * @return 列のリスト
+	 */
+	public static List<String> splitCsvLine(String line) {
+		List<String> columns = new ArrayList<String>();
+		StringBuilder column = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					column.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					column.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				columns.add(column.toString());
+				column.setLength(0);
+			} else {
+				column.append(c);
+			}
+		}
+		columns.add(column.toString());
+		return columns;
+	}
+
+	private static String column(List<String> columns, int index) {
+		return index < columns.size() ? columns.get(index).strip() : null;
+	}
+
+	private static String stripBom(String line) {
+		return line.startsWith("\uFEFF") ? line.substring(1) : line;
+	}
+}
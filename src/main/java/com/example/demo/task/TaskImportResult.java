@@ -0,0 +1,65 @@
+package com.example.demo.task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * タスク一括登録の実行結果です。
+ *
+ * <p>登録件数・エラー件数・処理性能と、エラーとなった行の内容を保持します。<br>
+ * エラー行は最大{@value #MAX_REPORTED_ERRORS}件まで保持し、それ以降は件数のみ数えます。
+ *
+ * @author 情報太郎
+ */
+@Data
+public class TaskImportResult {
+
+	/** 保持するエラー行の上限 */
+	public static final int MAX_REPORTED_ERRORS = 100;
+
+	/** 登録件数 */
+	private int importedCount;
+
+	/** エラー件数 */
+	private int errorCount;
+
+	/** 処理時間(ミリ秒) */
+	private long elapsedMillis;
+
+	/** 1秒あたりの処理件数 */
+	private long rowsPerSecond;
+
+	/** エラー行の一覧 */
+	private List<RowError> errors = new ArrayList<RowError>();
+
+	/** エラーメッセージ(ファイル全体のエラー、表示用) */
+	private String errorMessage;
+
+	/**
+	 * エラー行を追加します。
+	 *
+	 * @param rowNumber 行番号
+	 * @param message エラー内容
+	 */
+	public void addError(int rowNumber, String message) {
+		errorCount++;
+		if (errors.size() < MAX_REPORTED_ERRORS) {
+			errors.add(new RowError(rowNumber, message));
+		}
+	}
+
+	/**
+	 * 1行分のエラー情報です。
+	 */
+	@Data
+	public static class RowError {
+
+		/** 行番号 */
+		private final int rowNumber;
+
+		/** エラー内容 */
+		private final String message;
+	}
+}
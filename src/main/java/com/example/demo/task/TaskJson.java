@@ -0,0 +1,223 @@
+package com.example.demo.task;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import lombok.Data;
+
+/**
+ * タスクAPIのリクエスト・レスポンスのJSONを読み書きします。
+ *
+ * <p>リフレクションによるオブジェクトの変換(ObjectMapper)を使わず、
+ * 項目を1つずつストリーミングで読み書きします。<br>
+ * 項目名・形式はAPIの仕様として固定しているため、{@link TaskData}などの項目を追加しても自動では出力されません。
+ *
+ * <pre>
+ * タスク   : {"id": 1, "title": "...", "limitday": "yyyy-MM-dd", "priority": 2, "complete": false, "version": 0}
+ * 一覧     : {"tasks": [タスク, ...], "next": "カーソル" または null, "prev": "カーソル" または null}
+ * 一括結果 : {"succeeded": [1, 2], "notFound": [3]}
+ * エラー   : {"error": "メッセージ"}
+ * </pre>
+ *
+ * @author 情報太郎
+ */
+public class TaskJson {
+
+	/** JSONの読み書きに利用するファクトリ(スレッドセーフ) */
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	/** レスポンスの初期バッファサイズ */
+	private static final int INITIAL_BUFFER_SIZE = 1024;
+
+	/** 期限日を日付へ変換する際のタイムゾーン */
+	private static final ZoneId ZONE = ZoneId.systemDefault();
+
+	/**
+	 * タスク登録APIのリクエストです。
+	 */
+	@Data
+	public static class CreateRequest {
+
+		/** 件名(未設定の場合はnull) */
+		private String title;
+
+		/** 期限日(未設定の場合はnull) */
+		private String limitday;
+
+		/** 優先度(未設定の場合はnull) */
+		private String priority;
+	}
+
+	private TaskJson() {
+	}
+
+	/**
+	 * タスク登録APIのリクエストを読み込みます。
+	 *
+	 * @param body リクエストボディ(null不可)
+	 * @return リクエスト
+	 * @throws IOException JSONの構造が不正な場合
+	 */
+	public static CreateRequest readCreateRequest(byte[] body) throws IOException {
+		CreateRequest request = new CreateRequest();
+		try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException("JSONはオブジェクトで指定してください");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				JsonToken value = parser.nextToken();
+				if ("title".equals(field) && value.isScalarValue()) {
+					request.setTitle(parser.getValueAsString());
+				} else if ("limitday".equals(field) && value.isScalarValue()) {
+					request.setLimitday(parser.getValueAsString());
+				} else if ("priority".equals(field) && value.isScalarValue()) {
+					request.setPriority(parser.getValueAsString());
+				} else {
+					// 対象外の項目は読み飛ばす
+					parser.skipChildren();
+				}
+			}
+		}
+		return request;
+	}
+
+	/**
+	 * タスクIDのリスト({@code {"ids": [1, 2]}})を読み込みます。
+	 *
+	 * @param body リクエストボディ(null不可)
+	 * @return タスクIDのリスト
+	 * @throws IOException JSONの構造が不正な場合、またはタスクIDが整数でない場合
+	 */
+	public static List<Integer> readIds(byte[] body) throws IOException {
+		List<Integer> ids = new ArrayList<Integer>();
+		try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException("JSONはオブジェクトで指定してください");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				JsonToken value = parser.nextToken();
+				if (!"ids".equals(field) || value != JsonToken.START_ARRAY) {
+					parser.skipChildren();
+					continue;
+				}
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					if (parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+						throw new IOException("タスクIDは整数で指定してください");
+					}
+					ids.add(parser.getIntValue());
+				}
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * タスク一覧(1ページ分)を書き込みます。
+	 *
+	 * @param taskEntity タスク一覧(null不可)
+	 * @return JSON
+	 */
+	public static byte[] writePage(TaskEntity taskEntity) {
+		return write(generator -> {
+			generator.writeStartObject();
+			generator.writeArrayFieldStart("tasks");
+			for (TaskData taskData : taskEntity.getTaskList()) {
+				writeTask(generator, taskData);
+			}
+			generator.writeEndArray();
+			generator.writeStringField("next", taskEntity.getNextCursor());
+			generator.writeStringField("prev", taskEntity.getPrevCursor());
+			generator.writeEndObject();
+		});
+	}
+
+	/**
+	 * 1件のタスクを書き込みます。
+	 *
+	 * @param taskData タスク(null不可)
+	 * @return JSON
+	 */
+	public static byte[] writeTask(TaskData taskData) {
+		return write(generator -> writeTask(generator, taskData));
+	}
+
+	/**
+	 * 一括操作の実行結果を書き込みます。
+	 *
+	 * @param result 実行結果(null不可)
+	 * @return JSON
+	 */
+	public static byte[] writeBulkResult(TaskBulkResult result) {
+		return write(generator -> {
+			generator.writeStartObject();
+			writeIds(generator, "succeeded", result.getSucceeded());
+			writeIds(generator, "notFound", result.getNotFound());
+			generator.writeEndObject();
+		});
+	}
+
+	/**
+	 * エラーメッセージを書き込みます。
+	 *
+	 * @param message エラーメッセージ(null不可)
+	 * @return JSON
+	 */
+	public static byte[] writeError(String message) {
+		return write(generator -> {
+			generator.writeStartObject();
+			generator.writeStringField("error", message);
+			generator.writeEndObject();
+		});
+	}
+
+	private static void writeTask(JsonGenerator generator, TaskData taskData) throws IOException {
+		generator.writeStartObject();
+		generator.writeNumberField("id", taskData.getId());
+		generator.writeStringField("title", taskData.getTitle());
+		generator.writeStringField("limitday", taskData.getLimitday() == null ? null
+				: Instant.ofEpochMilli(taskData.getLimitday().getTime()).atZone(ZONE).toLocalDate().toString());
+		generator.writeNumberField("priority", taskData.getPriority());
+		generator.writeBooleanField("complete", taskData.isComplate());
+		generator.writeNumberField("version", taskData.getVersion());
+		generator.writeEndObject();
+	}
+
+	private static void writeIds(JsonGenerator generator, String field, List<Integer> ids) throws IOException {
+		generator.writeArrayFieldStart(field);
+		for (Integer id : ids) {
+			generator.writeNumber(id);
+		}
+		generator.writeEndArray();
+	}
+
+	private static byte[] write(Content content) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+		try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+			content.write(generator);
+		} catch (IOException e) {
+			// メモリ上への書き込みのため、発生しない
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * JSONの内容を書き込む処理です。
+	 */
+	@FunctionalInterface
+	private interface Content {
+		void write(JsonGenerator generator) throws IOException;
+	}
+}
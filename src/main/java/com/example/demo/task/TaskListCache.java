@@ -0,0 +1,279 @@
+package com.example.demo.task;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * ユーザ毎のタスク一覧をメモリ上に保持するキャッシュです。
+ *
+ * <p>一覧の取得時にキャッシュを参照し、存在しない場合のみDBから取得して保持します(リードスルー)。<br>
+ * タスクの登録・更新・削除時は、対象ユーザのキャッシュを{@link #invalidate(String)}で破棄してください。
+ *
+ * <p>以下の条件でキャッシュを追い出します。
+ * <ul>
+ * <li>保持するユーザ数が上限を超えた場合(最も長く参照されていないユーザから)</li>
+ * <li>1ユーザあたりの保持ページ数が上限を超えた場合(最も長く参照されていないページから)</li>
+ * <li>保持してから有効期間が経過した場合</li>
+ * </ul>
+ * <p>ヒット・ミス・追い出しの件数を記録し、{@link #getMetrics()}で参照できます。
+ * <p>次に参照される可能性が高い一覧は、{@link #prefetch(String, String, Supplier)}で事前に取得できます。
+ *
+ * @author 情報太郎
+ */
+@Component
+public class TaskListCache {
+
+	/** キャッシュの利用有無 */
+	private final boolean enabled;
+
+	/** 保持するユーザ数の上限 */
+	private final int maxUsers;
+
+	/** 1ユーザあたりの保持ページ数の上限 */
+	private final int maxPagesPerUser;
+
+	/** 有効期間(ナノ秒) */
+	private final long ttlNanos;
+
+	/** ユーザID毎のキャッシュ(参照順) */
+	private final LinkedHashMap<String, UserEntry> users;
+
+	/** ヒット件数 */
+	private final AtomicLong hitCount = new AtomicLong();
+
+	/** ミス件数 */
+	private final AtomicLong missCount = new AtomicLong();
+
+	/** 追い出し件数(上限超過・有効期間切れ) */
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	/** 事前取得の待機件数の上限(超えた場合は事前取得しない) */
+	private static final int PREFETCH_QUEUE_SIZE = 100;
+
+	/** 事前取得用のスレッド(1スレッドのみ) */
+	private final ThreadPoolExecutor prefetchExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<Runnable>(PREFETCH_QUEUE_SIZE), runnable -> {
+				Thread thread = new Thread(runnable, "task-list-prefetch");
+				thread.setDaemon(true);
+				return thread;
+			}, new ThreadPoolExecutor.DiscardPolicy());
+
+	/**
+	 * キャッシュを生成します。
+	 *
+	 * @param enabled キャッシュの利用有無
+	 * @param maxUsers 保持するユーザ数の上限
+	 * @param maxPagesPerUser 1ユーザあたりの保持ページ数の上限
+	 * @param ttlSeconds 有効期間(秒)
+	 */
+	public TaskListCache(@Value("${task.cache.enabled:true}") boolean enabled,
+			@Value("${task.cache.max-users:1000}") int maxUsers,
+			@Value("${task.cache.max-pages-per-user:10}") int maxPagesPerUser,
+			@Value("${task.cache.ttl-seconds:60}") long ttlSeconds) {
+		this.enabled = enabled;
+		this.maxUsers = maxUsers;
+		this.maxPagesPerUser = maxPagesPerUser;
+		this.ttlNanos = ttlSeconds * 1_000_000_000L;
+		this.users = new LinkedHashMap<String, UserEntry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, UserEntry> eldest) {
+				if (size() > TaskListCache.this.maxUsers) {
+					evictionCount.addAndGet(eldest.getValue().pages.size());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * 指定ユーザのタスク一覧を取得します。
+	 *
+	 * <p>キャッシュに存在しない場合は{@code loader}で取得し、キャッシュへ保持します。<br>
+	 * 取得中に対象ユーザのキャッシュが破棄された場合は、取得結果を保持しません。
+	 *
+	 * @param userId ユーザID(null不可)
+	 * @param key ユーザ内でタスク一覧を識別するキー(null不可)
+	 * @param loader DBからタスク一覧を取得する処理(null不可)
+	 * @return タスク一覧
+	 */
+	public TaskEntity get(String userId, String key, Supplier<TaskEntity> loader) {
+		if (!enabled) {
+			return loader.get();
+		}
+
+		UserEntry entry;
+		long generation;
+		synchronized (this) {
+			entry = users.get(userId);
+			if (entry == null) {
+				entry = new UserEntry();
+				users.put(userId, entry);
+			}
+			PageEntry page = entry.pages.get(key);
+			if (page != null && System.nanoTime() - page.loadedAt < ttlNanos) {
+				hitCount.incrementAndGet();
+				return page.taskEntity;
+			}
+			if (page != null) {
+				// 有効期間切れ
+				entry.pages.remove(key);
+				evictionCount.incrementAndGet();
+			}
+			generation = entry.generation;
+		}
+
+		missCount.incrementAndGet();
+		TaskEntity taskEntity = loader.get();
+
+		synchronized (this) {
+			// 取得中に破棄・追い出しされていない場合のみ保持する
+			if (users.get(userId) == entry && entry.generation == generation) {
+				entry.pages.put(key, new PageEntry(taskEntity, System.nanoTime()));
+				if (entry.pages.size() > maxPagesPerUser) {
+					Iterator<String> eldest = entry.pages.keySet().iterator();
+					eldest.next();
+					eldest.remove();
+					evictionCount.incrementAndGet();
+				}
+			}
+		}
+		return taskEntity;
+	}
+
+	/**
+	 * 指定ユーザのタスク一覧を、別スレッドで事前に取得してキャッシュへ保持します。
+	 *
+	 * <p>既に保持している場合や、事前取得の待機件数が上限に達している場合は何もしません。<br>
+	 * 取得中に対象ユーザのキャッシュが破棄された場合は、{@link #get(String, String, Supplier)}と同様に保持しません。
+	 *
+	 * @param userId ユーザID(null不可)
+	 * @param key ユーザ内でタスク一覧を識別するキー(null不可)
+	 * @param loader DBからタスク一覧を取得する処理(null不可)
+	 */
+	public void prefetch(String userId, String key, Supplier<TaskEntity> loader) {
+		if (!enabled || contains(userId, key)) {
+			return;
+		}
+		prefetchExecutor.execute(() -> {
+			if (!contains(userId, key)) {
+				get(userId, key, loader);
+			}
+		});
+	}
+
+	/**
+	 * 指定ユーザのタスク一覧を、有効期間内で保持しているかを判定します。
+	 *
+	 * <p>ヒット・ミス件数は更新しません。
+	 *
+	 * @param userId ユーザID(null不可)
+	 * @param key ユーザ内でタスク一覧を識別するキー(null不可)
+	 * @return 保持している場合はtrue
+	 */
+	public synchronized boolean contains(String userId, String key) {
+		UserEntry entry = users.get(userId);
+		PageEntry page = entry == null ? null : entry.pages.get(key);
+		return page != null && System.nanoTime() - page.loadedAt < ttlNanos;
+	}
+
+	/**
+	 * 指定ユーザのキャッシュを破棄します。
+	 *
+	 * @param userId ユーザID(null不可)
+	 */
+	public synchronized void invalidate(String userId) {
+		UserEntry entry = users.get(userId);
+		if (entry != null) {
+			entry.generation++;
+			entry.pages.clear();
+		}
+	}
+
+	/**
+	 * ヒット件数を取得します。
+	 *
+	 * @return ヒット件数
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * ミス件数を取得します。
+	 *
+	 * @return ミス件数
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * 追い出し件数を取得します。
+	 *
+	 * @return 追い出し件数(上限超過・有効期間切れ)
+	 */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	/**
+	 * キャッシュの利用状況を取得します。
+	 *
+	 * @return 利用状況(取得時点の値)
+	 */
+	public synchronized TaskListCacheMetrics getMetrics() {
+		TaskListCacheMetrics metrics = new TaskListCacheMetrics();
+		metrics.setEnabled(enabled);
+		metrics.setUsers(users.size());
+		metrics.setMaxUsers(maxUsers);
+		metrics.setMaxPagesPerUser(maxPagesPerUser);
+		metrics.setHitCount(hitCount.get());
+		metrics.setMissCount(missCount.get());
+		metrics.setEvictionCount(evictionCount.get());
+		return metrics;
+	}
+
+	@Override
+	public String toString() {
+		return "TaskListCache(hit=" + hitCount + ", miss=" + missCount + ", eviction=" + evictionCount + ")";
+	}
+
+	/**
+	 * 1ユーザ分のキャッシュです。
+	 */
+	private static class UserEntry {
+
+		/** 破棄された回数(取得中の破棄を検知するために利用) */
+		private long generation;
+
+		/** キー毎のタスク一覧(参照順) */
+		private final LinkedHashMap<String, PageEntry> pages = new LinkedHashMap<String, PageEntry>(16, 0.75f, true);
+	}
+
+	/**
+	 * 1ページ分のキャッシュです。
+	 */
+	private static class PageEntry {
+
+		/** タスク一覧 */
+		private final TaskEntity taskEntity;
+
+		/** 保持した時刻(ナノ秒) */
+		private final long loadedAt;
+
+		private PageEntry(TaskEntity taskEntity, long loadedAt) {
+			this.taskEntity = taskEntity;
+			this.loadedAt = loadedAt;
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package com.example.demo.task;
+
+import lombok.Data;
+
+/**
+ * タスク一覧のキャッシュの利用状況です。
+ *
+ * <p>件数は、アプリケーションの起動時からの累計です。
+ *
+ * @author 情報太郎
+ */
+@Data
+public class TaskListCacheMetrics {
+
+	/** キャッシュの利用有無 */
+	private boolean enabled;
+
+	/** 保持しているユーザ数 */
+	private int users;
+
+	/** 保持するユーザ数の上限 */
+	private int maxUsers;
+
+	/** 1ユーザあたりの保持ページ数の上限 */
+	private int maxPagesPerUser;
+
+	/** ヒット件数 */
+	private long hitCount;
+
+	/** ミス件数 */
+	private long missCount;
+
+	/** 追い出し件数(上限超過・有効期間切れ) */
+	private long evictionCount;
+
+	/**
+	 * ヒット率を取得します。
+	 *
+	 * @return ヒット率(未参照の場合は0)
+	 */
+	public double getHitRatio() {
+		long requests = hitCount + missCount;
+		return requests == 0 ? 0 : (double) hitCount / requests;
+	}
+}
@@ -0,0 +1,89 @@
+package com.example.demo.task;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * ユーザ毎のタスク一覧の版数を管理します。
+ *
+ * <p>タスクが変更されるたびに{@link #bump(String)}で版数を更新し、
+ * ブラウザが保持している一覧が最新かどうかの判定(ETag・Last-Modified)に利用します。
+ *
+ * <p>版数は全ユーザ共通の連番から採番するため、ユーザ間や版数の破棄・再作成の前後で重複しません。<br>
+ * また、起動時刻を版数に含めるため、再起動前に発行したETagと一致することはありません。
+ *
+ * @author 情報太郎
+ */
+@Component
+public class TaskListVersion {
+
+	/** 起動を識別する値(起動時刻) */
+	private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+
+	/** 版数の採番用の連番 */
+	private final AtomicLong sequence = new AtomicLong();
+
+	/** ユーザID毎の版数 */
+	private final Map<String, Stamp> stamps = new ConcurrentHashMap<String, Stamp>();
+
+	/**
+	 * 指定ユーザのタスク一覧の版数を取得します。
+	 *
+	 * @param userId ユーザID(null不可)
+	 * @return 版数
+	 */
+	public Stamp get(String userId) {
+		return stamps.computeIfAbsent(userId, k -> newStamp());
+	}
+
+	/**
+	 * 指定ユーザのタスク一覧の版数を更新します。
+	 *
+	 * @param userId ユーザID(null不可)
+	 */
+	public void bump(String userId) {
+		stamps.put(userId, newStamp());
+	}
+
+	private Stamp newStamp() {
+		return new Stamp(bootId + "-" + sequence.incrementAndGet(), System.currentTimeMillis());
+	}
+
+	/**
+	 * タスク一覧の版数です。
+	 */
+	public static final class Stamp {
+
+		/** 版数(ETagに利用) */
+		private final String tag;
+
+		/** 更新時刻(エポックミリ秒) */
+		private final long lastModified;
+
+		private Stamp(String tag, long lastModified) {
+			this.tag = tag;
+			this.lastModified = lastModified;
+		}
+
+		/**
+		 * 版数を取得します。
+		 *
+		 * @return 版数
+		 */
+		public String getTag() {
+			return tag;
+		}
+
+		/**
+		 * 更新時刻を取得します。
+		 *
+		 * @return 更新時刻(エポックミリ秒)
+		 */
+		public long getLastModified() {
+			return lastModified;
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package com.example.demo.task;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 【管理者】タスク一覧のキャッシュの利用状況を参照する機能を表す。
+ *
+ * <p><strong>この機能は管理者ロールのユーザのみが利用できます</strong>
+ *
+ * @author 情報太郎
+ *
+ */
+@RestController
+public class TaskMetricsController {
+
+	/* タスク一覧のキャッシュ */
+	@Autowired
+	private TaskListCache taskListCache;
+
+	/**
+	 * 【管理者】起動時からのタスク一覧のキャッシュのヒット・ミス・追い出しの件数を取得します。
+	 *
+	 * @return ヒット・ミス・追い出しの件数などの利用状況
+	 */
+	@GetMapping("/admin/task/cache/metrics")
+	public TaskListCacheMetrics getCacheMetrics() {
+		return taskListCache.getMetrics();
+	}
+}
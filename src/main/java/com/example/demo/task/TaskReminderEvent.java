@@ -0,0 +1,40 @@
+package com.example.demo.task;
+
+import java.time.LocalDate;
+
+import lombok.Data;
+
+/**
+ * タスクの期限が近づいた、または期限を過ぎたことを通知するイベントです。
+ *
+ * <p>{@link TaskReminderScheduler}が期限到来時に発行します。
+ * 通知を行う機能は{@code @EventListener}で受け取ってください。
+ *
+ * @author 情報太郎
+ */
+@Data
+public class TaskReminderEvent {
+
+	/**
+	 * 通知の種類です。
+	 */
+	public enum Kind {
+		/** 期限が近い */
+		DUE_SOON,
+		/** 期限切れ */
+		OVERDUE
+	}
+
+	/** 通知の種類 */
+	private final Kind kind;
+
+	/** タスクID */
+	private final int taskId;
+
+	/** ユーザID */
+	private final String userId;
+
+	/** 期限日 */
+	private final LocalDate limitday;
+
+}
@@ -0,0 +1,206 @@
+package com.example.demo.task;
+
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * タスクの期限日に合わせて、リマインドのイベント({@link TaskReminderEvent})を発行します。
+ *
+ * <p>起動時に未完了タスクの期限日をDBから1回だけ読み込み、{@link TaskTimingWheel}へ予約します。<br>
+ * 以降は定期的にDBを検索せず、タスクの登録・完了・削除に合わせて予約を追加・取消します。
+ * <ul>
+ * <li>期限が近い：期限日の{@code task.reminder.due-soon-days}日前の0時</li>
+ * <li>期限切れ：期限日の翌日の0時</li>
+ * </ul>
+ * <p>予約時点で通知時刻を過ぎている場合は、次のティックで通知します。
+ * そのため、起動時には期限切れの未完了タスクを1回ずつ通知します。
+ *
+ * @author 情報太郎
+ */
+@Component
+public class TaskReminderScheduler {
+
+	@Autowired
+	private TaskRepository taskRepository;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	/** 期限日の何日前から「期限が近い」とするか */
+	private final int dueSoonDays;
+
+	/** 期限日を日時へ変換する際のタイムゾーン */
+	private final ZoneId zone = ZoneId.systemDefault();
+
+	/** 予約を保持するタイミングホイール */
+	private final TaskTimingWheel<TaskReminderEvent> wheel;
+
+	/** タスクID毎の予約(取消に利用) */
+	private final Map<Integer, TaskTimingWheel.Timeout<TaskReminderEvent>> timeouts =
+			new HashMap<Integer, TaskTimingWheel.Timeout<TaskReminderEvent>>();
+
+	/**
+	 * スケジューラを生成します。
+	 *
+	 * @param tickSeconds 時刻を進める間隔(秒)
+	 * @param dueSoonDays 期限日の何日前から「期限が近い」とするか
+	 */
+	public TaskReminderScheduler(@Value("${task.reminder.tick-seconds:60}") long tickSeconds,
+			@Value("${task.reminder.due-soon-days:1}") int dueSoonDays) {
+		this.dueSoonDays = dueSoonDays;
+		this.wheel = new TaskTimingWheel<TaskReminderEvent>(tickSeconds * 1000, System.currentTimeMillis());
+	}
+
+	/**
+	 * 起動時に、全ユーザの未完了タスクを予約します。
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		reload(null);
+	}
+
+	/**
+	 * 未完了タスクをDBから読み込み、予約し直します。
+	 *
+	 * @param userId ユーザID(nullの場合は全ユーザ)
+	 */
+	public void reload(String userId) {
+		taskRepository.findIncomplete(userId, rs -> {
+			Date limitday = rs.getDate("limitday");
+			if (limitday != null) {
+				schedule(rs.getInt("id"), rs.getString("user_id"), limitday.toLocalDate());
+			}
+		});
+	}
+
+	/**
+	 * 指定タスクIDより後に登録された未完了タスクをDBから読み込み、予約します。
+	 *
+	 * <p>一括登録したタスクのみを予約し、既に通知済みのタスクを予約し直して再度通知しないようにします。
+	 *
+	 * @param userId ユーザID(null不可)
+	 * @param afterId タスクID(このIDより大きいタスクが対象)
+	 */
+	public void scheduleAfter(String userId, int afterId) {
+		taskRepository.findIncomplete(userId, afterId, rs -> {
+			Date limitday = rs.getDate("limitday");
+			if (limitday != null) {
+				schedule(rs.getInt("id"), rs.getString("user_id"), limitday.toLocalDate());
+			}
+		});
+	}
+
+	/**
+	 * タスクを予約します。既に予約済みの場合は置き換えます。
+	 *
+	 * @param taskData タスク(null不可)
+	 */
+	public void schedule(TaskData taskData) {
+		if (taskData.getLimitday() == null || taskData.isComplate()) {
+			return;
+		}
+		LocalDate limitday = Instant.ofEpochMilli(taskData.getLimitday().getTime()).atZone(zone).toLocalDate();
+		schedule(taskData.getId(), taskData.getUserId(), limitday);
+	}
+
+	/**
+	 * タスクの予約を取り消します。予約されていないタスクIDは無視します。
+	 *
+	 * @param ids タスクID(null不可)
+	 */
+	public synchronized void cancel(Collection<Integer> ids) {
+		for (Integer id : ids) {
+			wheel.cancel(timeouts.remove(id));
+		}
+	}
+
+	/**
+	 * 現在時刻まで時刻を進め、通知時刻を過ぎた予約のイベントを発行します。
+	 */
+	@Scheduled(fixedDelayString = "${task.reminder.tick-seconds:60}", timeUnit = TimeUnit.SECONDS)
+	public void tick() {
+		advanceTo(System.currentTimeMillis());
+	}
+
+	/**
+	 * タスクが予約されているかを判定します。
+	 *
+	 * @param taskId タスクID
+	 * @return 予約されている場合はtrue
+	 */
+	public synchronized boolean isScheduled(int taskId) {
+		return timeouts.containsKey(taskId);
+	}
+
+	/**
+	 * 予約件数を取得します。
+	 *
+	 * @return 予約件数
+	 */
+	public synchronized int getPendingCount() {
+		return wheel.size();
+	}
+
+	/**
+	 * 指定時刻まで時刻を進め、通知時刻を過ぎた予約のイベントを発行します。
+	 *
+	 * @param nowMillis 現在時刻(エポックミリ秒)
+	 * @return 発行したイベント
+	 */
+	List<TaskReminderEvent> advanceTo(long nowMillis) {
+		List<TaskReminderEvent> events = new ArrayList<TaskReminderEvent>();
+		synchronized (this) {
+			wheel.advanceTo(nowMillis, event -> {
+				timeouts.remove(event.getTaskId());
+				events.add(event);
+				if (event.getKind() == TaskReminderEvent.Kind.DUE_SOON) {
+					// 続けて期限切れを予約する
+					scheduleEvent(new TaskReminderEvent(TaskReminderEvent.Kind.OVERDUE,
+							event.getTaskId(), event.getUserId(), event.getLimitday()));
+				}
+			});
+		}
+
+		// イベントの処理中に予約・取消ができるよう、ロックの外で発行する
+		for (TaskReminderEvent event : events) {
+			eventPublisher.publishEvent(event);
+		}
+		return events;
+	}
+
+	private synchronized void schedule(int taskId, String userId, LocalDate limitday) {
+		long overdueAt = toMillis(limitday.plusDays(1));
+		TaskReminderEvent.Kind kind = System.currentTimeMillis() < overdueAt
+				? TaskReminderEvent.Kind.DUE_SOON
+				: TaskReminderEvent.Kind.OVERDUE;
+		scheduleEvent(new TaskReminderEvent(kind, taskId, userId, limitday));
+	}
+
+	private void scheduleEvent(TaskReminderEvent event) {
+		LocalDate notifyDay = event.getKind() == TaskReminderEvent.Kind.DUE_SOON
+				? event.getLimitday().minusDays(dueSoonDays)
+				: event.getLimitday().plusDays(1);
+		wheel.cancel(timeouts.remove(event.getTaskId()));
+		timeouts.put(event.getTaskId(), wheel.schedule(event, toMillis(notifyDay)));
+	}
+
+	private long toMillis(LocalDate day) {
+		return day.atStartOfDay(zone).toInstant().toEpochMilli();
+	}
+}
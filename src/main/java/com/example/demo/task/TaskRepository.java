@@ -1,11 +1,20 @@
 package com.example.demo.task;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Date;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
@@ -28,41 +37,250 @@ import org.springframework.stereotype.Repository;
 @Repository
 public class TaskRepository {
 
-	/** SQL 全件取得（期限日昇順） */
-	private static final String SQL_SELECT_ALL = "SELECT * FROM task_t WHERE user_id = :userId order by limitday";
+	/** SQL 未完了タスクの全件取得（期限日昇順） */
+	private static final String SQL_SELECT_ALL = "SELECT * FROM task_t WHERE user_id = :userId AND complate = false order by limitday";
 
-	/** SQL 1件追加 */
-	private static final String SQL_INSERT_ONE = "INSERT INTO task_t(id, user_id, title, limitday, complate) VALUES((SELECT MAX(id) + 1 FROM task_t), :userId, :title, :limitday, false)";
+	/** SQL 完了済みを含む全件取得（期限日昇順） */
+	private static final String SQL_SELECT_ALL_WITH_COMPLATED = "SELECT * FROM task_t WHERE user_id = :userId order by limitday";
 
-	/** SQL 1件削除 */
-	private static final String SQL_DELETE_ONE = "DELETE FROM task_t WHERE id = :id";
+	/** SQL 未完了タスクの先頭ページ取得（期限日・タスクID昇順） */
+	private static final String SQL_SELECT_FIRST_PAGE = "SELECT * FROM task_t WHERE user_id = :userId AND complate = false"
+			+ " order by limitday, id LIMIT :limit";
 
-	/** SQL 1件更新 */
-	private static final String SQL_UPDATE_ONE = "UPDATE task_t SET complate = true WHERE id = :id";
+	/** SQL 未完了タスクの次ページ取得（カーソル位置より後ろを期限日・タスクID昇順） */
+	private static final String SQL_SELECT_NEXT_PAGE = "SELECT * FROM task_t WHERE user_id = :userId AND complate = false"
+			+ " AND (limitday > :limitday OR (limitday = :limitday AND id > :id))"
+			+ " order by limitday, id LIMIT :limit";
+
+	/** SQL 未完了タスクの前ページ取得（カーソル位置より前を期限日・タスクID降順） */
+	private static final String SQL_SELECT_PREV_PAGE = "SELECT * FROM task_t WHERE user_id = :userId AND complate = false"
+			+ " AND (limitday < :limitday OR (limitday = :limitday AND id < :id))"
+			+ " order by limitday DESC, id DESC LIMIT :limit";
+
+	/**
+	 * SQL 期限日の範囲取得（期限日・タスクID昇順）
+	 * <p>idx_task_user_limitdayを範囲走査し、並べ替えないよう、並び順にもインデックスの先頭列(user_id)を指定する
+	 */
+	private static final String SQL_SELECT_RANGE = "SELECT * FROM task_t WHERE user_id = :userId"
+			+ " AND limitday BETWEEN :from AND :to order by user_id, limitday, id";
+
+	/**
+	 * SQL 未完了タスクの上位取得（優先度・期限日昇順）
+	 * <p>idx_task_next_upの順に読み、並べ替えないよう、並び順にもインデックスの先頭列(user_id, complate)を指定する
+	 */
+	private static final String SQL_SELECT_NEXT_UP = "SELECT * FROM task_t WHERE user_id = :userId AND complate = false"
+			+ " order by user_id, complate, priority, limitday LIMIT :limit";
+
+	/** SQL タスクIDの採番 */
+	private static final String SQL_NEXT_ID = "SELECT NEXT VALUE FOR task_id_seq";
+
+	/** SQL 1件追加（タスクIDは採番済み） */
+	private static final String SQL_INSERT_ONE = "INSERT INTO task_t(id, user_id, title, limitday, complate, priority) VALUES(:id, :userId, :title, :limitday, false, :priority)";
+
+	/** SQL 複数件追加（タスクIDはシーケンスから採番） */
+	private static final String SQL_INSERT_BATCH = "INSERT INTO task_t(id, user_id, title, limitday, complate, priority) VALUES(NEXT VALUE FOR task_id_seq, :userId, :title, :limitday, false, :priority)";
+
+	/** SQL 1件削除（他のユーザのタスクは0件） */
+	private static final String SQL_DELETE_ONE = "DELETE FROM task_t WHERE id = :id AND user_id = :userId";
+
+	/** SQL 1件更新（完了済みの場合は完了日時を変更しない、他のユーザのタスクは0件） */
+	private static final String SQL_UPDATE_ONE = "UPDATE task_t SET complate = true, complated_at = COALESCE(complated_at, CURRENT_TIMESTAMP), version = version + 1 WHERE id = :id AND user_id = :userId";
+
+	/** SQL 版数を指定した削除（他の処理で更新・削除済みの場合、他のユーザのタスクは0件） */
+	private static final String SQL_DELETE_VERSIONED = "DELETE FROM task_t WHERE id = :id AND user_id = :userId AND version = :version";
+
+	/** SQL 版数を指定した完了（他の処理で更新・削除済みの場合、他のユーザのタスクは0件） */
+	private static final String SQL_UPDATE_VERSIONED = "UPDATE task_t SET complate = true, complated_at = COALESCE(complated_at, CURRENT_TIMESTAMP), version = version + 1"
+			+ " WHERE id = :id AND user_id = :userId AND version = :version";
+
+	/** SQL 1件取得 */
+	private static final String SQL_SELECT_ONE = "SELECT * FROM task_t WHERE id = :id";
+
+	/** SQL 指定ユーザのタスク取得(複数件) */
+	private static final String SQL_SELECT_OWNED = "SELECT * FROM task_t WHERE user_id = :userId AND id IN (:ids)";
+
+	/** SQL 指定ユーザのタスク削除(複数件) */
+	private static final String SQL_DELETE_OWNED = "DELETE FROM task_t WHERE user_id = :userId AND id IN (:ids)";
+
+	/** SQL 指定ユーザのタスク更新(複数件、完了済みの場合は完了日時を変更しない) */
+	private static final String SQL_UPDATE_OWNED = "UPDATE task_t SET complate = true, complated_at = COALESCE(complated_at, CURRENT_TIMESTAMP), version = version + 1 WHERE user_id = :userId AND id IN (:ids)";
+
+	/** SQL 完了(バッチ、完了済みの場合は版数を変更しない) */
+	private static final String SQL_UPDATE_BATCH = "UPDATE task_t SET complate = true, complated_at = COALESCE(complated_at, CURRENT_TIMESTAMP), version = version + 1 WHERE user_id = :userId AND id = :id AND complate = false";
+
+	/** SQL 未完了タスクの期限日取得(全ユーザ) */
+	private static final String SQL_SELECT_INCOMPLETE = "SELECT id, user_id, limitday FROM task_t WHERE complate = false";
+
+	/** SQL 未完了タスクの期限日取得(指定ユーザ) */
+	private static final String SQL_SELECT_INCOMPLETE_BY_USER = "SELECT id, user_id, limitday FROM task_t WHERE complate = false AND user_id = :userId";
+
+	/** SQL 未完了タスクの期限日取得(指定ユーザ、指定タスクIDより後) */
+	private static final String SQL_SELECT_INCOMPLETE_AFTER = "SELECT id, user_id, limitday FROM task_t WHERE complate = false AND user_id = :userId AND id > :afterId";
+
+	/** SQL 最大のタスクID取得(指定ユーザ) */
+	private static final String SQL_SELECT_MAX_ID_BY_USER = "SELECT COALESCE(MAX(id), 0) FROM task_t WHERE user_id = :userId";
+
+	/** SQL ユーザ・期限日・完了フラグ毎の件数集計(全ユーザ) */
+	private static final String SQL_COUNT_BY_LIMITDAY = "SELECT user_id, limitday, complate, COUNT(*) AS count FROM task_t"
+			+ " GROUP BY user_id, limitday, complate";
+
+	/** SQL ユーザ・期限日・完了フラグ毎の件数集計(指定ユーザ) */
+	private static final String SQL_COUNT_BY_LIMITDAY_BY_USER = "SELECT user_id, limitday, complate, COUNT(*) AS count FROM task_t"
+			+ " WHERE user_id = :userId GROUP BY user_id, limitday, complate";
+
+	/** SQL タスク全件の件数 */
+	private static final String SQL_COUNT_ALL = "SELECT COUNT(*) FROM task_t";
+
+	/** SQL ユーザ毎の件数集計(ユーザID順) */
+	private static final String SQL_COUNT_BY_USER = "SELECT user_id, COUNT(*) AS count FROM task_t"
+			+ " GROUP BY user_id order by user_id";
+
+	/** SQL 全件出力(ユーザIDの範囲指定) */
+	private static final String SQL_EXPORT_RANGE = "SELECT * FROM task_t WHERE user_id >= :from AND user_id < :to"
+			+ " order by user_id, limitday, id";
+
+	/** SQL 全件出力(ユーザIDの範囲指定、上限なし) */
+	private static final String SQL_EXPORT_FROM = "SELECT * FROM task_t WHERE user_id >= :from"
+			+ " order by user_id, limitday, id";
 
 	/** 予想更新件数(ハードコーディング防止用) */
 	private static final int EXPECTED_UPDATE_COUNT = 1;
 
+	/** CSV出力時に1回の通信で読み込む件数 */
+	private static final int EXPORT_FETCH_SIZE = 500;
+
 	@Autowired
 	private NamedParameterJdbcTemplate jdbc;
 
 	/**
-	 * 指定されたユーザーIDに関連するすべてのデータを検索します。
+	 * 指定されたユーザーIDの未完了のデータをすべて検索します。
 	 * @param userId ユーザーID
-	 * @return 検索結果のリスト（マップのリスト）
+	 * @return 検索結果のリスト
 	 */
-	public List<Map<String, Object>> findAll(String userId) {
+	public List<TaskData> findAll(String userId) {
 		// クエリのパラメータを設定するマップ
 		Map<String, Object> params = new HashMap<String, Object>();
 		params.put("userId", userId);
 
 		// SQL_SELECT_ALLクエリを実行し、結果を取得
-		List<Map<String, Object>> resultList = jdbc.queryForList(SQL_SELECT_ALL, params);
+		List<TaskData> resultList = jdbc.query(SQL_SELECT_ALL, params, new TaskRowMapper());
 		return resultList;
 	}
 
+	/**
+	 * 指定されたユーザーIDに関連するすべてのデータを、完了済みのタスクを含めて検索します。
+	 * @param userId ユーザーID
+	 * @return 検索結果のリスト
+	 */
+	public List<TaskData> findAllWithComplated(String userId) {
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+
+		return jdbc.query(SQL_SELECT_ALL_WITH_COMPLATED, params, new TaskRowMapper());
+	}
+
+	/**
+	 * 指定されたユーザーIDの未完了のタスクを先頭から指定件数だけ検索します。
+	 * @param userId ユーザーID
+	 * @param limit 取得件数の上限
+	 * @return 検索結果のリスト（期限日・タスクID昇順）
+	 */
+	public List<TaskData> findFirstPage(String userId, int limit) {
+		// クエリのパラメータを設定するマップ
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		params.put("limit", limit);
+
+		return jdbc.query(SQL_SELECT_FIRST_PAGE, params, new TaskRowMapper());
+	}
+
+	/**
+	 * 指定されたカーソル位置より後ろの未完了のタスクを指定件数だけ検索します。
+	 *
+	 * <p>(期限日, タスクID) をキーとしたシーク検索のため、
+	 * 何ページ目であっても読み取る件数は取得件数の上限までとなります。
+	 *
+	 * @param userId ユーザーID
+	 * @param cursor 検索開始位置(この位置のタスクは含まない)
+	 * @param limit 取得件数の上限
+	 * @return 検索結果のリスト（期限日・タスクID昇順）
+	 */
+	public List<TaskData> findNextPage(String userId, TaskCursor cursor, int limit) {
+		// クエリのパラメータを設定するマップ
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		params.put("limitday", cursor.getLimitday());
+		params.put("id", cursor.getId());
+		params.put("limit", limit);
+
+		return jdbc.query(SQL_SELECT_NEXT_PAGE, params, new TaskRowMapper());
+	}
+
+	/**
+	 * 指定されたカーソル位置より前の未完了のタスクを指定件数だけ検索します。
+	 *
+	 * <p>カーソルに近い順（期限日・タスクID降順）で返却します。<br>
+	 * <strong>画面表示時は呼び出し元で並びを反転してください。</strong>
+	 *
+	 * @param userId ユーザーID
+	 * @param cursor 検索開始位置(この位置のタスクは含まない)
+	 * @param limit 取得件数の上限
+	 * @return 検索結果のリスト（期限日・タスクID降順）
+	 */
+	public List<TaskData> findPrevPage(String userId, TaskCursor cursor, int limit) {
+		// クエリのパラメータを設定するマップ
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		params.put("limitday", cursor.getLimitday());
+		params.put("id", cursor.getId());
+		params.put("limit", limit);
+
+		return jdbc.query(SQL_SELECT_PREV_PAGE, params, new TaskRowMapper());
+	}
+
+	/**
+	 * 指定されたユーザーIDのタスクのうち、期限日が指定された範囲のデータを検索します。
+	 *
+	 * <p>(ユーザーID, 期限日, タスクID) のインデックスを範囲走査するため、
+	 * ユーザーのタスク件数によらず、範囲内の件数分のみを読み取ります。
+	 *
+	 * @param userId ユーザーID
+	 * @param from 期限日の開始日(この日を含む)
+	 * @param to 期限日の終了日(この日を含む)
+	 * @return 検索結果のリスト（期限日・タスクID昇順）
+	 */
+	public List<TaskData> findRange(String userId, LocalDate from, LocalDate to) {
+		// クエリのパラメータを設定するマップ
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		params.put("from", Date.valueOf(from));
+		params.put("to", Date.valueOf(to));
+
+		return jdbc.query(SQL_SELECT_RANGE, params, new TaskRowMapper());
+	}
+
+	/**
+	 * 指定されたユーザーIDの未完了タスクを、優先度・期限日の順に指定件数だけ検索します。
+	 *
+	 * <p>(ユーザーID, 完了フラグ, 優先度, 期限日) のインデックスを先頭から読むため、
+	 * ユーザーのタスク件数によらず、全件の並べ替えを行わずに取得件数の上限までを読み取ります。
+	 *
+	 * @param userId ユーザーID
+	 * @param limit 取得件数の上限
+	 * @return 検索結果のリスト（優先度・期限日昇順）
+	 */
+	public List<TaskData> findNextUp(String userId, int limit) {
+		// クエリのパラメータを設定するマップ
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		params.put("limit", limit);
+
+		return jdbc.query(SQL_SELECT_NEXT_UP, params, new TaskRowMapper());
+	}
+
 	/**
 	 * タスクデータを保存します。
+	 * <p>採番したタスクIDを{@code taskData}へ設定します。
 	 * @param taskData 保存するタスクデータ
 	 * @return 更新された行数
 	 * @throws SQLException 更新に失敗した場合にスローされる例外
@@ -70,28 +288,59 @@ public class TaskRepository {
 	public int save(TaskData taskData) throws SQLException {
 		// クエリのパラメータを設定するマップ
 		Map<String, Object> params = new HashMap<String, Object>();
+		Integer id = jdbc.queryForObject(SQL_NEXT_ID, params, Integer.class);
+		params.put("id", id);
 		params.put("userId", taskData.getUserId());
 		params.put("title", taskData.getTitle());
 		params.put("limitday", taskData.getLimitday());
+		params.put("priority", taskData.getPriority());
 
 		// クエリを実行し、更新された行数を取得
 		int updateRow = jdbc.update(SQL_INSERT_ONE, params);
 		if (updateRow != EXPECTED_UPDATE_COUNT) {
 			throw new SQLException("更新に失敗しました 件数:" + updateRow);
 		}
+		taskData.setId(id);
 		return updateRow;
 	}
 
 	/**
-	 * 指定されたIDのデータを削除します。
+	 * 複数のタスクデータを1回のバッチで保存します。
+	 *
+	 * <p>件数分のSQLをまとめてDBへ送信するため、1件ずつ保存するよりも通信回数が少なくなります。
+	 *
+	 * @param taskList 保存するタスクデータのリスト
+	 * @return タスクデータごとの更新された行数
+	 */
+	public int[] saveAll(List<TaskData> taskList) {
+		// タスクデータごとにクエリのパラメータを設定するマップ
+		@SuppressWarnings("unchecked")
+		Map<String, Object>[] batchParams = new Map[taskList.size()];
+		for (int i = 0; i < taskList.size(); i++) {
+			TaskData taskData = taskList.get(i);
+			Map<String, Object> params = new HashMap<String, Object>();
+			params.put("userId", taskData.getUserId());
+			params.put("title", taskData.getTitle());
+			params.put("limitday", taskData.getLimitday());
+			params.put("priority", taskData.getPriority());
+			batchParams[i] = params;
+		}
+
+		return jdbc.batchUpdate(SQL_INSERT_BATCH, batchParams);
+	}
+
+	/**
+	 * 指定されたユーザの、指定されたIDのデータを削除します。
+	 * @param userId ユーザID
 	 * @param id 削除するデータのID
 	 * @return 更新された行数
-	 * @throws SQLException 更新に失敗した場合にスローされる例外
+	 * @throws SQLException 更新に失敗した場合(データが存在しない、他のユーザのデータの場合を含む)にスローされる例外
 	 */
-	public int delete(int id) throws SQLException {
+	public int delete(String userId, int id) throws SQLException {
 		// クエリのパラメータを設定するマップ
 		Map<String, Object> params = new HashMap<String, Object>();
 		params.put("id", id);
+		params.put("userId", userId);
 
 		// クエリを実行し、更新された行数を取得
 		int updateRow = jdbc.update(SQL_DELETE_ONE, params);
@@ -103,15 +352,17 @@ public class TaskRepository {
 	}
 
 	/**
-	 * 指定されたIDのデータを更新します。
+	 * 指定されたユーザの、指定されたIDのデータを更新します。
+	 * @param userId ユーザID
 	 * @param id 更新するデータのID
 	 * @return 更新された行数
-	 * @throws SQLException 更新に失敗した場合にスローされる例外
+	 * @throws SQLException 更新に失敗した場合(データが存在しない、他のユーザのデータの場合を含む)にスローされる例外
 	 */
-	public int update(int id) throws SQLException {
+	public int update(String userId, int id) throws SQLException {
 		// クエリのパラメータを設定するマップ
 		Map<String, Object> params = new HashMap<String, Object>();
 		params.put("id", id);
+		params.put("userId", userId);
 
 		// クエリを実行し、更新された行数を取得
 		int updateRow = jdbc.update(SQL_UPDATE_ONE, params);
@@ -123,16 +374,291 @@ public class TaskRepository {
 	}
 
 	/**
-	 * 指定されたユーザーIDに関連するデータをCSVファイルに出力します。
+	 * 指定されたユーザの、指定されたIDのデータを、版数が一致する場合のみ削除します。
+	 *
+	 * <p>事前に行ロックを取得せず、1回のSQLで版数の比較と削除を行います。<br>
+	 * 画面の表示後に他の処理で更新された場合は、削除せずに{@link OptimisticLockingFailureException}をスローします。
+	 *
+	 * @param userId ユーザID
+	 * @param id 削除するデータのID
+	 * @param version 画面に表示した時点の版数
+	 * @return 更新された行数
+	 * @throws SQLException データが存在しない場合(他のユーザのデータの場合を含む)にスローされる例外
+	 * @throws OptimisticLockingFailureException 他の処理で更新されていた場合にスローされる例外(再実行可能)
+	 */
+	public int delete(String userId, int id, int version) throws SQLException {
+		// クエリのパラメータを設定するマップ
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("id", id);
+		params.put("userId", userId);
+		params.put("version", version);
+
+		// クエリを実行し、更新された行数を取得
+		int updateRow = jdbc.update(SQL_DELETE_VERSIONED, params);
+		checkVersionedUpdate(userId, id, updateRow);
+		return updateRow;
+	}
+
+	/**
+	 * 指定されたユーザの、指定されたIDのデータを、版数が一致する場合のみ完了状態に更新し、版数を1加算します。
+	 *
+	 * <p>画面の表示後に他の処理で更新された場合は、更新せずに{@link OptimisticLockingFailureException}をスローします。
+	 *
+	 * @param userId ユーザID
+	 * @param id 更新するデータのID
+	 * @param version 画面に表示した時点の版数
+	 * @return 更新された行数
+	 * @throws SQLException データが存在しない場合(他のユーザのデータの場合を含む)にスローされる例外
+	 * @throws OptimisticLockingFailureException 他の処理で更新されていた場合にスローされる例外(再実行可能)
+	 */
+	public int update(String userId, int id, int version) throws SQLException {
+		// クエリのパラメータを設定するマップ
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("id", id);
+		params.put("userId", userId);
+		params.put("version", version);
+
+		// クエリを実行し、更新された行数を取得
+		int updateRow = jdbc.update(SQL_UPDATE_VERSIONED, params);
+		checkVersionedUpdate(userId, id, updateRow);
+		return updateRow;
+	}
+
+	/**
+	 * 版数を指定した更新・削除の件数を確認します。
+	 *
+	 * <p>0件の場合は、指定ユーザのデータが残っていれば版数の不一致(競合)、残っていなければデータなしと判定します。
+	 */
+	private void checkVersionedUpdate(String userId, int id, int updateRow) throws SQLException {
+		if (updateRow == EXPECTED_UPDATE_COUNT) {
+			return;
+		}
+		TaskData current = updateRow == 0 ? findById(id) : null;
+		if (current != null && current.getUserId().equals(userId)) {
+			throw new OptimisticLockingFailureException("他の処理で更新されています ID:" + id);
+		}
+		// 更新件数が異常な場合は例外をスロー
+		throw new SQLException("更新に失敗しました 件数:" + updateRow);
+	}
+
+	/**
+	 * 指定されたタスクIDのデータを検索します。
+	 * @param id タスクID
+	 * @return タスクデータ(存在しない場合はnull)
+	 */
+	public TaskData findById(int id) {
+		// クエリのパラメータを設定するマップ
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("id", id);
+
+		List<TaskData> result = jdbc.query(SQL_SELECT_ONE, params, new TaskRowMapper());
+		return result.isEmpty() ? null : result.get(0);
+	}
+
+	/**
+	 * 指定されたタスクIDのうち、指定ユーザーのタスクとして存在するデータを検索します。
+	 * @param userId ユーザーID
+	 * @param ids タスクIDのリスト(空不可)
+	 * @return 存在するタスクデータのリスト
+	 */
+	public List<TaskData> findOwned(String userId, Collection<Integer> ids) {
+		// クエリのパラメータを設定するマップ
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		params.put("ids", ids);
+
+		return jdbc.query(SQL_SELECT_OWNED, params, new TaskRowMapper());
+	}
+
+	/**
+	 * 指定ユーザーの、指定されたタスクIDのデータを1回のSQLで削除します。
+	 *
+	 * <p>他のユーザーのタスクや存在しないタスクIDは無視します。
+	 *
 	 * @param userId ユーザーID
+	 * @param ids 削除するタスクIDのリスト(空不可)
+	 * @return 削除された行数
 	 */
-	public void fileOut(String userId) {
+	public int deleteAll(String userId, Collection<Integer> ids) {
+		// クエリのパラメータを設定するマップ
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		params.put("ids", ids);
+
+		return jdbc.update(SQL_DELETE_OWNED, params);
+	}
+
+	/**
+	 * 指定ユーザーの、指定されたタスクIDのデータを1回のSQLで完了状態に更新します。
+	 *
+	 * <p>他のユーザーのタスクや存在しないタスクIDは無視します。
+	 *
+	 * @param userId ユーザーID
+	 * @param ids 更新するタスクIDのリスト(空不可)
+	 * @return 更新された行数
+	 */
+	public int updateAll(String userId, Collection<Integer> ids) {
+		// クエリのパラメータを設定するマップ
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		params.put("ids", ids);
+
+		return jdbc.update(SQL_UPDATE_OWNED, params);
+	}
+
+	/**
+	 * 複数ユーザーの、指定されたタスクIDのデータを1回のバッチで完了状態に更新します。
+	 *
+	 * <p>タスクID分のSQLをまとめてDBへ送信するため、ユーザー・タスクIDごとに更新するよりも通信回数が少なくなります。<br>
+	 * 他のユーザーのタスクや存在しないタスクID、一括完了などで既に完了済みのタスクは無視します(版数を変更しない)。
+	 *
+	 * @param idsByUser ユーザーID毎の更新するタスクIDのリスト
+	 * @return タスクIDごとの更新された行数
+	 */
+	public int[] updateAll(Map<String, ? extends Collection<Integer>> idsByUser) {
+		// タスクIDごとにクエリのパラメータを設定するマップ
+		List<Map<String, Object>> batchParams = new ArrayList<Map<String, Object>>();
+		idsByUser.forEach((userId, ids) -> {
+			for (Integer id : ids) {
+				Map<String, Object> params = new HashMap<String, Object>();
+				params.put("userId", userId);
+				params.put("id", id);
+				batchParams.add(params);
+			}
+		});
+
+		@SuppressWarnings("unchecked")
+		Map<String, Object>[] batchArray = batchParams.toArray(new Map[batchParams.size()]);
+		return jdbc.batchUpdate(SQL_UPDATE_BATCH, batchArray);
+	}
+
+	/**
+	 * 未完了タスクのタスクID・ユーザーID・期限日を1行ずつ読み込みます。
+	 *
+	 * <p>件数が多い場合も結果全体をメモリに保持しないよう、1行ごとに{@code handler}へ渡します。
+	 *
+	 * @param userId ユーザーID(nullの場合は全ユーザ)
+	 * @param handler 1行ごとの処理
+	 */
+	public void findIncomplete(String userId, RowCallbackHandler handler) {
+		Map<String, Object> params = new HashMap<String, Object>();
+		if (userId == null) {
+			jdbc.query(SQL_SELECT_INCOMPLETE, params, handler);
+		} else {
+			params.put("userId", userId);
+			jdbc.query(SQL_SELECT_INCOMPLETE_BY_USER, params, handler);
+		}
+	}
+
+	/**
+	 * 指定タスクIDより後に登録された未完了タスクのタスクID・ユーザーID・期限日を1行ずつ読み込みます。
+	 *
+	 * @param userId ユーザーID(null不可)
+	 * @param afterId タスクID(このIDより大きいタスクが対象)
+	 * @param handler 1行ごとの処理
+	 */
+	public void findIncomplete(String userId, int afterId, RowCallbackHandler handler) {
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		params.put("afterId", afterId);
+		jdbc.query(SQL_SELECT_INCOMPLETE_AFTER, params, handler);
+	}
+
+	/**
+	 * 指定ユーザの最大のタスクIDを取得します。
+	 *
+	 * @param userId ユーザーID(null不可)
+	 * @return タスクID(タスクが無い場合は0)
+	 */
+	public int findMaxId(String userId) {
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		return jdbc.queryForObject(SQL_SELECT_MAX_ID_BY_USER, params, Integer.class);
+	}
+
+	/**
+	 * ユーザーID・期限日・完了フラグ毎のタスク件数を1行ずつ読み込みます。
+	 *
+	 * <p>各行は{@code user_id}, {@code limitday}, {@code complate}, {@code count}列を持ちます。
+	 *
+	 * @param userId ユーザーID(nullの場合は全ユーザ)
+	 * @param handler 1行ごとの処理
+	 */
+	public void countByLimitday(String userId, RowCallbackHandler handler) {
+		Map<String, Object> params = new HashMap<String, Object>();
+		if (userId == null) {
+			jdbc.query(SQL_COUNT_BY_LIMITDAY, params, handler);
+		} else {
+			params.put("userId", userId);
+			jdbc.query(SQL_COUNT_BY_LIMITDAY_BY_USER, params, handler);
+		}
+	}
+
+	/**
+	 * 全ユーザーのタスク件数を取得します。
+	 * @return タスク件数
+	 */
+	public long countAll() {
+		return jdbc.queryForObject(SQL_COUNT_ALL, new HashMap<String, Object>(), Long.class);
+	}
+
+	/**
+	 * ユーザーID毎のタスク件数を、ユーザーIDの昇順に1行ずつ読み込みます。
+	 *
+	 * <p>各行は{@code user_id}, {@code count}列を持ちます。
+	 *
+	 * @param handler 1行ごとの処理
+	 */
+	public void countByUser(RowCallbackHandler handler) {
+		jdbc.query(SQL_COUNT_BY_USER, new HashMap<String, Object>(), handler);
+	}
+
+	/**
+	 * 指定された範囲のユーザーIDのタスクを、ユーザーID順に1行ずつ読み込みます。
+	 *
+	 * <p>検索結果はカーソルから{@value #EXPORT_FETCH_SIZE}件ずつ読み込み、結果全体をメモリに保持しません。
+	 *
+	 * @param from 範囲の開始ユーザーID(このユーザーIDを含む)
+	 * @param to 範囲の終了ユーザーID(このユーザーIDを含まない、nullの場合は上限なし)
+	 * @param handler 1行ごとの処理
+	 */
+	public void exportRange(String from, String to, RowCallbackHandler handler) {
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("from", from);
+
+		// フェッチサイズを指定して、カーソルから少しずつ読み込む
+		JdbcTemplate exportTemplate = new JdbcTemplate(jdbc.getJdbcTemplate().getDataSource());
+		exportTemplate.setFetchSize(EXPORT_FETCH_SIZE);
+		if (to == null) {
+			new NamedParameterJdbcTemplate(exportTemplate).query(SQL_EXPORT_FROM, params, handler);
+		} else {
+			params.put("to", to);
+			new NamedParameterJdbcTemplate(exportTemplate).query(SQL_EXPORT_RANGE, params, handler);
+		}
+	}
+
+	/**
+	 * 指定されたユーザーIDに関連するデータをCSV形式で出力先へ書き込みます。
+	 *
+	 * <p>検索結果はカーソルから{@value #EXPORT_FETCH_SIZE}件ずつ読み込み、
+	 * 1行ずつ出力先へ書き込みます。件数によらず結果全体をメモリに保持しません。
+	 *
+	 * @param userId ユーザーID
+	 * @param writer 出力先
+	 * @throws IOException 出力先への書き込みに失敗した場合にスローされる例外
+	 */
+	public void fileOut(String userId, Writer writer) throws IOException {
 		Map<String, Object> params = new HashMap<String, Object>();
 		//カラム名とパラメータをセット
 		params.put("userId", userId);
 
-		// CSVファイル出力用設定
-		TaskRowCallbackHandler handler = new TaskRowCallbackHandler();
-		jdbc.query(SQL_SELECT_ALL, params, handler);
+		// CSV出力用設定
+		TaskRowCallbackHandler handler = new TaskRowCallbackHandler(writer);
+		handler.writeHeader();
+
+		// フェッチサイズを指定して、カーソルから少しずつ読み込む
+		JdbcTemplate exportTemplate = new JdbcTemplate(jdbc.getJdbcTemplate().getDataSource());
+		exportTemplate.setFetchSize(EXPORT_FETCH_SIZE);
+		new NamedParameterJdbcTemplate(exportTemplate).query(SQL_SELECT_ALL_WITH_COMPLATED, params, handler);
 	}
 }
\ No newline at end of file
@@ -1,67 +1,92 @@
 package com.example.demo.task;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 
 import org.springframework.jdbc.core.RowCallbackHandler;
 
-import com.example.demo.WebConfig;
-
 /**
- * 
+ *
  * タスク管理機能のCSV出力機能を実現します。
- * 
- * <p>ファイル出力先を事前に設定することで、所定のパスへCSVを出力します。
- * 
+ *
+ * <p>出力先の{@code Writer}を事前に設定することで、検索結果を1行ずつCSVとして書き込みます。<br>
+ * 行データを保持しないため、件数によらずメモリ使用量は一定です。
+ *
  * @author 情報太郎
  *
  */
 public class TaskRowCallbackHandler implements RowCallbackHandler {
 
-	@Override
-	public void processRow(ResultSet rs) throws SQLException {
+	/** CSVの出力先 */
+	private final Writer writer;
+
+	/** 完了フラグ・完了日時も出力するか */
+	private final boolean allColumns;
+
+	/**
+	 * CSVの出力先を指定して生成します。
+	 *
+	 * @param writer CSVの出力先(null不可)
+	 */
+	public TaskRowCallbackHandler(Writer writer) {
+		this(writer, false);
+	}
+
+	/**
+	 * CSVの出力先と、出力する列を指定して生成します。
+	 *
+	 * @param writer CSVの出力先(null不可)
+	 * @param allColumns 完了フラグ・完了日時も出力する場合はtrue
+	 */
+	public TaskRowCallbackHandler(Writer writer, boolean allColumns) {
+		this.writer = writer;
+		this.allColumns = allColumns;
+	}
 
-		// フォルダへアクセス
-		File directory = new File(WebConfig.OUTPUT_PATH);
-		if (!directory.exists()) {
-			// フォルダが存在しない場合は作成する
-			directory.mkdir();
+	/**
+	 * CSVのヘッダ行を書き込みます。
+	 *
+	 * <p>検索結果が0件の場合もヘッダ行は出力するため、検索前に呼び出してください。
+	 *
+	 * @throws IOException 書き込みに失敗した場合
+	 */
+	public void writeHeader() throws IOException {
+		String header = "id" + ","
+				+ "user_id" + ","
+				+ "title" + ","
+				+ "limitday" + ","
+				+ "priority";
+		if (allColumns) {
+			header += "," + "complate" + "," + "complated_at";
 		}
 
-		// ファイルを作成
-		File file = new File(WebConfig.OUTPUT_PATH + WebConfig.FILENAME_TASK_CSV);
+		writer.write(header);
+		writer.write(System.lineSeparator());
+	}
 
-		// ファイルへ書き込む
-		try (FileWriter fw = new FileWriter(file.getAbsoluteFile()); 
-				BufferedWriter bw = new BufferedWriter(fw)) {
+	@Override
+	public void processRow(ResultSet rs) throws SQLException {
 
-			// FIXME 追加課題を実施した方は、優先度も記載すること
-			String header = "id" + ","
-					+ "user_id" + ","
-					+ "title" + ","
-					+ "limitday";
-			
-			bw.write(header);
-			bw.newLine();
-			
-			do {
-				// カンマ区切りでデータを並べた文字列を生成
-				String content = rs.getInt("id") + ","
-						+ rs.getString("user_id") + ","
-						+ rs.getString("title") + ","
-						+ rs.getDate("limitday");
-				bw.write(content);
-				bw.newLine();
-			} while (rs.next());
+		// カンマ区切りでデータを並べた文字列を生成
+		String content = rs.getInt("id") + ","
+				+ rs.getString("user_id") + ","
+				+ rs.getString("title") + ","
+				+ rs.getDate("limitday") + ","
+				+ rs.getInt("priority");
+		if (allColumns) {
+			Timestamp complatedAt = rs.getTimestamp("complated_at");
+			content += "," + rs.getBoolean("complate") + "," + (complatedAt == null ? "" : complatedAt);
+		}
 
+		try {
+			writer.write(content);
+			writer.write(System.lineSeparator());
 		} catch (IOException e) {
-			// ファイル書き込み時で発生したエラー
+			// 書き込み時で発生したエラー(クライアントの切断など)
 			throw new SQLException(e);
 		}
 	}
 }
-
@@ -0,0 +1,72 @@
+package com.example.demo.task;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * 検索結果の1行を{@link TaskData}へ変換します。
+ *
+ * <p>行ごとに{@code Map}を生成せず、{@code ResultSet}から直接値を取得します。<br>
+ * 列の位置は最初の行で1度だけ特定し、以降の行ではその位置を使いまわします。
+ * <p><strong>列の位置を保持するため、検索ごとに新しいインスタンスを生成してください。</strong>
+ *
+ * @author 情報太郎
+ */
+public class TaskRowMapper implements RowMapper<TaskData> {
+
+	/** 列の位置を特定済みか否か */
+	private boolean resolved;
+
+	/** タスクIDの列の位置 */
+	private int idIndex;
+
+	/** ユーザIDの列の位置 */
+	private int userIdIndex;
+
+	/** 件名の列の位置 */
+	private int titleIndex;
+
+	/** 期限日の列の位置 */
+	private int limitdayIndex;
+
+	/** 完了フラグの列の位置 */
+	private int complateIndex;
+
+	/** 優先度の列の位置 */
+	private int priorityIndex;
+
+	/** 完了日時の列の位置 */
+	private int complatedAtIndex;
+
+	/** 版数の列の位置 */
+	private int versionIndex;
+
+	@Override
+	public TaskData mapRow(ResultSet rs, int rowNum) throws SQLException {
+		if (!resolved) {
+			// 最初の行でのみ列名から位置を特定する
+			idIndex = rs.findColumn("id");
+			userIdIndex = rs.findColumn("user_id");
+			titleIndex = rs.findColumn("title");
+			limitdayIndex = rs.findColumn("limitday");
+			complateIndex = rs.findColumn("complate");
+			priorityIndex = rs.findColumn("priority");
+			complatedAtIndex = rs.findColumn("complated_at");
+			versionIndex = rs.findColumn("version");
+			resolved = true;
+		}
+
+		TaskData data = new TaskData();
+		data.setId(rs.getInt(idIndex));
+		data.setUserId(rs.getString(userIdIndex));
+		data.setTitle(rs.getString(titleIndex));
+		data.setLimitday(rs.getDate(limitdayIndex));
+		data.setComplate(rs.getBoolean(complateIndex));
+		data.setPriority(rs.getInt(priorityIndex));
+		data.setComplatedAt(rs.getTimestamp(complatedAtIndex));
+		data.setVersion(rs.getInt(versionIndex));
+		return data;
+	}
+}
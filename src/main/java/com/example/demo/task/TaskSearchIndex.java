@@ -0,0 +1,316 @@
+package com.example.demo.task;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * タスクの件名を検索するための、ユーザ毎の索引(転置インデックス)です。
+ *
+ * <p>日本語の件名は空白で単語に区切れないため、件名を1文字(ユニグラム)と
+ * 連続する2文字(バイグラム)に分割して索引を作成します。<br>
+ * 検索時は検索語のバイグラムを全て含むタスクに絞り込んだうえで、件名に検索語を含むかを確認します。
+ *
+ * <p>索引は初回の検索時にDBから作成し、以降はタスクの登録・削除・完了に合わせて更新します。<br>
+ * 保持するユーザ数が上限を超えた場合は、最も長く検索されていないユーザの索引を破棄します。
+ *
+ * @author 情報太郎
+ */
+@Component
+public class TaskSearchIndex {
+
+	/** 表示順(期限日・タスクID昇順) */
+	private static final Comparator<TaskData> LIST_ORDER = Comparator
+			.comparing(TaskData::getLimitday, Comparator.nullsLast(Comparator.naturalOrder()))
+			.thenComparingInt(TaskData::getId);
+
+	/** 索引を保持するユーザ数の上限 */
+	private final int maxUsers;
+
+	/** ユーザID毎の索引(参照順) */
+	private final LinkedHashMap<String, UserIndex> indexes;
+
+	/** ユーザID毎の更新回数(作成中の更新を検知するために利用) */
+	private final Map<String, Long> versions = new HashMap<String, Long>();
+
+	/**
+	 * 索引を生成します。
+	 *
+	 * @param maxUsers 索引を保持するユーザ数の上限
+	 */
+	public TaskSearchIndex(@Value("${task.search.max-users:1000}") int maxUsers) {
+		this.maxUsers = maxUsers;
+		this.indexes = new LinkedHashMap<String, UserIndex>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, UserIndex> eldest) {
+				return size() > TaskSearchIndex.this.maxUsers;
+			}
+		};
+	}
+
+	/**
+	 * 件名に検索語を含むタスクを検索します。
+	 *
+	 * <p>対象ユーザの索引がない場合は、{@code loader}で全タスクを取得して索引を作成します。
+	 *
+	 * @param userId ユーザID(null不可)
+	 * @param query 検索語(null不可)
+	 * @param limit 取得件数の上限
+	 * @param loader 対象ユーザの全タスクをDBから取得する処理(null不可)
+	 * @return 検索結果(期限日・タスクID昇順)
+	 */
+	public List<TaskData> search(String userId, String query, int limit, Supplier<List<TaskData>> loader) {
+		String normalized = normalize(query);
+		if (normalized.isEmpty()) {
+			return new ArrayList<TaskData>();
+		}
+
+		UserIndex index = getOrBuild(userId, loader);
+		synchronized (index) {
+			return index.search(normalized, limit);
+		}
+	}
+
+	/**
+	 * タスクを索引へ追加します。既に同じタスクIDがある場合は置き換えます。
+	 *
+	 * @param userId ユーザID(null不可)
+	 * @param taskData 追加するタスク(null不可)
+	 */
+	public void add(String userId, TaskData taskData) {
+		UserIndex index = touch(userId);
+		if (index != null) {
+			synchronized (index) {
+				index.remove(taskData.getId());
+				index.add(copyOf(taskData));
+			}
+		}
+	}
+
+	/**
+	 * タスクを索引から削除します。索引にないタスクIDは無視します。
+	 *
+	 * @param userId ユーザID(null不可)
+	 * @param ids 削除するタスクID(null不可)
+	 */
+	public void remove(String userId, Collection<Integer> ids) {
+		UserIndex index = touch(userId);
+		if (index != null) {
+			synchronized (index) {
+				for (Integer id : ids) {
+					index.remove(id);
+				}
+			}
+		}
+	}
+
+	/**
+	 * 索引上のタスクを完了状態にします。索引にないタスクIDは無視します。
+	 *
+	 * <p>DBの完了と同様に版数を1つ進めるため、検索結果から表示した版数でそのまま削除・完了できます。
+	 *
+	 * @param userId ユーザID(null不可)
+	 * @param ids 完了状態にするタスクID(null不可)
+	 */
+	public void complate(String userId, Collection<Integer> ids) {
+		UserIndex index = touch(userId);
+		if (index != null) {
+			synchronized (index) {
+				for (Integer id : ids) {
+					TaskData taskData = index.tasks.get(id);
+					if (taskData != null) {
+						taskData.setComplate(true);
+						taskData.setVersion(taskData.getVersion() + 1);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * 指定ユーザの索引を破棄します。次回の検索時にDBから作成し直します。
+	 *
+	 * @param userId ユーザID(null不可)
+	 */
+	public void invalidate(String userId) {
+		synchronized (this) {
+			versions.merge(userId, 1L, Long::sum);
+			indexes.remove(userId);
+		}
+	}
+
+	/**
+	 * 索引作成・検索用に文字列を正規化します。
+	 *
+	 * <p>全角英数字・半角カナの表記ゆれ(NFKC)と、英字の大文字・小文字を同一視します。
+	 *
+	 * @param value 文字列(null可)
+	 * @return 正規化した文字列
+	 */
+	static String normalize(String value) {
+		if (value == null) {
+			return "";
+		}
+		return Normalizer.normalize(value, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).strip();
+	}
+
+	/**
+	 * 文字列を1文字(ユニグラム)と連続する2文字(バイグラム)に分割します。
+	 *
+	 * @param normalized 正規化済みの文字列
+	 * @param unigram 1文字も含める場合はtrue
+	 * @return 分割した文字列の集合
+	 */
+	static Set<String> grams(String normalized, boolean unigram) {
+		int[] codePoints = normalized.codePoints().toArray();
+		Set<String> grams = new HashSet<String>();
+		for (int i = 0; i < codePoints.length; i++) {
+			if (unigram) {
+				grams.add(new String(codePoints, i, 1));
+			}
+			if (i + 1 < codePoints.length) {
+				grams.add(new String(codePoints, i, 2));
+			}
+		}
+		return grams;
+	}
+
+	/**
+	 * 指定ユーザの索引を取得します。索引がない場合はDBから作成します。
+	 */
+	private UserIndex getOrBuild(String userId, Supplier<List<TaskData>> loader) {
+		long version;
+		synchronized (this) {
+			UserIndex index = indexes.get(userId);
+			if (index != null) {
+				return index;
+			}
+			version = versions.getOrDefault(userId, 0L);
+		}
+
+		// 索引の作成中はロックを保持しない
+		UserIndex built = new UserIndex();
+		for (TaskData taskData : loader.get()) {
+			built.add(copyOf(taskData));
+		}
+
+		synchronized (this) {
+			UserIndex index = indexes.get(userId);
+			if (index != null) {
+				// 他のリクエストが先に作成済み
+				return index;
+			}
+			if (versions.getOrDefault(userId, 0L) == version) {
+				// 作成中に更新がなかった場合のみ保持する
+				indexes.put(userId, built);
+			}
+			return built;
+		}
+	}
+
+	/**
+	 * 更新回数を記録し、指定ユーザの索引を取得します。
+	 */
+	private synchronized UserIndex touch(String userId) {
+		versions.merge(userId, 1L, Long::sum);
+		return indexes.get(userId);
+	}
+
+	/**
+	 * 索引の外から変更されないよう、タスクを複製します。
+	 */
+	private static TaskData copyOf(TaskData taskData) {
+		TaskData copy = new TaskData();
+		copy.setId(taskData.getId());
+		copy.setUserId(taskData.getUserId());
+		copy.setTitle(taskData.getTitle());
+		copy.setLimitday(taskData.getLimitday());
+		copy.setComplate(taskData.isComplate());
+		copy.setPriority(taskData.getPriority());
+		copy.setVersion(taskData.getVersion());
+		return copy;
+	}
+
+	/**
+	 * 1ユーザ分の索引です。
+	 */
+	private static class UserIndex {
+
+		/** タスクID毎のタスク */
+		private final Map<Integer, TaskData> tasks = new HashMap<Integer, TaskData>();
+
+		/** タスクID毎の正規化済みの件名 */
+		private final Map<Integer, String> titles = new HashMap<Integer, String>();
+
+		/** 1文字・2文字毎の、その文字列を件名に含むタスクIDの集合 */
+		private final Map<String, Set<Integer>> postings = new HashMap<String, Set<Integer>>();
+
+		private void add(TaskData taskData) {
+			String title = normalize(taskData.getTitle());
+			tasks.put(taskData.getId(), taskData);
+			titles.put(taskData.getId(), title);
+			for (String gram : grams(title, true)) {
+				postings.computeIfAbsent(gram, k -> new HashSet<Integer>()).add(taskData.getId());
+			}
+		}
+
+		private void remove(int id) {
+			String title = titles.remove(id);
+			if (title == null) {
+				return;
+			}
+			tasks.remove(id);
+			for (String gram : grams(title, true)) {
+				Set<Integer> ids = postings.get(gram);
+				if (ids != null) {
+					ids.remove(id);
+					if (ids.isEmpty()) {
+						postings.remove(gram);
+					}
+				}
+			}
+		}
+
+		private List<TaskData> search(String normalized, int limit) {
+			// 1文字の検索語はユニグラム、2文字以上はバイグラムで絞り込む
+			Set<String> grams = grams(normalized, normalized.codePointCount(0, normalized.length()) == 1);
+
+			// 該当件数の少ない文字列から順に絞り込む
+			List<Set<Integer>> candidates = new ArrayList<Set<Integer>>();
+			for (String gram : grams) {
+				Set<Integer> ids = postings.get(gram);
+				if (ids == null) {
+					return new ArrayList<TaskData>();
+				}
+				candidates.add(ids);
+			}
+			candidates.sort(Comparator.comparingInt(Set::size));
+
+			List<TaskData> result = new ArrayList<TaskData>();
+			for (Integer id : candidates.get(0)) {
+				boolean matched = true;
+				for (int i = 1; i < candidates.size() && matched; i++) {
+					matched = candidates.get(i).contains(id);
+				}
+				// バイグラムが全て含まれていても連続していない場合があるため、件名を確認する
+				if (matched && titles.get(id).contains(normalized)) {
+					result.add(copyOf(tasks.get(id)));
+				}
+			}
+			result.sort(LIST_ORDER);
+			return result.size() > limit ? new ArrayList<TaskData>(result.subList(0, limit)) : result;
+		}
+	}
+}
@@ -1,25 +1,46 @@
 package com.example.demo.task;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.demo.WebConfig;
 
@@ -44,22 +65,410 @@ public class TaskService {
 	@Autowired
 	private TaskRepository taskRepository;
 
+	/* ユーザ毎のタスク一覧のキャッシュ */
+	@Autowired
+	private TaskListCache taskListCache;
+
+	/* ユーザ毎のタスク一覧の版数 */
+	@Autowired
+	private TaskListVersion taskListVersion;
+
+	/* ユーザ毎のタスク検索用の索引 */
+	@Autowired
+	private TaskSearchIndex taskSearchIndex;
+
+	/* 期限日のリマインド */
+	@Autowired
+	private TaskReminderScheduler taskReminderScheduler;
+
+	/* ユーザ毎のタスク件数 */
+	@Autowired
+	private TaskStatistics taskStatistics;
+
+	/* 完了済みタスクのアーカイブのDBアクセス */
+	@Autowired
+	private TaskArchiveRepository taskArchiveRepository;
+
+	/* タスク完了のライトビハインド */
+	@Autowired
+	private TaskComplateBuffer taskComplateBuffer;
+
+	/* タスクの入力チェック */
+	@Autowired
+	private TaskValidator taskValidator;
+
+	/* 一括登録のバッチのみを取り消すためのトランザクション管理 */
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/** CSV出力時の書き込みバッファサイズ */
+	private static final int CSV_BUFFER_SIZE = 8192;
+
+	/** 一括操作時に1回のSQLで処理するタスクIDの上限 */
+	private static final int BULK_CHUNK_SIZE = 1000;
+
+	/** タスク一覧の1ページあたりの表示件数 */
+	@Value("${task.page-size:20}")
+	private int pageSize;
+
+	/** 検索結果の表示件数の上限 */
+	@Value("${task.search.limit:100}")
+	private int searchLimit;
+
+	/** 「次にやるタスク」の表示件数 */
+	@Value("${task.next-up.limit:5}")
+	private int nextUpLimit;
+
+	/** 一括登録時に1回のバッチで登録する件数 */
+	@Value("${task.import.batch-size:500}")
+	private int importBatchSize;
+
 	/**
-	 * ユーザIDに合致するタスク一覧を取得します。
+	 * ユーザIDに合致する未完了のタスク一覧を取得します。
 	 * 
 	 * <p>
-	 * DBエラーが発生した場合は、空のタスク一覧を設定して呼び出し元へ返却します。
+	 * DBエラーが発生した場合は、空のタスク一覧を設定して呼び出し元へ返却します。<br>
+	 * 完了済みのタスク(完了が未反映のタスクを含む)は含めません。
+	 * 取得結果はキャッシュし、タスクが変更されるまでDBへ問い合わせません。
 	 * 
 	 * @param userId ユーザID(null不可)
 	 * @return タスク一覧
 	 */
 	public TaskEntity selectAll(String userId) {
-		List<Map<String, Object>> resultSet;
-		resultSet = taskRepository.findAll(userId);
+		return taskListCache.get(userId, "all", () -> {
+			List<TaskData> resultSet;
+			resultSet = withoutComplated(mergePending(userId, taskRepository.findAll(userId)));
+			TaskEntity taskEntity = mappingSelectResult(resultSet);
+			return taskEntity;
+		});
+	}
+
+	/**
+	 * ユーザIDに合致する未完了のタスク一覧を1ページ分取得します。
+	 *
+	 * <p>(期限日, タスクID) をキーとしたシーク方式でページングするため、
+	 * ユーザのタスク件数によらず1ページ分のみを読み取ります。<br>
+	 * 完了済みのタスクはアーカイブ画面・検索で参照するため、含めません。
+	 * カーソルが未指定、または不正な場合は先頭ページを返却します。
+	 * 取得結果はキャッシュし、タスクが変更されるまでDBへ問い合わせません。
+	 *
+	 * @param userId ユーザID(null不可)
+	 * @param after 次ページ取得用のカーソル(null可)
+	 * @param before 前ページ取得用のカーソル(null可)
+	 * @return タスク一覧(前後ページのカーソルを含む)
+	 */
+	public TaskEntity selectPage(String userId, String after, String before) {
+		String key = "page:" + after + ":" + before;
+		return taskListCache.get(userId, key, () -> loadPage(userId, after, before));
+	}
+
+	/**
+	 * ユーザIDに合致するタスク一覧を1ページ分DBから取得します。
+	 *
+	 * @param userId ユーザID(null不可)
+	 * @param after 次ページ取得用のカーソル(null可)
+	 * @param before 前ページ取得用のカーソル(null可)
+	 * @return タスク一覧(前後ページのカーソルを含む)
+	 */
+	private TaskEntity loadPage(String userId, String after, String before) {
+		TaskCursor afterCursor = TaskCursor.decode(after);
+		TaskCursor beforeCursor = TaskCursor.decode(before);
+
+		// 次ページ有無の判定用に、1件多く取得する
+		int limit = pageSize + 1;
+		List<TaskData> resultSet;
+		boolean hasPrev;
+		boolean hasNext;
+		if (beforeCursor != null) {
+			resultSet = taskRepository.findPrevPage(userId, beforeCursor, limit);
+			hasPrev = resultSet.size() > pageSize;
+			hasNext = true;
+			if (resultSet.isEmpty()) {
+				// 前ページが存在しない場合は先頭ページを表示する
+				return loadPage(userId, null, null);
+			}
+		} else if (afterCursor != null) {
+			resultSet = taskRepository.findNextPage(userId, afterCursor, limit);
+			hasPrev = true;
+			hasNext = resultSet.size() > pageSize;
+		} else {
+			resultSet = taskRepository.findFirstPage(userId, limit);
+			hasPrev = false;
+			hasNext = resultSet.size() > pageSize;
+		}
+
+		if (resultSet.size() > pageSize) {
+			resultSet = resultSet.subList(0, pageSize);
+		}
+		// 完了が未反映のタスクも除くため、そのページは表示件数より少なくなる場合がある
+		TaskEntity taskEntity = mappingSelectResult(withoutComplated(mergePending(userId, resultSet)));
+		List<TaskData> taskList = taskEntity.getTaskList();
+		if (beforeCursor != null) {
+			// 前ページは降順で取得しているため、昇順へ戻す
+			Collections.reverse(taskList);
+		}
+
+		if (!taskList.isEmpty()) {
+			if (hasPrev) {
+				taskEntity.setPrevCursor(TaskCursor.of(taskList.get(0)).encode());
+			}
+			if (hasNext) {
+				taskEntity.setNextCursor(TaskCursor.of(taskList.get(taskList.size() - 1)).encode());
+			}
+		} else if (hasPrev) {
+			// 最終ページより後ろを指定された場合は、指定位置から前ページへ戻れるようにする
+			taskEntity.setPrevCursor(after);
+		}
+		return taskEntity;
+	}
+
+	/**
+	 * ユーザIDに合致する未完了タスクを、優先度・期限日の順に{@code task.next-up.limit}件取得します。
+	 *
+	 * <p>
+	 * 優先度・期限日順のインデックスを利用するため、ユーザのタスク件数によらず上位の件数分のみを読み取ります。<br>
+	 * 取得結果はキャッシュし、タスクが変更されるまでDBへ問い合わせません。
+	 *
+	 * @param userId ユーザID(null不可)
+	 * @return 次にやるタスクの一覧
+	 */
+	public TaskEntity selectNextUp(String userId) {
+		return taskListCache.get(userId, "next-up", () -> {
+			// 完了が未反映のタスクを除くため、未反映の件数分を多く取得する
+			int pendingCount = taskComplateBuffer.getPendingCount(userId);
+			List<TaskData> resultSet = mergePending(userId, taskRepository.findNextUp(userId, nextUpLimit + pendingCount))
+					.stream().filter(taskData -> !taskData.isComplate()).limit(nextUpLimit).toList();
+			return mappingSelectResult(resultSet);
+		});
+	}
+
+	/**
+	 * ユーザIDに合致するタスクを、期限日毎にカレンダー表示する期間分取得します。
+	 * 
+	 * <p>
+	 * 期限日の範囲でインデックスを走査するため、ユーザのタスク件数によらず期間内のタスクのみを読み取ります。<br>
+	 * 取得結果はキャッシュし、前後の期間も別スレッドで事前に取得するため、期間を移動した際はDBへ問い合わせません。
+	 * 表示形式・基準日が不正な場合は、当日を含む月を表示します。
+	 * 
+	 * @param userId ユーザID(null不可)
+	 * @param view   表示形式({@value TaskCalendar#VIEW_MONTH}・{@value TaskCalendar#VIEW_WEEK}、null可)
+	 * @param date   表示する期間に含まれる日(yyyy-MM-dd形式、null可)
+	 * @return カレンダー表示する期間のタスク
+	 */
+	@Transactional(readOnly = true)
+	public TaskCalendar selectCalendar(String userId, String view, String date) {
+		boolean week = TaskCalendar.VIEW_WEEK.equals(view);
+		LocalDate today = LocalDate.now();
+		LocalDate base = today;
+		if (date != null) {
+			try {
+				base = LocalDate.parse(date);
+			} catch (DateTimeParseException e) {
+				// 不正な場合は当日を含む期間を表示する
+			}
+		}
+
+		TaskCalendar calendar = new TaskCalendar();
+		calendar.setView(week ? TaskCalendar.VIEW_WEEK : TaskCalendar.VIEW_MONTH);
+		LocalDate start = week ? base.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : base.withDayOfMonth(1);
+		LocalDate end = week ? start.plusDays(6) : start.with(TemporalAdjusters.lastDayOfMonth());
+		calendar.setDate(start);
+		calendar.setPrev(week ? start.minusWeeks(1) : start.minusMonths(1));
+		calendar.setNext(week ? start.plusWeeks(1) : start.plusMonths(1));
+
+		// 月表示の場合も、前月・翌月の日を含めて週の単位で取得する
+		LocalDate from = start.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+		LocalDate to = end.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+		List<TaskData> taskList = selectRange(userId, from, to).getTaskList();
+
+		// 前後の期間を事前に取得する
+		prefetchCalendar(userId, calendar.getPrev(), week);
+		prefetchCalendar(userId, calendar.getNext(), week);
+
+		Map<LocalDate, List<TaskData>> byLimitday = taskList.stream()
+				.collect(Collectors.groupingBy(taskData -> toLocalDate(taskData.getLimitday())));
+		List<TaskCalendar.Day> days = new ArrayList<TaskCalendar.Day>();
+		for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+			TaskCalendar.Day calendarDay = new TaskCalendar.Day();
+			calendarDay.setDate(day);
+			calendarDay.setInPeriod(!day.isBefore(start) && !day.isAfter(end));
+			calendarDay.setToday(day.equals(today));
+			calendarDay.setTaskList(byLimitday.getOrDefault(day, new ArrayList<TaskData>()));
+			days.add(calendarDay);
+			if (days.size() == 7) {
+				calendar.getWeeks().add(days);
+				days = new ArrayList<TaskCalendar.Day>();
+			}
+		}
+		calendar.setTaskCount(taskList.size());
+		return calendar;
+	}
+
+	/**
+	 * ユーザIDに合致するタスクのうち、期限日が指定された範囲のタスクを取得します。
+	 * 
+	 * <p>
+	 * 取得結果はキャッシュし、タスクが変更されるまでDBへ問い合わせません。
+	 * 
+	 * @param userId ユーザID(null不可)
+	 * @param from   期限日の開始日(この日を含む、null不可)
+	 * @param to     期限日の終了日(この日を含む、null不可)
+	 * @return タスク一覧(期限日・タスクID昇順)
+	 */
+	@Transactional(readOnly = true)
+	public TaskEntity selectRange(String userId, LocalDate from, LocalDate to) {
+		return taskListCache.get(userId, rangeKey(from, to), () -> loadRange(userId, from, to));
+	}
+
+	/**
+	 * 指定された期間を含むカレンダーのタスクを、別スレッドで事前に取得してキャッシュへ保持します。
+	 * 
+	 * @param userId ユーザID(null不可)
+	 * @param start  期間の基準日(月表示の場合は月初日、週表示の場合は月曜日)
+	 * @param week   週表示の場合はtrue
+	 */
+	private void prefetchCalendar(String userId, LocalDate start, boolean week) {
+		LocalDate end = week ? start.plusDays(6) : start.with(TemporalAdjusters.lastDayOfMonth());
+		LocalDate from = start.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+		LocalDate to = end.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+		taskListCache.prefetch(userId, rangeKey(from, to), () -> loadRange(userId, from, to));
+	}
+
+	private TaskEntity loadRange(String userId, LocalDate from, LocalDate to) {
+		return mappingSelectResult(mergePending(userId, taskRepository.findRange(userId, from, to)));
+	}
+
+	private String rangeKey(LocalDate from, LocalDate to) {
+		return "range:" + from + ":" + to;
+	}
+
+	private LocalDate toLocalDate(Date date) {
+		return Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+	}
+
+	/**
+	 * ユーザIDに合致するタスク一覧の版数を取得します。
+	 * 
+	 * <p>
+	 * タスクの登録・削除・完了のたびに更新されるため、ブラウザの一覧が最新かの判定に利用します。
+	 * DBへ問い合わせないため、トランザクションを開始せず、DB接続も取得しません。
+	 * 
+	 * @param userId ユーザID(null不可)
+	 * @return タスク一覧の版数
+	 */
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public TaskListVersion.Stamp selectVersion(String userId) {
+		return taskListVersion.get(userId);
+	}
+
+	/**
+	 * ユーザIDに合致するタスクの件数(未完了・完了・期限切れ・今週期限)を取得します。
+	 * 
+	 * <p>
+	 * 登録・削除・完了のたびに更新している件数を参照するため、DBへ問い合わせません。
+	 * 
+	 * @param userId ユーザID(null不可)
+	 * @return タスクの件数
+	 */
+	@Transactional(readOnly = true)
+	public TaskStats selectStats(String userId) {
+		return taskStatistics.get(userId, LocalDate.now());
+	}
+
+	/**
+	 * 件名に検索語を含むタスクを検索します。
+	 * 
+	 * <p>
+	 * 件名の1文字・2文字単位の索引を利用するため、空白で区切られていない日本語の件名も部分一致で検索できます。<br>
+	 * 索引は初回の検索時にDBの全タスクから作成し、以降はDBへ問い合わせません。
+	 * 検索結果は期限日・タスクID昇順で、{@code task.search.limit}件までを返却します。
+	 * 
+	 * @param userId ユーザID(null不可)
+	 * @param query  検索語(null可)
+	 * @return 検索結果
+	 */
+	@Transactional(readOnly = true)
+	public TaskEntity search(String userId, String query) {
+		List<TaskData> resultSet = taskSearchIndex.search(userId, query, searchLimit,
+				() -> mergePending(userId, taskRepository.findAllWithComplated(userId)));
+		return mappingSelectResult(resultSet);
+	}
+
+	/**
+	 * ユーザIDに合致するアーカイブ済みのタスクを1ページ分取得します。
+	 *
+	 * <p>
+	 * アーカイブした順(タスクIDの降順)に、カーソルの位置から1ページ分のみを読み取ります。<br>
+	 * カーソルが不正な場合は先頭ページを返却します。
+	 *
+	 * @param userId ユーザID(null不可)
+	 * @param before 次ページ取得用のカーソル(null可)
+	 * @return アーカイブ済みのタスク一覧(次ページのカーソルを含む)
+	 */
+	@Transactional(readOnly = true)
+	public TaskEntity selectArchive(String userId, String before) {
+		Integer beforeId = before != null && validate(before) ? Integer.valueOf(before) : null;
+
+		// 次ページ有無の判定用に、1件多く取得する
+		List<TaskData> resultSet = taskArchiveRepository.findPage(userId, beforeId, pageSize + 1);
+		boolean hasNext = resultSet.size() > pageSize;
+		if (hasNext) {
+			resultSet = resultSet.subList(0, pageSize);
+		}
 		TaskEntity taskEntity = mappingSelectResult(resultSet);
+		if (hasNext) {
+			taskEntity.setNextCursor(String.valueOf(resultSet.get(resultSet.size() - 1).getId()));
+		}
 		return taskEntity;
 	}
 
+	/**
+	 * 完了日時が指定日時より前のタスクを、最大{@code limit}件アーカイブへ移動します。
+	 *
+	 * <p>
+	 * 1回の呼び出しを1つのトランザクションとし、移動したタスクはタスク一覧・検索・件数から除きます。<br>
+	 * 移動に失敗した場合はロールバックし、呼び出し元へ例外をスローします。
+	 *
+	 * @param threshold 完了日時の上限(この日時を含まない、null不可)
+	 * @param limit     移動する件数の上限
+	 * @return 移動した件数
+	 * @throws SQLException 移動に失敗した場合
+	 */
+	@Transactional(rollbackFor = SQLException.class)
+	public int archive(Date threshold, int limit) throws SQLException {
+		List<TaskData> archivable = taskArchiveRepository.findArchivable(threshold, limit);
+		if (archivable.isEmpty()) {
+			return 0;
+		}
+
+		int moved = taskArchiveRepository.moveAll(archivable.stream().map(TaskData::getId).toList());
+		Map<String, List<TaskData>> byUser = archivable.stream().collect(Collectors.groupingBy(TaskData::getUserId));
+		byUser.keySet().forEach(this::evictTaskList);
+		afterCommit(() -> byUser.forEach((userId, tasks) -> {
+			taskSearchIndex.remove(userId, tasks.stream().map(TaskData::getId).toList());
+			tasks.forEach(taskStatistics::removed);
+		}));
+		return moved;
+	}
+
+	/**
+	 * ログイン中のユーザの、指定されたタスクを取得します。
+	 *
+	 * <p>
+	 * 他のユーザのタスクや存在しないタスクIDは、取得結果に含めません。
+	 *
+	 * @param userId ユーザID(null不可)
+	 * @param ids    タスクIDのリスト(null不可)
+	 * @return タスクのリスト(タスクIDの指定順とは限らない)
+	 */
+	@Transactional(readOnly = true)
+	public List<TaskData> selectOwned(String userId, Collection<Integer> ids) {
+		if (ids.isEmpty()) {
+			return new ArrayList<TaskData>();
+		}
+		return mergePending(userId, taskRepository.findOwned(userId, ids));
+	}
+
 	/**
 	 * タスクを保存します。
 	 * 
@@ -72,15 +481,164 @@ public class TaskService {
 	 * @return 成功可否
 	 */
 	public boolean insert(String userId, String title, String limitday) {
+		return create(userId, title, limitday) != null;
+	}
+
+	/**
+	 * タスクを保存し、保存したタスクを返却します。
+	 * 
+	 * <p>
+	 * DBエラーが発生した場合は、呼び出し元にnullを返却します。
+	 * 
+	 * @param userId   ユーザID(null不可)
+	 * @param title    タイトル(null不可)
+	 * @param limitday 期限日(null不可)
+	 * @return 保存したタスク(採番したタスクIDを含む)、失敗した場合はnull
+	 */
+	public TaskData create(String userId, String title, String limitday) {
+		return create(userId, title, limitday, null);
+	}
+
+	/**
+	 * 優先度を指定してタスクを保存し、保存したタスクを返却します。
+	 * 
+	 * <p>
+	 * DBエラーが発生した場合は、呼び出し元にnullを返却します。
+	 * 
+	 * @param userId   ユーザID(null不可)
+	 * @param title    タイトル(null不可)
+	 * @param limitday 期限日(null不可)
+	 * @param priority 優先度(未指定の場合は中、null可)
+	 * @return 保存したタスク(採番したタスクIDを含む)、失敗した場合はnull
+	 */
+	public TaskData create(String userId, String title, String limitday, String priority) {
 		// TaskData型へ詰め替える
-		TaskData taskData = refillToData(userId, title, limitday);
+		TaskData taskData = refillToData(userId, title, limitday, priority);
+		return taskData == null ? null : create(taskData);
+	}
 
+	/**
+	 * {@link TaskValidator#toTaskData(String, String, String, String)}で変換したタスクを保存し、保存したタスクを返却します。
+	 * 
+	 * <p>
+	 * DBエラーが発生した場合は、呼び出し元にnullを返却します。
+	 * 
+	 * @param taskData 保存するタスク(ユーザIDを含む、null不可)
+	 * @return 保存したタスク(採番したタスクIDを含む)、失敗した場合はnull
+	 */
+	public TaskData create(TaskData taskData) {
+		String userId = taskData.getUserId();
 		try {
 			taskRepository.save(taskData);
+			afterCommit(() -> {
+				taskSearchIndex.add(userId, taskData);
+				taskReminderScheduler.schedule(taskData);
+				taskStatistics.added(taskData);
+			});
 		} catch (SQLException e) {
-			return false;
+			return null;
+		} finally {
+			evictTaskList(userId);
 		}
-		return true;
+		return taskData;
+	}
+
+	/**
+	 * ファイルから複数のタスクを一括で登録します。
+	 * 
+	 * <p>
+	 * ファイルを1件ずつ読み込みながら{@link TaskValidator#toTaskData(String, String, String, String)}で入力チェックを行い、
+	 * 正しい行のみを{@code task.import.batch-size}件ごとにまとめてバッチ登録します。<br>
+	 * 入力チェックでエラーとなった行は登録せず、行番号とともに結果へ記録します。
+	 * ファイル形式が不正な場合は、それまでに読み込んだ行を登録したうえで結果にエラーメッセージを設定します。
+	 * 
+	 * @param userId   ユーザID(null不可)
+	 * @param fileName ファイル名(拡張子で形式を判定、null可)
+	 * @param in       ファイルの内容(null不可)
+	 * @return 登録結果
+	 */
+	public TaskImportResult importTasks(String userId, String fileName, InputStream in) {
+		TaskImportResult result = new TaskImportResult();
+		List<TaskData> chunk = new ArrayList<TaskData>(importBatchSize);
+		List<Integer> chunkRows = new ArrayList<Integer>(importBatchSize);
+		long start = System.nanoTime();
+		// 一括登録したタスクのみをリマインドの予約対象とするため、登録前の最大のタスクIDを記録する
+		int lastId = taskRepository.findMaxId(userId);
+
+		try {
+			TaskImportReader.read(fileName, in, (rowNumber, title, limitday, priority) -> {
+				// 入力チェック(1件登録と同じルール)と変換を同時に行う
+				TaskData taskData = taskValidator.toTaskData(userId, title, limitday, priority);
+				if (taskData == null) {
+					result.addError(rowNumber, "入力項目に不備があります");
+					return;
+				}
+				chunk.add(taskData);
+				chunkRows.add(rowNumber);
+				if (chunk.size() >= importBatchSize) {
+					saveChunk(chunk, chunkRows, result);
+				}
+			});
+		} catch (IOException e) {
+			result.setErrorMessage("ファイルを読み込めませんでした：" + e.getMessage());
+		}
+		saveChunk(chunk, chunkRows, result);
+		evictTaskList(userId);
+		// 一括登録ではタスクIDを取得しないため、索引は次回の検索時に作成し直し、リマインド・件数はDBから作成する
+		afterCommit(() -> {
+			taskSearchIndex.invalidate(userId);
+			taskReminderScheduler.scheduleAfter(userId, lastId);
+			taskStatistics.rebuild(userId);
+		});
+
+		// 処理性能を記録
+		long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+		result.setElapsedMillis(elapsedNanos / 1_000_000);
+		result.setRowsPerSecond((result.getImportedCount() + result.getErrorCount()) * 1_000_000_000L / elapsedNanos);
+		return result;
+	}
+
+	/**
+	 * 一括登録用に蓄積したタスクをバッチ登録し、蓄積内容をクリアします。
+	 * 
+	 * <p>
+	 * バッチはセーブポイントで区切って登録し、途中の行が失敗した場合はバッチのみを取り消して、
+	 * 1件ずつ登録し直してエラーの行を特定します。
+	 * 
+	 * @param chunk     登録するタスク
+	 * @param chunkRows 登録するタスクの行番号
+	 * @param result    登録結果
+	 */
+	private void saveChunk(List<TaskData> chunk, List<Integer> chunkRows, TaskImportResult result) {
+		if (chunk.isEmpty()) {
+			return;
+		}
+		TransactionTemplate savepoint = new TransactionTemplate(transactionManager);
+		savepoint.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+		try {
+			int[] updateRows = savepoint.execute(status -> taskRepository.saveAll(chunk));
+			for (int i = 0; i < updateRows.length; i++) {
+				// ドライバが件数を返さない場合(SUCCESS_NO_INFO)も成功として扱う
+				if (updateRows[i] == 1 || updateRows[i] == Statement.SUCCESS_NO_INFO) {
+					result.setImportedCount(result.getImportedCount() + 1);
+				} else {
+					result.addError(chunkRows.get(i), "登録できませんでした");
+				}
+			}
+		} catch (DataAccessException e) {
+			// バッチは取り消されているため、1件ずつ登録し直す
+			for (int i = 0; i < chunk.size(); i++) {
+				TaskData taskData = chunk.get(i);
+				try {
+					savepoint.execute(status -> taskRepository.saveAll(List.of(taskData)));
+					result.setImportedCount(result.getImportedCount() + 1);
+				} catch (DataAccessException rowError) {
+					result.addError(chunkRows.get(i), "登録できませんでした");
+				}
+			}
+		}
+		chunk.clear();
+		chunkRows.clear();
 	}
 
 	/**
@@ -89,141 +647,391 @@ public class TaskService {
 	 * <p>
 	 * DBエラーが発生した場合は、呼び出し元に失敗の通知を行います。
 	 * 
+	 * @param userId ユーザID(null不可)
 	 * @param id タスクID
 	 * @return 成功可否
 	 */
-	public boolean delete(String id) {
+	public boolean delete(String userId, String id) {
+		return delete(userId, id, null) == TaskUpdateResult.SUCCESS;
+	}
+
+	/**
+	 * 画面に表示した時点の版数を指定して、タスクを削除します。
+	 * 
+	 * <p>
+	 * 表示後に他の処理で更新されていた場合は削除せず、{@link TaskUpdateResult#CONFLICT}を返却します。<br>
+	 * 版数の比較と削除は1回のSQLで行うため、画面の表示から操作までの間に行ロックを保持しません。<br>
+	 * 他のユーザのタスクは削除せず、{@link TaskUpdateResult#FAILED}を返却します。
+	 * 
+	 * @param userId ユーザID(null不可)
+	 * @param id タスクID
+	 * @param version 画面に表示した時点の版数(nullの場合は比較しない)
+	 * @return 処理結果
+	 */
+	public TaskUpdateResult delete(String userId, String id, Integer version) {
 		int i = Integer.parseInt(id);
 		try {
-			taskRepository.delete(i);
+			// 件数の更新用に、削除前のタスクを取得する
+			TaskData taskData = mergePending(taskRepository.findById(i));
+			if (version == null) {
+				taskRepository.delete(userId, i);
+			} else {
+				// 画面の版数は未反映の完了を重ねた版数のため、重ねた版数と比較する
+				if (taskData != null && taskData.getUserId().equals(userId) && taskData.getVersion() != version) {
+					return TaskUpdateResult.CONFLICT;
+				}
+				// 未反映の完了を先に反映し、DBの版数を画面の版数に合わせてから削除する
+				if (taskComplateBuffer.isPending(userId, i)) {
+					taskComplateBuffer.flush();
+				}
+				taskRepository.delete(userId, i, version);
+			}
+			afterCommit(() -> {
+				taskSearchIndex.remove(userId, List.of(i));
+				taskReminderScheduler.cancel(List.of(i));
+				taskStatistics.removed(taskData);
+			});
+		} catch (OptimisticLockingFailureException e) {
+			return TaskUpdateResult.CONFLICT;
 		} catch (SQLException e) {
-			return false;
+			return TaskUpdateResult.FAILED;
+		} finally {
+			evictTaskList(userId);
 		}
-		return true;
+		return TaskUpdateResult.SUCCESS;
 	}
 
 	/**
 	 * タスクを完了状態にします。
 	 * 
 	 * <p>
-	 * DBエラーが発生した場合は、呼び出し元に失敗の通知を行います。
+	 * DBエラーが発生した場合は、呼び出し元に失敗の通知を行います。<br>
+	 * {@code task.complate.write-behind.enabled}が有効な場合は、DBを直接更新せず{@link TaskComplateBuffer}へ溜めます。
 	 * 
+	 * @param userId ユーザID(null不可)
 	 * @param id タスクID
 	 * @return 成功可否
 	 */
-	public boolean complate(String id) {
+	public boolean complate(String userId, String id) {
+		return complate(userId, id, null) == TaskUpdateResult.SUCCESS;
+	}
+
+	/**
+	 * 画面に表示した時点の版数を指定して、タスクを完了状態にします。
+	 * 
+	 * <p>
+	 * 表示後に他の処理で更新・削除されていた場合は更新せず、{@link TaskUpdateResult#CONFLICT}を返却します。<br>
+	 * 他のユーザのタスクは更新せず、{@link TaskUpdateResult#FAILED}を返却します。
+	 * 
+	 * @param userId ユーザID(null不可)
+	 * @param id タスクID
+	 * @param version 画面に表示した時点の版数(nullの場合は比較しない)
+	 * @return 処理結果
+	 */
+	public TaskUpdateResult complate(String userId, String id, Integer version) {
 		int i = Integer.parseInt(id);
+		if (taskComplateBuffer.isEnabled()) {
+			return complateLater(userId, i, version);
+		}
 		try {
-			taskRepository.update(i);
+			// 件数の更新用に、完了前のタスクを取得する
+			TaskData taskData = taskRepository.findById(i);
+			if (version == null) {
+				taskRepository.update(userId, i);
+			} else {
+				taskRepository.update(userId, i, version);
+			}
+			afterCommit(() -> {
+				taskSearchIndex.complate(userId, List.of(i));
+				taskReminderScheduler.cancel(List.of(i));
+				taskStatistics.complated(taskData);
+			});
+		} catch (OptimisticLockingFailureException e) {
+			return TaskUpdateResult.CONFLICT;
 		} catch (SQLException e) {
-			return false;
+			return TaskUpdateResult.FAILED;
+		} finally {
+			evictTaskList(userId);
 		}
-		return true;
+		return TaskUpdateResult.SUCCESS;
 	}
 
 	/**
-	 * タスクをCSVファイルに出力します。
+	 * タスクを完了状態にし、DBへの反映を{@link TaskComplateBuffer}へ委ねます。
 	 * 
 	 * <p>
-	 * 条件に合致するタスクがない場合は、空のファイルが出力されます。
+	 * 一覧・検索・件数はコミット後に更新するため、DBへの反映を待たずに完了状態のタスクを参照できます。<br>
+	 * 版数は完了待ちへ追加する時点で比較し、DBへの反映時には比較しません。
 	 * 
 	 * @param userId ユーザID(null不可)
+	 * @param id タスクID
+	 * @param version 画面に表示した時点の版数(nullの場合は比較しない)
+	 * @return 処理結果(タスクが存在しない場合は失敗)
 	 */
-	public ResponseEntity<byte[]> taskListCsvOut(String userId) {
-
-		// サーバに一時的にCSVファイルを生成
-		taskRepository.fileOut(userId);
+	private TaskUpdateResult complateLater(String userId, int id, Integer version) {
+		// 件数の更新用に、完了前のタスクを取得する
+		TaskData taskData = mergePending(taskRepository.findById(id));
+		if (taskData == null || !taskData.getUserId().equals(userId)) {
+			// 他のユーザのタスクは、存在しないタスクと同様に扱う
+			return TaskUpdateResult.FAILED;
+		}
+		if (version != null && taskData.getVersion() != version) {
+			return TaskUpdateResult.CONFLICT;
+		}
+		if (!taskData.isComplate()) {
+			afterCommit(() -> {
+				if (taskComplateBuffer.add(taskData.getUserId(), id)) {
+					taskSearchIndex.complate(userId, List.of(id));
+					taskReminderScheduler.cancel(List.of(id));
+					taskStatistics.complated(taskData);
+				}
+			});
+		}
+		evictTaskList(userId);
+		return TaskUpdateResult.SUCCESS;
+	}
 
-		try {
-			// CSVファイルをサーバから読み込み
-			byte[] bytes = getFile(WebConfig.OUTPUT_PATH + WebConfig.FILENAME_TASK_CSV);
-			// CSVファイルのダウンロード用ヘッダー情報設定
-			HttpHeaders header = generateHeader();
-			return new ResponseEntity<byte[]>(bytes, header, HttpStatus.OK);
-		} catch (IOException e) {
-			return new ResponseEntity<byte[]>(HttpStatus.INTERNAL_SERVER_ERROR);
+	/**
+	 * ログイン中のユーザの、指定された複数のタスクを一括で削除します。
+	 * 
+	 * <p>
+	 * タスクIDごとに1回ずつSQLを発行せず、{@value #BULK_CHUNK_SIZE}件ごとに1回のSQLで削除します。<br>
+	 * 他のユーザのタスクや存在しないタスクIDは削除せず、結果の処理対象外へ設定します。
+	 * 
+	 * @param userId ユーザID(null不可)
+	 * @param ids    タスクIDのリスト(null不可)
+	 * @return タスクIDごとの処理結果
+	 */
+	public TaskBulkResult deleteAll(String userId, Collection<Integer> ids) {
+		TaskBulkResult result = new TaskBulkResult();
+		List<TaskData> owned = new ArrayList<TaskData>();
+		for (List<Integer> chunk : toChunks(ids)) {
+			List<TaskData> ownedChunk = mergePending(userId, taskRepository.findOwned(userId, chunk));
+			List<Integer> ownedIds = ownedChunk.stream().map(TaskData::getId).toList();
+			if (!ownedIds.isEmpty()) {
+				taskRepository.deleteAll(userId, ownedIds);
+			}
+			refillBulkResult(chunk, ownedIds, result);
+			owned.addAll(ownedChunk);
 		}
+		evictTaskList(userId);
+		afterCommit(() -> {
+			taskSearchIndex.remove(userId, result.getSucceeded());
+			taskReminderScheduler.cancel(result.getSucceeded());
+			owned.forEach(taskStatistics::removed);
+		});
+		return result;
 	}
 
-	public HttpHeaders generateHeader() {
-		HttpHeaders header = new HttpHeaders();
-		header.add("Content-Type", "text/csv; charset=UTF-8");
-		header.setContentDispositionFormData("filename", WebConfig.FILENAME_TASK_CSV);
-		return header;
+	/**
+	 * ログイン中のユーザの、指定された複数のタスクを一括で完了状態にします。
+	 * 
+	 * <p>
+	 * タスクIDごとに1回ずつSQLを発行せず、{@value #BULK_CHUNK_SIZE}件ごとに1回のSQLで更新します。<br>
+	 * 他のユーザのタスクや存在しないタスクIDは更新せず、結果の処理対象外へ設定します。
+	 * 
+	 * @param userId ユーザID(null不可)
+	 * @param ids    タスクIDのリスト(null不可)
+	 * @return タスクIDごとの処理結果
+	 */
+	public TaskBulkResult complateAll(String userId, Collection<Integer> ids) {
+		TaskBulkResult result = new TaskBulkResult();
+		List<TaskData> owned = new ArrayList<TaskData>();
+		for (List<Integer> chunk : toChunks(ids)) {
+			List<TaskData> ownedChunk = mergePending(userId, taskRepository.findOwned(userId, chunk));
+			List<Integer> ownedIds = ownedChunk.stream().map(TaskData::getId).toList();
+			if (!ownedIds.isEmpty()) {
+				taskRepository.updateAll(userId, ownedIds);
+			}
+			refillBulkResult(chunk, ownedIds, result);
+			owned.addAll(ownedChunk);
+		}
+		evictTaskList(userId);
+		afterCommit(() -> {
+			taskSearchIndex.complate(userId, result.getSucceeded());
+			taskReminderScheduler.cancel(result.getSucceeded());
+			owned.forEach(taskStatistics::complated);
+		});
+		return result;
 	}
-	
-	public byte[] getFile(String fileName) throws IOException {
-		FileSystem fs = FileSystems.getDefault();
-		Path p = fs.getPath(fileName);
-		byte[] bytes = Files.readAllBytes(p);
-		return bytes;
+
+	/**
+	 * 指定ユーザのタスク一覧のキャッシュを破棄し、版数を更新します。
+	 * 
+	 * <p>
+	 * トランザクション中の場合は、コミット前に別のリクエストが古い一覧をキャッシュする(古い一覧に新しい版数を付与する)
+	 * 可能性があるため、トランザクションの完了後にも再度破棄します。
+	 * 
+	 * @param userId ユーザID(null不可)
+	 */
+	private void evictTaskList(String userId) {
+		taskListCache.invalidate(userId);
+		taskListVersion.bump(userId);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					taskListCache.invalidate(userId);
+					taskListVersion.bump(userId);
+				}
+			});
+		}
 	}
 
-	public boolean validate(String comment, String limitday) {
-		// nullチェック、必須チェック、50文字超過チェック
-		if (comment == null || comment.isBlank() || comment.length() > 50) {
-			return false;
+	/**
+	 * タスク検索用の索引やリマインドの予約など、メモリ上の状態を更新します。
+	 * 
+	 * <p>
+	 * トランザクション中の場合は、ロールバックされた変更が残らないよう、コミット後に更新します。
+	 * 
+	 * @param update 更新処理(null不可)
+	 */
+	private void afterCommit(Runnable update) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					update.run();
+				}
+			});
+		} else {
+			update.run();
 		}
+	}
 
-		// nullチェック、必須チェック
-		if (limitday == null || limitday.isBlank()) {
-			return false;
+	/**
+	 * DBの検索結果へ、{@link TaskComplateBuffer}に未反映の完了を重ねます。
+	 * 
+	 * @param userId   ユーザID(null不可)
+	 * @param taskList DBの検索結果(null不可)
+	 * @return 未反映の完了を重ねた検索結果
+	 */
+	private List<TaskData> mergePending(String userId, List<TaskData> taskList) {
+		if (!taskComplateBuffer.isEnabled()) {
+			return taskList;
 		}
+		return taskComplateBuffer.merge(userId, taskList);
+	}
 
-		// 日付形式チェック(SimpleDateFomatの変換可否を利用)
-		try {
-			SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
-			format.parse(limitday);
-		} catch (ParseException e) {
-			return false;
+	/**
+	 * DBの検索結果へ、{@link TaskComplateBuffer}に未反映の完了を重ねます。
+	 * 
+	 * @param taskData DBの検索結果(null可)
+	 * @return 未反映の完了を重ねた検索結果(引数がnullの場合はnull)
+	 */
+	private TaskData mergePending(TaskData taskData) {
+		if (taskData == null) {
+			return null;
 		}
+		return mergePending(taskData.getUserId(), List.of(taskData)).get(0);
+	}
 
-		return true;
+	/**
+	 * 完了状態のタスクを除きます。
+	 * 
+	 * @param taskList 未反映の完了を重ねた検索結果(null不可)
+	 * @return 未完了のタスクのリスト
+	 */
+	private List<TaskData> withoutComplated(List<TaskData> taskList) {
+		return taskList.stream().filter(taskData -> !taskData.isComplate())
+				.collect(Collectors.toCollection(ArrayList::new));
 	}
 
-		
-	public boolean validate(String id) {
-		// 数値チェック(1桁～Intの最大値)
-		Pattern p = Pattern.compile("^\\d{1,9}$");
-		if (id.isBlank()) {
-			return false;
-		} else if (!p.matcher(id).find()) {
-			return false;
+	/**
+	 * タスクIDの重複を除き、1回のSQLで処理する件数ごとに分割します。
+	 * 
+	 * @param ids タスクIDのリスト
+	 * @return 分割したタスクIDのリスト
+	 */
+	private List<List<Integer>> toChunks(Collection<Integer> ids) {
+		List<Integer> distinctIds = new ArrayList<Integer>(new LinkedHashSet<Integer>(ids));
+		List<List<Integer>> chunks = new ArrayList<List<Integer>>();
+		for (int i = 0; i < distinctIds.size(); i += BULK_CHUNK_SIZE) {
+			chunks.add(distinctIds.subList(i, Math.min(i + BULK_CHUNK_SIZE, distinctIds.size())));
 		}
-		return true;
+		return chunks;
 	}
 
+	/**
+	 * 一括操作の対象IDを、処理できたIDと処理対象外のIDに振り分けます。
+	 * 
+	 * @param ids       指定されたタスクID
+	 * @param ownedIds  処理できたタスクID
+	 * @param result    振り分け先
+	 */
+	private void refillBulkResult(List<Integer> ids, List<Integer> ownedIds, TaskBulkResult result) {
+		Set<Integer> owned = new HashSet<Integer>(ownedIds);
+		for (Integer id : ids) {
+			if (owned.contains(id)) {
+				result.getSucceeded().add(id);
+			} else {
+				result.getNotFound().add(id);
+			}
+		}
+	}
 
-	public TaskData refillToData(String userId, String title, String limitDay) {
-		TaskData taskData = new TaskData();
-		taskData.setUserId(userId);
-		taskData.setTitle(title);
-		taskData.setComplate(false);
+	/**
+	 * タスクをCSV形式でレスポンスへ直接出力します。
+	 * 
+	 * <p>
+	 * サーバ上に一時ファイルを作成せず、DBから読み込んだ行を順次レスポンスへ書き込みます。<br>
+	 * 書き込みはクライアントの受信に合わせて進むため、件数によらずメモリ使用量は一定です。
+	 * 条件に合致するタスクがない場合は、ヘッダ行のみが出力されます。
+	 * 
+	 * @param userId ユーザID(null不可)
+	 * @return CSVを出力するレスポンス
+	 */
+	public ResponseEntity<StreamingResponseBody> taskListCsvOut(String userId) {
+		// DBから直接出力するため、未反映の完了を先に反映する
+		taskComplateBuffer.flush();
 
-		// String型からDate型へ変換する
-		try {
-			SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
-			taskData.setLimitday(format.parse(limitDay));
-		} catch (ParseException e) {
-			// 何もしない（入力チェック済みのため、変換エラーは起こり得ない）
-		}
+		StreamingResponseBody body = outputStream -> {
+			// 出力用のバッファは1回の出力につき1つだけ確保し、使いまわす
+			Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8),
+					CSV_BUFFER_SIZE);
+			taskRepository.fileOut(userId, writer);
+			writer.flush();
+		};
 
-		return taskData;
+		// CSVファイルのダウンロード用ヘッダー情報設定
+		HttpHeaders header = generateHeader();
+		return new ResponseEntity<StreamingResponseBody>(body, header, HttpStatus.OK);
 	}
 
-	public TaskEntity mappingSelectResult(List<Map<String, Object>> resultList) throws DataAccessException {
-		TaskEntity entity = new TaskEntity();
+	public HttpHeaders generateHeader() {
+		HttpHeaders header = new HttpHeaders();
+		header.add("Content-Type", "text/csv; charset=UTF-8");
+		header.setContentDispositionFormData("filename", WebConfig.FILENAME_TASK_CSV);
+		return header;
+	}
 
-		for (Map<String, Object> map : resultList) {
-			TaskData data = new TaskData();
-			data.setId((Integer) map.get("id"));
-			data.setUserId((String) map.get("user_id"));
-			data.setTitle((String) map.get("title"));
-			data.setLimitday((Date) map.get("limitday"));
-			data.setComplate((boolean) map.get("complate"));
+	public boolean validate(String comment, String limitday) {
+		// nullチェック、必須チェック、50文字超過チェック、日付形式チェック
+		return taskValidator.isValidTitle(comment) && taskValidator.parseLimitday(limitday) != null;
+	}
 
-			entity.getTaskList().add(data);
-		}
+	public boolean validate(String comment, String limitday, String priority) {
+		// 未指定(デフォルト値)、または1(高)～3(低)の数値チェック
+		return validate(comment, limitday) && taskValidator.parsePriority(priority) != TaskValidator.INVALID_PRIORITY;
+	}
+
+	public boolean validate(String id) {
+		// 数値チェック(1桁～Intの最大値)
+		return taskValidator.isValidId(id);
+	}
+
+	public TaskData refillToData(String userId, String title, String limitDay) {
+		return refillToData(userId, title, limitDay, null);
+	}
+
+	public TaskData refillToData(String userId, String title, String limitDay, String priority) {
+		// 入力チェック済みのため、変換エラーは起こり得ない
+		return taskValidator.toTaskData(userId, title, limitDay, priority);
+	}
+
+	public TaskEntity mappingSelectResult(List<TaskData> resultList) throws DataAccessException {
+		TaskEntity entity = new TaskEntity();
+		entity.getTaskList().addAll(resultList);
 		return entity;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,174 @@
+package com.example.demo.task;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * ユーザ毎のタスク件数(未完了・完了・期限切れ・今週期限)を保持します。
+ *
+ * <p>起動時にDBの集計結果から作成し、以降はタスクの登録・削除・完了に合わせて件数を増減します。<br>
+ * 参照時にタスク一覧を取得しないため、タスク件数によらず一定の時間で集計結果を返却します。
+ *
+ * <p>期限切れ・今週期限は参照した日によって変わるため、未完了の件数を期限日毎に保持し、参照時に集計します。
+ *
+ * @author 情報太郎
+ */
+@Component
+public class TaskStatistics {
+
+	@Autowired
+	private TaskRepository taskRepository;
+
+	/** 期限日を日付へ変換する際のタイムゾーン */
+	private final ZoneId zone = ZoneId.systemDefault();
+
+	/** ユーザID毎の件数 */
+	private volatile Map<String, UserCounter> counters = new ConcurrentHashMap<String, UserCounter>();
+
+	/**
+	 * DBの集計結果から全ユーザの件数を作成し直します。
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		Map<String, UserCounter> rebuilt = new ConcurrentHashMap<String, UserCounter>();
+		taskRepository.countByLimitday(null, rs -> {
+			UserCounter counter = rebuilt.computeIfAbsent(rs.getString("user_id"), k -> new UserCounter());
+			counter.add(rs);
+		});
+		counters = rebuilt;
+	}
+
+	/**
+	 * DBの集計結果から指定ユーザの件数を作成し直します。
+	 *
+	 * @param userId ユーザID(null不可)
+	 */
+	public void rebuild(String userId) {
+		UserCounter rebuilt = new UserCounter();
+		taskRepository.countByLimitday(userId, rebuilt::add);
+		counters.put(userId, rebuilt);
+	}
+
+	/**
+	 * 登録したタスクを件数に加えます。
+	 *
+	 * @param taskData 登録したタスク(null不可)
+	 */
+	public void added(TaskData taskData) {
+		counter(taskData.getUserId()).add(toLocalDate(taskData), taskData.isComplate(), 1);
+	}
+
+	/**
+	 * 削除したタスクを件数から除きます。
+	 *
+	 * @param taskData 削除前のタスク(null不可)
+	 */
+	public void removed(TaskData taskData) {
+		counter(taskData.getUserId()).add(toLocalDate(taskData), taskData.isComplate(), -1);
+	}
+
+	/**
+	 * 完了したタスクを、未完了の件数から完了済みの件数へ移します。
+	 *
+	 * @param taskData 完了前のタスク(null不可、完了済みの場合は何もしない)
+	 */
+	public void complated(TaskData taskData) {
+		if (taskData.isComplate()) {
+			return;
+		}
+		UserCounter counter = counter(taskData.getUserId());
+		LocalDate limitday = toLocalDate(taskData);
+		synchronized (counter) {
+			counter.add(limitday, false, -1);
+			counter.add(limitday, true, 1);
+		}
+	}
+
+	/**
+	 * 指定ユーザの件数を集計します。
+	 *
+	 * @param userId ユーザID(null不可)
+	 * @param today 期限切れ・今週期限の基準日(null不可)
+	 * @return 集計結果
+	 */
+	public TaskStats get(String userId, LocalDate today) {
+		TaskStats stats = new TaskStats();
+		UserCounter counter = counters.get(userId);
+		if (counter == null) {
+			return stats;
+		}
+
+		LocalDate endOfWeek = today.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+		synchronized (counter) {
+			stats.setOpen(counter.open);
+			stats.setCompleted(counter.completed);
+			stats.setOverdue(sum(counter.openByLimitday.headMap(today.toEpochDay(), false)));
+			stats.setDueThisWeek(sum(counter.openByLimitday.subMap(today.toEpochDay(), true, endOfWeek.toEpochDay(), true)));
+		}
+		return stats;
+	}
+
+	private UserCounter counter(String userId) {
+		return counters.computeIfAbsent(userId, k -> new UserCounter());
+	}
+
+	private LocalDate toLocalDate(TaskData taskData) {
+		if (taskData.getLimitday() == null) {
+			return null;
+		}
+		return Instant.ofEpochMilli(taskData.getLimitday().getTime()).atZone(zone).toLocalDate();
+	}
+
+	private static long sum(Map<Long, Long> counts) {
+		long sum = 0;
+		for (long count : counts.values()) {
+			sum += count;
+		}
+		return sum;
+	}
+
+	/**
+	 * 1ユーザ分の件数です。
+	 */
+	private static class UserCounter {
+
+		/** 未完了の件数 */
+		private long open;
+
+		/** 完了済みの件数 */
+		private long completed;
+
+		/** 期限日(エポック日)毎の未完了の件数 */
+		private final TreeMap<Long, Long> openByLimitday = new TreeMap<Long, Long>();
+
+		private void add(ResultSet rs) throws SQLException {
+			Date limitday = rs.getDate("limitday");
+			add(limitday == null ? null : limitday.toLocalDate(), rs.getBoolean("complate"), rs.getLong("count"));
+		}
+
+		private synchronized void add(LocalDate limitday, boolean complate, long count) {
+			if (complate) {
+				completed += count;
+				return;
+			}
+			open += count;
+			if (limitday != null) {
+				openByLimitday.merge(limitday.toEpochDay(), count, (a, b) -> a + b == 0 ? null : a + b);
+			}
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package com.example.demo.task;
+
+import lombok.Data;
+
+/**
+ * ユーザ毎のタスク件数の集計結果です。
+ *
+ * @author 情報太郎
+ */
+@Data
+public class TaskStats {
+
+	/** 未完了の件数(期限切れを含む) */
+	private long open;
+
+	/** 完了済みの件数 */
+	private long completed;
+
+	/** 期限切れ(期限日が今日より前)の未完了の件数 */
+	private long overdue;
+
+	/** 今日から今週末(日曜日)までが期限日の未完了の件数 */
+	private long dueThisWeek;
+
+}
@@ -0,0 +1,243 @@
+package com.example.demo.task;
+
+import java.util.function.Consumer;
+
+/**
+ * 期限到来時の処理を予約するための、階層型タイミングホイールです。
+ *
+ * <p>時刻を{@code tickMillis}単位の目盛り(ティック)に区切り、64スロット×4階層の輪に予約を振り分けます。<br>
+ * 近い予約は下位の輪に1ティック単位で、遠い予約は上位の輪に粗い単位で保持し、
+ * 上位の輪のスロットに時刻が到達した時点で下位の輪へ振り分け直します。
+ * <ul>
+ * <li>予約・取消：件数によらず一定時間(各スロットは双方向リストのため)</li>
+ * <li>時刻の進行：経過したティック数と、期限が到来した件数に比例</li>
+ * </ul>
+ * <p>最上位の輪の範囲(64<sup>4</sup>ティック)を超える予約は、最上位の輪で範囲内になるまで保持します。
+ *
+ * <p><strong>スレッドセーフではありません。</strong>呼び出し元で排他制御を行ってください。
+ *
+ * @param <T> 予約に紐づける値の型
+ * @author 情報太郎
+ */
+public class TaskTimingWheel<T> {
+
+	/** 1階層あたりのスロット数のビット数(64スロット) */
+	private static final int WHEEL_BITS = 6;
+
+	/** 1階層あたりのスロット数 */
+	private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+	/** スロット位置の算出用マスク */
+	private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+	/** 階層数 */
+	private static final int LEVELS = 4;
+
+	/** 1ティックあたりのミリ秒 */
+	private final long tickMillis;
+
+	/** 階層・スロット毎の予約リストの番兵 */
+	private final Timeout<T>[][] slots;
+
+	/** 現在のティック */
+	private long currentTick;
+
+	/** 予約件数 */
+	private int size;
+
+	/**
+	 * タイミングホイールを生成します。
+	 *
+	 * @param tickMillis 1ティックあたりのミリ秒(1以上)
+	 * @param startMillis 開始時刻(エポックミリ秒)
+	 */
+	@SuppressWarnings("unchecked")
+	public TaskTimingWheel(long tickMillis, long startMillis) {
+		if (tickMillis < 1) {
+			throw new IllegalArgumentException("tickMillis は1以上を指定してください：" + tickMillis);
+		}
+		this.tickMillis = tickMillis;
+		this.currentTick = Math.floorDiv(startMillis, tickMillis);
+		this.slots = new Timeout[LEVELS][WHEEL_SIZE];
+		for (int level = 0; level < LEVELS; level++) {
+			for (int i = 0; i < WHEEL_SIZE; i++) {
+				Timeout<T> sentinel = new Timeout<T>(null, 0);
+				sentinel.prev = sentinel;
+				sentinel.next = sentinel;
+				slots[level][i] = sentinel;
+			}
+		}
+	}
+
+	/**
+	 * 指定時刻に期限が到来する予約を追加します。
+	 *
+	 * <p>指定時刻が経過済みの場合は、次のティックで期限到来とします。
+	 *
+	 * @param payload 予約に紐づける値(null可)
+	 * @param deadlineMillis 期限(エポックミリ秒)
+	 * @return 予約(取消に利用)
+	 */
+	public Timeout<T> schedule(T payload, long deadlineMillis) {
+		// 期限より早く到来しないよう切り上げる
+		long tick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick + 1);
+		Timeout<T> timeout = new Timeout<T>(payload, tick);
+		place(timeout);
+		size++;
+		return timeout;
+	}
+
+	/**
+	 * 予約を取り消します。
+	 *
+	 * @param timeout 予約(null可)
+	 * @return 取り消した場合はtrue、期限到来済み・取消済みの場合はfalse
+	 */
+	public boolean cancel(Timeout<T> timeout) {
+		if (timeout == null || timeout.next == null) {
+			return false;
+		}
+		unlink(timeout);
+		size--;
+		return true;
+	}
+
+	/**
+	 * 指定時刻まで時刻を進め、期限が到来した予約の値を{@code expired}へ渡します。
+	 *
+	 * <p>{@code expired}の中で新たな予約を追加することができます。<br>
+	 * 指定時刻が現在のティックより前の場合は何もしません。
+	 *
+	 * @param nowMillis 現在時刻(エポックミリ秒)
+	 * @param expired 期限到来時の処理(null不可)
+	 * @return 期限が到来した件数
+	 */
+	public int advanceTo(long nowMillis, Consumer<T> expired) {
+		long targetTick = Math.floorDiv(nowMillis, tickMillis);
+		int count = 0;
+		while (currentTick < targetTick) {
+			currentTick++;
+			cascade();
+
+			// 処理中に追加された予約と混ざらないよう、スロットを切り離してから処理する
+			Timeout<T> sentinel = slots[0][(int) (currentTick & WHEEL_MASK)];
+			Timeout<T> timeout = sentinel.next;
+			sentinel.prev = sentinel;
+			sentinel.next = sentinel;
+			while (timeout != sentinel) {
+				Timeout<T> next = timeout.next;
+				timeout.prev = null;
+				timeout.next = null;
+				size--;
+				count++;
+				expired.accept(timeout.payload);
+				timeout = next;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 予約件数を取得します。
+	 *
+	 * @return 予約件数
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * 上位の輪のスロットに時刻が到達した場合、そのスロットの予約を下位の輪へ振り分け直します。
+	 */
+	private void cascade() {
+		for (int level = 1; level < LEVELS; level++) {
+			// 下位の輪が1周した場合のみ、上位の輪のスロットが進む
+			if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) != 0) {
+				return;
+			}
+			Timeout<T> sentinel = slots[level][(int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK)];
+			Timeout<T> timeout = sentinel.next;
+			sentinel.prev = sentinel;
+			sentinel.next = sentinel;
+			while (timeout != sentinel) {
+				Timeout<T> next = timeout.next;
+				place(timeout);
+				timeout = next;
+			}
+		}
+	}
+
+	/**
+	 * 予約を、期限までのティック数に応じた階層・スロットへ配置します。
+	 */
+	private void place(Timeout<T> timeout) {
+		long delta = timeout.tick - currentTick;
+		Timeout<T> sentinel;
+		if (delta < 0) {
+			sentinel = slots[0][(int) (currentTick & WHEEL_MASK)];
+		} else if (delta >= 1L << (WHEEL_BITS * LEVELS)) {
+			// 範囲外の予約は、最上位の輪で最も遠いスロットに置き、到達時に再配置する
+			int shift = WHEEL_BITS * (LEVELS - 1);
+			sentinel = slots[LEVELS - 1][(int) (((currentTick >>> shift) + WHEEL_MASK) & WHEEL_MASK)];
+		} else {
+			int level = 0;
+			while (delta >= 1L << (WHEEL_BITS * (level + 1))) {
+				level++;
+			}
+			sentinel = slots[level][(int) ((timeout.tick >>> (WHEEL_BITS * level)) & WHEEL_MASK)];
+		}
+
+		timeout.prev = sentinel.prev;
+		timeout.next = sentinel;
+		sentinel.prev.next = timeout;
+		sentinel.prev = timeout;
+	}
+
+	private void unlink(Timeout<T> timeout) {
+		timeout.prev.next = timeout.next;
+		timeout.next.prev = timeout.prev;
+		timeout.prev = null;
+		timeout.next = null;
+	}
+
+	/**
+	 * 1件分の予約です。
+	 *
+	 * @param <T> 予約に紐づける値の型
+	 */
+	public static final class Timeout<T> {
+
+		/** 予約に紐づける値 */
+		private final T payload;
+
+		/** 期限のティック */
+		private final long tick;
+
+		/** 同じスロットの前後の予約(予約中でない場合はnull) */
+		private Timeout<T> prev;
+		private Timeout<T> next;
+
+		private Timeout(T payload, long tick) {
+			this.payload = payload;
+			this.tick = tick;
+		}
+
+		/**
+		 * 予約に紐づける値を取得します。
+		 *
+		 * @return 予約に紐づける値
+		 */
+		public T getPayload() {
+			return payload;
+		}
+
+		/**
+		 * 予約中かを判定します。
+		 *
+		 * @return 期限到来前かつ取消前の場合はtrue
+		 */
+		public boolean isScheduled() {
+			return next != null;
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package com.example.demo.task;
+
+/**
+ * 版数を指定したタスクの更新・削除の結果です。
+ *
+ * <p>{@link #CONFLICT}の場合は、最新の状態を表示し直してから再度操作できます。
+ *
+ * @author 情報太郎
+ */
+public enum TaskUpdateResult {
+	/** 成功 */
+	SUCCESS,
+	/** 失敗(タスクが存在しない、またはDBエラー) */
+	FAILED,
+	/** 他の処理で更新されていたため、更新しなかった(再実行可能) */
+	CONFLICT
+}
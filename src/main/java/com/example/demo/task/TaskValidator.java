@@ -0,0 +1,158 @@
+package com.example.demo.task;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneId;
+import java.util.Date;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * タスクの入力チェックと、入力値の変換を行います。
+ *
+ * <p>入力チェックで解析した値をそのまま{@link TaskData}へ設定するため、期限日などを2回解析しません。<br>
+ * 文字列は1文字ずつ判定し、リクエストごとに{@code Pattern}や{@code SimpleDateFormat}を生成しません。
+ * 状態を持たないため、複数のスレッドから同時に利用できます。
+ *
+ * @author 情報太郎
+ */
+@Component
+public class TaskValidator {
+
+	/** 件名の最大文字数 */
+	private static final int TITLE_MAX_LENGTH = 50;
+
+	/** タスクIDの最大桁数(Intの最大値を超えない桁数) */
+	private static final int ID_MAX_DIGITS = 9;
+
+	/** 優先度が不正な場合の値 */
+	public static final int INVALID_PRIORITY = -1;
+
+	/** 期限日を{@link Date}へ変換する際のタイムゾーン */
+	private final ZoneId zone = ZoneId.systemDefault();
+
+	/**
+	 * タスクIDの形式(1桁～9桁の数値)かを判定します。
+	 *
+	 * @param id タスクIDの文字列(null可)
+	 * @return 正しい形式の場合はtrue
+	 */
+	public boolean isValidId(String id) {
+		if (id == null || id.isEmpty() || id.length() > ID_MAX_DIGITS) {
+			return false;
+		}
+		return isDigits(id, 0, id.length());
+	}
+
+	/**
+	 * 件名が入力され、{@value #TITLE_MAX_LENGTH}文字以内かを判定します。
+	 *
+	 * @param title 件名(null可)
+	 * @return 正しい場合はtrue
+	 */
+	public boolean isValidTitle(String title) {
+		return title != null && !title.isBlank() && title.length() <= TITLE_MAX_LENGTH;
+	}
+
+	/**
+	 * 期限日(yyyy-MM-dd形式、月・日は1桁も可)を解析します。
+	 *
+	 * <p>存在しない日付(2月30日など)は不正とします。
+	 *
+	 * @param limitday 期限日の文字列(null可)
+	 * @return 期限日(不正な場合はnull)
+	 */
+	public LocalDate parseLimitday(String limitday) {
+		if (limitday == null) {
+			return null;
+		}
+		int length = limitday.length();
+		// 年は4桁、月・日は1桁または2桁
+		if (length < 8 || length > 10 || limitday.charAt(4) != '-' || !isDigits(limitday, 0, 4)) {
+			return null;
+		}
+		int dayStart = limitday.indexOf('-', 5) + 1;
+		if (dayStart < 7 || dayStart > 8 || !isDigits(limitday, 5, dayStart - 1)
+				|| length - dayStart < 1 || length - dayStart > 2 || !isDigits(limitday, dayStart, length)) {
+			return null;
+		}
+
+		int year = toInt(limitday, 0, 4);
+		int month = toInt(limitday, 5, dayStart - 1);
+		int day = toInt(limitday, dayStart, length);
+		if (month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))) {
+			return null;
+		}
+		return LocalDate.of(year, month, day);
+	}
+
+	/**
+	 * 優先度を解析します。
+	 *
+	 * @param priority 優先度の文字列(1:高～3:低、未指定の場合は中、null可)
+	 * @return 優先度(不正な場合は{@value #INVALID_PRIORITY})
+	 */
+	public int parsePriority(String priority) {
+		if (priority == null || priority.isBlank()) {
+			return TaskData.PRIORITY_NORMAL;
+		}
+		if (priority.length() != 1) {
+			return INVALID_PRIORITY;
+		}
+		char c = priority.charAt(0);
+		return c >= '1' && c <= '3' ? c - '0' : INVALID_PRIORITY;
+	}
+
+	/**
+	 * 入力チェックを行い、正しい場合は登録用の{@link TaskData}へ変換します。
+	 *
+	 * @param userId   ユーザID(null不可)
+	 * @param title    件名(null可)
+	 * @param limitday 期限日(yyyy-MM-dd形式、null可)
+	 * @param priority 優先度(未指定の場合は中、null可)
+	 * @return 登録用のタスク(入力項目に不備がある場合はnull)
+	 */
+	public TaskData toTaskData(String userId, String title, String limitday, String priority) {
+		if (!isValidTitle(title)) {
+			return null;
+		}
+		LocalDate date = parseLimitday(limitday);
+		int parsedPriority = parsePriority(priority);
+		if (date == null || parsedPriority == INVALID_PRIORITY) {
+			return null;
+		}
+
+		TaskData taskData = new TaskData();
+		taskData.setUserId(userId);
+		taskData.setTitle(title);
+		taskData.setComplate(false);
+		taskData.setLimitday(Date.from(date.atStartOfDay(zone).toInstant()));
+		taskData.setPriority(parsedPriority);
+		return taskData;
+	}
+
+	/**
+	 * 指定範囲の文字がすべて数字かを判定します。
+	 */
+	private static boolean isDigits(String value, int from, int to) {
+		for (int i = from; i < to; i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return from < to;
+	}
+
+	/**
+	 * 数字のみの範囲を数値へ変換します。
+	 */
+	private static int toInt(String value, int from, int to) {
+		int result = 0;
+		for (int i = from; i < to; i++) {
+			result = result * 10 + (value.charAt(i) - '0');
+		}
+		return result;
+	}
+}
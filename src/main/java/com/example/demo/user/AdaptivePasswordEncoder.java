@@ -0,0 +1,213 @@
+package com.example.demo.user;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * 実行環境の性能に合わせた強度でパスワードをハッシュ化します。
+ *
+ * <p>起動時にBCryptの所要時間を計測し、1回のハッシュ化が目標時間を超えない最大の強度を選択します。<br>
+ * 強度を指定した場合は計測しません。
+ *
+ * <p>ハッシュ化と照合は、専用のスレッドで実行します。
+ * 同時に実行する件数と待機件数に上限を設け、ログインやユーザ登録が集中してもCPUを占有しないようにします。
+ * 待機件数が上限に達した場合、照合は{@link AuthenticationServiceException}、ハッシュ化は{@link RejectedExecutionException}で失敗します。
+ *
+ * <p>現在より低い強度のハッシュは、{@link #upgradeEncoding(String)}でtrueを返却します。
+ * ログイン成功時に{@link LoginUserDetailsService#updatePassword}で現在の強度へ更新されます。
+ *
+ * @author 情報太郎
+ */
+@Log4j2
+public class AdaptivePasswordEncoder implements PasswordEncoder {
+
+	/** 計測に利用するパスワード */
+	private static final String CALIBRATION_PASSWORD = "calibration";
+
+	/** 選択した強度でハッシュ化するエンコーダ */
+	private final BCryptPasswordEncoder encoder;
+
+	/** 選択した強度 */
+	private final int strength;
+
+	/** ハッシュ化と照合を実行するスレッド */
+	private final ThreadPoolExecutor executor;
+
+	/** 待機件数の上限 */
+	private final int queueSize;
+
+	/** 待機件数の最大 */
+	private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+	/** 上限超過で実行しなかった件数 */
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	/** 待機時間の合計(ナノ秒) */
+	private final AtomicLong waitNanos = new AtomicLong();
+
+	/** 実行時間の合計(ナノ秒) */
+	private final AtomicLong runNanos = new AtomicLong();
+
+	/**
+	 * エンコーダを生成します。
+	 *
+	 * @param strength 強度(0の場合は目標時間から計測して決定)
+	 * @param targetMillis 1回のハッシュ化の目標時間(ミリ秒)
+	 * @param minStrength 強度の下限
+	 * @param maxStrength 強度の上限
+	 * @param parallelism 同時に実行する件数(0の場合はCPUコア数)
+	 * @param queueSize 待機件数の上限
+	 */
+	public AdaptivePasswordEncoder(int strength, long targetMillis, int minStrength, int maxStrength,
+			int parallelism, int queueSize) {
+		this.strength = strength > 0 ? strength : calibrate(targetMillis, minStrength, maxStrength);
+		this.encoder = new BCryptPasswordEncoder(this.strength);
+		this.queueSize = queueSize;
+
+		int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(queueSize), runnable -> {
+					Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		log.info("パスワードのハッシュ化：強度={} スレッド数={} 待機件数の上限={}", this.strength, threads, queueSize);
+	}
+
+	/**
+	 * 目標時間を超えない最大の強度を計測します。
+	 *
+	 * <p>強度が1上がると所要時間は2倍になるため、下限の強度で1回だけ計測し、それ以上の強度は所要時間を推定します。
+	 *
+	 * @param targetMillis 1回のハッシュ化の目標時間(ミリ秒)
+	 * @param minStrength 強度の下限
+	 * @param maxStrength 強度の上限
+	 * @return 強度
+	 */
+	static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+		BCryptPasswordEncoder minEncoder = new BCryptPasswordEncoder(minStrength);
+		// 初回はクラスの読み込みやJITの影響を受けるため計測しない
+		minEncoder.encode(CALIBRATION_PASSWORD);
+		long start = System.nanoTime();
+		minEncoder.encode(CALIBRATION_PASSWORD);
+		long elapsedNanos = Math.max(1, System.nanoTime() - start);
+
+		int strength = minStrength;
+		long estimatedNanos = elapsedNanos;
+		while (strength < maxStrength && estimatedNanos * 2 <= targetMillis * 1_000_000L) {
+			strength++;
+			estimatedNanos *= 2;
+		}
+		log.info("パスワードのハッシュ化の計測：強度{}で{}ms、選択した強度{}(推定{}ms)", minStrength, elapsedNanos / 1_000_000,
+				strength, estimatedNanos / 1_000_000);
+		return strength;
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return execute(() -> encoder.encode(rawPassword));
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		try {
+			return execute(() -> encoder.matches(rawPassword, encodedPassword));
+		} catch (RejectedExecutionException e) {
+			throw new AuthenticationServiceException("ログインが集中しているため、照合できませんでした", e);
+		}
+	}
+
+	/**
+	 * 現在の強度より低い強度でハッシュ化されているかを判定します。
+	 *
+	 * @param encodedPassword ハッシュ化されたパスワード
+	 * @return 現在の強度へ更新する必要がある場合はtrue
+	 */
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return encoder.upgradeEncoding(encodedPassword);
+	}
+
+	private <T> T execute(Callable<T> task) {
+		long submittedAt = System.nanoTime();
+		Future<T> future;
+		try {
+			future = executor.submit(() -> {
+				long startedAt = System.nanoTime();
+				waitNanos.addAndGet(startedAt - submittedAt);
+				try {
+					return task.call();
+				} finally {
+					runNanos.addAndGet(System.nanoTime() - startedAt);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			rejectedCount.incrementAndGet();
+			throw e;
+		}
+		maxQueueDepth.accumulateAndGet(executor.getQueue().size(), Math::max);
+
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("パスワードのハッシュ化が中断されました", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * 選択した強度を取得します。
+	 *
+	 * @return 強度
+	 */
+	public int getStrength() {
+		return strength;
+	}
+
+	/**
+	 * ハッシュ化と照合の実行状況を取得します。
+	 *
+	 * @return 実行状況(取得時点の値)
+	 */
+	public PasswordHashMetrics getMetrics() {
+		PasswordHashMetrics metrics = new PasswordHashMetrics();
+		metrics.setStrength(strength);
+		metrics.setThreads(executor.getMaximumPoolSize());
+		metrics.setActiveCount(executor.getActiveCount());
+		metrics.setQueueDepth(executor.getQueue().size());
+		metrics.setQueueSize(queueSize);
+		metrics.setMaxQueueDepth(maxQueueDepth.get());
+		metrics.setCompletedCount(executor.getCompletedTaskCount());
+		metrics.setRejectedCount(rejectedCount.get());
+		metrics.setWaitNanos(waitNanos.get());
+		metrics.setRunNanos(runNanos.get());
+		return metrics;
+	}
+
+	/**
+	 * ハッシュ化と照合を実行するスレッドを停止します。
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,56 @@
+package com.example.demo.user;
+
+import lombok.Data;
+
+/**
+ * ログイン時の認証情報の取得件数と所要時間です。
+ *
+ * <p>件数と所要時間は、アプリケーションの起動時からの累計です。
+ *
+ * @author 情報太郎
+ */
+@Data
+public class LoginMetrics {
+
+	/** 取得件数 */
+	private long lookupCount;
+
+	/** キャッシュのヒット件数 */
+	private long hitCount;
+
+	/** 存在しないユーザの件数 */
+	private long notFoundCount;
+
+	/** 再ハッシュ化したパスワードへ更新した件数 */
+	private long rehashCount;
+
+	/** 取得の所要時間の合計(ナノ秒) */
+	private long totalNanos;
+
+	/** DBからの取得の所要時間の合計(ナノ秒) */
+	private long loadNanos;
+
+	/** 取得の所要時間の最大(ナノ秒) */
+	private long maxNanos;
+
+	/** キャッシュに保持しているユーザ数 */
+	private int cachedUsers;
+
+	/**
+	 * 取得1件あたりの平均所要時間を取得します。
+	 *
+	 * @return 平均所要時間(マイクロ秒、未取得の場合は0)
+	 */
+	public double getAverageMicros() {
+		return lookupCount == 0 ? 0 : totalNanos / 1000.0 / lookupCount;
+	}
+
+	/**
+	 * キャッシュのヒット率を取得します。
+	 *
+	 * @return ヒット率(0から1、未取得の場合は0)
+	 */
+	public double getHitRatio() {
+		return lookupCount == 0 ? 0 : (double) hitCount / lookupCount;
+	}
+}
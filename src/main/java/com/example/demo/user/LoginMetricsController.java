@@ -0,0 +1,45 @@
+package com.example.demo.user;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 【管理者】ログイン時の認証情報の取得件数と所要時間、パスワードのハッシュ化の実行状況を参照する機能を表す。
+ *
+ * <p><strong>この機能は管理者ロールのユーザのみが利用できます</strong>
+ *
+ * @author 情報太郎
+ *
+ */
+@RestController
+public class LoginMetricsController {
+
+	/* 認証情報の取得処理 */
+	@Autowired
+	private LoginUserDetailsService loginUserDetailsService;
+
+	/* パスワードのハッシュ化処理 */
+	@Autowired
+	private AdaptivePasswordEncoder passwordEncoder;
+
+	/**
+	 * 【管理者】起動時からの認証情報の取得件数と所要時間を取得します。
+	 *
+	 * @return 取得件数と所要時間
+	 */
+	@GetMapping("/admin/login/metrics")
+	public LoginMetrics getMetrics() {
+		return loginUserDetailsService.getMetrics();
+	}
+
+	/**
+	 * 【管理者】パスワードのハッシュ化と照合の実行状況を取得します。
+	 *
+	 * @return 強度、待機件数などの実行状況
+	 */
+	@GetMapping("/admin/login/password-hash")
+	public PasswordHashMetrics getPasswordHashMetrics() {
+		return passwordEncoder.getMetrics();
+	}
+}
@@ -0,0 +1,239 @@
+package com.example.demo.user;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * ログイン時に、ユーザの認証情報と権限を取得します。
+ *
+ * <p>パスワード・アカウントの有効性・権限を、1回のSQLでまとめて取得します。<br>
+ * 取得した認証情報は有効期間の間メモリ上に保持し、同じユーザの再ログインやBASIC認証ではDBを参照しません。
+ * ユーザの更新・削除時は、対象ユーザのキャッシュを{@link #invalidate(String)}で破棄してください。
+ * <p>ログイン成功時、パスワードが現在より低い強度でハッシュ化されている場合は、{@link #updatePassword}で再ハッシュ化したものへ更新します。
+ * <p>取得の件数と所要時間を記録し、{@link #getMetrics()}で参照できます。
+ *
+ * @author 情報太郎
+ */
+@Service
+public class LoginUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+	/** ユーザ情報のDBアクセスクラス */
+	@Autowired
+	private UserRepository userRepository;
+
+	/** キャッシュの利用有無 */
+	private final boolean enabled;
+
+	/** 保持するユーザ数の上限 */
+	private final int maxUsers;
+
+	/** 有効期間(ナノ秒) */
+	private final long ttlNanos;
+
+	/** ユーザID毎の認証情報(参照順) */
+	private final LinkedHashMap<String, Entry> users;
+
+	/** 破棄された回数(取得中の破棄を検知するために利用) */
+	private long generation;
+
+	/** 取得件数 */
+	private final AtomicLong lookupCount = new AtomicLong();
+
+	/** ヒット件数 */
+	private final AtomicLong hitCount = new AtomicLong();
+
+	/** 存在しないユーザの件数 */
+	private final AtomicLong notFoundCount = new AtomicLong();
+
+	/** 再ハッシュ化したパスワードへ更新した件数 */
+	private final AtomicLong rehashCount = new AtomicLong();
+
+	/** 取得の所要時間の合計(ナノ秒) */
+	private final AtomicLong totalNanos = new AtomicLong();
+
+	/** DBからの取得の所要時間の合計(ナノ秒) */
+	private final AtomicLong loadNanos = new AtomicLong();
+
+	/** 取得の所要時間の最大(ナノ秒) */
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	/**
+	 * 認証情報の取得処理を生成します。
+	 *
+	 * @param enabled キャッシュの利用有無
+	 * @param maxUsers 保持するユーザ数の上限
+	 * @param ttlSeconds 有効期間(秒)
+	 */
+	public LoginUserDetailsService(@Value("${user.login-cache.enabled:true}") boolean enabled,
+			@Value("${user.login-cache.max-users:10000}") int maxUsers,
+			@Value("${user.login-cache.ttl-seconds:30}") long ttlSeconds) {
+		this.enabled = enabled;
+		this.maxUsers = maxUsers;
+		this.ttlNanos = ttlSeconds * 1_000_000_000L;
+		this.users = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > LoginUserDetailsService.this.maxUsers;
+			}
+		};
+	}
+
+	/**
+	 * 指定ユーザの認証情報を取得します。
+	 *
+	 * <p>認証後にパスワードが消去されても保持中の認証情報へ影響しないよう、毎回複製を返却します。
+	 *
+	 * @param username ユーザID
+	 * @return 認証情報
+	 * @throws UsernameNotFoundException ユーザが存在しない場合
+	 */
+	@Override
+	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+		long start = System.nanoTime();
+		try {
+			return User.withUserDetails(load(username)).build();
+		} finally {
+			long elapsed = System.nanoTime() - start;
+			lookupCount.incrementAndGet();
+			totalNanos.addAndGet(elapsed);
+			maxNanos.accumulateAndGet(elapsed, Math::max);
+		}
+	}
+
+	private UserDetails load(String username) {
+		long loadedGeneration;
+		synchronized (this) {
+			Entry entry = enabled ? users.get(username) : null;
+			if (entry != null && System.nanoTime() - entry.loadedAt < ttlNanos) {
+				hitCount.incrementAndGet();
+				return entry.userDetails;
+			}
+			if (entry != null) {
+				// 有効期間切れ
+				users.remove(username);
+			}
+			loadedGeneration = generation;
+		}
+
+		long start = System.nanoTime();
+		List<UserData> resultList = userRepository.selectLogin(username);
+		loadNanos.addAndGet(System.nanoTime() - start);
+		if (resultList.isEmpty()) {
+			notFoundCount.incrementAndGet();
+			throw new UsernameNotFoundException("ユーザが存在しません：" + username);
+		}
+		UserData userData = resultList.get(0);
+		UserDetails userDetails = User.withUsername(userData.getUserId())
+				.password(userData.getPassword())
+				.disabled(!userData.isEnabled())
+				.authorities(userData.getRole())
+				.build();
+
+		synchronized (this) {
+			// 取得中に破棄されていない場合のみ保持する
+			if (enabled && generation == loadedGeneration) {
+				users.put(username, new Entry(userDetails, System.nanoTime()));
+			}
+		}
+		return userDetails;
+	}
+
+	/**
+	 * ログイン成功時に、現在の強度で再ハッシュ化したパスワードへ更新します。
+	 *
+	 * <p>ログイン後にパスワードが変更されていた場合は更新しません。
+	 *
+	 * @param user 認証情報(パスワードは更新前のハッシュ)
+	 * @param newPassword 再ハッシュ化したパスワード
+	 * @return 更新後の認証情報
+	 */
+	@Override
+	public UserDetails updatePassword(UserDetails user, String newPassword) {
+		if (userRepository.updatePasswordIfUnchanged(user.getUsername(), user.getPassword(), newPassword) == 0) {
+			return user;
+		}
+		rehashCount.incrementAndGet();
+		invalidate(user.getUsername());
+		return User.withUserDetails(user).password(newPassword).build();
+	}
+
+	/**
+	 * 指定ユーザの認証情報のキャッシュを破棄します。
+	 *
+	 * <p>トランザクション中の場合は、コミット前に古い認証情報を再取得して保持しないよう、完了後にも破棄します。
+	 *
+	 * @param userId ユーザID(null不可)
+	 */
+	public void invalidate(String userId) {
+		remove(userId);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					remove(userId);
+				}
+			});
+		}
+	}
+
+	private synchronized void remove(String userId) {
+		generation++;
+		users.remove(userId);
+	}
+
+	/**
+	 * 認証情報の取得件数と所要時間を取得します。
+	 *
+	 * @return 取得件数と所要時間(取得時点の値)
+	 */
+	public LoginMetrics getMetrics() {
+		LoginMetrics metrics = new LoginMetrics();
+		metrics.setLookupCount(lookupCount.get());
+		metrics.setHitCount(hitCount.get());
+		metrics.setNotFoundCount(notFoundCount.get());
+		metrics.setRehashCount(rehashCount.get());
+		metrics.setTotalNanos(totalNanos.get());
+		metrics.setLoadNanos(loadNanos.get());
+		metrics.setMaxNanos(maxNanos.get());
+		synchronized (this) {
+			metrics.setCachedUsers(users.size());
+		}
+		return metrics;
+	}
+
+	@Override
+	public String toString() {
+		return "LoginUserDetailsService(lookup=" + lookupCount + ", hit=" + hitCount + ", notFound=" + notFoundCount
+				+ ")";
+	}
+
+	/**
+	 * 1ユーザ分のキャッシュです。
+	 */
+	private static class Entry {
+
+		/** 認証情報 */
+		private final UserDetails userDetails;
+
+		/** 保持した時刻(ナノ秒) */
+		private final long loadedAt;
+
+		private Entry(UserDetails userDetails, long loadedAt) {
+			this.userDetails = userDetails;
+			this.loadedAt = loadedAt;
+		}
+	}
+}
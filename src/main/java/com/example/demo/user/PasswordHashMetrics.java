@@ -0,0 +1,53 @@
+package com.example.demo.user;
+
+import lombok.Data;
+
+/**
+ * パスワードのハッシュ化と照合の実行状況です。
+ *
+ * <p>件数と時間は、アプリケーションの起動時からの累計です。
+ *
+ * @author 情報太郎
+ */
+@Data
+public class PasswordHashMetrics {
+
+	/** BCryptの強度 */
+	private int strength;
+
+	/** 同時に実行する件数の上限(スレッド数) */
+	private int threads;
+
+	/** 実行中の件数 */
+	private int activeCount;
+
+	/** 待機中の件数 */
+	private int queueDepth;
+
+	/** 待機件数の上限 */
+	private int queueSize;
+
+	/** 待機件数の最大 */
+	private int maxQueueDepth;
+
+	/** 完了した件数 */
+	private long completedCount;
+
+	/** 上限超過で実行しなかった件数 */
+	private long rejectedCount;
+
+	/** 待機時間の合計(ナノ秒) */
+	private long waitNanos;
+
+	/** 実行時間の合計(ナノ秒) */
+	private long runNanos;
+
+	/**
+	 * 1件あたりの平均実行時間を取得します。
+	 *
+	 * @return 平均実行時間(ミリ秒、未実行の場合は0)
+	 */
+	public double getAverageRunMillis() {
+		return completedCount == 0 ? 0 : runNanos / 1_000_000.0 / completedCount;
+	}
+}
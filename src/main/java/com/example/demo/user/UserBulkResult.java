@@ -0,0 +1,25 @@
+package com.example.demo.user;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * ユーザの一括削除の実行結果です。
+ *
+ * <p>指定されたユーザIDごとに、削除できたか否かを保持します。<br>
+ * 存在しないユーザIDは削除対象外となり、他のユーザの削除は継続します。
+ *
+ * @author 情報太郎
+ */
+@Data
+public class UserBulkResult {
+
+	/** 削除できたユーザIDのリスト */
+	private List<String> deleted = new ArrayList<String>();
+
+	/** 削除対象外となったユーザIDのリスト */
+	private List<String> notFound = new ArrayList<String>();
+
+}
@@ -1,6 +1,7 @@
 package com.example.demo.user;
 
 import java.security.Principal;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -34,17 +35,43 @@ public class UserController {
 	/**
 	 * ユーザ一覧画面を表示します。
 	 *
-	 * <p>本機能は、ユーザ管理機能の一覧機能を提供します。
+	 * <p>本機能は、ユーザ管理機能の一覧機能を提供します。<br>
+	 * ユーザID・ユーザ名の前方一致、権限、アカウント有効性で絞り込み、1ページ分のみを表示します。
+	 * 前後のページは、{@code userEntity}の{@code nextCursor}・{@code prevCursor}を
+	 * {@code after}・{@code before}に指定して表示します。
 	 * <p><strong>この機能は管理者もしくは上位ロールのユーザのみが利用できます</strong>
 	 *
+	 * @param userSearchForm 検索条件(null不可)
+	 * @param bindingResult 入力値のバインディング結果
 	 * @param model {@code Model} オブジェクト
 	 * @return ユーザーリスト表示用のビュー名
 	 */
 	@GetMapping("/user/list")
-	public String getUserList(Model model) {
+	public String getUserList(@Validated UserSearchForm userSearchForm, BindingResult bindingResult, Model model) {
 
-		UserEntity userEntity = userService.getUserList();
+		// 入力チェックでエラーの場合、条件なしの先頭ページを表示する
+		if (bindingResult.hasErrors()) {
+			model.addAttribute("errorMessage", "検索条件に不備があります");
+			userSearchForm = new UserSearchForm();
+		}
+
+		UserEntity userEntity = userService.getUserPage(userSearchForm);
 		model.addAttribute("userEntity", userEntity);
+		model.addAttribute("userSearchForm", userSearchForm);
+
+		return "user/list";
+	}
+
+	/**
+	 * 処理結果とともに、ユーザ一覧画面の先頭ページを表示します。
+	 *
+	 * @param model {@code Model} オブジェクト
+	 * @return ユーザーリスト表示用のビュー名
+	 */
+	private String getUserList(Model model) {
+		UserSearchForm userSearchForm = new UserSearchForm();
+		model.addAttribute("userEntity", userService.getUserPage(userSearchForm));
+		model.addAttribute("userSearchForm", userSearchForm);
 
 		return "user/list";
 	}
@@ -183,19 +210,32 @@ public class UserController {
 	
 	/**
 	 * 選択した複数のユーザーを一括削除するためのコントローラーメソッドです。
+	 *
+	 * <p>存在しないユーザーが含まれていても他のユーザーは削除し、ユーザーIDごとの結果を画面へ渡します。
 	 * @param users 削除対象のユーザーIDのリスト（カンマ区切り）
 	 * @param model {@code Model} オブジェクト
 	 * @return ユーザーリスト画面のビュー名
 	 */
 	@PostMapping("/user/delete/bulk")
-	public String deleteBulkUser(@RequestParam(name = "users") String users, Model model) {
-		boolean isSuceess = userService.delete(users);
-		if (isSuceess) {
-			model.addAttribute("message", "選択したユーザを削除しました");
+	public String deleteBulkUser(@RequestParam(name = "users", required = false) String users, Model model) {
+		List<String> userIds = userService.toUserIds(users);
+		if (userIds.isEmpty()) {
+			model.addAttribute("errorMessage", "削除するユーザを選択してください");
+			return getUserList(model);
+		}
+
+		UserBulkResult result = userService.deleteAll(userIds);
+		if (result == null) {
+			model.addAttribute("errorMessage", "一度に削除できるユーザは" + userService.getDeleteMaxBatchSize() + "件までです");
+			return getUserList(model);
+		}
+		model.addAttribute("bulkResult", result);
+		if (result.getNotFound().isEmpty()) {
+			model.addAttribute("message", result.getDeleted().size() + "件のユーザを削除しました");
 		} else {
-			model.addAttribute("errorMessage", "ユーザ一括削除に失敗しました。操作をやり直してください。");
+			model.addAttribute("errorMessage", result.getNotFound().size() + "件のユーザが削除できませんでした");
 		}
-		
+
 		return getUserList(model);
 	}
 
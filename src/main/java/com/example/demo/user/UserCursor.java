@@ -0,0 +1,90 @@
+package com.example.demo.user;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * ユーザ一覧のページ位置を表すカーソルです。
+ *
+ * <p>一覧の並び順である (ユーザ名, ユーザID) または ユーザID をそのまま保持し、
+ * 次ページ・前ページの取得条件（シーク条件）として利用します。<br>
+ * 画面とのやり取りには、URLに埋め込める文字列（トークン）へ変換して利用します。
+ *
+ * @author 情報太郎
+ */
+public class UserCursor {
+
+	/** トークン内の区切り文字 */
+	private static final String SEPARATOR = "\n";
+
+	/** ユーザID */
+	private final String userId;
+
+	/** ユーザ名(ユーザ名順の一覧の場合のみ、それ以外はnull) */
+	private final String userName;
+
+	/**
+	 * カーソルを生成します。
+	 *
+	 * @param userId ユーザID(null不可)
+	 * @param userName ユーザ名(ユーザ名順の一覧の場合のみ、null可)
+	 */
+	public UserCursor(String userId, String userName) {
+		this.userId = userId;
+		this.userName = userName;
+	}
+
+	/**
+	 * 指定されたユーザの位置を表すカーソルを生成します。
+	 *
+	 * @param userData ユーザ情報(null不可)
+	 * @param byName ユーザ名順の一覧の場合はtrue
+	 * @return カーソル
+	 */
+	public static UserCursor of(UserData userData, boolean byName) {
+		return new UserCursor(userData.getUserId(), byName ? userData.getUser_name() : null);
+	}
+
+	/**
+	 * トークン文字列からカーソルを復元します。
+	 *
+	 * <p>トークンが未指定、または不正な形式の場合はnullを返却します。
+	 *
+	 * @param token トークン文字列
+	 * @return カーソル(復元できない場合はnull)
+	 */
+	public static UserCursor decode(String token) {
+		if (token == null || token.isBlank()) {
+			return null;
+		}
+		try {
+			String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			String[] parts = value.split(SEPARATOR, 2);
+			if (parts[0].isEmpty()) {
+				return null;
+			}
+			return new UserCursor(parts[0], parts.length == 2 ? parts[1] : null);
+		} catch (IllegalArgumentException e) {
+			// Base64の形式不正
+			return null;
+		}
+	}
+
+	/**
+	 * カーソルをトークン文字列へ変換します。
+	 *
+	 * @return トークン文字列
+	 */
+	public String encode() {
+		String value = userName == null ? userId : userId + SEPARATOR + userName;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public String getUserId() {
+		return userId;
+	}
+
+	public String getUserName() {
+		return userName;
+	}
+}
@@ -18,6 +18,12 @@ public class UserEntity {
 	/** ユーザ情報のリスト */
 	private List<UserData> userlist = new ArrayList<UserData>();
 
+	/** 次ページのカーソル(次ページがない場合はnull) */
+	private String nextCursor;
+
+	/** 前ページのカーソル(前ページがない場合はnull) */
+	private String prevCursor;
+
 	/** エラーメッセージ(表示用) */
 	private String errorMessage;
 	
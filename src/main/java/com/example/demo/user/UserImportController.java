@@ -0,0 +1,123 @@
+package com.example.demo.user;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 【管理者】ユーザの一括登録機能を表す。
+ *
+ * <p>本機能は、クラスや部署単位でのアカウント作成向けに、CSVファイルのユーザを一括で登録します。<br>
+ * 登録の進捗と結果は、1バッチごとにJSONの1行(NDJSON)としてレスポンスへ順次出力します。
+ * <p><strong>この機能は管理者ロールのユーザのみが利用できます</strong>
+ *
+ * @author 情報太郎
+ *
+ */
+@RestController
+public class UserImportController {
+
+	/** NDJSONのContent-Type */
+	private static final String CONTENT_TYPE_NDJSON = "application/x-ndjson";
+
+	/** 進捗の出力を待つ間隔(ミリ秒) */
+	private static final long PROGRESS_POLL_MILLIS = 100;
+
+	/* ユーザ一括登録の業務ロジッククラス */
+	@Autowired
+	private UserImportService userImportService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * 【管理者】CSVファイルのユーザを一括で登録します。
+	 *
+	 * <p>一括登録は同時に1つのみ実行できます。既に登録中の場合は409(Conflict)を返却します。<br>
+	 * 登録は一括登録の実行用スレッドで行い、レスポンスは進捗の出力のみを行います。
+	 * クライアントが切断した場合や、非同期処理がタイムアウトした場合も登録は継続し、結果は{@link #getProgress()}で確認できます。
+	 *
+	 * @param file 登録するユーザを記載したCSVファイル(null不可)
+	 * @return 登録の進捗と結果(1バッチごとに1行)
+	 * @throws IOException ファイルを読み込めない場合
+	 */
+	@PostMapping("/user/import")
+	public ResponseEntity<StreamingResponseBody> importUsers(@RequestParam("file") MultipartFile file)
+			throws IOException {
+		if (file.isEmpty()) {
+			return ResponseEntity.badRequest().build();
+		}
+		// 非同期で処理する前に、アップロードされたファイルの内容を取得しておく
+		byte[] content = file.getBytes();
+		UserImportProgress progress = userImportService.start();
+		if (progress == null) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).build();
+		}
+
+		HttpHeaders header = new HttpHeaders();
+		header.add("Content-Type", CONTENT_TYPE_NDJSON);
+		// 進捗はバッチを登録した時点の内容で出力するため、登録のスレッドでJSONにしておく
+		BlockingQueue<String> lines = new LinkedBlockingQueue<String>();
+		AtomicBoolean connected = new AtomicBoolean(true);
+		Future<?> future = userImportService.submit(progress, new ByteArrayInputStream(content), snapshot -> {
+			if (!connected.get()) {
+				return;
+			}
+			try {
+				lines.add(objectMapper.writeValueAsString(snapshot));
+			} catch (JsonProcessingException e) {
+				connected.set(false);
+			}
+		});
+
+		return new ResponseEntity<StreamingResponseBody>(out -> {
+			try {
+				// 登録の終了後は、残りの進捗を出力して終了する
+				while (!future.isDone() || !lines.isEmpty()) {
+					String line = lines.poll(PROGRESS_POLL_MILLIS, TimeUnit.MILLISECONDS);
+					if (line != null) {
+						out.write(line.getBytes(StandardCharsets.UTF_8));
+						out.write('\n');
+						out.flush();
+					}
+				}
+			} catch (InterruptedException e) {
+				// タイムアウトで中断された場合は、出力のみ取りやめる
+				connected.set(false);
+				Thread.currentThread().interrupt();
+			} catch (IOException e) {
+				// 切断された場合は、以降の出力のみ取りやめる
+				connected.set(false);
+			}
+		}, header, HttpStatus.OK);
+	}
+
+	/**
+	 * 【管理者】実行中、または最後に実行した一括登録の進捗を取得します。
+	 *
+	 * @return 一括登録の進捗
+	 */
+	@GetMapping("/user/import/progress")
+	public UserImportProgress getProgress() {
+		return userImportService.getProgress();
+	}
+}
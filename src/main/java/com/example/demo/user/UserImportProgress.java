@@ -0,0 +1,135 @@
+package com.example.demo.user;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Data;
+
+/**
+ * ユーザ一括登録の進捗と結果を表します。
+ *
+ * <p>登録中に他のスレッドから参照されるため、件数は{@code Atomic*}で保持します。<br>
+ * JSONへ変換して、登録中の進捗の通知と、管理者の進捗確認に利用します。
+ * エラー行は最大{@value #MAX_REPORTED_ERRORS}件まで保持し、それ以降は件数のみ数えます。
+ *
+ * @author 情報太郎
+ */
+public class UserImportProgress {
+
+	/** 保持するエラー行の上限 */
+	public static final int MAX_REPORTED_ERRORS = 100;
+
+	/** 読み込んだ件数 */
+	private final AtomicInteger readRows = new AtomicInteger();
+
+	/** 登録した件数 */
+	private final AtomicInteger importedRows = new AtomicInteger();
+
+	/** エラー件数 */
+	private final AtomicInteger errorRows = new AtomicInteger();
+
+	/** エラー行の一覧 */
+	private final List<RowError> errors = new ArrayList<RowError>();
+
+	/** 開始日時(未開始の場合はnull) */
+	private volatile Date startedAt;
+
+	/** 終了日時(登録中の場合はnull) */
+	private volatile Date finishedAt;
+
+	/** 失敗の有無 */
+	private volatile boolean failed;
+
+	/** エラーメッセージ(ファイル全体のエラー、表示用) */
+	private volatile String errorMessage;
+
+	void start() {
+		this.startedAt = new Date();
+	}
+
+	void addRead(int rows) {
+		readRows.addAndGet(rows);
+	}
+
+	void addImported(int rows) {
+		importedRows.addAndGet(rows);
+	}
+
+	void addError(int rowNumber, String message) {
+		errorRows.incrementAndGet();
+		synchronized (errors) {
+			if (errors.size() < MAX_REPORTED_ERRORS) {
+				errors.add(new RowError(rowNumber, message));
+			}
+		}
+	}
+
+	void finish(boolean failed, String errorMessage) {
+		this.failed = failed;
+		this.errorMessage = errorMessage;
+		this.finishedAt = new Date();
+	}
+
+	/**
+	 * 登録中かを判定します。
+	 *
+	 * @return 登録中の場合はtrue
+	 */
+	public boolean isRunning() {
+		return startedAt != null && finishedAt == null;
+	}
+
+	public int getReadRows() {
+		return readRows.get();
+	}
+
+	public int getImportedRows() {
+		return importedRows.get();
+	}
+
+	public int getErrorRows() {
+		return errorRows.get();
+	}
+
+	/**
+	 * エラー行の一覧を取得します。
+	 *
+	 * @return エラー行の一覧(取得時点の複製)
+	 */
+	public List<RowError> getErrors() {
+		synchronized (errors) {
+			return new ArrayList<RowError>(errors);
+		}
+	}
+
+	public Date getStartedAt() {
+		return startedAt;
+	}
+
+	public Date getFinishedAt() {
+		return finishedAt;
+	}
+
+	public boolean isFailed() {
+		return failed;
+	}
+
+	public String getErrorMessage() {
+		return errorMessage;
+	}
+
+	/**
+	 * 1行分のエラー情報です。
+	 */
+	@Data
+	public static class RowError {
+
+		/** 行番号(ヘッダ行を除き1始まり) */
+		private final int rowNumber;
+
+		/** エラー内容 */
+		private final String message;
+	}
+}
@@ -0,0 +1,380 @@
+package com.example.demo.user;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.task.TaskImportReader;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * CSVファイルから、複数のユーザを一括で登録します(管理者向け)。
+ *
+ * <p>CSVは1行目をヘッダ行とし、{@code userId}・{@code password}・{@code username}・{@code role}列を利用します。
+ * 入力チェックはユーザ追加画面と同じ{@link UserForm}のルールで行い、作成したユーザは有効とします。
+ *
+ * <p>パスワードのハッシュ化(BCrypt)はCPU負荷が高いため、{@code user.import.batch-size}件ごとに
+ * {@code user.import.parallelism}スレッドの専用スレッドプールで並列に行い、{@code batchUpdate}で登録します。<br>
+ * 画面操作やログイン処理のCPUを奪わないよう、スレッド数は既定でCPUコア数 - 1とし、優先度を下げて実行します。
+ * 同時に1つの一括登録のみ実行でき、ハッシュ化を待つ件数も1バッチ分までに抑えます。
+ * ハッシュ化は{@link AdaptivePasswordEncoder}と同じ強度のエンコーダを用いて一括登録のスレッド上で行い、
+ * ログインの照合用のスレッドを利用しないため、一括登録中もログインの照合を待たせません。
+ *
+ * <p>登録はバッチごとに1つのトランザクションで確定し、進捗は{@link #getProgress()}で参照できます。
+ *
+ * @author 情報太郎
+ */
+@Log4j2
+@Service
+public class UserImportService {
+
+	/** CSVのユーザID列名 */
+	private static final String COLUMN_USER_ID = "userId";
+
+	/** CSVのパスワード列名 */
+	private static final String COLUMN_PASSWORD = "password";
+
+	/** CSVのユーザ名列名 */
+	private static final String COLUMN_USERNAME = "username";
+
+	/** CSVの権限列名 */
+	private static final String COLUMN_ROLE = "role";
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private AdaptivePasswordEncoder passwordEncoder;
+
+	/** 一括登録用のエンコーダ(ログインと同じ強度で、呼び出し元のスレッドでハッシュ化する) */
+	private PasswordEncoder importEncoder;
+
+	@Autowired
+	private Validator validator;
+
+	/** バッチごとにトランザクションを確定するためのテンプレート */
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	/** 1回のバッチで登録する件数 */
+	@Value("${user.import.batch-size:200}")
+	private int batchSize;
+
+	/** パスワードのハッシュ化用スレッドプール */
+	private final ExecutorService executor;
+
+	/** 一括登録の実行用スレッド(レスポンスの非同期処理がタイムアウトしても中断されないよう、要求とは別に実行する) */
+	private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "user-import-runner");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/** 実行中、または最後に実行した一括登録の進捗 */
+	private final AtomicReference<UserImportProgress> progress = new AtomicReference<UserImportProgress>(
+			new UserImportProgress());
+
+	/**
+	 * サービスを生成します。
+	 *
+	 * @param parallelism パスワードを並列にハッシュ化するスレッド数(0以下の場合はCPUコア数 - 1、最小1)
+	 */
+	public UserImportService(@Value("${user.import.parallelism:0}") int parallelism) {
+		int threads = parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+		AtomicInteger threadCount = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "user-import-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+	}
+
+	/**
+	 * ログインと同じ強度の、一括登録用のエンコーダを生成します。
+	 */
+	@PostConstruct
+	public void init() {
+		importEncoder = new BCryptPasswordEncoder(passwordEncoder.getStrength());
+	}
+
+	/**
+	 * 一括登録を開始します。
+	 *
+	 * @return 開始した一括登録の進捗(既に登録中の場合はnull)
+	 */
+	public UserImportProgress start() {
+		UserImportProgress current = progress.get();
+		UserImportProgress next = new UserImportProgress();
+		if (current.isRunning() || !progress.compareAndSet(current, next)) {
+			return null;
+		}
+		next.start();
+		return next;
+	}
+
+	/**
+	 * 実行中、または最後に実行した一括登録の進捗を取得します。
+	 *
+	 * @return 一括登録の進捗(未実行の場合は開始日時がnull)
+	 */
+	public UserImportProgress getProgress() {
+		return progress.get();
+	}
+
+	/**
+	 * CSVファイルのユーザの一括登録を、一括登録の実行用スレッドで開始します。
+	 *
+	 * <p>呼び出し元のスレッドが中断されても、登録は継続します。登録の内容は{@link #importUsers}と同じです。
+	 *
+	 * @param importProgress {@link #start()}で開始した進捗(null不可)
+	 * @param in CSVファイルの内容(null不可)
+	 * @param listener バッチを登録するごとに呼び出す処理(null不可、一括登録の実行用スレッドで呼び出す)
+	 * @return 一括登録の終了を待つためのFuture
+	 */
+	public Future<?> submit(UserImportProgress importProgress, InputStream in, Consumer<UserImportProgress> listener) {
+		return runner.submit(() -> importUsers(importProgress, in, listener));
+	}
+
+	/**
+	 * CSVファイルのユーザを一括で登録します。
+	 *
+	 * <p>{@link #start()}で開始した進捗を指定してください。登録が完了・失敗した時点で進捗を終了します。<br>
+	 * 入力チェックでエラーとなった行、ファイル内で重複するユーザID、登録済みのユーザIDは登録せず、
+	 * 行番号とともに進捗へ記録します。ファイル形式が不正な場合は、それまでに読み込んだ行を登録して終了します。
+	 *
+	 * @param importProgress {@link #start()}で開始した進捗(null不可)
+	 * @param in CSVファイルの内容(null不可)
+	 * @param listener バッチを登録するごとに呼び出す処理(null不可)
+	 */
+	public void importUsers(UserImportProgress importProgress, InputStream in, Consumer<UserImportProgress> listener) {
+		boolean failed = true;
+		String errorMessage = null;
+		try {
+			readCsv(in, importProgress, listener);
+			failed = false;
+		} catch (IOException e) {
+			errorMessage = "ファイルを読み込めませんでした：" + e.getMessage();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			errorMessage = "一括登録を中断しました";
+		} catch (RuntimeException e) {
+			log.error("ユーザ一括登録 失敗", e);
+			errorMessage = "ユーザを登録できませんでした";
+		} finally {
+			importProgress.finish(failed, errorMessage);
+			log.info("ユーザ一括登録 終了 失敗:" + failed + " 件数:" + importProgress.getImportedRows() + "/"
+					+ importProgress.getReadRows() + " エラー:" + importProgress.getErrorRows());
+		}
+		listener.accept(importProgress);
+	}
+
+	/**
+	 * CSVを読み込み、{@code user.import.batch-size}件ごとに登録します。
+	 */
+	private void readCsv(InputStream in, UserImportProgress importProgress, Consumer<UserImportProgress> listener)
+			throws IOException, InterruptedException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+		// ヘッダ行から列の位置を特定
+		String headerLine = reader.readLine();
+		if (headerLine == null) {
+			return;
+		}
+		if (headerLine.startsWith("\uFEFF")) {
+			headerLine = headerLine.substring(1);
+		}
+		List<String> header = TaskImportReader.splitCsvLine(headerLine);
+		int userIdIndex = header.indexOf(COLUMN_USER_ID);
+		int passwordIndex = header.indexOf(COLUMN_PASSWORD);
+		int usernameIndex = header.indexOf(COLUMN_USERNAME);
+		int roleIndex = header.indexOf(COLUMN_ROLE);
+		if (userIdIndex < 0 || passwordIndex < 0 || usernameIndex < 0 || roleIndex < 0) {
+			throw new IOException("ヘッダ行に" + COLUMN_USER_ID + "列と" + COLUMN_PASSWORD + "列と" + COLUMN_USERNAME
+					+ "列と" + COLUMN_ROLE + "列が必要です");
+		}
+
+		Set<String> seenIds = new HashSet<String>();
+		List<UserForm> batch = new ArrayList<UserForm>(batchSize);
+		List<Integer> batchRows = new ArrayList<Integer>(batchSize);
+		int rowNumber = 0;
+		String line;
+		IOException readError = null;
+		try {
+			while ((line = reader.readLine()) != null) {
+				rowNumber++;
+				if (line.isBlank()) {
+					continue;
+				}
+				List<String> columns = TaskImportReader.splitCsvLine(line);
+				UserForm userForm = new UserForm();
+				userForm.setUserId(column(columns, userIdIndex));
+				userForm.setPassword(column(columns, passwordIndex));
+				userForm.setUsername(column(columns, usernameIndex));
+				userForm.setRole(column(columns, roleIndex));
+				batch.add(userForm);
+				batchRows.add(rowNumber);
+				if (batch.size() >= batchSize) {
+					saveBatch(batch, batchRows, seenIds, importProgress);
+					listener.accept(importProgress);
+				}
+			}
+		} catch (IOException e) {
+			readError = e;
+		}
+
+		// 読み込みに失敗した場合も、それまでに読み込んだ行は登録する
+		if (!batch.isEmpty()) {
+			saveBatch(batch, batchRows, seenIds, importProgress);
+			listener.accept(importProgress);
+		}
+		if (readError != null) {
+			throw readError;
+		}
+	}
+
+	/**
+	 * 1バッチ分のユーザを入力チェックし、パスワードを並列にハッシュ化して登録します。
+	 *
+	 * @param batch 読み込んだユーザ
+	 * @param batchRows 読み込んだユーザの行番号
+	 * @param seenIds 既に読み込んだユーザID(ファイル内の重複の判定用)
+	 * @param importProgress 一括登録の進捗
+	 */
+	private void saveBatch(List<UserForm> batch, List<Integer> batchRows, Set<String> seenIds,
+			UserImportProgress importProgress) throws InterruptedException {
+		importProgress.addRead(batch.size());
+
+		// 入力チェックとファイル内の重複チェック
+		List<UserForm> validForms = new ArrayList<UserForm>(batch.size());
+		List<Integer> validRows = new ArrayList<Integer>(batch.size());
+		for (int i = 0; i < batch.size(); i++) {
+			UserForm userForm = batch.get(i);
+			if (!validator.validate(userForm).isEmpty()) {
+				importProgress.addError(batchRows.get(i), "入力項目に不備があります");
+			} else if (!seenIds.add(userForm.getUserId())) {
+				importProgress.addError(batchRows.get(i), "ユーザIDがファイル内で重複しています");
+			} else {
+				validForms.add(userForm);
+				validRows.add(batchRows.get(i));
+			}
+		}
+		batch.clear();
+		batchRows.clear();
+		if (validForms.isEmpty()) {
+			return;
+		}
+
+		// 登録済みのユーザIDは、ハッシュ化する前に除く
+		Set<String> existing = new HashSet<String>(
+				userRepository.findRegisteredIds(validForms.stream().map(UserForm::getUserId).toList()));
+		List<Future<UserData>> futures = new ArrayList<Future<UserData>>(validForms.size());
+		List<Integer> rows = new ArrayList<Integer>(validForms.size());
+		for (int i = 0; i < validForms.size(); i++) {
+			UserForm userForm = validForms.get(i);
+			if (existing.contains(userForm.getUserId())) {
+				importProgress.addError(validRows.get(i), "ユーザIDは既に登録されています");
+				continue;
+			}
+			futures.add(executor.submit(() -> refillToData(userForm)));
+			rows.add(validRows.get(i));
+		}
+
+		List<UserData> userList = new ArrayList<UserData>(futures.size());
+		try {
+			for (Future<UserData> future : futures) {
+				userList.add(future.get());
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("パスワードのハッシュ化に失敗しました", e.getCause());
+		} finally {
+			// 中断した場合は、残りのハッシュ化を取り消す
+			futures.forEach(future -> future.cancel(true));
+		}
+		if (!userList.isEmpty()) {
+			insertAll(userList, rows, importProgress);
+		}
+	}
+
+	/**
+	 * ハッシュ化したユーザをバッチ登録します。
+	 *
+	 * <p>バッチは1つのトランザクションで登録し、途中の行が失敗した場合はバッチ全体を取り消します。<br>
+	 * 確認後に他の操作で同じユーザIDが登録されていた場合は、1件ずつ登録し直してエラーの行を特定します。
+	 */
+	private void insertAll(List<UserData> userList, List<Integer> rows, UserImportProgress importProgress) {
+		try {
+			int[] updateRows = transactionTemplate.execute(status -> userRepository.saveAll(userList));
+			for (int i = 0; i < updateRows.length; i++) {
+				// ドライバが件数を返さない場合(SUCCESS_NO_INFO)も成功として扱う
+				if (updateRows[i] == 1 || updateRows[i] == Statement.SUCCESS_NO_INFO) {
+					importProgress.addImported(1);
+				} else {
+					importProgress.addError(rows.get(i), "登録できませんでした");
+				}
+			}
+		} catch (DataIntegrityViolationException e) {
+			// バッチは取り消されているため、この一括登録の行を重複と誤判定しない
+			for (int i = 0; i < userList.size(); i++) {
+				try {
+					userRepository.saveAll(List.of(userList.get(i)));
+					importProgress.addImported(1);
+				} catch (DataIntegrityViolationException duplicate) {
+					importProgress.addError(rows.get(i), "ユーザIDは既に登録されています");
+				}
+			}
+		}
+	}
+
+	/**
+	 * 入力値を登録用のユーザデータへ変換します(ユーザ追加画面と同じく、パスワードは暗号化し、アカウントは有効とする)。
+	 */
+	private UserData refillToData(UserForm userForm) {
+		UserData userData = new UserData();
+		userData.setUserId(userForm.getUserId());
+		userData.setPassword(importEncoder.encode(userForm.getPassword()));
+		userData.setUser_name(userForm.getUsername());
+		userData.setRole(userForm.getRole());
+		userData.setEnabled(true);
+		return userData;
+	}
+
+	private static String column(List<String> columns, int index) {
+		return index < columns.size() ? columns.get(index).strip() : null;
+	}
+
+	/**
+	 * アプリケーションの終了時に、実行中の一括登録とハッシュ化を中断します。
+	 */
+	@PreDestroy
+	public void shutdown() {
+		runner.shutdownNow();
+		executor.shutdownNow();
+	}
+}
@@ -1,6 +1,7 @@
 package com.example.demo.user;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,9 +32,33 @@ public class UserRepository {
 	/** SQL 全件取得（ユーザID昇順） */
 	private static final String SQL_SELECT_ALL = "SELECT * FROM m_user order by user_id";
 
+	/**
+	 * SQL ページ取得（検索条件・シーク条件・並び順は、検索条件に応じて付加する）
+	 * <p>並び順には、利用するインデックスの列をそのまま指定し、インデックス順に読んで並べ替えないようにする
+	 */
+	private static final String SQL_SELECT_PAGE = "SELECT * FROM m_user WHERE 1 = 1";
+
+	/** SQL ページ取得の条件：ユーザIDの前方一致（主キーを範囲走査） */
+	private static final String SQL_WHERE_USER_ID_PREFIX = " AND user_id >= :prefix AND user_id < :prefixEnd";
+
+	/** SQL ページ取得の条件：ユーザ名の前方一致（idx_user_nameを範囲走査） */
+	private static final String SQL_WHERE_USER_NAME_PREFIX = " AND user_name >= :prefix AND user_name < :prefixEnd";
+
+	/** SQL ページ取得の条件：権限 */
+	private static final String SQL_WHERE_ROLE = " AND role = :role";
+
+	/** SQL ページ取得の条件：アカウント有効性 */
+	private static final String SQL_WHERE_ENABLED = " AND enabled = :enabled";
+
 	/** SQL 1件取得 */
 	private static final String SQL_SELECT_ONE = "SELECT * FROM m_user WHERE user_id = :userId";
 
+	/** SQL ログイン時の認証情報と権限の取得 */
+	private static final String SQL_SELECT_LOGIN = "SELECT user_id, encrypted_password, enabled, role FROM m_user WHERE user_id = :userId";
+
+	/** SQL パスワードの再ハッシュ化(他の更新と競合した場合は更新しない) */
+	private static final String SQL_UPDATE_PASSWORD_IF_UNCHANGED = "UPDATE m_user SET encrypted_password = :password WHERE user_id = :userId AND encrypted_password = :oldPassword";
+
 	/** SQL 1件追加 */
 	private static final String SQL_INSERT_ONE = "INSERT INTO m_user(user_id, encrypted_password, user_name, role, enabled) VALUES(:userId, :password, :username, :role, :enabled)";
 
@@ -46,6 +71,15 @@ public class UserRepository {
 	/** SQL 1件削除 */
 	private static final String SQL_DELETE_ONE = "DELETE FROM m_user WHERE user_id = :userId";
 
+	/** SQL 存在するユーザID取得(複数件、削除まで他の更新を待たせる) */
+	private static final String SQL_SELECT_EXISTING_IDS = "SELECT user_id FROM m_user WHERE user_id IN (:userIds) FOR UPDATE";
+
+	/** SQL 登録済みのユーザID取得(複数件、ロックしない) */
+	private static final String SQL_SELECT_REGISTERED_IDS = "SELECT user_id FROM m_user WHERE user_id IN (:userIds)";
+
+	/** SQL 複数件削除 */
+	private static final String SQL_DELETE_ALL = "DELETE FROM m_user WHERE user_id IN (:userIds)";
+
 	/** 予想更新件数(ハードコーディング防止用) */
 	private static final int EXPECTED_UPDATE_COUNT = 1;
 
@@ -58,37 +92,167 @@ public class UserRepository {
 	 * <p>全レコードを取得するため、
 	 * <strong>取得データ量に注意して利用してください。</strong>
 	 *
-	 * @return 全ユーザレコードの配列
+	 * @return 全ユーザレコードのリスト
 	 */
-	public List<Map<String, Object>> selectAll() {
+	public List<UserData> selectAll() {
 		// パラメータを格納するためのマップを作成
 		Map<String, Object> params = new HashMap<>();
 
 		// 埋め込む値が存在しないため、空のMapを生成
-		List<Map<String, Object>> resultList = jdbc.queryForList(SQL_SELECT_ALL, params);
+		List<UserData> resultList = jdbc.query(SQL_SELECT_ALL, params, new UserRowMapper());
 		
 		// 取得したユーザーデータのリストを返す
 		return resultList;
 	}
 
+	/**
+	 * 検索条件に合致するユーザを、カーソル位置から1ページ分取得します。
+	 *
+	 * <p>検索条件に応じたインデックスを並び順のまま読み、カーソル位置から{@code limit}件で打ち切るため、
+	 * ユーザ数やページの位置によらず読み取る件数は一定です。
+	 * <ul>
+	 * <li>ユーザ名の前方一致：(ユーザ名, ユーザID)順</li>
+	 * <li>ユーザIDの前方一致、条件なし：ユーザID順</li>
+	 * <li>権限・アカウント有効性のみ：絞り込んだ値ごとのユーザID順</li>
+	 * </ul>
+	 *
+	 * @param form 検索条件(null不可、入力チェック済み)
+	 * @param cursor ページの位置(nullの場合は先頭から)
+	 * @param backward カーソル位置より前を逆順に取得する場合はtrue
+	 * @param limit 取得件数の上限
+	 * @return ユーザのリスト(backwardの場合は逆順)
+	 */
+	public List<UserData> selectPage(UserSearchForm form, UserCursor cursor, boolean backward, int limit) {
+		// パラメータを格納するためのマップを作成
+		Map<String, Object> params = new HashMap<>();
+		String sql = buildPageQuery(form, cursor, backward, limit, params);
+
+		return jdbc.query(sql, params, new UserRowMapper());
+	}
+
+	/**
+	 * 検索条件に応じた、ページ取得のSQLとパラメータを組み立てます。
+	 *
+	 * @param form 検索条件(null不可、入力チェック済み)
+	 * @param cursor ページの位置(nullの場合は先頭から)
+	 * @param backward カーソル位置より前を逆順に取得する場合はtrue
+	 * @param limit 取得件数の上限
+	 * @param params パラメータの設定先(null不可)
+	 * @return SQL
+	 */
+	String buildPageQuery(UserSearchForm form, UserCursor cursor, boolean backward, int limit,
+			Map<String, Object> params) {
+		StringBuilder sql = new StringBuilder(SQL_SELECT_PAGE);
+
+		// 検索条件
+		boolean byName = form.isByName();
+		if (form.hasKeyword()) {
+			String prefix = form.getKeyword().strip();
+			params.put("prefix", prefix);
+			params.put("prefixEnd", prefix + Character.MAX_VALUE);
+			sql.append(byName ? SQL_WHERE_USER_NAME_PREFIX : SQL_WHERE_USER_ID_PREFIX);
+		}
+		boolean hasRole = form.getRole() != null && !form.getRole().isEmpty();
+		if (hasRole) {
+			params.put("role", form.getRole());
+			sql.append(SQL_WHERE_ROLE);
+		}
+		boolean hasEnabled = form.getEnabled() != null && !form.getEnabled().isEmpty();
+		if (hasEnabled) {
+			params.put("enabled", Boolean.valueOf(form.getEnabled()));
+			sql.append(SQL_WHERE_ENABLED);
+		}
+
+		// シーク条件(並び順の列でカーソル位置より後ろ、または前)
+		String compare = backward ? " < " : " > ";
+		if (cursor != null) {
+			params.put("cursorId", cursor.getUserId());
+			if (byName) {
+				params.put("cursorName", cursor.getUserName() == null ? "" : cursor.getUserName());
+				sql.append(" AND (user_name").append(compare).append(":cursorName")
+						.append(" OR (user_name = :cursorName AND user_id").append(compare).append(":cursorId))");
+			} else {
+				sql.append(" AND user_id").append(compare).append(":cursorId");
+			}
+		}
+
+		// 並び順(利用するインデックスの列順、絞り込んだ列は値が1つのため順序に影響しない)
+		List<String> orderColumns;
+		if (byName) {
+			orderColumns = List.of("user_name", "user_id");
+		} else if (form.hasKeyword()) {
+			orderColumns = List.of("user_id");
+		} else if (hasRole) {
+			orderColumns = List.of("role", "user_id");
+		} else if (hasEnabled) {
+			orderColumns = List.of("enabled", "user_id");
+		} else {
+			orderColumns = List.of("user_id");
+		}
+		String direction = backward ? " DESC" : "";
+		sql.append(" order by ").append(String.join(direction + ", ", orderColumns)).append(direction);
+		sql.append(" LIMIT :limit");
+		params.put("limit", limit);
+		return sql.toString();
+	}
+
 	/**
 	 * 指定されたユーザーIDのユーザーデータを取得するメソッドです。
 	 * ユーザーIDは引数として受け取ります。
 	 * @param userId 取得するユーザーデータのユーザーID
 	 * @return 指定されたユーザーIDのユーザーデータのリスト
 	 */
-	public List<Map<String, Object>> selectOne(String userId) {
+	public List<UserData> selectOne(String userId) {
 		// パラメータを格納するためのマップを作成
 		Map<String, Object> params = new HashMap<>();
 		params.put("userId", userId);
 	
 		// データベースのクエリを実行し、結果を取得
-		List<Map<String, Object>> resultList = jdbc.queryForList(SQL_SELECT_ONE, params);
+		List<UserData> resultList = jdbc.query(SQL_SELECT_ONE, params, new UserRowMapper());
 	
 		// 取得したユーザーデータのリストを返す
 		return resultList;
 	}
 
+	/**
+	 * ログイン時の認証に必要な、パスワード・アカウントの有効性・権限を1回のSQLで取得します。
+	 *
+	 * <p>ユーザ名は取得しません。
+	 *
+	 * @param userId ユーザID
+	 * @return 認証情報(ユーザが存在しない場合は空のリスト)
+	 */
+	public List<UserData> selectLogin(String userId) {
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		return jdbc.query(SQL_SELECT_LOGIN, params, (rs, rowNum) -> {
+			UserData data = new UserData();
+			data.setUserId(rs.getString("user_id"));
+			data.setPassword(rs.getString("encrypted_password"));
+			data.setEnabled(rs.getBoolean("enabled"));
+			data.setRole(rs.getString("role"));
+			return data;
+		});
+	}
+
+	/**
+	 * ハッシュ化されたパスワードを、別の強度でハッシュ化したものへ置き換えます。
+	 *
+	 * <p>取得後にパスワードが変更されている場合は、変更後のパスワードを上書きしないよう更新しません。
+	 *
+	 * @param userId ユーザID
+	 * @param oldPassword 置き換える前のハッシュ化されたパスワード
+	 * @param password 置き換えた後のハッシュ化されたパスワード
+	 * @return 更新件数(0または1)
+	 */
+	public int updatePasswordIfUnchanged(String userId, String oldPassword, String password) {
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		params.put("oldPassword", oldPassword);
+		params.put("password", password);
+		return jdbc.update(SQL_UPDATE_PASSWORD_IF_UNCHANGED, params);
+	}
+
 	/**
 	 * ユーザ情報を１件登録します。
 	 *
@@ -187,4 +351,77 @@ public class UserRepository {
 		}
 	}
 
+	/**
+	 * 複数のユーザ情報を1回のバッチで登録します。
+	 *
+	 * <p>ユーザIDが重複する場合は例外が発生し、バッチ全体が登録されません。
+	 *
+	 * @param userList 登録するユーザデータのリスト(空不可)
+	 * @return 行ごとの登録件数
+	 */
+	public int[] saveAll(List<UserData> userList) {
+		@SuppressWarnings("unchecked")
+		Map<String, Object>[] batchParams = new Map[userList.size()];
+		for (int i = 0; i < batchParams.length; i++) {
+			UserData userData = userList.get(i);
+			Map<String, Object> params = new HashMap<>();
+			params.put("userId", userData.getUserId());
+			params.put("password", userData.getPassword());
+			params.put("username", userData.getUser_name());
+			params.put("role", userData.getRole());
+			params.put("enabled", userData.isEnabled());
+			batchParams[i] = params;
+		}
+
+		return jdbc.batchUpdate(SQL_INSERT_ONE, batchParams);
+	}
+
+	/**
+	 * 指定されたユーザーIDのうち、存在するユーザーIDを1回のSQLで検索します。
+	 *
+	 * <p>検索した行はトランザクションの終了までロックするため、同じトランザクション内で削除してください。
+	 *
+	 * @param userIds ユーザーIDのリスト(空不可)
+	 * @return 存在するユーザーIDのリスト
+	 */
+	public List<String> findExistingIds(Collection<String> userIds) {
+		// パラメータを格納するためのマップを作成
+		Map<String, Object> params = new HashMap<>();
+		params.put("userIds", userIds);
+
+		return jdbc.queryForList(SQL_SELECT_EXISTING_IDS, params, String.class);
+	}
+
+	/**
+	 * 指定されたユーザーIDのうち、登録済みのユーザーIDを1回のSQLで検索します。
+	 *
+	 * <p>行をロックしないため、トランザクション外での登録前の確認に使用してください。
+	 *
+	 * @param userIds ユーザーIDのリスト(空不可)
+	 * @return 登録済みのユーザーIDのリスト
+	 */
+	public List<String> findRegisteredIds(Collection<String> userIds) {
+		// パラメータを格納するためのマップを作成
+		Map<String, Object> params = new HashMap<>();
+		params.put("userIds", userIds);
+
+		return jdbc.queryForList(SQL_SELECT_REGISTERED_IDS, params, String.class);
+	}
+
+	/**
+	 * 指定されたユーザーIDのデータを1回のSQLで削除します。
+	 *
+	 * <p>存在しないユーザーIDは無視します。
+	 *
+	 * @param userIds 削除するユーザーIDのリスト(空不可)
+	 * @return 削除された行数
+	 */
+	public int deleteAll(Collection<String> userIds) {
+		// パラメータを格納するためのマップを作成
+		Map<String, Object> params = new HashMap<>();
+		params.put("userIds", userIds);
+
+		return jdbc.update(SQL_DELETE_ALL, params);
+	}
+
 }
@@ -0,0 +1,53 @@
+package com.example.demo.user;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * 検索結果の1行を{@link UserData}へ変換します。
+ *
+ * <p>行ごとに{@code Map}を生成せず、{@code ResultSet}から直接値を取得します。<br>
+ * 列の位置は最初の行で1度だけ特定し、以降の行ではその位置を使いまわします。<br>
+ * パスワードは画面に表示しないため、変換しません。
+ * <p><strong>列の位置を保持するため、検索ごとに新しいインスタンスを生成してください。</strong>
+ *
+ * @author 情報太郎
+ */
+public class UserRowMapper implements RowMapper<UserData> {
+
+	/** 列の位置を特定済みか否か */
+	private boolean resolved;
+
+	/** ユーザIDの列の位置 */
+	private int userIdIndex;
+
+	/** ユーザ名の列の位置 */
+	private int userNameIndex;
+
+	/** 権限の列の位置 */
+	private int roleIndex;
+
+	/** アカウント有効性の列の位置 */
+	private int enabledIndex;
+
+	@Override
+	public UserData mapRow(ResultSet rs, int rowNum) throws SQLException {
+		if (!resolved) {
+			// 最初の行でのみ列名から位置を特定する
+			userIdIndex = rs.findColumn("user_id");
+			userNameIndex = rs.findColumn("user_name");
+			roleIndex = rs.findColumn("role");
+			enabledIndex = rs.findColumn("enabled");
+			resolved = true;
+		}
+
+		UserData data = new UserData();
+		data.setUserId(rs.getString(userIdIndex));
+		data.setUser_name(rs.getString(userNameIndex));
+		data.setRole(rs.getString(roleIndex));
+		data.setEnabled(rs.getBoolean(enabledIndex));
+		return data;
+	}
+}
@@ -0,0 +1,62 @@
+package com.example.demo.user;
+
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * ユーザ一覧画面の検索条件を保持するクラスです。
+ *
+ * <p>未入力の項目は、条件に含めません。
+ *
+ * @author 情報太郎
+ */
+@Data
+public class UserSearchForm {
+
+	/** 検索対象：ユーザID */
+	public static final String TARGET_USER_ID = "userId";
+
+	/** 検索対象：ユーザ名 */
+	public static final String TARGET_USER_NAME = "userName";
+
+	/** 検索キーワード（前方一致） */
+	@Size(max = 50, message = "{max_check}")
+	private String keyword;
+
+	/** 検索対象（ユーザID・ユーザ名、未入力の場合はユーザID） */
+	@Pattern(regexp = "^(|userId|userName)$")
+	private String target;
+
+	/** 権限 */
+	@Pattern(regexp = "^(|ROLE_ADMIN|ROLE_TOP|ROLE_GENERAL)$")
+	private String role;
+
+	/** アカウント有効性（"true"・"false"） */
+	@Pattern(regexp = "^(|true|false)$")
+	private String enabled;
+
+	/** 次ページ取得用のカーソル */
+	private String after;
+
+	/** 前ページ取得用のカーソル */
+	private String before;
+
+	/**
+	 * ユーザ名で検索するかを判定します。
+	 *
+	 * @return キーワードが入力され、検索対象がユーザ名の場合はtrue
+	 */
+	public boolean isByName() {
+		return hasKeyword() && TARGET_USER_NAME.equals(target);
+	}
+
+	/**
+	 * 検索キーワードが入力されているかを判定します。
+	 *
+	 * @return 入力されている場合はtrue
+	 */
+	public boolean hasKeyword() {
+		return keyword != null && !keyword.isBlank();
+	}
+}
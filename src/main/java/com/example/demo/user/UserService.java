@@ -1,11 +1,17 @@
 package com.example.demo.user;
 
 import java.sql.SQLException;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,13 +31,28 @@ public class UserService {
 	@Autowired
 	private PasswordEncoder passwordEncoder;
 
+	/** ログイン時の認証情報の取得処理(更新・削除時にキャッシュを破棄する) */
+	@Autowired
+	private LoginUserDetailsService loginUserDetailsService;
+
+	/** ユーザ一覧の1ページあたりの表示件数 */
+	@Value("${user.page-size:20}")
+	private int pageSize;
+
+	/** ユーザ一括削除で一度に指定できるユーザ数の上限 */
+	@Value("${user.delete.max-batch-size:1000}")
+	private int deleteMaxBatchSize;
+
+	/** ユーザ一括削除で1回のSQLに指定するユーザ数(IN句のパラメータ数が多すぎるとH2では遅くなる) */
+	private static final int DELETE_CHUNK_SIZE = 100;
+
 	/**
 	 * ユーザーリストを取得するメソッドです。
 	 * @return ユーザーリストのエンティティ
 	 */
 	public UserEntity getUserList() {
 		// データベースから全てのユーザーデータを取得
-		List<Map<String, Object>> resultList;
+		List<UserData> resultList;
 		resultList = userRepository.selectAll();
 
 		// 取得したユーザーデータをエンティティにマッピング
@@ -41,15 +62,82 @@ public class UserService {
 		return userEntity;
 	}
 
+	/**
+	 * 検索条件に合致するユーザ一覧を1ページ分取得します。
+	 *
+	 * <p>並び順の列をキーとしたシーク方式でページングするため、
+	 * ユーザ数によらず1ページ分のみを読み取ります(件数の取得も行いません)。<br>
+	 * カーソルが未指定、または不正な場合は先頭ページを返却します。
+	 *
+	 * @param form 検索条件(null不可、入力チェック済み)
+	 * @return ユーザ一覧(前後ページのカーソルを含む)
+	 */
+	@Transactional(readOnly = true)
+	public UserEntity getUserPage(UserSearchForm form) {
+		UserCursor afterCursor = UserCursor.decode(form.getAfter());
+		UserCursor beforeCursor = UserCursor.decode(form.getBefore());
+
+		// 次ページ有無の判定用に、1件多く取得する
+		int limit = pageSize + 1;
+		List<UserData> resultList;
+		boolean hasPrev;
+		boolean hasNext;
+		if (beforeCursor != null) {
+			resultList = userRepository.selectPage(form, beforeCursor, true, limit);
+			hasPrev = resultList.size() > pageSize;
+			hasNext = true;
+			if (resultList.isEmpty()) {
+				// 前ページが存在しない場合は先頭ページを表示する
+				form.setBefore(null);
+				return getUserPage(form);
+			}
+		} else {
+			resultList = userRepository.selectPage(form, afterCursor, false, limit);
+			hasPrev = afterCursor != null;
+			hasNext = resultList.size() > pageSize;
+		}
+
+		if (resultList.size() > pageSize) {
+			resultList = resultList.subList(0, pageSize);
+		}
+		UserEntity userEntity = mappingSelectResult(resultList);
+		List<UserData> userList = userEntity.getUserlist();
+		if (beforeCursor != null) {
+			// 前ページは降順で取得しているため、昇順へ戻す
+			Collections.reverse(userList);
+		}
+
+		if (!userList.isEmpty()) {
+			boolean byName = form.isByName();
+			if (hasNext) {
+				userEntity.setNextCursor(UserCursor.of(userList.get(userList.size() - 1), byName).encode());
+			}
+			if (hasPrev) {
+				userEntity.setPrevCursor(UserCursor.of(userList.get(0), byName).encode());
+			}
+		} else if (hasPrev) {
+			// 最終ページより後ろを指定された場合は、指定位置から前ページへ戻れるようにする
+			userEntity.setPrevCursor(form.getAfter());
+		}
+		return userEntity;
+	}
+
 	/**
 	 * ユーザーフォームのデータをデータベースに挿入するメソッドです。
 	 * ユーザーフォームは引数として受け取ります。
+	 * パスワードのハッシュ化の待機件数が上限に達している場合は、挿入せずに失敗を返します。
 	 * @param userForm 挿入するユーザーフォームのデータ
 	 * @return 挿入が成功した場合はtrue、失敗した場合はfalse
 	 */
 	public boolean insertOne(UserForm userForm) {
-		// ユーザーフォームのデータをユーザーデータに変換
-		UserData userData = refillToData(userForm);
+		UserData userData;
+		try {
+			// ユーザーフォームのデータをユーザーデータに変換
+			userData = refillToData(userForm);
+		} catch (RejectedExecutionException e) {
+			// ハッシュ化が混雑している場合はfalseを返す
+			return false;
+		}
 		try {
 			// データベースにユーザーデータを挿入
 			userRepository.insert(userData);
@@ -69,7 +157,7 @@ public class UserService {
 	 */
 	public boolean getUser(UpdateUserForm updateUserForm) {
 		// データベースから指定されたユーザーIDのユーザーデータを取得
-		List<Map<String, Object>> resultList = userRepository.selectOne(updateUserForm.getUserId());
+		List<UserData> resultList = userRepository.selectOne(updateUserForm.getUserId());
 		// 取得したユーザーデータを指定されたユーザーフォームにマッピング
 		boolean result = mappingUpdateResult(resultList, updateUserForm);
 		return result;
@@ -78,12 +166,19 @@ public class UserService {
 	/**
 	 * ユーザーフォームのデータを更新し、データベースに反映するメソッドです。
 	 * 更新するユーザーフォームのデータを引数として受け取ります。
+	 * パスワードのハッシュ化の待機件数が上限に達している場合は、更新せずに失敗を返します。
 	 * @param userDataForm 更新するユーザーフォームのデータ
 	 * @return 更新が成功した場合はtrue、失敗した場合はfalse
 	 */
 	public boolean updateOne(UpdateUserForm userDataForm) {
-		// ユーザーフォームのデータをユーザーデータに変換
-		UserData userData = refillToData(userDataForm);
+		UserData userData;
+		try {
+			// ユーザーフォームのデータをユーザーデータに変換
+			userData = refillToData(userDataForm);
+		} catch (RejectedExecutionException e) {
+			// ハッシュ化が混雑している場合はfalseを返す
+			return false;
+		}
 		System.out.println("updateone" + userData);
 		try {
 			// パスワードが空であるかどうかで条件分岐
@@ -98,6 +193,8 @@ public class UserService {
 			// 更新時にエラーが発生した場合はfalseを返す
 			return false;
 		}
+		// 変更前のパスワードや権限でログインできないよう、認証情報のキャッシュを破棄
+		loginUserDetailsService.invalidate(userData.getUserId());
 		// 更新が成功した場合はtrueを返す
 		return true;
 	}
@@ -116,6 +213,7 @@ public class UserService {
 			// 削除時にエラーが発生した場合はfalseを返す
 			return false;
 		}
+		loginUserDetailsService.invalidate(userId);
 		// 削除が成功した場合はtrueを返す
 		return true;
 	}
@@ -124,35 +222,86 @@ public class UserService {
 	 * 複数のユーザーを一括で削除するメソッドです。
 	 * ユーザーIDのリストをカンマ区切りの文字列として受け取ります。
 	 * @param users 削除するユーザーIDのリスト（カンマ区切りの文字列）
-	 * @return 削除が成功した場合はtrue、失敗した場合はfalse
+	 * @return 指定された全ユーザーの削除が成功した場合はtrue、それ以外はfalse
+	 * @see #deleteAll(Collection)
 	 */
 	public boolean delete(String users) {
-		// カンマ区切りの文字列をユーザーIDのリストに変換
-		List<String> userList = Arrays.asList(users.split(","));
+		UserBulkResult result = deleteAll(toUserIds(users));
+		return result != null && !result.getDeleted().isEmpty() && result.getNotFound().isEmpty();
+	}
 
-		try {
-			// 各ユーザーIDを順にループして削除処理を実行
-			for (String user : userList) {
-				userRepository.delete(user);
+	/**
+	 * 指定された複数のユーザーを一括で削除します。
+	 *
+	 * <p>ユーザーIDごとに1回ずつSQLを発行せず、{@value #DELETE_CHUNK_SIZE}件ごとに存在確認と削除をそれぞれ1回のSQLで行います。<br>
+	 * 存在しないユーザーIDがあっても他のユーザーの削除は継続し、結果の削除対象外へ設定します。
+	 * 全件を1つのトランザクションで削除し、一度に指定できるユーザー数は{@code user.delete.max-batch-size}件までです。
+	 *
+	 * @param userIds 削除するユーザーIDのリスト(null不可)
+	 * @return ユーザーIDごとの処理結果(件数が上限を超える場合はnull)
+	 */
+	public UserBulkResult deleteAll(Collection<String> userIds) {
+		List<String> distinctIds = new ArrayList<String>(new LinkedHashSet<String>(userIds));
+		if (distinctIds.size() > deleteMaxBatchSize) {
+			return null;
+		}
+
+		UserBulkResult result = new UserBulkResult();
+		for (int i = 0; i < distinctIds.size(); i += DELETE_CHUNK_SIZE) {
+			List<String> chunk = distinctIds.subList(i, Math.min(i + DELETE_CHUNK_SIZE, distinctIds.size()));
+			Set<String> existing = new HashSet<String>(userRepository.findExistingIds(chunk));
+			if (!existing.isEmpty()) {
+				userRepository.deleteAll(existing);
+				existing.forEach(loginUserDetailsService::invalidate);
+			}
+			for (String userId : chunk) {
+				if (existing.contains(userId)) {
+					result.getDeleted().add(userId);
+				} else {
+					result.getNotFound().add(userId);
+				}
 			}
-		} catch (SQLException e) {
-			// 削除時にエラーが発生した場合はfalseを返す
-			return false;
 		}
+		return result;
+	}
 
-		// 削除が成功した場合はtrueを返す
-		return true;
+	/**
+	 * 一度に削除できるユーザー数の上限を取得します。
+	 *
+	 * @return 一度に削除できるユーザー数の上限
+	 */
+	public int getDeleteMaxBatchSize() {
+		return deleteMaxBatchSize;
 	}
 
-	private boolean mappingUpdateResult(List<Map<String, Object>> resultList, UpdateUserForm updateUserForm) {
+	/**
+	 * カンマ区切りのユーザーIDを、前後の空白と空の値を除いたリストへ変換します。
+	 *
+	 * @param users カンマ区切りのユーザーID(null可)
+	 * @return ユーザーIDのリスト
+	 */
+	public List<String> toUserIds(String users) {
+		List<String> userIds = new ArrayList<String>();
+		if (users == null) {
+			return userIds;
+		}
+		for (String user : users.split(",")) {
+			if (!user.isBlank()) {
+				userIds.add(user.strip());
+			}
+		}
+		return userIds;
+	}
+
+	private boolean mappingUpdateResult(List<UserData> resultList, UpdateUserForm updateUserForm) {
 		// ユーザ情報が空であるかをフラグで管理
 		boolean isEmpty = true;
 		
-		for (Map<String, Object> map : resultList) {
-			updateUserForm.setUserId((String) map.get("user_id"));
-			updateUserForm.setUser_name((String) map.get("user_name"));
-			updateUserForm.setRole((String) map.get("role"));
-			updateUserForm.setEnabled(String.valueOf(map.get("enabled")));
+		for (UserData data : resultList) {
+			updateUserForm.setUserId(data.getUserId());
+			updateUserForm.setUser_name(data.getUser_name());
+			updateUserForm.setRole(data.getRole());
+			updateUserForm.setEnabled(String.valueOf(data.isEnabled()));
 			isEmpty = false;
 		}
 		return isEmpty;
@@ -180,18 +329,9 @@ public class UserService {
         return userData;
     }
 
-	private UserEntity mappingSelectResult(List<Map<String, Object>> resultList) {
+	private UserEntity mappingSelectResult(List<UserData> resultList) {
 		UserEntity entity = new UserEntity();
-
-		for (Map<String, Object> map : resultList) {
-			UserData data = new UserData();
-			data.setUserId((String) map.get("user_id"));
-			data.setUser_name((String) map.get("user_name"));
-			data.setRole((String) map.get("role"));
-			data.setEnabled((boolean) map.get("enabled"));
-
-			entity.getUserlist().add(data);
-		}
+		entity.getUserlist().addAll(resultList);
 		return entity;
 	}
 
@@ -1,6 +1,7 @@
 /* 開発用にデータ削除を追加 : リリース時は消す */
 DELETE FROM m_user;
 DELETE FROM task_t;
+DELETE FROM task_archive;
 
 /* ユーザマスタのデータ（ADMIN権限） PASS:password */
 INSERT INTO m_user (user_id, encrypted_password, user_name, role, enabled)
@@ -17,3 +18,5 @@ INSERT INTO task_t (id, user_id, title, limitday, complate) VALUES (1, 'admin',
 INSERT INTO task_t (id, user_id, title, limitday, complate) VALUES (2, 'user', '食材を購入するためのリストを作成', '2023-06-24', false);
 INSERT INTO task_t (id, user_id, title, limitday, complate) VALUES (3, 'user', '明日の夕食にレストランを予約しているので、確認の電話をかける', '2023-07-11', false);
 INSERT INTO task_t (id, user_id, title, limitday, complate) VALUES (4, 'user', '近所のスポーツクラブに登録するため、必要な書類と登録費用を準備する', '2024-02-27', false);
+/* 初期データで使用したタスクIDの続きから採番する */
+ALTER SEQUENCE task_id_seq RESTART WITH 5;
\ No newline at end of file
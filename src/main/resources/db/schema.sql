@@ -8,9 +8,40 @@ CREATE TABLE IF NOT EXISTS task_t (
   user_id VARCHAR(50),
   title VARCHAR(50),
   limitday DATE,
-  complate BOOLEAN
+  complate BOOLEAN,
+  priority INT DEFAULT 2 NOT NULL,
+  complated_at TIMESTAMP,
+  version INT DEFAULT 0 NOT NULL
 );
 
+/* タスクIDの採番用シーケンス（同時登録時もIDが重複しない） */
+CREATE SEQUENCE IF NOT EXISTS task_id_seq START WITH 1;
+
+/* タスク一覧のページング用インデックス（ユーザ毎の期限日・タスクID順） */
+CREATE INDEX IF NOT EXISTS idx_task_user_limitday ON task_t (user_id, limitday, id);
+
+/* 「次にやるタスク」用インデックス（ユーザ毎の未完了タスクを優先度・期限日順） */
+CREATE INDEX IF NOT EXISTS idx_task_next_up ON task_t (user_id, complate, priority, limitday);
+
+/* アーカイブ対象（完了から一定期間経過したタスク）の抽出用インデックス */
+CREATE INDEX IF NOT EXISTS idx_task_complated_at ON task_t (complate, complated_at);
+
+/* 完了済みタスクのアーカイブテーブル（task_tと同じ列に、アーカイブ日時を追加） */
+CREATE TABLE IF NOT EXISTS task_archive (
+  id INT PRIMARY KEY,
+  user_id VARCHAR(50),
+  title VARCHAR(50),
+  limitday DATE,
+  complate BOOLEAN,
+  priority INT DEFAULT 2 NOT NULL,
+  complated_at TIMESTAMP,
+  version INT DEFAULT 0 NOT NULL,
+  archived_at TIMESTAMP
+);
+
+/* アーカイブ一覧のページング用インデックス（ユーザ毎のタスクID降順） */
+CREATE INDEX IF NOT EXISTS idx_task_archive_user ON task_archive (user_id, id);
+
 /* ユーザマスタ */
 CREATE TABLE IF NOT EXISTS m_user (
     user_id VARCHAR(50) PRIMARY KEY,
@@ -20,3 +51,18 @@ CREATE TABLE IF NOT EXISTS m_user (
     enabled BOOLEAN
 );
 
+/* ユーザ一覧のユーザ名の前方一致検索用インデックス（ユーザ名・ユーザID順） */
+CREATE INDEX IF NOT EXISTS idx_user_name ON m_user (user_name, user_id);
+
+/* ユーザ一覧の権限での絞り込み用インデックス（権限毎のユーザID順） */
+CREATE INDEX IF NOT EXISTS idx_user_role ON m_user (role, user_id);
+
+/* ユーザ一覧の有効・無効での絞り込み用インデックス（有効性毎のユーザID順） */
+CREATE INDEX IF NOT EXISTS idx_user_enabled ON m_user (enabled, user_id);
+
+/* ユーザ一覧の前ページ取得用インデックス（H2は昇順のインデックスを逆順に読んで並べ替えを省略できないため、降順で作成する） */
+CREATE INDEX IF NOT EXISTS idx_user_id_desc ON m_user (user_id DESC);
+CREATE INDEX IF NOT EXISTS idx_user_name_desc ON m_user (user_name DESC, user_id DESC);
+CREATE INDEX IF NOT EXISTS idx_user_role_desc ON m_user (role DESC, user_id DESC);
+CREATE INDEX IF NOT EXISTS idx_user_enabled_desc ON m_user (enabled DESC, user_id DESC);
+
@@ -0,0 +1,121 @@
+/*
+ * タスク一覧画面の部分更新
+ *
+ * data-fragment を付与したフォーム(登録・削除・完了・一括操作)を非同期で送信し、
+ * サーバが返却した部分(変更した行・メッセージ・件数・次にやるタスク)のみを画面へ反映する。
+ * JavaScriptが無効な場合は、これまでどおりフォームを送信して画面全体を表示する。
+ */
+document.addEventListener('DOMContentLoaded', function () {
+	'use strict';
+
+	var rows = document.getElementById('task-rows');
+	if (!rows) {
+		return;
+	}
+
+	document.addEventListener('submit', function (event) {
+		var form = event.target;
+		if (!form.hasAttribute('data-fragment')) {
+			return;
+		}
+		event.preventDefault();
+
+		var submitter = event.submitter;
+		var action = submitter && submitter.hasAttribute('formaction') ? submitter.formAction : form.action;
+		fetch(action, {
+			method: 'POST',
+			body: new FormData(form),
+			headers: { 'X-Requested-With': 'XMLHttpRequest' },
+			credentials: 'same-origin'
+		}).then(function (response) {
+			if (response.redirected) {
+				// セッション切れ等の場合は、遷移先の画面を表示する
+				location.href = response.url;
+				return;
+			}
+			if (!response.ok) {
+				location.reload();
+				return;
+			}
+			return response.text().then(function (html) {
+				apply(html);
+				if (form.id === 'insertForm' && !document.querySelector('#task-status .alert-danger')) {
+					form.reset();
+				}
+			});
+		}).catch(function () {
+			location.reload();
+		});
+	});
+
+	/* サーバが返却した部分を画面へ反映する */
+	function apply(html) {
+		var template = document.createElement('template');
+		template.innerHTML = html;
+		var content = template.content;
+
+		['task-status', 'task-stats', 'task-next-up'].forEach(function (id) {
+			var current = document.getElementById(id);
+			var next = content.getElementById(id);
+			if (current && next) {
+				current.replaceWith(next);
+			}
+		});
+
+		content.querySelectorAll('tr[id^="task-"]').forEach(function (row) {
+			var current = document.getElementById(row.id);
+			if (row.hasAttribute('data-removed')) {
+				if (current) {
+					current.remove();
+				}
+			} else if (current) {
+				current.replaceWith(row);
+			} else {
+				insert(row);
+			}
+		});
+
+		renumber();
+	}
+
+	/* 登録した行を、期限日・タスクIDの昇順となる位置へ追加する(表示中のページ外の場合は追加しない) */
+	function insert(row) {
+		var current = rows.querySelectorAll('tr[id^="task-"]');
+		for (var i = 0; i < current.length; i++) {
+			if (compare(row, current[i]) < 0) {
+				if (i === 0 && !isDisabled('task-prev')) {
+					return;
+				}
+				rows.insertBefore(row, current[i]);
+				return;
+			}
+		}
+		if (current.length === 0 || isDisabled('task-next')) {
+			rows.appendChild(row);
+		}
+	}
+
+	function compare(a, b) {
+		var da = a.getAttribute('data-limitday');
+		var db = b.getAttribute('data-limitday');
+		if (da !== db) {
+			return da < db ? -1 : 1;
+		}
+		return taskId(a) - taskId(b);
+	}
+
+	function taskId(row) {
+		return parseInt(row.id.substring('task-'.length), 10);
+	}
+
+	function isDisabled(id) {
+		var item = document.getElementById(id);
+		return !item || item.classList.contains('disabled');
+	}
+
+	function renumber() {
+		rows.querySelectorAll('.task-no').forEach(function (cell, index) {
+			cell.textContent = index + 1;
+		});
+	}
+});
@@ -0,0 +1,252 @@
+package com.example.demo.task;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class TaskApiControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TaskService taskService;
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbc;
+
+	@Test
+	@WithMockUser(username = "api-crud@xxx.co.jp")
+	void 登録と一覧と完了と削除() throws Exception {
+		// 1.Ready
+		String userId = "api-crud@xxx.co.jp";
+
+		try {
+			// 2.Do
+			MvcResult created = mockMvc.perform(post("/api/v1/tasks").contentType(MediaType.APPLICATION_JSON)
+					.content("{\"title\":\"API確認用\",\"limitday\":\"2030-01-01\",\"priority\":1,\"extra\":[1,{\"a\":2}]}"))
+					.andExpect(status().isCreated())
+					.andReturn();
+			String location = created.getResponse().getHeader(HttpHeaders.LOCATION);
+			int id = Integer.parseInt(location.substring(location.lastIndexOf('/') + 1));
+
+			String list = mockMvc.perform(get("/api/v1/tasks"))
+					.andExpect(status().isOk())
+					.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+					.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+			String completed = mockMvc.perform(post("/api/v1/tasks/complete").contentType(MediaType.APPLICATION_JSON)
+					.content("{\"ids\":[" + id + ", 99999]}"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+			mockMvc.perform(delete("/api/v1/tasks/" + id))
+					.andExpect(status().isNoContent());
+			mockMvc.perform(delete("/api/v1/tasks/" + id))
+					.andExpect(status().isNotFound());
+
+			// 3.Check
+			assertEquals("{\"id\":" + id + ",\"title\":\"API確認用\",\"limitday\":\"2030-01-01\",\"priority\":1,\"complete\":false,\"version\":0}",
+					created.getResponse().getContentAsString(StandardCharsets.UTF_8));
+			assertEquals("{\"tasks\":[{\"id\":" + id
+					+ ",\"title\":\"API確認用\",\"limitday\":\"2030-01-01\",\"priority\":1,\"complete\":false,\"version\":0}],\"next\":null,\"prev\":null}",
+					list);
+			assertEquals("{\"succeeded\":[" + id + "],\"notFound\":[99999]}", completed);
+			assertTrue(taskService.selectAll(userId).getTaskList().isEmpty());
+
+			// 4.Log
+			log.info("結果：" + list);
+		} finally {
+			jdbc.update("DELETE FROM task_t WHERE user_id = :userId", Map.of("userId", userId));
+		}
+	}
+
+	@Test
+	@WithMockUser(username = "api-version@xxx.co.jp")
+	void 版数を指定した完了と削除は取得後に更新されていれば409を返却() throws Exception {
+		// 1.Ready
+		String userId = "api-version@xxx.co.jp";
+		int id = taskService.create(userId, "版数確認用", "2030-01-01").getId();
+
+		try {
+			// 2.Do
+			String completed = mockMvc.perform(post("/api/v1/tasks/" + id + "/complete").param("version", "0"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+			String conflict = mockMvc.perform(post("/api/v1/tasks/" + id + "/complete").param("version", "0"))
+					.andExpect(status().isConflict())
+					.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+			mockMvc.perform(delete("/api/v1/tasks/" + id).param("version", "0"))
+					.andExpect(status().isConflict());
+			mockMvc.perform(delete("/api/v1/tasks/" + id).param("version", "1"))
+					.andExpect(status().isNoContent());
+			mockMvc.perform(delete("/api/v1/tasks/" + id).param("version", "1"))
+					.andExpect(status().isNotFound());
+			mockMvc.perform(post("/api/v1/tasks/" + id + "/complete"))
+					.andExpect(status().isNotFound());
+
+			// 3.Check
+			assertEquals("{\"id\":" + id + ",\"title\":\"版数確認用\",\"limitday\":\"2030-01-01\",\"priority\":2,\"complete\":true,\"version\":1}",
+					completed);
+			assertTrue(conflict.startsWith("{\"error\":"));
+
+			// 4.Log
+			log.info("結果：" + completed);
+		} finally {
+			jdbc.update("DELETE FROM task_t WHERE user_id = :userId", Map.of("userId", userId));
+		}
+	}
+
+	@Test
+	@WithMockUser(username = "api-invalid@xxx.co.jp")
+	void 不正な入力の場合は400を返却() throws Exception {
+		// 2.Do
+		String brokenJson = mockMvc.perform(post("/api/v1/tasks").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\":"))
+				.andExpect(status().isBadRequest())
+				.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+		mockMvc.perform(post("/api/v1/tasks").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"\",\"limitday\":\"2030-01-01\"}"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(post("/api/v1/tasks").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"日付不正\",\"limitday\":\"2030/13/01\"}"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(post("/api/v1/tasks").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"優先度不正\",\"limitday\":\"2030-01-01\",\"priority\":4}"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(post("/api/v1/tasks/complete").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"ids\":[\"1\"]}"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(post("/api/v1/tasks/complete").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"ids\":[]}"))
+				.andExpect(status().isBadRequest());
+
+		// 3.Check
+		assertTrue(brokenJson.startsWith("{\"error\":"));
+		assertTrue(taskService.selectAll("api-invalid@xxx.co.jp").getTaskList().isEmpty());
+
+		// 4.Log
+		log.info("結果：" + brokenJson);
+	}
+
+	@Test
+	@WithMockUser(username = "api-owner@xxx.co.jp")
+	void 他のユーザのタスクは削除しない() throws Exception {
+		// 1.Ready
+		String otherUser = "api-other@xxx.co.jp";
+		TaskData other = taskService.create(otherUser, "他ユーザのタスク", "2030-01-01");
+
+		try {
+			// 2.Do
+			mockMvc.perform(delete("/api/v1/tasks/" + other.getId()))
+					.andExpect(status().isNotFound());
+
+			// 3.Check
+			assertEquals(1, taskService.selectAll(otherUser).getTaskList().size());
+		} finally {
+			jdbc.update("DELETE FROM task_t WHERE user_id = :userId", Map.of("userId", otherUser));
+		}
+	}
+
+	@Test
+	void 未認証の場合は401を返却() throws Exception {
+		// 2.Do
+		MvcResult result = mockMvc.perform(get("/api/v1/tasks"))
+				.andExpect(status().isUnauthorized())
+				.andReturn();
+
+		// 3.Check
+		assertNull(result.getResponse().getRedirectedUrl());
+	}
+
+	@Test
+	void 一覧のスループットをHTMLと比較() throws Exception {
+		// 1.Ready
+		String userId = "api-load@xxx.co.jp";
+		int taskCount = 50;
+		int threads = 4;
+		int requestsPerThread = 200;
+		for (int i = 0; i < taskCount; i++) {
+			taskService.insert(userId, "負荷確認用" + i, "2030-01-" + String.format("%02d", i % 28 + 1));
+		}
+
+		try {
+			// ウォームアップ(リクエストはスレッド間で共有できないため、リクエスト毎に生成する)
+			measure(() -> get("/api/v1/tasks").with(user(userId)), threads, requestsPerThread);
+			measure(() -> get("/task").with(user(userId)), threads, requestsPerThread);
+
+			// 2.Do
+			double api = measure(() -> get("/api/v1/tasks").with(user(userId)), threads, requestsPerThread);
+			double html = measure(() -> get("/task").with(user(userId)), threads, requestsPerThread);
+
+			// 3.Check
+			String json = mockMvc.perform(get("/api/v1/tasks").with(user(userId)))
+					.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+			String page = mockMvc.perform(get("/task").with(user(userId)))
+					.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+			// 4.Log
+			log.info(String.format("結果：JSON API %.0f req/s (%d bytes)、HTML %.0f req/s (%d bytes)",
+					api, json.getBytes().length, html, page.getBytes().length));
+		} finally {
+			Map<String, Object> params = new HashMap<String, Object>();
+			params.put("userId", userId);
+			jdbc.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	private double measure(Supplier<RequestBuilder> request, int threads, int requestsPerThread) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			long start = System.nanoTime();
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int t = 0; t < threads; t++) {
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < requestsPerThread; i++) {
+						int status = mockMvc.perform(request.get()).andReturn().getResponse().getStatus();
+						assertEquals(200, status);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			long elapsed = System.nanoTime() - start;
+			return threads * requestsPerThread / (elapsed / 1_000_000_000.0);
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
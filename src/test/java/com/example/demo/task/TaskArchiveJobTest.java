@@ -0,0 +1,173 @@
+package com.example.demo.task;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest
+class TaskArchiveJobTest {
+
+	/** SQL 完了日時を過去へ変更(テスト用) */
+	private static final String SQL_AGE_COMPLATED = "UPDATE task_t SET complated_at = DATEADD('DAY', -:days, CURRENT_TIMESTAMP)"
+			+ " WHERE user_id = :userId AND complate = true";
+
+	@Autowired
+	private TaskArchiveJob target;
+
+	@Autowired
+	private TaskService taskService;
+
+	// モック対象クラスを定義
+	@SpyBean
+	private NamedParameterJdbcTemplate mock;
+
+	@Test
+	void 完了から一定期間が経過したタスクのみを複数回に分けて移動() {
+		// 0.Mock
+		Object batchSize = ReflectionTestUtils.getField(target, "batchSize");
+		ReflectionTestUtils.setField(target, "batchSize", 2);
+
+		// 1.Ready
+		String userId = "archive-job@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		params.put("days", 40);
+		for (int i = 0; i < 5; i++) {
+			taskService.complate(userId, String.valueOf(taskService.create(userId, "完了済み" + i, "2024-01-01").getId()));
+		}
+		mock.update(SQL_AGE_COMPLATED, params);
+		// 完了したばかりのタスクと未完了のタスクは移動しない
+		taskService.complate(userId, String.valueOf(taskService.create(userId, "最近完了", "2024-01-01").getId()));
+		taskService.insert(userId, "未完了", "2030-01-01");
+		TaskStats before = taskService.selectStats(userId);
+
+		try {
+			// 2.Do
+			int moved = target.run();
+
+			// 3.Check
+			assertEquals(5, moved);
+			// 一覧は未完了のタスクのみ、完了したばかりのタスクはtask_tに残る
+			List<TaskData> active = taskService.selectAll(userId).getTaskList();
+			assertEquals(List.of("未完了"), active.stream().map(TaskData::getTitle).toList());
+			assertEquals(List.of("未完了"),
+					taskService.selectPage(userId, null, null).getTaskList().stream().map(TaskData::getTitle).toList());
+			assertEquals(2, mock.queryForObject("SELECT COUNT(*) FROM task_t WHERE user_id = :userId", params, Integer.class));
+			assertEquals(5, mock.queryForObject("SELECT COUNT(*) FROM task_archive WHERE user_id = :userId", params, Integer.class));
+			assertEquals(before.getCompleted() - 5, taskService.selectStats(userId).getCompleted());
+			assertEquals(before.getOpen(), taskService.selectStats(userId).getOpen());
+			assertTrue(taskService.search(userId, "完了済み").getTaskList().isEmpty());
+			// 更新用SQLは1回あたりbatchSize件ずつ(2件, 2件, 1件)発行する
+			verify(mock, times(3)).update(startsWith("DELETE FROM task_t WHERE id IN (:ids)"), anyMap());
+
+			// 4.Log
+			log.info("結果：" + moved + "件");
+		} finally {
+			ReflectionTestUtils.setField(target, "batchSize", batchSize);
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+			mock.update("DELETE FROM task_archive WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void 複写と削除の件数が一致しない場合はロールバック() {
+		// 0.Mock
+		doReturn(0).when(mock).update(startsWith("DELETE FROM task_t WHERE id IN (:ids)"), anyMap());
+
+		// 1.Ready
+		String userId = "archive-rollback@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		params.put("days", 40);
+		taskService.complate(userId, String.valueOf(taskService.create(userId, "完了済み", "2024-01-01").getId()));
+		mock.update(SQL_AGE_COMPLATED, params);
+
+		try {
+			// 2.Do
+			int moved = target.run();
+
+			// 3.Check
+			assertEquals(0, moved);
+			assertEquals(1, mock.queryForObject("SELECT COUNT(*) FROM task_t WHERE user_id = :userId", params, Integer.class));
+			assertEquals(0, mock.queryForObject("SELECT COUNT(*) FROM task_archive WHERE user_id = :userId", params, Integer.class));
+
+			// 4.Log
+			log.info("結果：" + moved + "件");
+		} finally {
+			reset(mock);
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+			mock.update("DELETE FROM task_archive WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void アーカイブをタスクIDの降順にページ単位で取得() {
+		// 0.Mock
+		Object pageSize = ReflectionTestUtils.getField(taskService, "pageSize");
+
+		// 1.Ready
+		String userId = "archive-page@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		params.put("days", 40);
+		int pages = 3;
+		int count = (Integer) pageSize * (pages - 1) + 1;
+		for (int i = 0; i < count; i++) {
+			taskService.create(userId, "履歴" + i, LocalDate.of(2024, 1, 1).plusDays(i).toString());
+		}
+		List<Integer> ids = taskService.selectAll(userId).getTaskList().stream().map(TaskData::getId).toList();
+		taskService.complateAll(userId, ids);
+		mock.update(SQL_AGE_COMPLATED, params);
+		target.run();
+
+		try {
+			// 2.Do
+			int read = 0;
+			int requests = 0;
+			int previousId = Integer.MAX_VALUE;
+			String cursor = null;
+			do {
+				TaskEntity page = taskService.selectArchive(userId, cursor);
+				for (TaskData taskData : page.getTaskList()) {
+					assertTrue(taskData.getId() < previousId);
+					assertTrue(taskData.isComplate());
+					assertNotNull(taskData.getComplatedAt());
+					previousId = taskData.getId();
+				}
+				read += page.getTaskList().size();
+				requests++;
+				cursor = page.getNextCursor();
+			} while (cursor != null);
+
+			// 3.Check
+			assertEquals(count, read);
+			assertEquals(pages, requests);
+			assertEquals(taskService.selectArchive(userId, null).getTaskList(),
+					taskService.selectArchive(userId, "不正なカーソル").getTaskList());
+
+			// 4.Log
+			log.info("結果：" + read + "件 / " + requests + "ページ");
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+			mock.update("DELETE FROM task_archive WHERE user_id = :userId", params);
+		}
+	}
+}
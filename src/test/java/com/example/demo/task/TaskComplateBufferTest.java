@@ -0,0 +1,315 @@
+package com.example.demo.task;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+		"task.complate.write-behind.enabled=true",
+		"task.complate.write-behind.flush-millis=3600000",
+		"task.complate.write-behind.max-pending=5" })
+class TaskComplateBufferTest {
+
+	/** SQL 完了状態の件数取得(テスト用) */
+	private static final String SQL_COUNT_COMPLATED = "SELECT COUNT(*) FROM task_t WHERE user_id = :userId AND complate = true";
+
+	@Autowired
+	private TaskComplateBuffer target;
+
+	@Autowired
+	private TaskService taskService;
+
+	// モック対象クラスを定義
+	@SpyBean
+	private NamedParameterJdbcTemplate mock;
+
+	@Test
+	void 完了を溜めて参照へ即時に重ね1回のバッチでDBへ反映() {
+		// 1.Ready
+		String userId = "write-behind@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		List<Integer> ids = new ArrayList<Integer>();
+		for (int i = 0; i < 3; i++) {
+			ids.add(taskService.create(userId, "完了" + i, "2030-01-0" + (i + 1)).getId());
+		}
+		taskService.create(userId, "未完了", "2030-01-09");
+		TaskStats before = taskService.selectStats(userId);
+
+		try {
+			// 2.Do
+			for (Integer id : ids) {
+				assertTrue(taskService.complate(userId, String.valueOf(id)));
+			}
+			// 同じタスクを再度完了しても件数は変わらない
+			assertTrue(taskService.complate(userId, String.valueOf(ids.get(0))));
+
+			// 3.Check
+			// DBは未更新だが、参照には完了が重なる
+			verify(mock, never()).update(startsWith("UPDATE task_t"), anyMap());
+			assertEquals(0, mock.queryForObject(SQL_COUNT_COMPLATED, params, Integer.class));
+			assertEquals(3, target.getPendingCount(userId));
+			assertTrue(taskService.selectOwned(userId, ids).stream().allMatch(TaskData::isComplate));
+			assertEquals(List.of("未完了"), taskService.selectAll(userId).getTaskList().stream().map(TaskData::getTitle).toList());
+			assertEquals(List.of("未完了"), taskService.selectNextUp(userId).getTaskList().stream().map(TaskData::getTitle).toList());
+			assertEquals(before.getCompleted() + 3, taskService.selectStats(userId).getCompleted());
+			assertEquals(before.getOpen() - 3, taskService.selectStats(userId).getOpen());
+
+			// まとめてDBへ反映する
+			assertEquals(3, target.flush());
+			verify(mock, times(1)).batchUpdate(startsWith("UPDATE task_t"), any(Map[].class));
+			assertEquals(3, mock.queryForObject(SQL_COUNT_COMPLATED, params, Integer.class));
+			assertEquals(0, target.getPendingCount(userId));
+			assertEquals(0, target.flush());
+			assertEquals(before.getCompleted() + 3, taskService.selectStats(userId).getCompleted());
+
+			// 4.Log
+			log.info("結果：" + taskService.selectAll(userId).getTaskList());
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void 未反映の件数が上限に達した場合は即時にDBへ反映() {
+		// 1.Ready
+		String userId = "write-behind-max@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		List<Integer> ids = new ArrayList<Integer>();
+		for (int i = 0; i < 5; i++) {
+			ids.add(taskService.create(userId, "完了" + i, "2030-01-01").getId());
+		}
+
+		try {
+			// 2.Do
+			for (int i = 0; i < 4; i++) {
+				taskService.complate(userId, String.valueOf(ids.get(i)));
+			}
+			int beforeMax = mock.queryForObject(SQL_COUNT_COMPLATED, params, Integer.class);
+			taskService.complate(userId, String.valueOf(ids.get(4)));
+
+			// 3.Check
+			assertEquals(0, beforeMax);
+			assertEquals(5, mock.queryForObject(SQL_COUNT_COMPLATED, params, Integer.class));
+			assertEquals(0, target.getPendingCount(userId));
+
+			// 4.Log
+			log.info("結果：" + beforeMax + "件 -> 5件");
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void DBへの反映に失敗した場合は未反映へ戻し次回に反映() {
+		// 0.Mock
+		doThrow(new DataAccessResourceFailureException("テスト")).when(mock).batchUpdate(startsWith("UPDATE task_t"),
+				any(Map[].class));
+
+		// 1.Ready
+		String userId = "write-behind-retry@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		int id = taskService.create(userId, "完了", "2030-01-01").getId();
+		taskService.complate(userId, String.valueOf(id));
+
+		try {
+			// 2.Do
+			assertThrows(DataAccessResourceFailureException.class, () -> target.flush());
+
+			// 3.Check
+			assertTrue(target.isPending(userId, id));
+			assertTrue(taskService.selectOwned(userId, List.of(id)).get(0).isComplate());
+
+			reset(mock);
+			assertEquals(1, target.flush());
+			assertFalse(target.isPending(userId, id));
+			assertEquals(1, mock.queryForObject(SQL_COUNT_COMPLATED, params, Integer.class));
+
+			// 4.Log
+			log.info("結果：" + taskService.selectAll(userId).getTaskList());
+		} finally {
+			reset(mock);
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void 終了時に未反映の完了をDBへ反映() {
+		// 1.Ready
+		String userId = "write-behind-drain@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		int first = taskService.create(userId, "終了前", "2030-01-01").getId();
+		int second = taskService.create(userId, "終了後", "2030-01-01").getId();
+		taskService.complate(userId, String.valueOf(first));
+
+		try {
+			// 2.Do
+			target.drain();
+			int drained = mock.queryForObject(SQL_COUNT_COMPLATED, params, Integer.class);
+			// 終了処理後の完了は即時に反映する
+			taskService.complate(userId, String.valueOf(second));
+
+			// 3.Check
+			assertEquals(1, drained);
+			assertEquals(2, mock.queryForObject(SQL_COUNT_COMPLATED, params, Integer.class));
+			assertEquals(0, target.getPendingCount(userId));
+
+			// 4.Log
+			log.info("結果：" + drained + "件");
+		} finally {
+			ReflectionTestUtils.setField(target, "closed", false);
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void 完了後に表示した版数でDBへの反映の前後どちらでも削除() {
+		// 1.Ready
+		String userId = "write-behind-version@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		int flushed = taskService.create(userId, "反映後に削除", "2030-01-01").getId();
+		int pending = taskService.create(userId, "反映前に削除", "2030-01-02").getId();
+
+		try {
+			// 2.Do
+			assertEquals(TaskUpdateResult.SUCCESS, taskService.complate(userId, String.valueOf(flushed), 0));
+			int flushedVersion = version(userId, flushed);
+			target.flush();
+			TaskUpdateResult afterFlush = taskService.delete(userId, String.valueOf(flushed), flushedVersion);
+			assertEquals(TaskUpdateResult.SUCCESS, taskService.complate(userId, String.valueOf(pending), 0));
+			int pendingVersion = version(userId, pending);
+			boolean wasPending = target.isPending(userId, pending);
+			TaskUpdateResult beforeFlush = taskService.delete(userId, String.valueOf(pending), pendingVersion);
+
+			// 3.Check
+			// 完了後の画面には、反映後と同じ版数を表示する
+			assertEquals(1, flushedVersion);
+			assertEquals(1, pendingVersion);
+			assertTrue(wasPending);
+			assertEquals(TaskUpdateResult.SUCCESS, afterFlush);
+			assertEquals(TaskUpdateResult.SUCCESS, beforeFlush);
+			assertTrue(taskService.selectOwned(userId, List.of(flushed, pending)).isEmpty());
+			target.flush();
+
+			// 4.Log
+			log.info("結果：" + afterFlush + " " + beforeFlush);
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void 未反映の完了は複製へ重ね検索結果を変更しない() {
+		// 1.Ready
+		String userId = "write-behind-copy@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		TaskData created = taskService.create(userId, "複製へ重ねる", "2030-01-01");
+		List<TaskData> taskList = List.of(created);
+
+		try {
+			// 2.Do
+			taskService.complate(userId, String.valueOf(created.getId()));
+			List<TaskData> merged = target.merge(userId, taskList);
+
+			// 3.Check
+			assertFalse(created.isComplate());
+			assertEquals(0, created.getVersion());
+			assertNotSame(created, merged.get(0));
+			assertTrue(merged.get(0).isComplate());
+			assertEquals(1, merged.get(0).getVersion());
+			assertEquals(created.getTitle(), merged.get(0).getTitle());
+			target.flush();
+
+			// 4.Log
+			log.info("結果：" + merged);
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void 完了が未反映の場合も完了前に表示した版数では削除しない() {
+		// 1.Ready
+		String userId = "write-behind-stale@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		int id = taskService.create(userId, "古い画面から削除", "2030-01-01").getId();
+		int staleVersion = version(userId, id);
+
+		try {
+			// 2.Do
+			assertEquals(TaskUpdateResult.SUCCESS, taskService.complate(userId, String.valueOf(id), staleVersion));
+			boolean wasPending = target.isPending(userId, id);
+			TaskUpdateResult result = taskService.delete(userId, String.valueOf(id), staleVersion);
+
+			// 3.Check
+			assertTrue(wasPending);
+			assertEquals(TaskUpdateResult.CONFLICT, result);
+			assertEquals(1, mock.queryForObject("SELECT COUNT(*) FROM task_t WHERE user_id = :userId", params, Integer.class));
+			assertTrue(taskService.selectOwned(userId, List.of(id)).get(0).isComplate());
+			target.flush();
+
+			// 4.Log
+			log.info("結果：" + result);
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void 未反映のタスクを一括完了しても版数は1回のみ増加() {
+		// 1.Ready
+		String userId = "write-behind-bulk@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		int id = taskService.create(userId, "一括完了", "2030-01-01").getId();
+		params.put("id", id);
+
+		try {
+			// 2.Do
+			assertEquals(TaskUpdateResult.SUCCESS, taskService.complate(userId, String.valueOf(id), 0));
+			int shownVersion = version(userId, id);
+			taskService.complateAll(userId, List.of(id));
+			int flushed = target.flush();
+
+			// 3.Check
+			assertEquals(1, shownVersion);
+			assertEquals(0, flushed);
+			assertEquals(1, mock.queryForObject("SELECT version FROM task_t WHERE id = :id", params, Integer.class));
+			assertEquals(TaskUpdateResult.SUCCESS, taskService.delete(userId, String.valueOf(id), shownVersion));
+
+			// 4.Log
+			log.info("結果：" + shownVersion);
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	private int version(String userId, int id) {
+		return taskService.selectOwned(userId, List.of(id)).get(0).getVersion();
+	}
+}
@@ -0,0 +1,390 @@
+package com.example.demo.task;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class TaskControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TaskService taskService;
+
+	@Autowired
+	private TaskListCache taskListCache;
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbc;
+
+	// モック対象クラスを定義
+	@SpyBean
+	private TaskRepository taskRepository;
+
+	@SpyBean
+	private DataSource dataSource;
+
+	@Test
+	@WithMockUser(username = "etag-not-modified@xxx.co.jp")
+	void 一覧が最新の場合は304を返却しDBへ問い合わせない() throws Exception {
+		// 1.Ready
+		MvcResult first = mockMvc.perform(get("/task"))
+				.andExpect(status().isOk())
+				.andReturn();
+		String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+		// キャッシュの有無によらずDBへ問い合わせないことを確認するため、キャッシュを破棄する
+		taskListCache.invalidate("etag-not-modified@xxx.co.jp");
+		clearInvocations(taskRepository, dataSource);
+
+		// 2.Do
+		MvcResult second = mockMvc.perform(get("/task").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andReturn();
+
+		// 3.Check
+		assertNotNull(etag);
+		assertTrue(etag.startsWith("\""));
+		assertNotNull(first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED));
+		assertEquals("private, no-cache", first.getResponse().getHeader(HttpHeaders.CACHE_CONTROL));
+		assertEquals(etag, second.getResponse().getHeader(HttpHeaders.ETAG));
+		assertEquals("", second.getResponse().getContentAsString());
+		verifyNoInteractions(taskRepository);
+		verify(dataSource, never()).getConnection();
+
+		// 4.Log
+		log.info("結果：" + etag);
+	}
+
+	@Test
+	@WithMockUser(username = "etag-modified@xxx.co.jp")
+	void タスクを変更した場合は一覧を返却() throws Exception {
+		// 1.Ready
+		String userId = "etag-modified@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		String etag = mockMvc.perform(get("/task"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		try {
+			// 2.Do
+			taskService.insert(userId, "ETag確認用", "2030-01-01");
+			MvcResult result = mockMvc.perform(get("/task").header(HttpHeaders.IF_NONE_MATCH, etag))
+					.andExpect(status().isOk())
+					.andReturn();
+
+			// 3.Check
+			assertNotEquals(etag, result.getResponse().getHeader(HttpHeaders.ETAG));
+			assertTrue(result.getResponse().getContentAsString().contains("ETag確認用"));
+
+			// 4.Log
+			log.info("結果：" + etag + " -> " + result.getResponse().getHeader(HttpHeaders.ETAG));
+		} finally {
+			jdbc.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	@WithMockUser(username = "etag-cursor@xxx.co.jp")
+	void ページ毎に異なるETagを返却() throws Exception {
+		// 1.Ready
+		String cursor = TaskCursor.of(cursorTask()).encode();
+
+		// 2.Do
+		String firstPage = mockMvc.perform(get("/task"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		String nextPage = mockMvc.perform(get("/task").param("after", cursor))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		String invalidCursor = mockMvc.perform(get("/task").param("after", "\"invalid"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		// 3.Check
+		assertNotEquals(firstPage, nextPage);
+		// 不正なカーソルは先頭ページとして扱う
+		assertEquals(firstPage, invalidCursor);
+
+		// 4.Log
+		log.info("結果：" + firstPage + " / " + nextPage);
+	}
+
+	@Test
+	@WithMockUser(username = "fragment-insert@xxx.co.jp")
+	void 部分更新の場合は登録した行のみを返却() throws Exception {
+		// 1.Ready
+		String userId = "fragment-insert@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+
+		try {
+			// 2.Do
+			String body = mockMvc.perform(fragment(post("/task/insert"))
+					.param("title", "部分更新確認用").param("limit", "2030-01-01"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+			String invalid = mockMvc.perform(fragment(post("/task/insert"))
+					.param("title", "").param("limit", "2030-01-01"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+			// 3.Check
+			int id = taskService.selectAll(userId).getTaskList().get(0).getId();
+			assertTrue(body.contains("id=\"task-" + id + "\""));
+			assertTrue(body.contains("data-limitday=\"2030-01-01\""));
+			assertTrue(body.contains("部分更新確認用"));
+			assertTrue(body.contains("正常に登録されました"));
+			assertTrue(body.contains("未完了 1件"));
+			// 画面全体(共通レイアウト・登録フォーム)は返却しない
+			assertFalse(body.contains("タスク管理画面"));
+			assertFalse(body.contains("<nav"));
+			assertTrue(invalid.contains("入力項目に不備があります"));
+			assertFalse(invalid.contains("<tr id="));
+
+			// 4.Log
+			log.info("結果：" + body);
+		} finally {
+			jdbc.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	@WithMockUser(username = "fragment-mutation@xxx.co.jp")
+	void 部分更新の場合は完了した行と削除したタスクIDを返却() throws Exception {
+		// 1.Ready
+		String userId = "fragment-mutation@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		int complateId = taskService.create(userId, "完了確認用", "2030-01-01").getId();
+		int deleteId = taskService.create(userId, "削除確認用", "2030-01-02").getId();
+
+		try {
+			// 2.Do
+			String complated = mockMvc.perform(fragment(post("/task/complate/bulk")).param("ids", "" + complateId))
+					.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+			String deleted = mockMvc.perform(fragment(post("/task/delete")).param("id", "" + deleteId))
+					.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+			// 3.Check
+			assertTrue(complated.contains("id=\"task-" + complateId + "\""));
+			// 完了済みの行は完了ボタンを表示しない
+			assertFalse(complated.contains("/task/complate\""));
+			assertTrue(complated.contains("完了 1件"));
+			assertTrue(deleted.contains("<tr id=\"task-" + deleteId + "\" data-removed"));
+			assertFalse(deleted.contains("削除確認用"));
+
+			// 4.Log
+			log.info("結果：" + deleted);
+		} finally {
+			jdbc.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	@WithMockUser(username = "fragment-conflict@xxx.co.jp")
+	void 表示後に変更されたタスクは競合を表示し最新の行を返却() throws Exception {
+		// 1.Ready
+		String userId = "fragment-conflict@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		int id = taskService.create(userId, "競合確認用", "2030-01-01").getId();
+		// 版数0で表示した後に、他の画面で完了された
+		taskService.complate(userId, "" + id);
+
+		try {
+			// 2.Do
+			String conflicted = mockMvc.perform(fragment(post("/task/delete")).param("id", "" + id).param("version", "0"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+			String retried = mockMvc.perform(fragment(post("/task/delete")).param("id", "" + id).param("version", "1"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+			// 3.Check
+			assertTrue(conflicted.contains("他の画面で変更されたため"));
+			// 最新の版数の行を返却し、そのまま再度操作できる
+			assertTrue(conflicted.contains("id=\"task-" + id + "\""));
+			assertTrue(conflicted.contains("value=\"1\" name=\"version\""));
+			assertFalse(conflicted.contains("data-removed"));
+			assertTrue(retried.contains("正常に削除されました"));
+			assertTrue(retried.contains("<tr id=\"task-" + id + "\" data-removed"));
+			assertNull(taskRepository.findById(id));
+
+			// 4.Log
+			log.info("結果：" + conflicted);
+		} finally {
+			jdbc.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	@WithMockUser(username = "fragment-size@xxx.co.jp")
+	void 部分更新と画面全体の応答サイズと処理時間を比較() throws Exception {
+		// 1.Ready
+		String userId = "fragment-size@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		int taskCount = 1000;
+		int repeat = 50;
+		for (int i = 0; i < taskCount; i++) {
+			taskService.insert(userId, "応答サイズ確認用" + i, "2030-01-" + String.format("%02d", i % 28 + 1));
+		}
+
+		try {
+			// 2.Do
+			long fullBytes = 0;
+			long fullNanos = 0;
+			long fragmentBytes = 0;
+			long fragmentNanos = 0;
+			for (int i = 0; i < repeat; i++) {
+				long start = System.nanoTime();
+				fullBytes += mockMvc.perform(post("/task/insert").param("title", "全体" + i).param("limit", "2030-02-01"))
+						.andReturn().getResponse().getContentAsByteArray().length;
+				fullNanos += System.nanoTime() - start;
+
+				start = System.nanoTime();
+				fragmentBytes += mockMvc.perform(fragment(post("/task/insert")).param("title", "部分" + i).param("limit", "2030-02-01"))
+						.andReturn().getResponse().getContentAsByteArray().length;
+				fragmentNanos += System.nanoTime() - start;
+			}
+
+			// 3.Check
+			assertTrue(fragmentBytes < fullBytes);
+
+			// 4.Log
+			log.info(String.format("結果：画面全体 %dバイト %.2fms/件、部分更新 %dバイト %.2fms/件",
+					fullBytes / repeat, fullNanos / 1_000_000.0 / repeat,
+					fragmentBytes / repeat, fragmentNanos / 1_000_000.0 / repeat));
+		} finally {
+			jdbc.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	private MockHttpServletRequestBuilder fragment(MockHttpServletRequestBuilder request) {
+		return request.header("X-Requested-With", "XMLHttpRequest");
+	}
+
+	private TaskData cursorTask() {
+		TaskData taskData = new TaskData();
+		taskData.setId(1);
+		taskData.setLimitday(new java.util.Date());
+		return taskData;
+	}
+
+	@Test
+	@WithMockUser(username = "calendar@xxx.co.jp")
+	void カレンダー画面に期間内のタスクを表示() throws Exception {
+		// 1.Ready
+		String userId = "calendar@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		taskService.insert(userId, "カレンダー確認用", "2030-04-15");
+		taskService.insert(userId, "翌々月のタスク", "2030-06-15");
+
+		try {
+			// 2.Do
+			String body = mockMvc.perform(get("/task/calendar").param("view", "month").param("date", "2030-04-10"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+			// 3.Check
+			assertTrue(body.contains("2030年4月"));
+			assertTrue(body.contains("カレンダー確認用"));
+			assertFalse(body.contains("翌々月のタスク"));
+			assertTrue(body.contains("id=\"day-2030-04-15\""));
+			assertTrue(body.contains("date=2030-05-01"));
+
+			// 4.Log
+			log.info("結果：" + body.length() + "文字");
+		} finally {
+			jdbc.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	@WithMockUser(username = "search-priority@xxx.co.jp")
+	void 検索結果に登録した優先度を表示() throws Exception {
+		// 1.Ready
+		String userId = "search-priority@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		taskService.create(userId, "優先度確認用", "2030-01-01", "" + TaskData.PRIORITY_HIGH);
+
+		try {
+			// 2.Do
+			String body = mockMvc.perform(get("/task/search").param("q", "優先度確認"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+			// 3.Check
+			assertTrue(body.contains("<td>優先度確認用</td>"));
+			assertTrue(body.contains("<td>高</td>"), body);
+			assertFalse(body.contains("<td>中</td>"));
+
+			// 4.Log
+			log.info("結果：" + body.length() + "文字");
+		} finally {
+			jdbc.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	@WithMockUser(username = "search-delete@xxx.co.jp")
+	void 検索結果から完了済みのタスクを削除() throws Exception {
+		// 1.Ready
+		String userId = "search-delete@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		int id = taskService.create(userId, "検索削除確認用", "2030-01-01").getId();
+		// 索引を作成した後に完了する
+		taskService.search(userId, "検索削除");
+		taskService.complate(userId, "" + id);
+
+		try {
+			// 2.Do
+			String searched = mockMvc.perform(get("/task/search").param("q", "検索削除"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+			String deleted = mockMvc.perform(fragment(post("/task/delete")).param("id", "" + id).param("version", "1"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+			// 3.Check
+			// 検索結果はDBと同じ版数を表示する
+			assertTrue(searched.contains("value=\"1\" name=\"version\""), searched);
+			assertFalse(deleted.contains("他の画面で変更されたため"));
+			assertTrue(deleted.contains("<tr id=\"task-" + id + "\" data-removed"));
+			assertNull(taskRepository.findById(id));
+
+			// 4.Log
+			log.info("結果：" + deleted);
+		} finally {
+			jdbc.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+}
@@ -0,0 +1,293 @@
+package com.example.demo.task;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class TaskExportServiceTest {
+
+	/** SQL テストデータの削除 */
+	private static final String SQL_DELETE_TEST_DATA = "DELETE FROM task_t WHERE user_id LIKE 'export-%'";
+
+	@Autowired
+	private TaskExportService target;
+
+	@Autowired
+	private TaskRepository taskRepository;
+
+	@Autowired
+	private TaskService taskService;
+
+	@Autowired
+	private TaskComplateBuffer taskComplateBuffer;
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbc;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TaskExportController taskExportController;
+
+	@Test
+	void 全ユーザのタスクをシャードに分けて並列に出力() throws Exception {
+		// 1.Ready
+		insertTasks(40, 250);
+		Object shardCount = ReflectionTestUtils.getField(target, "shardCount");
+
+		try {
+			// 2.Do
+			long start = System.nanoTime();
+			TaskExportProgress progress = target.start();
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			target.export(progress, out);
+			long parallelNanos = System.nanoTime() - start;
+
+			// 比較用に1シャード(逐次)で出力する
+			ReflectionTestUtils.setField(target, "shardCount", 1);
+			start = System.nanoTime();
+			TaskExportProgress sequential = target.start();
+			target.export(sequential, new ByteArrayOutputStream());
+			long sequentialNanos = System.nanoTime() - start;
+
+			// 3.Check
+			List<String> lines = gunzip(out.toByteArray());
+			assertEquals("id,user_id,title,limitday,priority,complate,complated_at", lines.get(0));
+			long total = taskRepository.countAll();
+			assertEquals(total + 1, lines.size());
+			Set<Integer> ids = new HashSet<Integer>();
+			for (String line : lines.subList(1, lines.size())) {
+				assertTrue(ids.add(Integer.valueOf(line.substring(0, line.indexOf(',')))), line);
+			}
+			assertEquals(new HashSet<Integer>(jdbc.queryForList("SELECT id FROM task_t", new HashMap<String, Object>(), Integer.class)), ids);
+
+			assertFalse(progress.isRunning());
+			assertFalse(progress.isFailed());
+			assertEquals(8, progress.getTotalShards());
+			assertEquals(progress.getTotalShards(), progress.getFinishedShards());
+			assertEquals(total, progress.getTotalRows());
+			assertEquals(total, progress.getExportedRows());
+			assertEquals(out.size(), progress.getWrittenBytes());
+			assertEquals(1, sequential.getTotalShards());
+			assertEquals(total, sequential.getExportedRows());
+
+			// 4.Log
+			log.info("結果：" + total + "件 圧縮後" + out.size() + "バイト 並列" + parallelNanos / 1_000_000 + "ms 逐次"
+					+ sequentialNanos / 1_000_000 + "ms");
+		} finally {
+			ReflectionTestUtils.setField(target, "shardCount", shardCount);
+			jdbc.update(SQL_DELETE_TEST_DATA, new HashMap<String, Object>());
+		}
+	}
+
+	@Test
+	void 出力先への書き込みに失敗した場合は読み込みを中断() throws Exception {
+		// 1.Ready
+		insertTasks(20, 500);
+		Object queueBlocks = ReflectionTestUtils.getField(target, "queueBlocks");
+		ReflectionTestUtils.setField(target, "queueBlocks", 1);
+		OutputStream broken = new OutputStream() {
+			private int count;
+
+			@Override
+			public void write(int b) throws IOException {
+				throw new IOException("切断");
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				if (++count > 2) {
+					throw new IOException("切断");
+				}
+			}
+		};
+
+		try {
+			// 2.Do
+			TaskExportProgress progress = target.start();
+			assertThrows(IOException.class, () -> target.export(progress, broken));
+
+			// 3.Check
+			assertFalse(progress.isRunning());
+			assertTrue(progress.isFailed());
+			assertTrue(progress.getExportedRows() < progress.getTotalRows());
+
+			// 中断したシャードがスレッドを占有せず、次の出力を実行できる
+			TaskExportProgress next = target.start();
+			assertNotNull(next);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			target.export(next, out);
+			assertEquals(next.getTotalRows() + 1, gunzip(out.toByteArray()).size());
+
+			// 4.Log
+			log.info("結果：中断時" + progress.getExportedRows() + "/" + progress.getTotalRows() + "件");
+		} finally {
+			ReflectionTestUtils.setField(target, "queueBlocks", queueBlocks);
+			jdbc.update(SQL_DELETE_TEST_DATA, new HashMap<String, Object>());
+		}
+	}
+
+	@Test
+	void 未反映の完了をDBへ反映してから出力() throws Exception {
+		// 1.Ready
+		String userId = "export-pending@xxx.co.jp";
+		int id = taskService.create(userId, "未反映の完了", "2030-01-01").getId();
+		taskComplateBuffer.add(userId, id);
+
+		try {
+			// 2.Do
+			TaskExportProgress progress = target.start();
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			target.export(progress, out);
+
+			// 3.Check
+			String line = gunzip(out.toByteArray()).stream().filter(row -> row.startsWith(id + ",")).findFirst()
+					.orElseThrow();
+			assertTrue(line.contains(",true,"), line);
+			assertFalse(taskComplateBuffer.isPending(userId, id));
+
+			// 4.Log
+			log.info("結果：" + line);
+		} finally {
+			jdbc.update(SQL_DELETE_TEST_DATA, new HashMap<String, Object>());
+		}
+	}
+
+	@Test
+	void 出力中は新たな出力を開始しない() throws Exception {
+		// 2.Do
+		TaskExportProgress progress = target.start();
+		TaskExportProgress duplicated = target.start();
+		target.export(progress, new ByteArrayOutputStream());
+		TaskExportProgress next = target.start();
+		target.export(next, new ByteArrayOutputStream());
+
+		// 3.Check
+		assertNotNull(progress);
+		assertNull(duplicated);
+		assertNotNull(next);
+		assertSame(next, target.getProgress());
+
+		// 4.Log
+		log.info("結果：" + next.getExportedRows() + "件");
+	}
+
+	@Test
+	@WithMockUser(username = "taro@xxx.co.jp", authorities = "ROLE_ADMIN")
+	void 管理者は全件をgzipで取得し進捗を参照() throws Exception {
+		// 2.Do
+		MvcResult started = mockMvc.perform(post("/admin/task/export"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		byte[] body = mockMvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Content-Type", "application/gzip"))
+				.andReturn().getResponse().getContentAsByteArray();
+		String progress = mockMvc.perform(get("/admin/task/export/progress"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+		// 3.Check
+		assertEquals(taskRepository.countAll() + 1, gunzip(body).size());
+		assertTrue(progress.contains("\"running\":false"), progress);
+		assertTrue(progress.contains("\"exportedRows\":" + taskRepository.countAll()), progress);
+
+		// 4.Log
+		log.info("結果：" + progress);
+	}
+
+	@Test
+	void レスポンスを書き込まなかった場合は出力中のまま残さない() throws Exception {
+		// 2.Do
+		// 非同期の書き込みが実行されなかった場合を想定し、レスポンスの本文を破棄する
+		ResponseEntity<StreamingResponseBody> discarded = taskExportController.exportAll();
+		boolean running = target.getProgress().isRunning();
+		ResponseEntity<StreamingResponseBody> next = taskExportController.exportAll();
+
+		// 3.Check
+		assertEquals(HttpStatus.OK, discarded.getStatusCode());
+		assertFalse(running);
+		assertEquals(HttpStatus.OK, next.getStatusCode());
+
+		// 4.Log
+		log.info("結果：" + next.getStatusCode());
+	}
+
+	@Test
+	@WithMockUser(username = "hanako@xxx.co.jp", authorities = "ROLE_GENERAL")
+	void 管理者以外は全件を取得できない() throws Exception {
+		// 2.Do & 3.Check
+		mockMvc.perform(post("/admin/task/export"))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/admin/task/export/progress"))
+				.andExpect(status().isForbidden());
+	}
+
+	/**
+	 * テスト用のタスクを、ユーザ毎に指定件数ずつ登録します。
+	 */
+	private void insertTasks(int users, int tasksPerUser) {
+		List<TaskData> taskList = new ArrayList<TaskData>();
+		for (int u = 0; u < users; u++) {
+			for (int t = 0; t < tasksPerUser; t++) {
+				TaskData taskData = new TaskData();
+				taskData.setUserId(String.format("export-%03d@xxx.co.jp", u));
+				taskData.setTitle("全件出力" + t);
+				taskData.setLimitday(java.sql.Date.valueOf("2030-01-01"));
+				taskList.add(taskData);
+			}
+		}
+		taskRepository.saveAll(taskList);
+	}
+
+	/**
+	 * 連結されたgzipのメンバーをすべて展開し、行のリストへ変換します。
+	 */
+	private List<String> gunzip(byte[] bytes) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new GZIPInputStream(new ByteArrayInputStream(bytes)), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		}
+		return lines;
+	}
+}
@@ -0,0 +1,124 @@
+package com.example.demo.task;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+class TaskListCacheTest {
+
+	@Test
+	void Getメソッドの2回目はキャッシュから取得() {
+		// 1.Ready
+		TaskListCache target = new TaskListCache(true, 10, 10, 60);
+		AtomicInteger loads = new AtomicInteger();
+
+		// 2.Do
+		TaskEntity first = target.get("user", "first", () -> load(loads));
+		TaskEntity second = target.get("user", "first", () -> load(loads));
+
+		// 3.Check
+		assertSame(first, second);
+		assertEquals(1, loads.get());
+		assertEquals(1, target.getHitCount());
+		assertEquals(1, target.getMissCount());
+
+		// 4.Log
+		log.info("結果：" + target);
+	}
+
+	@Test
+	void Invalidateメソッドで対象ユーザのみ破棄() {
+		// 1.Ready
+		TaskListCache target = new TaskListCache(true, 10, 10, 60);
+		AtomicInteger loads = new AtomicInteger();
+		target.get("user", "first", () -> load(loads));
+		target.get("other", "first", () -> load(loads));
+
+		// 2.Do
+		target.invalidate("user");
+		target.get("user", "first", () -> load(loads));
+		target.get("other", "first", () -> load(loads));
+
+		// 3.Check
+		assertEquals(3, loads.get());
+		assertEquals(1, target.getHitCount());
+
+		// 4.Log
+		log.info("結果：" + target);
+	}
+
+	@Test
+	void 取得中に破棄された場合は保持しない() {
+		// 1.Ready
+		TaskListCache target = new TaskListCache(true, 10, 10, 60);
+		AtomicInteger loads = new AtomicInteger();
+
+		// 2.Do
+		target.get("user", "first", () -> {
+			// 取得中に別のリクエストでタスクが変更された
+			target.invalidate("user");
+			return load(loads);
+		});
+		target.get("user", "first", () -> load(loads));
+
+		// 3.Check
+		assertEquals(2, loads.get());
+		assertEquals(0, target.getHitCount());
+
+		// 4.Log
+		log.info("結果：" + target);
+	}
+
+	@Test
+	void 上限を超えた場合は最も参照されていないものを追い出す() {
+		// 1.Ready
+		TaskListCache target = new TaskListCache(true, 2, 2, 60);
+		AtomicInteger loads = new AtomicInteger();
+
+		// 2.Do
+		target.get("user", "page1", () -> load(loads));
+		target.get("user", "page2", () -> load(loads));
+		target.get("user", "page1", () -> load(loads));
+		target.get("user", "page3", () -> load(loads)); // page2を追い出す
+		target.get("other1", "page1", () -> load(loads));
+		target.get("other2", "page1", () -> load(loads)); // userを追い出す
+		target.get("user", "page1", () -> load(loads));
+
+		// 3.Check
+		assertEquals(6, loads.get());
+		assertEquals(1, target.getHitCount());
+		assertEquals(4, target.getEvictionCount());
+
+		// 4.Log
+		log.info("結果：" + target);
+	}
+
+	@Test
+	void 有効期間が経過した場合は再取得() {
+		// 1.Ready
+		TaskListCache target = new TaskListCache(true, 10, 10, 0);
+		AtomicInteger loads = new AtomicInteger();
+
+		// 2.Do
+		target.get("user", "first", () -> load(loads));
+		target.get("user", "first", () -> load(loads));
+
+		// 3.Check
+		assertEquals(2, loads.get());
+		assertEquals(0, target.getHitCount());
+		assertEquals(1, target.getEvictionCount());
+
+		// 4.Log
+		log.info("結果：" + target);
+	}
+
+	private TaskEntity load(AtomicInteger loads) {
+		loads.incrementAndGet();
+		return new TaskEntity();
+	}
+}
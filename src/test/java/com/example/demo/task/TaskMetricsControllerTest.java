@@ -0,0 +1,79 @@
+package com.example.demo.task;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class TaskMetricsControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TaskService taskService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	@WithMockUser(username = "taro@xxx.co.jp", authorities = "ROLE_ADMIN")
+	void 管理者はキャッシュのヒットとミスの件数を取得() throws Exception {
+		// 1.Ready
+		String userId = "cache-metrics@xxx.co.jp";
+		JsonNode before = metrics();
+
+		// 2.Do
+		taskService.selectAll(userId);
+		taskService.selectAll(userId);
+		JsonNode after = metrics();
+
+		// 3.Check
+		assertTrue(after.get("enabled").asBoolean());
+		assertEquals(1, after.get("hitCount").asLong() - before.get("hitCount").asLong());
+		assertEquals(1, after.get("missCount").asLong() - before.get("missCount").asLong());
+		assertTrue(after.get("users").asInt() >= 1);
+		assertTrue(after.has("evictionCount"));
+		assertTrue(after.has("hitRatio"));
+
+		// 4.Log
+		log.info("結果：" + after);
+	}
+
+	@Test
+	@WithMockUser(username = "hanako@xxx.co.jp", authorities = "ROLE_GENERAL")
+	void 管理者以外はキャッシュの利用状況を取得できない() throws Exception {
+		// 2.Do & 3.Check
+		mockMvc.perform(get("/admin/task/cache/metrics"))
+				.andExpect(status().isForbidden());
+	}
+
+	/**
+	 * キャッシュの利用状況を取得します。
+	 */
+	private JsonNode metrics() throws Exception {
+		String body = mockMvc.perform(get("/admin/task/cache/metrics"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+		return objectMapper.readTree(body);
+	}
+}
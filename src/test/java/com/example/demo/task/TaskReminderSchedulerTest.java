@@ -0,0 +1,205 @@
+package com.example.demo.task;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest
+class TaskReminderSchedulerTest {
+
+	@Autowired
+	private TaskReminderScheduler scheduler;
+
+	@Autowired
+	private TaskService taskService;
+
+	@Autowired
+	private TaskRepository taskRepository;
+
+	// モック対象クラスを定義
+	@SpyBean
+	private NamedParameterJdbcTemplate mock;
+
+	@Test
+	void 期限が近い通知の後に期限切れを通知() {
+		// 1.Ready
+		List<Object> events = new ArrayList<Object>();
+		TaskReminderScheduler target = newScheduler(events::add);
+		LocalDate limitday = LocalDate.now().plusDays(3);
+		target.schedule(task(1, limitday));
+
+		// 2.Do
+		List<TaskReminderEvent> beforeDueSoon = target.advanceTo(millis(limitday.minusDays(1)) - 60_000);
+		List<TaskReminderEvent> dueSoon = target.advanceTo(millis(limitday.minusDays(1)) + 60_000);
+		List<TaskReminderEvent> beforeOverdue = target.advanceTo(millis(limitday.plusDays(1)) - 60_000);
+		List<TaskReminderEvent> overdue = target.advanceTo(millis(limitday.plusDays(1)) + 60_000);
+
+		// 3.Check
+		assertTrue(beforeDueSoon.isEmpty());
+		assertEquals(List.of(new TaskReminderEvent(TaskReminderEvent.Kind.DUE_SOON, 1, "reminder", limitday)), dueSoon);
+		assertTrue(beforeOverdue.isEmpty());
+		assertEquals(List.of(new TaskReminderEvent(TaskReminderEvent.Kind.OVERDUE, 1, "reminder", limitday)), overdue);
+		assertEquals(2, events.size());
+		assertEquals(0, target.getPendingCount());
+
+		// 4.Log
+		log.info("結果：" + events);
+	}
+
+	@Test
+	void 期限切れのタスクは次のティックで通知し取消したタスクは通知しない() {
+		// 1.Ready
+		List<Object> events = new ArrayList<Object>();
+		TaskReminderScheduler target = newScheduler(events::add);
+		LocalDate yesterday = LocalDate.now().minusDays(1);
+		target.schedule(task(1, yesterday));
+		target.schedule(task(2, yesterday));
+		target.schedule(task(3, LocalDate.now()));
+
+		// 2.Do
+		target.cancel(List.of(2, 99));
+		List<TaskReminderEvent> fired = target.advanceTo(System.currentTimeMillis() + 120_000);
+
+		// 3.Check
+		assertEquals(List.of(new TaskReminderEvent(TaskReminderEvent.Kind.OVERDUE, 1, "reminder", yesterday),
+				new TaskReminderEvent(TaskReminderEvent.Kind.DUE_SOON, 3, "reminder", LocalDate.now())), fired);
+		// 期限日当日のタスクは期限切れの予約が残る
+		assertEquals(1, target.getPendingCount());
+
+		// 4.Log
+		log.info("結果：" + events);
+	}
+
+	@Test
+	void Reloadメソッドで未完了タスクのみ予約() {
+		// 1.Ready
+		String userId = "reminder-reload@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		List<TaskData> taskList = new ArrayList<TaskData>();
+		for (int i = 0; i < 5; i++) {
+			taskList.add(taskService.refillToData(userId, "リマインド" + i, "2030-01-0" + (i + 1)));
+		}
+		taskRepository.saveAll(taskList);
+		mock.update("UPDATE task_t SET complate = true WHERE user_id = :userId AND limitday = '2030-01-01'", params);
+		TaskReminderScheduler target = newScheduler(event -> {
+		});
+
+		try {
+			// 2.Do
+			target.reload(userId);
+
+			// 3.Check
+			assertEquals(4, target.getPendingCount());
+
+			// 4.Log
+			log.info("結果：" + target.getPendingCount());
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void 登録で予約し完了と削除で取消() {
+		// 1.Ready
+		String userId = "reminder-service@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+
+		try {
+			// 2.Do
+			taskService.insert(userId, "リマインド対象1", "2030-01-01");
+			taskService.insert(userId, "リマインド対象2", "2030-01-01");
+			List<Integer> ids = mock.queryForList("SELECT id FROM task_t WHERE user_id = :userId ORDER BY id", params, Integer.class);
+			boolean inserted = scheduler.isScheduled(ids.get(0)) && scheduler.isScheduled(ids.get(1));
+			taskService.complate(userId, String.valueOf(ids.get(0)));
+			boolean complated = scheduler.isScheduled(ids.get(0));
+			taskService.deleteAll(userId, List.of(ids.get(1)));
+			boolean deleted = scheduler.isScheduled(ids.get(1));
+
+			// 3.Check
+			assertTrue(inserted);
+			assertFalse(complated);
+			assertFalse(deleted);
+
+			// 4.Log
+			log.info("結果：" + ids);
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void 一括登録では通知済みのタスクを再度予約しない() {
+		// 1.Ready
+		String userId = "reminder-import@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+
+		try {
+			taskService.insert(userId, "期限切れ", LocalDate.now().minusDays(3).toString());
+			int overdueId = mock.queryForObject("SELECT MAX(id) FROM task_t WHERE user_id = :userId", params, Integer.class);
+			boolean scheduled = scheduler.isScheduled(overdueId);
+			// 期限切れを通知済みにする(期限を過ぎた予約は次の間隔で通知される)
+			scheduler.advanceTo(System.currentTimeMillis() + 120_000);
+			boolean fired = !scheduler.isScheduled(overdueId);
+			String csv = "title,limitday\n" + "一括登録,2030-01-01\n";
+
+			// 2.Do
+			taskService.importTasks(userId, "tasks.csv", new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+			// 3.Check
+			int importedId = mock.queryForObject("SELECT MAX(id) FROM task_t WHERE user_id = :userId", params, Integer.class);
+			assertTrue(scheduled);
+			assertTrue(fired);
+			assertFalse(scheduler.isScheduled(overdueId));
+			assertTrue(scheduler.isScheduled(importedId));
+
+			// 4.Log
+			log.info("結果：" + overdueId + " " + importedId);
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	private TaskReminderScheduler newScheduler(ApplicationEventPublisher publisher) {
+		TaskReminderScheduler target = new TaskReminderScheduler(60, 1);
+		ReflectionTestUtils.setField(target, "taskRepository", taskRepository);
+		ReflectionTestUtils.setField(target, "eventPublisher", publisher);
+		return target;
+	}
+
+	private TaskData task(int id, LocalDate limitday) {
+		TaskData taskData = new TaskData();
+		taskData.setId(id);
+		taskData.setUserId("reminder");
+		taskData.setTitle("リマインド");
+		taskData.setLimitday(new java.util.Date(millis(limitday)));
+		return taskData;
+	}
+
+	private long millis(LocalDate day) {
+		return day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+}
@@ -4,13 +4,27 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import java.io.StringWriter;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 
@@ -95,6 +109,97 @@ class TaskRepositoryTest {
 		log.info("結果：SQLExceptionではない");
 	}
 
+	@Test
+	void Saveメソッドを並列実行してもタスクIDが重複しない() throws Exception {
+		// 1.Ready
+		String userId = "concurrent-save@xxx.co.jp";
+		int threads = 16;
+		int count = 2000;
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			// 2.Do
+			long start = System.nanoTime();
+			List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+			for (int i = 0; i < count; i++) {
+				TaskData taskData = new TaskData();
+				taskData.setUserId(userId);
+				taskData.setTitle("並列登録" + i);
+				taskData.setLimitday(new Date());
+				futures.add(executor.submit(() -> target.save(taskData)));
+			}
+			for (Future<Integer> future : futures) {
+				// 重複キーなどで失敗した場合は例外となる
+				assertEquals(1, future.get());
+			}
+			long elapsed = System.nanoTime() - start;
+
+			// 3.Check
+			int rows = mock.queryForObject("SELECT COUNT(*) FROM task_t WHERE user_id = :userId", params, Integer.class);
+			int ids = mock.queryForObject("SELECT COUNT(DISTINCT id) FROM task_t WHERE user_id = :userId", params, Integer.class);
+			assertEquals(count, rows);
+			assertEquals(count, ids);
+
+			// 4.log
+			log.info("結果：" + count + "件 " + (count * 1_000_000_000L / elapsed) + "件/秒");
+		} finally {
+			executor.shutdown();
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void DeleteAllメソッドと1件ずつの削除の処理時間を比較() throws Exception {
+		// 1.Ready
+		String userId = "bulk-benchmark@xxx.co.jp";
+		int count = 500;
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+
+		try {
+			// 2.Do (1件ずつ削除)
+			List<Integer> ids = saveBenchmarkTasks(userId, count, params);
+			long loopStart = System.nanoTime();
+			for (int id : ids) {
+				target.delete(userId, id);
+			}
+			long loopElapsed = System.nanoTime() - loopStart;
+			int loopRemaining = mock.queryForObject("SELECT COUNT(*) FROM task_t WHERE user_id = :userId", params, Integer.class);
+
+			// 2.Do (一括削除)
+			ids = saveBenchmarkTasks(userId, count, params);
+			long bulkStart = System.nanoTime();
+			int deleted = target.deleteAll(userId, ids);
+			long bulkElapsed = System.nanoTime() - bulkStart;
+			int bulkRemaining = mock.queryForObject("SELECT COUNT(*) FROM task_t WHERE user_id = :userId", params, Integer.class);
+
+			// 3.Check
+			assertEquals(0, loopRemaining);
+			assertEquals(count, deleted);
+			assertEquals(0, bulkRemaining);
+
+			// 4.log
+			log.info("結果：" + count + "件 1件ずつ " + loopElapsed / 1_000_000 + "ms / 一括 " + bulkElapsed / 1_000_000 + "ms");
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	private List<Integer> saveBenchmarkTasks(String userId, int count, Map<String, Object> params) {
+		List<TaskData> taskList = new ArrayList<TaskData>();
+		for (int i = 0; i < count; i++) {
+			TaskData taskData = new TaskData();
+			taskData.setUserId(userId);
+			taskData.setTitle("一括削除" + i);
+			taskData.setLimitday(new Date());
+			taskList.add(taskData);
+		}
+		target.saveAll(taskList);
+		return mock.queryForList("SELECT id FROM task_t WHERE user_id = :userId", params, Integer.class);
+	}
+
 	@Test
 	void deleteメソッドにモック値0を設定し出力() {
 		// 0.Mock
@@ -106,7 +211,7 @@ class TaskRepositoryTest {
 		//int excepted = 1;
 
 		// 2.Do 3.Check
-		assertThrows(SQLException.class, () -> target.delete(id));
+		assertThrows(SQLException.class, () -> target.delete("user", id));
 
 		// 4.log
 		log.info("結果：SQLException");
@@ -123,7 +228,7 @@ class TaskRepositoryTest {
 		//int excepted = 1;
 
 		// 2.Do 3.Check
-		assertDoesNotThrow(() -> target.delete(id));
+		assertDoesNotThrow(() -> target.delete("user", id));
 
 		// 4.log
 		log.info("結果：SQLExceptionではない");
@@ -140,7 +245,7 @@ class TaskRepositoryTest {
 		//int excepted = 1;
 
 		// 2.Do 3.Check
-		assertThrows(SQLException.class, () -> target.update(id));
+		assertThrows(SQLException.class, () -> target.update("user", id));
 
 		// 4.log
 		log.info("結果：SQLException");
@@ -157,12 +262,236 @@ class TaskRepositoryTest {
 		//int excepted = 1;
 		
 		// 2.Do 3.Check
-		assertDoesNotThrow(() -> target.update(id));
+		assertDoesNotThrow(() -> target.update("user", id));
 		
 		// 4.log
 		log.info("結果：SQLExceptionではない");
 	}
 
+	@Test
+	void 版数を指定したUpdateメソッドとDeleteメソッドは版数が異なる場合に競合() throws Exception {
+		// 1.Ready
+		TaskData taskData = new TaskData();
+		taskData.setUserId("versioned@xxx.co.jp");
+		taskData.setTitle("版数確認");
+		taskData.setLimitday(new Date());
+		target.save(taskData);
+		int id = taskData.getId();
+
+		try {
+			// 2.Do 3.Check
+			assertEquals(0, target.findById(id).getVersion());
+			assertEquals(1, target.update(taskData.getUserId(), id, 0));
+			assertEquals(1, target.findById(id).getVersion());
+			// 表示後に更新された版数では、更新・削除ともに競合となる
+			assertThrows(OptimisticLockingFailureException.class, () -> target.update(taskData.getUserId(), id, 0));
+			assertThrows(OptimisticLockingFailureException.class, () -> target.delete(taskData.getUserId(), id, 0));
+			// 他のユーザのタスクは競合ではなく失敗となり、更新・削除しない
+			assertThrows(SQLException.class, () -> target.update("other@xxx.co.jp", id, 1));
+			assertThrows(SQLException.class, () -> target.delete("other@xxx.co.jp", id, 1));
+			assertThrows(SQLException.class, () -> target.update("other@xxx.co.jp", id));
+			assertThrows(SQLException.class, () -> target.delete("other@xxx.co.jp", id));
+			assertEquals(1, target.findById(id).getVersion());
+			assertEquals(1, target.delete(taskData.getUserId(), id, 1));
+			// 削除済みの場合は競合ではなく失敗となる
+			assertThrows(SQLException.class, () -> target.update(taskData.getUserId(), id, 1));
+			assertThrows(SQLException.class, () -> target.delete(taskData.getUserId(), id, 1));
+
+			// 4.log
+			log.info("結果：OptimisticLockingFailureException");
+		} finally {
+			Map<String, Object> params = new HashMap<String, Object>();
+			params.put("id", id);
+			mock.update("DELETE FROM task_t WHERE id = :id", params);
+		}
+	}
+
+	@Test
+	void 版数を指定したUpdateメソッドを並列実行しても更新を失わない() throws Exception {
+		// 1.Ready
+		String userId = "versioned-stress@xxx.co.jp";
+		int tasks = 4;
+		// コネクションプールの上限(10)を超えない範囲で並列に更新する
+		int threads = 8;
+		int attempts = 1000;
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		List<Integer> ids = saveBenchmarkTasks(userId, tasks, params);
+		// タスクIDごとに、更新に成功した時点の版数
+		Map<Integer, Set<Integer>> wonVersions = new ConcurrentHashMap<Integer, Set<Integer>>();
+		ids.forEach(id -> wonVersions.put(id, ConcurrentHashMap.newKeySet()));
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch ready = new CountDownLatch(1);
+		try {
+			// 2.Do
+			List<Future<long[]>> futures = new ArrayList<Future<long[]>>();
+			for (int t = 0; t < threads; t++) {
+				int offset = t;
+				futures.add(executor.submit(() -> {
+					// 成功件数・競合件数・1回あたりの最大処理時間
+					long[] result = new long[3];
+					ready.await();
+					for (int i = 0; i < attempts; i++) {
+						int id = ids.get((offset + i) % tasks);
+						int version = target.findById(id).getVersion();
+						long start = System.nanoTime();
+						try {
+							target.update(userId, id, version);
+							assertTrue(wonVersions.get(id).add(version), "同じ版数で2回更新された ID:" + id);
+							result[0]++;
+						} catch (OptimisticLockingFailureException e) {
+							result[1]++;
+						}
+						result[2] = Math.max(result[2], System.nanoTime() - start);
+					}
+					return result;
+				}));
+			}
+			long start = System.nanoTime();
+			ready.countDown();
+			long succeeded = 0;
+			long conflicted = 0;
+			long maxNanos = 0;
+			for (Future<long[]> future : futures) {
+				// ロック待ちのタイムアウトなど、競合以外で失敗した場合は例外となる
+				long[] result = future.get();
+				succeeded += result[0];
+				conflicted += result[1];
+				maxNanos = Math.max(maxNanos, result[2]);
+			}
+			long elapsed = System.nanoTime() - start;
+
+			// 3.Check
+			assertEquals((long) threads * attempts, succeeded + conflicted);
+			int versions = 0;
+			for (int id : ids) {
+				int version = target.findById(id).getVersion();
+				// 成功した更新の数だけ版数が進み、成功した版数は0から連続する(失われた更新がない)
+				assertEquals(wonVersions.get(id).size(), version);
+				for (int v = 0; v < version; v++) {
+					assertTrue(wonVersions.get(id).contains(v));
+				}
+				versions += version;
+			}
+			assertEquals(succeeded, versions);
+
+			// 4.log
+			log.info("結果：" + threads + "スレッド " + (succeeded + conflicted) + "回 成功" + succeeded + "回 競合" + conflicted
+					+ "回 " + elapsed / 1_000_000 + "ms 1回あたり最大" + maxNanos / 1_000 + "μs");
+		} finally {
+			executor.shutdown();
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void FindNextUpメソッドで未完了タスクを優先度と期限日の順に取得() throws Exception {
+		// 1.Ready
+		String userId = "next-up@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		target.save(nextUpTask(userId, "低・期限近い", "2030-01-01", TaskData.PRIORITY_LOW));
+		target.save(nextUpTask(userId, "中・期限遠い", "2030-03-01", TaskData.PRIORITY_NORMAL));
+		target.save(nextUpTask(userId, "高・期限遠い", "2030-02-01", TaskData.PRIORITY_HIGH));
+		target.save(nextUpTask(userId, "中・期限近い", "2030-01-15", TaskData.PRIORITY_NORMAL));
+		TaskData complated = nextUpTask(userId, "高・完了済み", "2029-12-01", TaskData.PRIORITY_HIGH);
+		target.save(complated);
+		target.update(userId, complated.getId());
+
+		try {
+			// 2.Do
+			List<TaskData> result = target.findNextUp(userId, 3);
+
+			// 3.Check
+			assertEquals(3, result.size());
+			assertEquals("高・期限遠い", result.get(0).getTitle());
+			assertEquals("中・期限近い", result.get(1).getTitle());
+			assertEquals("中・期限遠い", result.get(2).getTitle());
+			assertEquals(TaskData.PRIORITY_HIGH, result.get(0).getPriority());
+
+			// 4.log
+			log.info("結果：" + result);
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void FindNextUpメソッドはインデックス順に読み並べ替えない() {
+		// 1.Ready
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", "next-up-plan@xxx.co.jp");
+		params.put("limit", 5);
+
+		// 2.Do
+		String plan = mock.queryForObject("EXPLAIN SELECT * FROM task_t WHERE user_id = :userId AND complate = false"
+				+ " order by user_id, complate, priority, limitday LIMIT :limit", params, String.class);
+
+		// 3.Check
+		assertTrue(plan.contains("IDX_TASK_NEXT_UP"), plan);
+		assertTrue(plan.contains("index sorted"), plan);
+
+		// 4.log
+		log.info("結果：" + plan);
+	}
+
+	@Test
+	void FindRangeメソッドで期限日が期間内のタスクのみを取得() throws SQLException {
+		// 1.Ready
+		String userId = "range@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		for (String limitday : List.of("2030-04-30", "2030-03-31", "2030-04-01", "2030-05-01", "2030-04-15")) {
+			target.save(nextUpTask(userId, limitday, limitday, TaskData.PRIORITY_NORMAL));
+		}
+		target.save(nextUpTask("range-other@xxx.co.jp", "他のユーザ", "2030-04-15", TaskData.PRIORITY_NORMAL));
+
+		try {
+			// 2.Do
+			List<TaskData> result = target.findRange(userId, LocalDate.of(2030, 4, 1), LocalDate.of(2030, 4, 30));
+
+			// 3.Check
+			assertEquals(List.of("2030-04-01", "2030-04-15", "2030-04-30"), result.stream().map(TaskData::getTitle).toList());
+
+			// 4.log
+			log.info("結果：" + result);
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+			params.put("userId", "range-other@xxx.co.jp");
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void FindRangeメソッドはインデックスを範囲走査し並べ替えない() {
+		// 1.Ready
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", "range-plan@xxx.co.jp");
+		params.put("from", java.sql.Date.valueOf("2030-04-01"));
+		params.put("to", java.sql.Date.valueOf("2030-04-30"));
+
+		// 2.Do
+		String plan = mock.queryForObject("EXPLAIN SELECT * FROM task_t WHERE user_id = :userId"
+				+ " AND limitday BETWEEN :from AND :to order by user_id, limitday, id", params, String.class);
+
+		// 3.Check
+		assertTrue(plan.contains("IDX_TASK_USER_LIMITDAY"), plan);
+		assertTrue(plan.contains("index sorted"), plan);
+
+		// 4.log
+		log.info("結果：" + plan);
+	}
+
+	private TaskData nextUpTask(String userId, String title, String limitday, int priority) {
+		TaskData taskData = new TaskData();
+		taskData.setUserId(userId);
+		taskData.setTitle(title);
+		taskData.setLimitday(java.sql.Date.valueOf(limitday));
+		taskData.setPriority(priority);
+		return taskData;
+	}
+
 	@Test
 	void FileOutメソッドにモック値0を設定し出力() {
 		// 0.Mock
@@ -174,12 +503,47 @@ class TaskRepositoryTest {
 		//int excepted = 1;
 		
 		// 2.Do 3.Check
-		assertThrows(SQLException.class, () -> target.fileOut(userId));
+		assertThrows(SQLException.class, () -> target.fileOut(userId, new StringWriter()));
 		
 		// 4.log
 		log.info("結果：SQLException");
 	}
 
+	@Test
+	void FileOutメソッドでヘッダと全件を出力() throws Exception {
+		// 1.Ready
+		String userId = "user";
+		StringWriter writer = new StringWriter();
+
+		// 2.Do
+		target.fileOut(userId, writer);
+
+		// 3.Check
+		String[] lines = writer.toString().split(System.lineSeparator());
+		assertEquals(4, lines.length);
+		assertEquals("id,user_id,title,limitday,priority", lines[0]);
+		assertEquals("2,user,食材を購入するためのリストを作成,2023-06-24,2", lines[1]);
+
+		// 4.log
+		log.info("結果：" + writer);
+	}
+
+	@Test
+	void FileOutメソッドで該当なしの場合ヘッダのみ出力() throws Exception {
+		// 1.Ready
+		String userId = "nobody";
+		StringWriter writer = new StringWriter();
+
+		// 2.Do
+		target.fileOut(userId, writer);
+
+		// 3.Check
+		assertEquals("id,user_id,title,limitday,priority" + System.lineSeparator(), writer.toString());
+
+		// 4.log
+		log.info("結果：" + writer);
+	}
+
 //	@Test
 //	void FileOutメソッドにモック値1を設定し出力() {
 //		// 0.Mock
@@ -191,7 +555,7 @@ class TaskRepositoryTest {
 //		//int excepted = 1;
 //
 //		// 2.Do 3.Check
-//		assertDoesNotThrow(() -> target.fileOut(userId));
+//		assertDoesNotThrow(() -> target.fileOut(userId, new StringWriter()));
 //
 //		// 4.log
 //		log.info("結果：SQLExceptionではない");
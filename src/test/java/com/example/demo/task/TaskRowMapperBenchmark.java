@@ -0,0 +1,127 @@
+package com.example.demo.task;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * 10万件の検索結果の変換方式を比較する性能測定です。
+ *
+ * <p>{@code queryForList}で行ごとに{@code Map}を生成してから{@link TaskData}へ詰め替える方式と、
+ * {@link TaskRowMapper}で直接変換する方式の処理時間・メモリ割り当て量(gc.alloc.rate.norm)を比較します。
+ * <p>JUnitのテストとしては実行されません。IDEから{@code main}メソッドを実行してください。
+ *
+ * @author 情報太郎
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TaskRowMapperBenchmark {
+
+	/** 測定に利用する件数 */
+	private static final int ROW_COUNT = 100_000;
+
+	/** SQL 全件取得 */
+	private static final String SQL_SELECT_ALL = "SELECT * FROM task_t WHERE user_id = :userId order by limitday";
+
+	private SingleConnectionDataSource dataSource;
+
+	private NamedParameterJdbcTemplate jdbc;
+
+	private Map<String, Object> params;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		dataSource = new SingleConnectionDataSource("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1", "sa", "", true);
+		jdbc = new NamedParameterJdbcTemplate(dataSource);
+		jdbc.getJdbcTemplate().execute("CREATE TABLE task_t (id INT PRIMARY KEY, user_id VARCHAR(50), "
+				+ "title VARCHAR(50), limitday DATE, complate BOOLEAN, priority INT DEFAULT 2 NOT NULL, "
+				+ "complated_at TIMESTAMP, version INT DEFAULT 0 NOT NULL)");
+
+		List<Map<String, Object>> batch = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < ROW_COUNT; i++) {
+			Map<String, Object> row = new HashMap<String, Object>();
+			row.put("id", i);
+			row.put("title", "性能測定用のタスク" + i);
+			row.put("limitday", new Date(1_700_000_000_000L + i * 60_000L));
+			row.put("complate", i % 2 == 0);
+			batch.add(row);
+		}
+		@SuppressWarnings("unchecked")
+		Map<String, Object>[] batchParams = batch.toArray(new Map[0]);
+		jdbc.batchUpdate("INSERT INTO task_t(id, user_id, title, limitday, complate) VALUES(:id, 'bench', :title, :limitday, :complate)", batchParams);
+
+		params = new HashMap<String, Object>();
+		params.put("userId", "bench");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		jdbc.getJdbcTemplate().execute("DROP TABLE task_t");
+		dataSource.destroy();
+	}
+
+	/**
+	 * 変更前の方式：行ごとにMapを生成してから詰め替えます。
+	 *
+	 * @return 変換結果
+	 */
+	@Benchmark
+	public List<TaskData> queryForListAndCopy() {
+		List<TaskData> result = new ArrayList<TaskData>();
+		for (Map<String, Object> map : jdbc.queryForList(SQL_SELECT_ALL, params)) {
+			TaskData data = new TaskData();
+			data.setId((Integer) map.get("id"));
+			data.setUserId((String) map.get("user_id"));
+			data.setTitle((String) map.get("title"));
+			data.setLimitday((Date) map.get("limitday"));
+			data.setComplate((boolean) map.get("complate"));
+			result.add(data);
+		}
+		return result;
+	}
+
+	/**
+	 * 変更後の方式：ResultSetから直接変換します。
+	 *
+	 * @return 変換結果
+	 */
+	@Benchmark
+	public List<TaskData> rowMapper() {
+		return jdbc.query(SQL_SELECT_ALL, params, new TaskRowMapper());
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(TaskRowMapperBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
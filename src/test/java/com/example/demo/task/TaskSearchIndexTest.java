@@ -0,0 +1,163 @@
+package com.example.demo.task;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+class TaskSearchIndexTest {
+
+	@Test
+	void Searchメソッドで日本語の部分一致を検索() {
+		// 1.Ready
+		TaskSearchIndex target = new TaskSearchIndex(10);
+		List<TaskData> tasks = List.of(task(1, "会議資料を作成", 3), task(2, "議事録を共有", 2),
+				task(3, "定例会議の準備", 1), task(4, "ＰＣを返却", 4));
+
+		// 2.Do
+		List<TaskData> meeting = target.search("user", "会議", 100, () -> tasks);
+		List<TaskData> single = target.search("user", "議", 100, () -> tasks);
+		List<TaskData> notContiguous = target.search("user", "会議事", 100, () -> tasks);
+		List<TaskData> width = target.search("user", "pc", 100, () -> tasks);
+		List<TaskData> blank = target.search("user", "  ", 100, () -> tasks);
+
+		// 3.Check
+		assertEquals(List.of(3, 1), ids(meeting));
+		assertEquals(List.of(3, 2, 1), ids(single));
+		assertTrue(notContiguous.isEmpty());
+		assertEquals(List.of(4), ids(width));
+		assertTrue(blank.isEmpty());
+
+		// 4.Log
+		log.info("結果：" + meeting);
+	}
+
+	@Test
+	void 索引は初回の検索時のみ作成し以降は更新を反映() {
+		// 1.Ready
+		TaskSearchIndex target = new TaskSearchIndex(10);
+		AtomicInteger loads = new AtomicInteger();
+		List<TaskData> tasks = List.of(task(1, "会議資料を作成", 1), task(2, "会議室を予約", 2));
+		tasks.get(1).setPriority(TaskData.PRIORITY_HIGH);
+		target.search("user", "会議", 100, () -> load(loads, tasks));
+
+		// 2.Do
+		target.add("user", task(3, "会議の議事録", 3));
+		target.remove("user", List.of(1, 99));
+		target.complate("user", Set.of(2));
+		List<TaskData> result = target.search("user", "会議", 100, () -> load(loads, tasks));
+
+		// 3.Check
+		assertEquals(1, loads.get());
+		assertEquals(List.of(2, 3), ids(result));
+		assertTrue(result.get(0).isComplate());
+		assertEquals(TaskData.PRIORITY_HIGH, result.get(0).getPriority());
+
+		// 4.Log
+		log.info("結果：" + result);
+	}
+
+	@Test
+	void 作成中に更新された索引は保持しない() {
+		// 1.Ready
+		TaskSearchIndex target = new TaskSearchIndex(10);
+		AtomicInteger loads = new AtomicInteger();
+		List<TaskData> tasks = List.of(task(1, "会議資料を作成", 1));
+
+		// 2.Do
+		target.search("user", "会議", 100, () -> {
+			// DBから取得した後に別のリクエストが削除した場合
+			target.remove("user", List.of(1));
+			return load(loads, tasks);
+		});
+		target.search("user", "会議", 100, () -> load(loads, List.of()));
+
+		// 3.Check
+		assertEquals(2, loads.get());
+
+		// 4.Log
+		log.info("結果：" + loads.get());
+	}
+
+	@Test
+	void 保持するユーザ数の上限を超えた場合は古いユーザから破棄() {
+		// 1.Ready
+		TaskSearchIndex target = new TaskSearchIndex(1);
+		AtomicInteger loads = new AtomicInteger();
+		List<TaskData> tasks = List.of(task(1, "会議資料を作成", 1));
+
+		// 2.Do
+		target.search("user", "会議", 100, () -> load(loads, tasks));
+		target.search("other", "会議", 100, () -> load(loads, tasks));
+		target.search("user", "会議", 100, () -> load(loads, tasks));
+
+		// 3.Check
+		assertEquals(3, loads.get());
+
+		// 4.Log
+		log.info("結果：" + loads.get());
+	}
+
+	@Test
+	void 大量のタスクを1ミリ秒未満で検索() {
+		// 1.Ready
+		int count = 100_000;
+		String[] words = { "会議", "資料", "作成", "確認", "予約", "提出", "準備", "共有", "連絡", "調整" };
+		List<TaskData> tasks = new ArrayList<TaskData>(count);
+		for (int i = 0; i < count; i++) {
+			String title = words[i % 10] + "の" + words[(i / 10) % 10] + "を" + words[(i / 100) % 10] + i;
+			tasks.add(task(i, title, i % 365));
+		}
+		TaskSearchIndex target = new TaskSearchIndex(10);
+		long buildStart = System.nanoTime();
+		target.search("user", "会議", 100, () -> tasks);
+		long buildNanos = System.nanoTime() - buildStart;
+
+		// 2.Do
+		// JITコンパイルが済むまで空回しした後、平均時間を測定する
+		String[] queries = { "会議の資料", "予約を提出", "連絡の調整を準備", "12345", "存在しない" };
+		for (int i = 0; i < 2_000; i++) {
+			target.search("user", queries[i % queries.length], 100, () -> tasks);
+		}
+		int iterations = 10_000;
+		long start = System.nanoTime();
+		int hits = 0;
+		for (int i = 0; i < iterations; i++) {
+			hits += target.search("user", queries[i % queries.length], 100, () -> tasks).size();
+		}
+		long averageNanos = (System.nanoTime() - start) / iterations;
+
+		// 3.Check
+		assertTrue(hits > 0);
+		assertTrue(averageNanos < 1_000_000, "平均検索時間(ns)：" + averageNanos);
+
+		// 4.Log
+		log.info("結果：件数=" + count + " 索引作成=" + buildNanos / 1_000_000 + "ms 平均検索時間=" + averageNanos + "ns");
+	}
+
+	private TaskData task(int id, String title, int day) {
+		TaskData taskData = new TaskData();
+		taskData.setId(id);
+		taskData.setUserId("user");
+		taskData.setTitle(title);
+		taskData.setLimitday(new Date(1_700_000_000_000L + day * 86_400_000L));
+		return taskData;
+	}
+
+	private List<TaskData> load(AtomicInteger loads, List<TaskData> tasks) {
+		loads.incrementAndGet();
+		return tasks;
+	}
+
+	private List<Integer> ids(List<TaskData> tasks) {
+		return tasks.stream().map(TaskData::getId).toList();
+	}
+}
@@ -1,16 +1,29 @@
 package com.example.demo.task;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -21,6 +34,12 @@ class TaskServiceTest {
 	@Autowired
 	private TaskService target;
 
+	@Autowired
+	private TaskRepository taskRepository;
+
+	@Autowired
+	private TaskListCache taskListCache;
+
 	// モック対象クラスを定義
 	@SpyBean
 	private NamedParameterJdbcTemplate mock;
@@ -61,6 +80,426 @@ class TaskServiceTest {
 //		log.info("結果：" + result);
 	}
 
+	@Test
+	void SelectPageメソッドでカーソルを指定し前後のページを取得() {
+		// 0.Mock
+		TaskService service = AopTestUtils.getTargetObject(target);
+		Object pageSize = ReflectionTestUtils.getField(service, "pageSize");
+		ReflectionTestUtils.setField(service, "pageSize", 2);
+		taskListCache.invalidate("user");
+
+		try {
+			// 1.Ready
+			String userId = "user";
+
+			// 2.Do
+			TaskEntity first = target.selectPage(userId, null, null);
+			TaskEntity second = target.selectPage(userId, first.getNextCursor(), null);
+			TaskEntity back = target.selectPage(userId, null, second.getPrevCursor());
+
+			// 3.Check
+			assertEquals(2, first.getTaskList().size());
+			assertEquals(2, first.getTaskList().get(0).getId());
+			assertEquals(3, first.getTaskList().get(1).getId());
+			assertNull(first.getPrevCursor());
+			assertNotNull(first.getNextCursor());
+
+			assertEquals(1, second.getTaskList().size());
+			assertEquals(4, second.getTaskList().get(0).getId());
+			assertNotNull(second.getPrevCursor());
+			assertNull(second.getNextCursor());
+
+			assertEquals(first.getTaskList(), back.getTaskList());
+			assertNull(back.getPrevCursor());
+
+			// 4.Log
+			log.info("結果：" + first + " / " + second);
+		} finally {
+			ReflectionTestUtils.setField(service, "pageSize", pageSize);
+			taskListCache.invalidate("user");
+		}
+	}
+
+	@Test
+	void SelectPageメソッドに不正なカーソルを指定し先頭ページを取得() {
+		// 1.Ready
+		String userId = "user";
+
+		// 2.Do
+		TaskEntity result = target.selectPage(userId, "不正なカーソル", null);
+
+		// 3.Check
+		assertEquals(target.selectPage(userId, null, null).getTaskList(), result.getTaskList());
+
+		// 4.Log
+		log.info("結果：" + result);
+	}
+
+	@Test
+	void SelectPageメソッドの2回目はキャッシュから取得し登録後は再取得() {
+		// 1.Ready
+		String userId = "cache-service@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		long hit = taskListCache.getHitCount();
+		long miss = taskListCache.getMissCount();
+
+		try {
+			// 2.Do
+			TaskEntity first = target.selectPage(userId, null, null);
+			TaskEntity cached = target.selectPage(userId, null, null);
+			target.insert(userId, "キャッシュ確認", "2024-01-01");
+			TaskEntity reloaded = target.selectPage(userId, null, null);
+
+			// 3.Check
+			assertSame(first, cached);
+			assertEquals(0, first.getTaskList().size());
+			assertEquals(1, reloaded.getTaskList().size());
+			assertEquals(hit + 1, taskListCache.getHitCount());
+			assertEquals(miss + 2, taskListCache.getMissCount());
+			verify(mock, times(2)).query(anyString(), argThat((Map<String, ?> m) -> userId.equals(m.get("userId"))), any(RowMapper.class));
+
+			// 4.Log
+			log.info("結果：" + taskListCache);
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+			taskListCache.invalidate(userId);
+		}
+	}
+
+	@Test
+	void ImportTasksメソッドでCSVを一括登録しエラー行を報告() {
+		// 0.Mock
+		TaskService service = AopTestUtils.getTargetObject(target);
+		Object importBatchSize = ReflectionTestUtils.getField(service, "importBatchSize");
+		ReflectionTestUtils.setField(service, "importBatchSize", 2);
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", "import-csv@xxx.co.jp");
+
+		try {
+			// 1.Ready
+			String csv = "id,user_id,title,limitday\n"
+					+ "1,x,\"買い物, 夕食の材料\",2024-01-01\n"
+					+ "2,x,,2024-01-02\n"
+					+ "3,x,会議資料を作成,2024-01-03\n"
+					+ "4,x,報告書を提出,2024/01/04\n"
+					+ "5,x,経費精算,2024-01-05\n";
+
+			// 2.Do
+			TaskImportResult result = target.importTasks("import-csv@xxx.co.jp", "tasks.csv",
+					new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+			// 3.Check
+			assertEquals(3, result.getImportedCount());
+			assertEquals(2, result.getErrorCount());
+			assertEquals(2, result.getErrors().get(0).getRowNumber());
+			assertEquals(4, result.getErrors().get(1).getRowNumber());
+			assertNull(result.getErrorMessage());
+			assertEquals(3, mock.queryForObject("SELECT COUNT(*) FROM task_t WHERE user_id = :userId", params, Integer.class));
+			assertEquals(1, mock.queryForObject("SELECT COUNT(*) FROM task_t WHERE user_id = :userId AND title = '買い物, 夕食の材料'", params, Integer.class));
+
+			// 4.Log
+			log.info("結果：" + result);
+		} finally {
+			ReflectionTestUtils.setField(service, "importBatchSize", importBatchSize);
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void ImportTasksメソッドでバッチの登録に失敗した場合は1件ずつ登録し直す() {
+		// 0.Mock
+		TaskService service = AopTestUtils.getTargetObject(target);
+		Object importBatchSize = ReflectionTestUtils.getField(service, "importBatchSize");
+		ReflectionTestUtils.setField(service, "importBatchSize", 3);
+		// 特定の行のみ、DBの制約違反で登録に失敗させる
+		doAnswer(invocation -> {
+			Map<String, Object>[] batchParams = invocation.getArgument(1);
+			for (Map<String, Object> batchParam : batchParams) {
+				if ("登録できない行".equals(batchParam.get("title"))) {
+					batchParam.put("priority", null);
+				}
+			}
+			return invocation.callRealMethod();
+		}).when(mock).batchUpdate(anyString(), any(Map[].class));
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", "import-retry@xxx.co.jp");
+
+		try {
+			// 1.Ready
+			String csv = "id,user_id,title,limitday\n"
+					+ "1,x,会議資料を作成,2024-01-01\n"
+					+ "2,x,登録できない行,2024-01-02\n"
+					+ "3,x,報告書を提出,2024-01-03\n"
+					+ "4,x,経費精算,2024-01-04\n";
+
+			// 2.Do
+			TaskImportResult result = target.importTasks("import-retry@xxx.co.jp", "tasks.csv",
+					new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+			// 3.Check
+			assertEquals(3, result.getImportedCount());
+			assertEquals(1, result.getErrorCount());
+			assertEquals(2, result.getErrors().get(0).getRowNumber());
+			assertEquals(3, mock.queryForObject("SELECT COUNT(*) FROM task_t WHERE user_id = :userId", params, Integer.class));
+
+			// 4.Log
+			log.info("結果：" + result);
+		} finally {
+			reset(mock);
+			ReflectionTestUtils.setField(service, "importBatchSize", importBatchSize);
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void ImportTasksメソッドでJSONを一括登録() {
+		// 1.Ready
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", "import-json@xxx.co.jp");
+		String json = "[{\"title\": \"会議資料を作成\", \"limitday\": \"2024-01-03\", \"tags\": [\"a\"]},"
+				+ " {\"title\": \"期限なし\"}, 1]";
+
+		try {
+			// 2.Do
+			TaskImportResult result = target.importTasks("import-json@xxx.co.jp", "tasks.json",
+					new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+			// 3.Check
+			assertEquals(1, result.getImportedCount());
+			assertEquals(2, result.getErrorCount());
+			assertNull(result.getErrorMessage());
+
+			// 4.Log
+			log.info("結果：" + result);
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void ImportTasksメソッドでCSV出力の形式から優先度も登録() {
+		// 1.Ready
+		String userId = "import-priority@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		String csv = "id,user_id,title,limitday,priority\n"
+				+ "1,x,優先度高,2024-01-01,1\n"
+				+ "2,x,優先度なし,2024-01-02,\n"
+				+ "3,x,優先度不正,2024-01-03,4\n";
+
+		try {
+			// 2.Do
+			TaskImportResult result = target.importTasks(userId, "tasks.csv",
+					new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+			List<TaskData> nextUp = target.selectNextUp(userId).getTaskList();
+
+			// 3.Check
+			assertEquals(2, result.getImportedCount());
+			assertEquals(3, result.getErrors().get(0).getRowNumber());
+			assertEquals(2, nextUp.size());
+			assertEquals("優先度高", nextUp.get(0).getTitle());
+			assertEquals(TaskData.PRIORITY_HIGH, nextUp.get(0).getPriority());
+			assertEquals(TaskData.PRIORITY_NORMAL, nextUp.get(1).getPriority());
+
+			// 4.Log
+			log.info("結果：" + nextUp);
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void ImportTasksメソッドでヘッダ不正のCSVはエラーメッセージを設定() {
+		// 1.Ready
+		String csv = "件名,期限\n会議資料を作成,2024-01-03\n";
+
+		// 2.Do
+		TaskImportResult result = target.importTasks("import-error@xxx.co.jp", "tasks.csv",
+				new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+		// 3.Check
+		assertEquals(0, result.getImportedCount());
+		assertNotNull(result.getErrorMessage());
+
+		// 4.Log
+		log.info("結果：" + result);
+	}
+
+	@Test
+	void ComplateAllメソッドとDeleteAllメソッドでタスクIDごとの結果を取得() {
+		// 1.Ready
+		String userId = "bulk-service@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		List<TaskData> taskList = new ArrayList<TaskData>();
+		for (int i = 0; i < 3; i++) {
+			taskList.add(target.refillToData(userId, "一括操作" + i, "2024-01-01"));
+		}
+		taskRepository.saveAll(taskList);
+		List<Integer> ids = mock.queryForList("SELECT id FROM task_t WHERE user_id = :userId ORDER BY id", params, Integer.class);
+		// 他のユーザのタスク(ID:2)と存在しないタスクを含める
+		List<Integer> targetIds = new ArrayList<Integer>(ids);
+		targetIds.add(2);
+		targetIds.add(Integer.MAX_VALUE);
+
+		try {
+			// 2.Do
+			TaskBulkResult complated = target.complateAll(userId, targetIds);
+			int complateCount = mock.queryForObject("SELECT COUNT(*) FROM task_t WHERE user_id = :userId AND complate = true", params, Integer.class);
+			boolean otherComplate = mock.queryForObject("SELECT complate FROM task_t WHERE id = 2", params, Boolean.class);
+			TaskBulkResult deleted = target.deleteAll(userId, targetIds);
+			int remaining = mock.queryForObject("SELECT COUNT(*) FROM task_t WHERE user_id = :userId", params, Integer.class);
+
+			// 3.Check
+			assertEquals(ids, complated.getSucceeded());
+			assertEquals(List.of(2, Integer.MAX_VALUE), complated.getNotFound());
+			assertEquals(3, complateCount);
+			assertFalse(otherComplate);
+			assertEquals(ids, deleted.getSucceeded());
+			assertEquals(List.of(2, Integer.MAX_VALUE), deleted.getNotFound());
+			assertEquals(0, remaining);
+
+			// 4.Log
+			log.info("結果：" + complated + " / " + deleted);
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void 他のユーザのタスクは削除も完了もせず所有者の一覧を保持() {
+		// 1.Ready
+		String owner = "owner@xxx.co.jp";
+		String other = "other@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", owner);
+		int id = target.create(owner, "所有者のタスク", "2030-01-01").getId();
+		String ownerId = String.valueOf(id);
+		target.selectAll(owner);
+
+		try {
+			// 2.Do
+			TaskUpdateResult deleted = target.delete(other, ownerId, null);
+			TaskUpdateResult versionedDeleted = target.delete(other, ownerId, 0);
+			TaskUpdateResult complated = target.complate(other, ownerId, null);
+			TaskUpdateResult versionedComplated = target.complate(other, ownerId, 0);
+			long hits = taskListCache.getHitCount();
+			List<TaskData> ownerList = target.selectAll(owner).getTaskList();
+
+			// 3.Check
+			assertEquals(TaskUpdateResult.FAILED, deleted);
+			assertEquals(TaskUpdateResult.FAILED, versionedDeleted);
+			assertEquals(TaskUpdateResult.FAILED, complated);
+			assertEquals(TaskUpdateResult.FAILED, versionedComplated);
+			TaskData stored = taskRepository.findById(id);
+			assertFalse(stored.isComplate());
+			assertEquals(0, stored.getVersion());
+			// 所有者の一覧は変わらないため、キャッシュをそのまま利用する
+			assertEquals(hits + 1, taskListCache.getHitCount());
+			assertEquals(List.of(id), ownerList.stream().map(TaskData::getId).toList());
+
+			// 4.Log
+			log.info("結果：" + deleted + " " + complated);
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void Searchメソッドで登録と削除が検索結果に反映される() {
+		// 1.Ready
+		String userId = "search-service@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		target.insert(userId, "週次会議の資料を作成", "2024-01-02");
+		target.insert(userId, "会議室を予約", "2024-01-01");
+
+		try {
+			// 2.Do
+			// 初回の検索で索引を作成し、以降の登録・削除は索引へ直接反映する
+			List<TaskData> first = target.search(userId, "会議").getTaskList();
+			target.insert(userId, "ＡＢＣ社との会議", "2024-01-03");
+			List<TaskData> inserted = target.search(userId, "abc社").getTaskList();
+			target.delete(userId, String.valueOf(first.get(0).getId()));
+			List<TaskData> deleted = target.search(userId, "会議").getTaskList();
+			List<TaskData> notFound = target.search(userId, "議会").getTaskList();
+
+			// 3.Check
+			assertEquals(List.of("会議室を予約", "週次会議の資料を作成"), first.stream().map(TaskData::getTitle).toList());
+			assertEquals(1, inserted.size());
+			assertTrue(inserted.get(0).getId() > 0);
+			assertEquals(List.of("週次会議の資料を作成", "ＡＢＣ社との会議"), deleted.stream().map(TaskData::getTitle).toList());
+			assertTrue(notFound.isEmpty());
+			verify(mock, times(1)).query(eq("SELECT * FROM task_t WHERE user_id = :userId order by limitday"),
+					anyMap(), any(RowMapper.class));
+
+			// 4.Log
+			log.info("結果：" + deleted);
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
+	@Test
+	void SelectCalendarメソッドで月の期間を週単位に取得し前後の月を事前取得() throws InterruptedException {
+		// 1.Ready
+		String userId = "calendar-service@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		for (String limitday : List.of("2030-03-31", "2030-04-15", "2030-05-01", "2030-06-20")) {
+			target.insert(userId, limitday, limitday);
+		}
+
+		try {
+			// 2.Do
+			TaskCalendar month = target.selectCalendar(userId, "month", "2030-04-10");
+			// 翌月(2030-04-29～2030-06-02)・前月(2030-02-25～2030-03-31)の事前取得を待つ
+			for (int i = 0; i < 50 && !(taskListCache.contains(userId, "range:2030-04-29:2030-06-02")
+					&& taskListCache.contains(userId, "range:2030-02-25:2030-03-31")); i++) {
+				Thread.sleep(100);
+			}
+			clearInvocations(mock);
+			TaskCalendar next = target.selectCalendar(userId, "month", "2030-05-20");
+			TaskCalendar week = target.selectCalendar(userId, "week", "2030-04-17");
+			TaskCalendar invalid = target.selectCalendar(userId, "day", "2030-13-01");
+
+			// 3.Check
+			assertEquals("month", month.getView());
+			assertEquals(LocalDate.of(2030, 4, 1), month.getDate());
+			assertEquals(LocalDate.of(2030, 3, 1), month.getPrev());
+			assertEquals(LocalDate.of(2030, 5, 1), month.getNext());
+			assertEquals(5, month.getWeeks().size());
+			assertTrue(month.getWeeks().stream().allMatch(days -> days.size() == 7));
+			assertEquals(LocalDate.of(2030, 4, 1), month.getWeeks().get(0).get(0).getDate());
+			TaskCalendar.Day lastDay = month.getWeeks().get(4).get(6);
+			assertEquals(LocalDate.of(2030, 5, 5), lastDay.getDate());
+			assertFalse(lastDay.isInPeriod());
+			// 期間外(前月末・6月)のタスクは取得せず、翌月の日に表示する5/1のタスクは取得する
+			assertEquals(2, month.getTaskCount());
+			assertEquals("2030-04-15", month.getWeeks().get(2).get(0).getTaskList().get(0).getTitle());
+			assertEquals("2030-05-01", month.getWeeks().get(4).get(2).getTaskList().get(0).getTitle());
+
+			// 事前取得した翌月はDBへ問い合わせない
+			assertEquals(LocalDate.of(2030, 5, 1), next.getDate());
+			verify(mock, never()).query(startsWith("SELECT * FROM task_t WHERE user_id = :userId AND limitday BETWEEN"),
+					argThat((Map<String, ?> map) -> java.sql.Date.valueOf("2030-04-29").equals(map.get("from"))),
+					any(RowMapper.class));
+
+			assertEquals("week", week.getView());
+			assertEquals(LocalDate.of(2030, 4, 15), week.getDate());
+			assertEquals(1, week.getWeeks().size());
+			assertEquals(1, week.getTaskCount());
+			assertEquals(LocalDate.now().withDayOfMonth(1), invalid.getDate());
+			assertEquals("month", invalid.getView());
+
+			// 4.Log
+			log.info("結果：" + taskListCache);
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+		}
+	}
+
 	@Test
 	void testInsert() {
 		fail("まだ実装されていません");
@@ -0,0 +1,145 @@
+package com.example.demo.task;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest
+class TaskStatisticsTest {
+
+	/** SQL 集計(比較用) */
+	private static final String SQL_AGGREGATE = "SELECT"
+			+ " COALESCE(SUM(CASE WHEN complate = false THEN 1 ELSE 0 END), 0) AS open,"
+			+ " COALESCE(SUM(CASE WHEN complate = true THEN 1 ELSE 0 END), 0) AS completed,"
+			+ " COALESCE(SUM(CASE WHEN complate = false AND limitday < :today THEN 1 ELSE 0 END), 0) AS overdue,"
+			+ " COALESCE(SUM(CASE WHEN complate = false AND limitday BETWEEN :today AND :endOfWeek THEN 1 ELSE 0 END), 0) AS due_this_week"
+			+ " FROM task_t WHERE user_id = :userId";
+
+	@Autowired
+	private TaskStatistics target;
+
+	@Autowired
+	private TaskService taskService;
+
+	// モック対象クラスを定義
+	@SpyBean
+	private NamedParameterJdbcTemplate mock;
+
+	@Test
+	void 登録と削除と完了の件数がSQLの集計と一致() {
+		// 1.Ready
+		String userId = "stats-service@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		LocalDate today = LocalDate.now();
+
+		try {
+			// 2.Do
+			for (int days : new int[] { -2, -1, 0, 0, 2, 6, 10, 30 }) {
+				taskService.insert(userId, "集計" + days, today.plusDays(days).toString());
+			}
+			TaskStats inserted = target.get(userId, today);
+			List<Integer> ids = mock.queryForList("SELECT id FROM task_t WHERE user_id = :userId ORDER BY id", params, Integer.class);
+			taskService.complate(userId, String.valueOf(ids.get(0)));
+			taskService.delete(userId, String.valueOf(ids.get(0)));
+			taskService.delete(userId, String.valueOf(ids.get(1)));
+			taskService.complateAll(userId, List.of(ids.get(2), ids.get(4), ids.get(4)));
+			taskService.deleteAll(userId, List.of(ids.get(2), ids.get(5), 2));
+			String csv = "title,limitday\n取込1," + today.minusDays(3) + "\n取込2," + today + "\n";
+			taskService.importTasks(userId, "tasks.csv", new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+			TaskStats updated = target.get(userId, today);
+
+			// 3.Check
+			assertEquals(8, inserted.getOpen());
+			assertEquals(aggregate(userId, today), updated);
+
+			// 4.Log
+			log.info("結果：" + updated);
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+			target.rebuild(userId);
+		}
+	}
+
+	@Test
+	void Rebuildメソッドで全ユーザの件数がSQLの集計と一致() {
+		// 1.Ready
+		LocalDate today = LocalDate.now();
+		List<String> userIds = mock.queryForList("SELECT DISTINCT user_id FROM task_t", new HashMap<String, Object>(), String.class);
+
+		// 2.Do
+		target.rebuild();
+
+		// 3.Check
+		for (String userId : userIds) {
+			assertEquals(aggregate(userId, today), target.get(userId, today), userId);
+		}
+
+		// 4.Log
+		log.info("結果：" + userIds);
+	}
+
+	@Test
+	void 今週期限は今日から日曜日まで() {
+		// 1.Ready
+		String userId = "stats-week@xxx.co.jp";
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		// 水曜日を基準日とする
+		LocalDate wednesday = LocalDate.of(2030, 1, 2);
+		for (int days : new int[] { -1, 0, 4, 5 }) {
+			taskService.insert(userId, "今週" + days, wednesday.plusDays(days).toString());
+		}
+
+		try {
+			// 2.Do
+			TaskStats stats = target.get(userId, wednesday);
+
+			// 3.Check
+			assertEquals(4, stats.getOpen());
+			assertEquals(1, stats.getOverdue());
+			assertEquals(2, stats.getDueThisWeek());
+			assertEquals(aggregate(userId, wednesday), stats);
+
+			// 4.Log
+			log.info("結果：" + stats);
+		} finally {
+			mock.update("DELETE FROM task_t WHERE user_id = :userId", params);
+			target.rebuild(userId);
+		}
+	}
+
+	private TaskStats aggregate(String userId, LocalDate today) {
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", userId);
+		params.put("today", today);
+		params.put("endOfWeek", today.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY)));
+		Map<String, Object> row = mock.queryForMap(SQL_AGGREGATE, params);
+
+		TaskStats stats = new TaskStats();
+		stats.setOpen(((Number) row.get("open")).longValue());
+		stats.setCompleted(((Number) row.get("completed")).longValue());
+		stats.setOverdue(((Number) row.get("overdue")).longValue());
+		stats.setDueThisWeek(((Number) row.get("due_this_week")).longValue());
+		return stats;
+	}
+}
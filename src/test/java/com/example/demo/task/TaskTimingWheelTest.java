@@ -0,0 +1,154 @@
+package com.example.demo.task;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+class TaskTimingWheelTest {
+
+	@Test
+	void 各階層の予約が期限のティックで到来() {
+		// 1.Ready
+		TaskTimingWheel<Long> target = new TaskTimingWheel<Long>(1, 0);
+		Random random = new Random(1);
+		List<Long> deadlines = new ArrayList<Long>();
+		for (int i = 0; i < 10_000; i++) {
+			// 下位の輪から最上位の輪まで散らばるように指定する
+			long deadline = 1 + (long) (Math.pow(random.nextDouble(), 4) * (1L << 24));
+			deadlines.add(deadline);
+			target.schedule(deadline, deadline);
+		}
+		target.schedule(-1L, 1L << 30);
+
+		// 2.Do
+		Map<Long, Long> firedAt = new HashMap<Long, Long>();
+		int fired = 0;
+		for (long now = 1; now <= 1L << 24; now++) {
+			long tick = now;
+			fired += target.advanceTo(now, deadline -> firedAt.merge(deadline, tick, Math::max));
+		}
+
+		// 3.Check
+		assertEquals(deadlines.size(), fired);
+		for (Long deadline : deadlines) {
+			assertEquals(deadline, firedAt.get(deadline));
+		}
+		// 範囲外の予約は残っている
+		assertEquals(1, target.size());
+
+		// 4.Log
+		log.info("結果：" + fired);
+	}
+
+	@Test
+	void 範囲外の予約も期限のティックで到来() {
+		// 1.Ready
+		TaskTimingWheel<String> target = new TaskTimingWheel<String>(1, 0);
+		long deadline = (1L << 25) + 12_345;
+		target.schedule("far", deadline);
+		List<Long> firedAt = new ArrayList<Long>();
+
+		// 2.Do
+		target.advanceTo(deadline - 1, payload -> firedAt.add(-1L));
+		target.advanceTo(deadline, payload -> firedAt.add(deadline));
+
+		// 3.Check
+		assertEquals(List.of(deadline), firedAt);
+
+		// 4.Log
+		log.info("結果：" + firedAt);
+	}
+
+	@Test
+	void 取り消した予約は到来しない() {
+		// 1.Ready
+		TaskTimingWheel<String> target = new TaskTimingWheel<String>(1000, 0);
+		TaskTimingWheel.Timeout<String> canceled = target.schedule("canceled", 5_000);
+		TaskTimingWheel.Timeout<String> remained = target.schedule("remained", 5_000);
+		List<String> fired = new ArrayList<String>();
+
+		// 2.Do
+		boolean first = target.cancel(canceled);
+		boolean second = target.cancel(canceled);
+		target.advanceTo(10_000, fired::add);
+
+		// 3.Check
+		assertTrue(first);
+		assertFalse(second);
+		assertFalse(target.cancel(remained));
+		assertFalse(remained.isScheduled());
+		assertEquals(List.of("remained"), fired);
+		assertEquals(0, target.size());
+
+		// 4.Log
+		log.info("結果：" + fired);
+	}
+
+	@Test
+	void 経過済みの期限は次のティックで到来し処理中の予約も受け付ける() {
+		// 1.Ready
+		TaskTimingWheel<String> target = new TaskTimingWheel<String>(1000, 100_000);
+		target.schedule("past", 0);
+		List<String> fired = new ArrayList<String>();
+
+		// 2.Do
+		int first = target.advanceTo(101_000, payload -> {
+			fired.add(payload);
+			// 処理中に追加した予約は同じティックでは到来しない
+			target.schedule("chained", 0);
+		});
+		int second = target.advanceTo(102_000, fired::add);
+
+		// 3.Check
+		assertEquals(1, first);
+		assertEquals(1, second);
+		assertEquals(List.of("past", "chained"), fired);
+
+		// 4.Log
+		log.info("結果：" + fired);
+	}
+
+	@Test
+	void 百万件の予約と取消を一定時間で処理() {
+		// 1.Ready
+		int count = 1_000_000;
+		TaskTimingWheel<Integer> target = new TaskTimingWheel<Integer>(60_000, 0);
+		List<TaskTimingWheel.Timeout<Integer>> timeouts = new ArrayList<TaskTimingWheel.Timeout<Integer>>(count);
+		Random random = new Random(1);
+
+		// 2.Do
+		// 期限は1年以内に散らばるように指定する
+		long scheduleStart = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			timeouts.add(target.schedule(i, random.nextLong(365L * 24 * 60 * 60_000)));
+		}
+		long scheduleNanos = System.nanoTime() - scheduleStart;
+		int size = target.size();
+
+		long cancelStart = System.nanoTime();
+		for (int i = 0; i < count; i += 2) {
+			target.cancel(timeouts.get(i));
+		}
+		long cancelNanos = System.nanoTime() - cancelStart;
+
+		int[] fired = new int[1];
+		target.advanceTo(366L * 24 * 60 * 60_000, payload -> fired[0]++);
+
+		// 3.Check
+		assertEquals(count, size);
+		assertEquals(count / 2, fired[0]);
+		assertEquals(0, target.size());
+
+		// 4.Log
+		log.info("結果：予約=" + scheduleNanos / count + "ns/件 取消=" + cancelNanos / (count / 2) + "ns/件");
+	}
+}
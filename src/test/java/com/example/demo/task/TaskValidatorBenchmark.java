@@ -0,0 +1,104 @@
+package com.example.demo.task;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * タスク登録1回分の入力チェックと{@link TaskData}への変換を比較する性能測定です。
+ *
+ * <p>呼び出しごとに{@code Pattern}・{@code SimpleDateFormat}を生成し期限日を2回解析する変更前の方式と、
+ * {@link TaskValidator}で1度だけ解析する方式の処理時間・メモリ割り当て量(gc.alloc.rate.norm)を比較します。
+ * <p>JUnitのテストとしては実行されません。IDEから{@code main}メソッドを実行してください。
+ *
+ * @author 情報太郎
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TaskValidatorBenchmark {
+
+	private final TaskValidator validator = new TaskValidator();
+
+	private String id = "12345";
+
+	private String title = "会議資料を作成";
+
+	private String limitday = "2030-01-02";
+
+	private String priority = "1";
+
+	/**
+	 * 変更前の方式：入力チェックと変換でそれぞれ生成・解析します。
+	 *
+	 * @return 変換結果
+	 */
+	@Benchmark
+	public TaskData compileAndParseTwice() {
+		if (!Pattern.compile("^\\d{1,9}$").matcher(id).find()) {
+			return null;
+		}
+		if (title == null || title.isBlank() || title.length() > 50) {
+			return null;
+		}
+		try {
+			new SimpleDateFormat("yyyy-MM-dd").parse(limitday);
+		} catch (ParseException e) {
+			return null;
+		}
+		if (!Pattern.compile("^[1-3]$").matcher(priority).matches()) {
+			return null;
+		}
+
+		TaskData taskData = new TaskData();
+		taskData.setUserId("bench");
+		taskData.setTitle(title);
+		try {
+			taskData.setLimitday(new SimpleDateFormat("yyyy-MM-dd").parse(limitday));
+		} catch (ParseException e) {
+			// 入力チェック済み
+		}
+		taskData.setPriority(Integer.parseInt(priority));
+		return taskData;
+	}
+
+	/**
+	 * 変更後の方式：1度だけ解析し、解析した値をそのまま設定します。
+	 *
+	 * @return 変換結果
+	 */
+	@Benchmark
+	public TaskData validator() {
+		if (!validator.isValidId(id)) {
+			return null;
+		}
+		return validator.toTaskData("bench", title, limitday, priority);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(TaskValidatorBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.demo.task;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.text.SimpleDateFormat;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+class TaskValidatorTest {
+
+	private final TaskValidator target = new TaskValidator();
+
+	@Test
+	void IsValidIdメソッドで1桁から9桁の数値のみ許可() {
+		// 2.Do 3.Check
+		assertTrue(target.isValidId("1"));
+		assertTrue(target.isValidId("999999999"));
+		assertFalse(target.isValidId("1234567890"));
+		assertFalse(target.isValidId(""));
+		assertFalse(target.isValidId(" 1"));
+		assertFalse(target.isValidId("-1"));
+		assertFalse(target.isValidId("１"));
+		assertFalse(target.isValidId(null));
+	}
+
+	@Test
+	void ParseLimitdayメソッドで存在する日付のみ解析() {
+		// 2.Do 3.Check
+		assertEquals("2030-01-02", target.parseLimitday("2030-01-02").toString());
+		assertEquals("2030-01-02", target.parseLimitday("2030-1-2").toString());
+		assertEquals("2028-02-29", target.parseLimitday("2028-02-29").toString());
+		assertNull(target.parseLimitday("2030-02-29"));
+		assertNull(target.parseLimitday("2030-13-01"));
+		assertNull(target.parseLimitday("2030-00-10"));
+		assertNull(target.parseLimitday("2030/01/02"));
+		assertNull(target.parseLimitday("2030-01-02x"));
+		assertNull(target.parseLimitday("2030-0102"));
+		assertNull(target.parseLimitday("30-01-02"));
+		assertNull(target.parseLimitday(""));
+		assertNull(target.parseLimitday(null));
+	}
+
+	@Test
+	void ToTaskDataメソッドで入力チェックと変換を1度に行う() throws Exception {
+		// 2.Do
+		TaskData taskData = target.toTaskData("validator@xxx.co.jp", "会議資料を作成", "2030-01-02", "1");
+		TaskData defaultPriority = target.toTaskData("validator@xxx.co.jp", "会議資料を作成", "2030-01-02", "");
+
+		// 3.Check
+		assertEquals("validator@xxx.co.jp", taskData.getUserId());
+		assertEquals("会議資料を作成", taskData.getTitle());
+		assertFalse(taskData.isComplate());
+		// 従来のSimpleDateFormatと同じ、システムのタイムゾーンの0時
+		assertEquals(new SimpleDateFormat("yyyy-MM-dd").parse("2030-01-02"), taskData.getLimitday());
+		assertEquals(TaskData.PRIORITY_HIGH, taskData.getPriority());
+		assertEquals(TaskData.PRIORITY_NORMAL, defaultPriority.getPriority());
+		assertNull(target.toTaskData("validator@xxx.co.jp", " ", "2030-01-02", null));
+		assertNull(target.toTaskData("validator@xxx.co.jp", "a".repeat(51), "2030-01-02", null));
+		assertNull(target.toTaskData("validator@xxx.co.jp", "会議資料を作成", "2030-02-30", null));
+		assertNull(target.toTaskData("validator@xxx.co.jp", "会議資料を作成", "2030-01-02", "4"));
+
+		// 4.Log
+		log.info("結果：" + taskData);
+	}
+}
@@ -0,0 +1,99 @@
+package com.example.demo.user;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+class AdaptivePasswordEncoderTest {
+
+	@Test
+	void 目標時間を超えない最大の強度を選択() {
+		// 2.Do
+		long start = System.nanoTime();
+		int strength = AdaptivePasswordEncoder.calibrate(250, 4, 16);
+		long elapsedNanos = System.nanoTime() - start;
+		int lowest = AdaptivePasswordEncoder.calibrate(0, 4, 16);
+		int highest = AdaptivePasswordEncoder.calibrate(Long.MAX_VALUE / 1_000_000L / 4, 4, 8);
+
+		// 3.Check
+		assertTrue(strength > 4 && strength <= 16, String.valueOf(strength));
+		assertEquals(4, lowest);
+		assertEquals(8, highest);
+
+		// 4.Log
+		log.info("結果：強度" + strength + " 計測" + elapsedNanos / 1_000_000 + "ms");
+	}
+
+	@Test
+	void 低い強度のハッシュは更新対象() {
+		// 1.Ready
+		AdaptivePasswordEncoder target = new AdaptivePasswordEncoder(5, 0, 4, 16, 1, 10);
+		String weak = new BCryptPasswordEncoder(4).encode("password");
+
+		try {
+			// 2.Do
+			String encoded = target.encode("password");
+
+			// 3.Check
+			assertTrue(encoded.startsWith("$2a$05$"), encoded);
+			assertTrue(target.matches("password", encoded));
+			assertTrue(target.matches("password", weak));
+			assertFalse(target.matches("wrong", encoded));
+			assertTrue(target.upgradeEncoding(weak));
+			assertFalse(target.upgradeEncoding(encoded));
+			assertTrue(target.getMetrics().getRunNanos() > 0);
+
+			// 4.Log
+			log.info("結果：" + target.getMetrics());
+		} finally {
+			target.shutdown();
+		}
+	}
+
+	@Test
+	void 待機件数が上限を超えた場合は照合せず失敗() throws Exception {
+		// 1.Ready
+		AdaptivePasswordEncoder target = new AdaptivePasswordEncoder(4, 0, 4, 16, 1, 1);
+		String encoded = new BCryptPasswordEncoder(4).encode("password");
+		ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(target, "executor");
+		CountDownLatch latch = new CountDownLatch(1);
+		// 実行中1件、待機中1件で上限に達する
+		executor.execute(() -> {
+			try {
+				latch.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		executor.execute(() -> {
+		});
+
+		try {
+			// 2.Do 3.Check
+			assertThrows(AuthenticationServiceException.class, () -> target.matches("password", encoded));
+			assertEquals(1, target.getMetrics().getRejectedCount());
+			assertEquals(1, target.getMetrics().getQueueDepth());
+			latch.countDown();
+			// 待機中の1件が取り出されてから照合する
+			while (!executor.getQueue().isEmpty()) {
+				Thread.sleep(1);
+			}
+			assertTrue(target.matches("password", encoded));
+
+			// 4.Log
+			log.info("結果：" + target.getMetrics());
+		} finally {
+			latch.countDown();
+			target.shutdown();
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package com.example.demo.user;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.*;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class LoginUserDetailsServiceTest {
+
+	@Autowired
+	private LoginUserDetailsService target;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private AdaptivePasswordEncoder passwordEncoder;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	// モック対象クラスを定義
+	@SpyBean
+	private NamedParameterJdbcTemplate mock;
+
+	@Test
+	void 認証情報と権限を1回のSQLで取得し2回目以降はキャッシュから取得() {
+		// 1.Ready
+		target.invalidate("hanako@xxx.co.jp");
+		clearInvocations(mock);
+
+		// 2.Do
+		long start = System.nanoTime();
+		UserDetails first = target.loadUserByUsername("hanako@xxx.co.jp");
+		long loadNanos = System.nanoTime() - start;
+		start = System.nanoTime();
+		UserDetails second = target.loadUserByUsername("hanako@xxx.co.jp");
+		long hitNanos = System.nanoTime() - start;
+
+		// 3.Check
+		verify(mock, times(1)).query(anyString(), anyMap(), any(RowMapper.class));
+		assertEquals("hanako@xxx.co.jp", first.getUsername());
+		assertTrue(first.isEnabled());
+		assertEquals("ROLE_TOP", first.getAuthorities().iterator().next().getAuthority());
+		assertEquals(first, second);
+		// 認証後にパスワードが消去されても、キャッシュへ影響しないよう複製を返却する
+		assertNotSame(first, second);
+		assertNotNull(second.getPassword());
+
+		// 4.Log
+		log.info("結果：DB " + loadNanos / 1000 + "µs キャッシュ " + hitNanos / 1000 + "µs " + target.getMetrics());
+	}
+
+	@Test
+	void ユーザの更新時にキャッシュを破棄() {
+		// 0.Mock
+		doReturn(1).when(mock).update(anyString(), anyMap());
+
+		// 1.Ready
+		target.loadUserByUsername("goro@xxx.co.jp");
+		UpdateUserForm form = new UpdateUserForm();
+		form.setUserId("goro@xxx.co.jp");
+		form.setPassword("");
+		form.setUser_name("ごろう");
+		form.setEnabled("true");
+		form.setRole("ROLE_GENERAL");
+		clearInvocations(mock);
+
+		// 2.Do
+		boolean result = userService.updateOne(form);
+		target.loadUserByUsername("goro@xxx.co.jp");
+
+		// 3.Check
+		assertTrue(result);
+		verify(mock, times(1)).query(anyString(), anyMap(), any(RowMapper.class));
+
+		// 4.Log
+		log.info("結果：" + target.getMetrics());
+	}
+
+	@Test
+	void 存在しないユーザはキャッシュせず例外() {
+		// 1.Ready
+		long notFound = target.getMetrics().getNotFoundCount();
+
+		// 2.Do 3.Check
+		assertThrows(UsernameNotFoundException.class, () -> target.loadUserByUsername("nobody@xxx.co.jp"));
+		assertThrows(UsernameNotFoundException.class, () -> target.loadUserByUsername("nobody@xxx.co.jp"));
+		assertEquals(notFound + 2, target.getMetrics().getNotFoundCount());
+
+		// 4.Log
+		log.info("結果：" + target.getMetrics());
+	}
+
+	@Test
+	void キャッシュした認証情報で繰り返しログインできる() throws Exception {
+		// 2.Do 3.Check
+		for (int i = 0; i < 2; i++) {
+			mockMvc.perform(formLogin("/login").user("user_id", "taro@xxx.co.jp").password("password"))
+					.andExpect(authenticated().withUsername("taro@xxx.co.jp").withRoles("ADMIN"));
+		}
+		mockMvc.perform(formLogin("/login").user("user_id", "taro@xxx.co.jp").password("wrong"))
+				.andExpect(unauthenticated());
+
+		// 4.Log
+		log.info("結果：" + target.getMetrics());
+	}
+
+	@Test
+	void ログイン成功時に低い強度のパスワードを現在の強度で再ハッシュ化() throws Exception {
+		// 1.Ready
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", "goro@xxx.co.jp");
+		params.put("password", new BCryptPasswordEncoder(4).encode("password"));
+		mock.update("UPDATE m_user SET encrypted_password = :password WHERE user_id = :userId", params);
+		target.invalidate("goro@xxx.co.jp");
+		long rehashCount = target.getMetrics().getRehashCount();
+
+		// 2.Do
+		mockMvc.perform(formLogin("/login").user("user_id", "goro@xxx.co.jp").password("password"))
+				.andExpect(authenticated().withUsername("goro@xxx.co.jp"));
+		String encrypted = mock.queryForObject("SELECT encrypted_password FROM m_user WHERE user_id = :userId",
+				params, String.class);
+
+		// 3.Check
+		assertEquals(rehashCount + 1, target.getMetrics().getRehashCount());
+		assertTrue(encrypted.startsWith(String.format("$2a$%02d$", passwordEncoder.getStrength())), encrypted);
+		assertFalse(passwordEncoder.upgradeEncoding(encrypted));
+		mockMvc.perform(formLogin("/login").user("user_id", "goro@xxx.co.jp").password("password"))
+				.andExpect(authenticated().withUsername("goro@xxx.co.jp"));
+
+		// 4.Log
+		log.info("結果：" + encrypted + " " + passwordEncoder.getMetrics());
+	}
+}
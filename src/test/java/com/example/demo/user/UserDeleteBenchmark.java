@@ -0,0 +1,131 @@
+package com.example.demo.user;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * ユーザの一括削除について、1件ずつの削除と1回のSQLでの削除の処理時間を比較する性能測定です。
+ *
+ * <p>{@code db/schema.sql}のテーブル・インデックスへユーザを登録し、全ユーザのIDを指定して削除します。
+ * 1回の測定で1回だけ削除し、次の測定の前にユーザを登録し直します(登録時間は含みません)。<br>
+ * 変更前の方式({@link UserRepository#delete(String)}を1件ずつ)と、
+ * 変更後の方式({@link UserService#deleteAll}、一定件数ごとに存在確認と削除を1回ずつ)を測定します。
+ * 変更後の方式は、DBサーバとの往復回数が減るため、ネットワーク越しのDBでは差がさらに大きくなります。
+ * <p>JUnitのテストとしては実行されません。IDEから{@code main}メソッドを実行してください。
+ *
+ * @author 情報太郎
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class UserDeleteBenchmark {
+
+	/** SQL テストデータの登録 */
+	private static final String SQL_INSERT_USERS = "INSERT INTO m_user(user_id, encrypted_password, user_name, role, enabled)"
+			+ " SELECT 'user' || LPAD(X, 7, '0') || '@xxx.co.jp', 'x', '利用者' || X, 'ROLE_GENERAL', true"
+			+ " FROM SYSTEM_RANGE(1, :count)";
+
+	/** 削除するユーザ数 */
+	@Param({ "10000" })
+	private int count;
+
+	private SingleConnectionDataSource dataSource;
+
+	private NamedParameterJdbcTemplate jdbc;
+
+	private UserRepository repository;
+
+	private UserService service;
+
+	/** 削除するユーザIDのリスト */
+	private List<String> userIds;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		// フォークしたJVMにはログ設定がないため、SQLごとのデバッグログを抑止する
+		((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+				.setLevel(ch.qos.logback.classic.Level.INFO);
+		dataSource = new SingleConnectionDataSource("jdbc:h2:mem:user-delete-benchmark;DB_CLOSE_DELAY=-1", "sa", "", true);
+		new ResourceDatabasePopulator(new ClassPathResource("db/schema.sql")).execute(dataSource);
+		jdbc = new NamedParameterJdbcTemplate(dataSource);
+		repository = new UserRepository();
+		ReflectionTestUtils.setField(repository, "jdbc", jdbc);
+		service = new UserService();
+		ReflectionTestUtils.setField(service, "userRepository", repository);
+		ReflectionTestUtils.setField(service, "deleteMaxBatchSize", count);
+	}
+
+	@Setup(Level.Iteration)
+	public void insertUsers() {
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("count", count);
+		jdbc.update("DELETE FROM m_user", params);
+		jdbc.update(SQL_INSERT_USERS, params);
+		userIds = jdbc.queryForList("SELECT user_id FROM m_user", params, String.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		jdbc.getJdbcTemplate().execute("DROP ALL OBJECTS");
+		dataSource.destroy();
+	}
+
+	/**
+	 * 変更前の方式：ユーザIDごとに1回ずつ削除します。
+	 *
+	 * @throws SQLException 削除に失敗した場合
+	 */
+	@Benchmark
+	public void deleteOneByOne() throws SQLException {
+		for (String userId : userIds) {
+			repository.delete(userId);
+		}
+	}
+
+	/**
+	 * 変更後の方式：一定件数ごとに、存在確認と削除を1回ずつのSQLで行います。
+	 *
+	 * @return ユーザIDごとの処理結果
+	 */
+	@Benchmark
+	public UserBulkResult deleteAll() {
+		return service.deleteAll(userIds);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(UserDeleteBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
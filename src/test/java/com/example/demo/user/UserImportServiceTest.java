@@ -0,0 +1,313 @@
+package com.example.demo.user;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserImportServiceTest {
+
+	/** SQL テストデータの削除 */
+	private static final String SQL_DELETE_TEST_DATA = "DELETE FROM m_user WHERE user_id LIKE 'import-%'";
+
+	@Autowired
+	private UserImportService target;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbc;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	// モック対象クラスを定義
+	@SpyBean
+	private UserRepository userRepository;
+
+	@Test
+	void CSVのユーザをバッチごとに並列にハッシュ化して登録() throws Exception {
+		// 1.Ready
+		Object batchSize = ReflectionTestUtils.getField(target, "batchSize");
+		ReflectionTestUtils.setField(target, "batchSize", 4);
+		StringBuilder csv = new StringBuilder("﻿userId,password,username,role\n");
+		for (int i = 0; i < 10; i++) {
+			csv.append("import-").append(i).append("@yyy.co.jp,12345").append(i).append(",一括登録").append(i)
+					.append(",ROLE_GENERAL\n");
+		}
+		csv.append("不正なユーザID,123456,一括登録,ROLE_GENERAL\n"); // 11行目：入力チェックエラー
+		csv.append("import-0@yyy.co.jp,123456,一括登録,ROLE_GENERAL\n"); // 12行目：ファイル内で重複
+		csv.append("taro@xxx.co.jp,123456,一括登録,ROLE_GENERAL\n"); // 13行目：登録済み
+		List<Integer> notified = new ArrayList<Integer>();
+
+		try {
+			// 2.Do
+			long start = System.nanoTime();
+			UserImportProgress progress = target.start();
+			target.importUsers(progress, new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)),
+					snapshot -> notified.add(snapshot.getReadRows()));
+			long elapsedNanos = System.nanoTime() - start;
+			Map<String, Object> params = new HashMap<String, Object>();
+			params.put("userId", "import-3@yyy.co.jp");
+			String encrypted = jdbc.queryForObject("SELECT encrypted_password FROM m_user WHERE user_id = :userId",
+					params, String.class);
+
+			// 3.Check
+			assertFalse(progress.isRunning());
+			assertFalse(progress.isFailed());
+			assertEquals(13, progress.getReadRows());
+			assertEquals(10, progress.getImportedRows());
+			assertEquals(3, progress.getErrorRows());
+			assertEquals(List.of(11, 12, 13),
+					progress.getErrors().stream().map(UserImportProgress.RowError::getRowNumber).toList());
+			assertTrue(passwordEncoder.matches("123453", encrypted));
+			// バッチごと(4件ずつ)と終了時に通知する
+			assertEquals(List.of(4, 8, 12, 13, 13), notified);
+
+			// 4.Log
+			log.info("結果：" + progress.getImportedRows() + "件 " + elapsedNanos / 1_000_000 + "ms");
+		} finally {
+			ReflectionTestUtils.setField(target, "batchSize", batchSize);
+			jdbc.update(SQL_DELETE_TEST_DATA, new HashMap<String, Object>());
+		}
+	}
+
+	@Test
+	void 一括登録のハッシュ化はログインの照合用のスレッドを利用しない() {
+		// 1.Ready
+		AdaptivePasswordEncoder adaptiveEncoder = (AdaptivePasswordEncoder) passwordEncoder;
+		StringBuilder csv = new StringBuilder("userId,password,username,role\n");
+		for (int i = 0; i < 5; i++) {
+			csv.append("import-lane-").append(i).append("@yyy.co.jp,12345").append(i).append(",一括登録").append(i)
+					.append(",ROLE_GENERAL\n");
+		}
+		long runNanos = adaptiveEncoder.getMetrics().getRunNanos();
+
+		try {
+			// 2.Do
+			UserImportProgress progress = target.start();
+			target.importUsers(progress, new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)),
+					snapshot -> {
+					});
+			Map<String, Object> params = new HashMap<String, Object>();
+			params.put("userId", "import-lane-2@yyy.co.jp");
+			String encrypted = jdbc.queryForObject("SELECT encrypted_password FROM m_user WHERE user_id = :userId",
+					params, String.class);
+
+			// 3.Check
+			assertEquals(5, progress.getImportedRows());
+			assertEquals(runNanos, adaptiveEncoder.getMetrics().getRunNanos());
+			// ログインと同じ強度でハッシュ化する
+			assertTrue(encrypted.startsWith(String.format("$2a$%02d$", adaptiveEncoder.getStrength())));
+			assertTrue(passwordEncoder.matches("123452", encrypted));
+
+			// 4.Log
+			log.info("強度：" + adaptiveEncoder.getStrength());
+		} finally {
+			jdbc.update(SQL_DELETE_TEST_DATA, new HashMap<String, Object>());
+		}
+	}
+
+	@Test
+	void 確認後に登録されたユーザIDのみをエラーとしバッチの他の行は登録() {
+		// 0.Mock
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("userId", "import-race-2@yyy.co.jp");
+		params.put("password", passwordEncoder.encode("123456"));
+		params.put("username", "他の操作");
+		params.put("role", "ROLE_GENERAL");
+		params.put("enabled", true);
+		// 登録済みの確認の後に、他の操作で同じユーザIDが登録された状態にする
+		doAnswer(invocation -> {
+			Object existing = invocation.callRealMethod();
+			jdbc.update("INSERT INTO m_user(user_id, encrypted_password, user_name, role, enabled)"
+					+ " VALUES(:userId, :password, :username, :role, :enabled)", params);
+			return existing;
+		}).when(userRepository).findRegisteredIds(anyCollection());
+
+		// 1.Ready
+		String csv = "userId,password,username,role\n"
+				+ "import-race-1@yyy.co.jp,123456,一括登録1,ROLE_GENERAL\n"
+				+ "import-race-2@yyy.co.jp,123456,一括登録2,ROLE_GENERAL\n"
+				+ "import-race-3@yyy.co.jp,123456,一括登録3,ROLE_GENERAL\n";
+
+		try {
+			// 2.Do
+			UserImportProgress progress = target.start();
+			target.importUsers(progress, new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), snapshot -> {
+			});
+
+			// 3.Check
+			assertFalse(progress.isFailed());
+			assertEquals(2, progress.getImportedRows());
+			assertEquals(1, progress.getErrorRows());
+			assertEquals(List.of(2),
+					progress.getErrors().stream().map(UserImportProgress.RowError::getRowNumber).toList());
+			assertEquals(3, jdbc.queryForObject("SELECT COUNT(*) FROM m_user WHERE user_id LIKE 'import-race-%'",
+					new HashMap<String, Object>(), Integer.class));
+			// トランザクション外のため、行をロックする確認は使用しない
+			verify(userRepository, never()).findExistingIds(anyCollection());
+
+			// 4.Log
+			log.info("結果：" + progress.getErrors());
+		} finally {
+			reset(userRepository);
+			jdbc.update(SQL_DELETE_TEST_DATA, new HashMap<String, Object>());
+		}
+	}
+
+	@Test
+	void ヘッダ行が不正な場合は登録せず失敗() {
+		// 1.Ready
+		String csv = "userId,password\nimport-x@yyy.co.jp,123456\n";
+
+		// 2.Do
+		UserImportProgress progress = target.start();
+		UserImportProgress duplicated = target.start();
+		target.importUsers(progress, new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), snapshot -> {
+		});
+
+		// 3.Check
+		assertNull(duplicated);
+		assertTrue(progress.isFailed());
+		assertNotNull(progress.getErrorMessage());
+		assertEquals(0, progress.getImportedRows());
+		assertFalse(target.getProgress().isRunning());
+
+		// 4.Log
+		log.info("結果：" + progress.getErrorMessage());
+	}
+
+	@Test
+	@WithMockUser(username = "taro@xxx.co.jp", authorities = "ROLE_ADMIN")
+	void 管理者は進捗と結果を1行ずつ受け取る() throws Exception {
+		// 1.Ready
+		MockMultipartFile file = new MockMultipartFile("file", "users.csv", "text/csv",
+				("userId,password,username,role\nimport-mvc@yyy.co.jp,123456,一括登録,ROLE_GENERAL\n")
+						.getBytes(StandardCharsets.UTF_8));
+
+		try {
+			// 2.Do
+			MvcResult started = mockMvc.perform(multipart("/user/import").file(file))
+					.andExpect(request().asyncStarted())
+					.andReturn();
+			String body = mockMvc.perform(asyncDispatch(started))
+					.andExpect(status().isOk())
+					.andExpect(header().string("Content-Type", "application/x-ndjson"))
+					.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+			String progress = mockMvc.perform(get("/user/import/progress"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+			// 3.Check
+			String[] lines = body.split("\n");
+			assertEquals(2, lines.length, body);
+			assertTrue(lines[1].contains("\"importedRows\":1"), lines[1]);
+			assertTrue(lines[1].contains("\"running\":false"), lines[1]);
+			assertTrue(progress.contains("\"importedRows\":1"), progress);
+
+			// 4.Log
+			log.info("結果：" + body);
+		} finally {
+			jdbc.update(SQL_DELETE_TEST_DATA, new HashMap<String, Object>());
+		}
+	}
+
+	@Test
+	@WithMockUser(username = "taro@xxx.co.jp", authorities = "ROLE_ADMIN")
+	void 非同期処理がタイムアウトしても一括登録は継続() throws Exception {
+		// 0.Mock
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		// 登録済みの確認で、タイムアウトするまで登録を止める
+		doAnswer(invocation -> {
+			entered.countDown();
+			release.await();
+			return invocation.callRealMethod();
+		}).when(userRepository).findRegisteredIds(anyCollection());
+
+		// 1.Ready
+		MockMultipartFile file = new MockMultipartFile("file", "users.csv", "text/csv",
+				("userId,password,username,role\nimport-timeout@yyy.co.jp,123456,一括登録,ROLE_GENERAL\n")
+						.getBytes(StandardCharsets.UTF_8));
+
+		try {
+			// 2.Do
+			MvcResult started = mockMvc.perform(multipart("/user/import").file(file))
+					.andExpect(request().asyncStarted())
+					.andReturn();
+			assertTrue(entered.await(10, TimeUnit.SECONDS));
+			MockAsyncContext asyncContext = (MockAsyncContext) started.getRequest().getAsyncContext();
+			for (AsyncListener listener : asyncContext.getListeners()) {
+				listener.onTimeout(new AsyncEvent(asyncContext));
+			}
+			release.countDown();
+			UserImportProgress progress = target.getProgress();
+			for (int i = 0; i < 100 && progress.isRunning(); i++) {
+				Thread.sleep(100);
+			}
+
+			// 3.Check
+			assertFalse(progress.isRunning());
+			assertFalse(progress.isFailed(), progress.getErrorMessage());
+			assertEquals(1, progress.getImportedRows());
+
+			// 4.Log
+			log.info("結果：" + progress.getImportedRows());
+		} finally {
+			release.countDown();
+			reset(userRepository);
+			jdbc.update(SQL_DELETE_TEST_DATA, new HashMap<String, Object>());
+		}
+	}
+
+	@Test
+	@WithMockUser(username = "hanako@xxx.co.jp", authorities = "ROLE_TOP")
+	void 管理者以外は一括登録できない() throws Exception {
+		// 1.Ready
+		MockMultipartFile file = new MockMultipartFile("file", "users.csv", "text/csv",
+				"userId,password,username,role\n".getBytes(StandardCharsets.UTF_8));
+
+		// 2.Do & 3.Check
+		mockMvc.perform(multipart("/user/import").file(file))
+				.andExpect(status().isForbidden());
+
+		// 4.Log
+		log.info("結果：403");
+	}
+}
@@ -0,0 +1,173 @@
+package com.example.demo.user;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * ユーザ数ごとに、ユーザ一覧の1ページの取得時間を比較する性能測定です。
+ *
+ * <p>{@code db/schema.sql}のテーブル・インデックスへ、1万件・100万件のユーザを登録し、
+ * 先頭・末尾付近のページ、前ページ、ユーザ名の前方一致、権限での絞り込みの取得時間を測定します。
+ * ユーザ数によらず取得時間がほぼ一定であることを確認してください。<br>
+ * 比較用に、変更前の全件取得({@link UserRepository#selectAll()})も測定します(100万件の場合は数秒かかります)。
+ * <p>JUnitのテストとしては実行されません。IDEから{@code main}メソッドを実行してください。
+ *
+ * @author 情報太郎
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class UserPageBenchmark {
+
+	/** 1ページあたりの件数(次ページ有無の判定用の1件を含む) */
+	private static final int LIMIT = 21;
+
+	/** SQL テストデータの登録(ユーザIDは連番、ユーザ名は連番を並べ替えた値、3人に1人は上位権限、10人に1人は無効) */
+	private static final String SQL_INSERT_USERS = "INSERT INTO m_user(user_id, encrypted_password, user_name, role, enabled)"
+			+ " SELECT 'user' || LPAD(X, 7, '0') || '@xxx.co.jp', 'x', '利用者' || LPAD(MOD(X * 7919, :count), 7, '0'),"
+			+ " CASEWHEN(MOD(X, 3) = 0, 'ROLE_TOP', 'ROLE_GENERAL'), MOD(X, 10) <> 0 FROM SYSTEM_RANGE(1, :count)";
+
+	/** 登録するユーザ数 */
+	@Param({ "10000", "1000000" })
+	private int count;
+
+	private SingleConnectionDataSource dataSource;
+
+	private UserRepository repository;
+
+	/** 末尾付近のページのカーソル */
+	private UserCursor tailCursor;
+
+	private UserSearchForm all;
+
+	private UserSearchForm byName;
+
+	private UserSearchForm byRole;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		// フォークしたJVMにはログ設定がないため、SQLごとのデバッグログを抑止する
+		((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME))
+				.setLevel(ch.qos.logback.classic.Level.INFO);
+		dataSource = new SingleConnectionDataSource("jdbc:h2:mem:user-benchmark;DB_CLOSE_DELAY=-1", "sa", "", true);
+		new ResourceDatabasePopulator(new ClassPathResource("db/schema.sql")).execute(dataSource);
+		NamedParameterJdbcTemplate jdbc = new NamedParameterJdbcTemplate(dataSource);
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("count", count);
+		jdbc.update(SQL_INSERT_USERS, params);
+		jdbc.getJdbcTemplate().execute("ANALYZE");
+
+		repository = new UserRepository();
+		ReflectionTestUtils.setField(repository, "jdbc", jdbc);
+		tailCursor = new UserCursor(String.format("user%07d@xxx.co.jp", count - LIMIT * 2), null);
+		all = new UserSearchForm();
+		byName = new UserSearchForm();
+		byName.setKeyword("利用者00012");
+		byName.setTarget(UserSearchForm.TARGET_USER_NAME);
+		byRole = new UserSearchForm();
+		byRole.setRole("ROLE_TOP");
+		byRole.setEnabled("false");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		new NamedParameterJdbcTemplate(dataSource).getJdbcTemplate().execute("DROP ALL OBJECTS");
+		dataSource.destroy();
+	}
+
+	/**
+	 * 先頭ページを取得します。
+	 *
+	 * @return 取得結果
+	 */
+	@Benchmark
+	public List<UserData> firstPage() {
+		return repository.selectPage(all, null, false, LIMIT);
+	}
+
+	/**
+	 * 末尾付近の次ページを取得します。
+	 *
+	 * @return 取得結果
+	 */
+	@Benchmark
+	public List<UserData> tailPage() {
+		return repository.selectPage(all, tailCursor, false, LIMIT);
+	}
+
+	/**
+	 * 末尾付近から前ページを取得します。
+	 *
+	 * @return 取得結果
+	 */
+	@Benchmark
+	public List<UserData> prevPage() {
+		return repository.selectPage(all, tailCursor, true, LIMIT);
+	}
+
+	/**
+	 * ユーザ名の前方一致で先頭ページを取得します。
+	 *
+	 * @return 取得結果
+	 */
+	@Benchmark
+	public List<UserData> searchByName() {
+		return repository.selectPage(byName, null, false, LIMIT);
+	}
+
+	/**
+	 * 権限・アカウント有効性で絞り込み、先頭ページを取得します。
+	 *
+	 * @return 取得結果
+	 */
+	@Benchmark
+	public List<UserData> filterByRole() {
+		return repository.selectPage(byRole, null, false, LIMIT);
+	}
+
+	/**
+	 * 変更前の方式：全件を取得します。
+	 *
+	 * @return 取得結果
+	 */
+	@Benchmark
+	public List<UserData> selectAll() {
+		return repository.selectAll();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(UserPageBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -15,6 +15,7 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 
@@ -32,29 +33,191 @@ class UserRepositoryTest {
 	private NamedParameterJdbcTemplate mock;
 
 	@Test
-	void SelectAllメソッドのモック値にList型のMapを設定() {
+	void SelectAllメソッドのモック値にList型のUserDataを設定() {
 		// 0.Mock
-		Map<String, Object> map = new HashMap<String, Object>();
-		map.put("user_id", "gon");
-		List<Map<String, Object>> returnValue = new ArrayList<Map<String, Object>>();
-		returnValue.add(map);
+		UserData data = new UserData();
+		data.setUserId("gon");
+		List<UserData> returnValue = new ArrayList<UserData>();
+		returnValue.add(data);
 
-		doReturn(returnValue).when(mock).queryForList(anyString(), anyMap());
+		doReturn(returnValue).when(mock).query(anyString(), anyMap(), any(RowMapper.class));
 
 		// 1.Ready
-		Map<String, Object> readyMap = new HashMap<String, Object>();
-		readyMap.put("user_id", "gon");
-		List<Map<String, Object>> expected = new ArrayList<Map<String, Object>>();
-		expected.add(readyMap);
+		UserData readyData = new UserData();
+		readyData.setUserId("gon");
+		List<UserData> expected = new ArrayList<UserData>();
+		expected.add(readyData);
 
 		// 2.Do
-		List<Map<String, Object>> result = target.selectAll();
+		List<UserData> result = target.selectAll();
 
 		// 3.Check
-		assertEquals(expected.get(0).get("user_id"), result.get(0).get("user_id"));
+		assertEquals(expected.get(0).getUserId(), result.get(0).getUserId());
 
 		// 4.Log
-		log.info("結果：" + result.get(0).get("user_id"));
+		log.info("結果：" + result.get(0).getUserId());
+	}
+
+	@Test
+	void SelectAllメソッドでDBの値をUserDataに変換() {
+		// 2.Do
+		List<UserData> result = target.selectAll();
+
+		// 3.Check
+		UserData taro = result.stream().filter(u -> "taro@xxx.co.jp".equals(u.getUserId())).findFirst().orElseThrow();
+		assertEquals("情報太郎", taro.getUser_name());
+		assertEquals("ROLE_ADMIN", taro.getRole());
+		assertTrue(taro.isEnabled());
+		assertNull(taro.getPassword());
+
+		// 4.Log
+		log.info("結果：" + taro);
+	}
+
+	@Test
+	void SelectPageメソッドで検索条件に合致するユーザをカーソル位置から取得() {
+		// 1.Ready
+		insertUsers("page", 30);
+		UserSearchForm form = new UserSearchForm();
+		form.setKeyword("page-");
+
+		try {
+			// 2.Do
+			List<UserData> first = target.selectPage(form, null, false, 10);
+			List<UserData> next = target.selectPage(form, UserCursor.of(first.get(9), false), false, 10);
+			List<UserData> prev = target.selectPage(form, UserCursor.of(next.get(0), false), true, 10);
+			form.setRole("ROLE_TOP");
+			form.setEnabled("false");
+			List<UserData> filtered = target.selectPage(form, null, false, 100);
+			UserSearchForm byName = new UserSearchForm();
+			byName.setKeyword("ページ利用者1");
+			byName.setTarget(UserSearchForm.TARGET_USER_NAME);
+			List<UserData> names = target.selectPage(byName, null, false, 100);
+
+			// 3.Check
+			assertEquals("page-00@yyy.co.jp", first.get(0).getUserId());
+			assertEquals("page-10@yyy.co.jp", next.get(0).getUserId());
+			assertEquals("page-19@yyy.co.jp", next.get(9).getUserId());
+			// 前ページは逆順
+			assertEquals("page-09@yyy.co.jp", prev.get(0).getUserId());
+			assertEquals("page-00@yyy.co.jp", prev.get(9).getUserId());
+			// 3人に1人がROLE_TOP、5人に1人が無効
+			assertEquals(List.of("page-00@yyy.co.jp", "page-15@yyy.co.jp"),
+					filtered.stream().map(UserData::getUserId).toList());
+			assertEquals(11, names.size());
+			assertEquals("ページ利用者1", names.get(0).getUser_name());
+			assertEquals("ページ利用者19", names.get(10).getUser_name());
+
+			// 4.Log
+			log.info("結果：" + filtered);
+		} finally {
+			deleteUsers("page");
+		}
+	}
+
+	@Test
+	void SelectPageメソッドは検索条件ごとのインデックス順に読み並べ替えない() {
+		// 1.Ready
+		Map<String, UserSearchForm> forms = new HashMap<String, UserSearchForm>();
+		forms.put("PRIMARY_KEY", new UserSearchForm());
+		UserSearchForm byName = new UserSearchForm();
+		byName.setKeyword("情報");
+		byName.setTarget(UserSearchForm.TARGET_USER_NAME);
+		forms.put("IDX_USER_NAME", byName);
+		UserSearchForm byRole = new UserSearchForm();
+		byRole.setRole("ROLE_GENERAL");
+		forms.put("IDX_USER_ROLE", byRole);
+		UserSearchForm byEnabled = new UserSearchForm();
+		byEnabled.setEnabled("false");
+		forms.put("IDX_USER_ENABLED", byEnabled);
+
+		forms.forEach((index, form) -> {
+			for (UserCursor cursor : new UserCursor[] { null, new UserCursor("m@xxx.co.jp", "情報") }) {
+				// 2.Do
+				Map<String, Object> params = new HashMap<String, Object>();
+				String sql = target.buildPageQuery(form, cursor, cursor != null, 21, params);
+				String plan = mock.queryForObject("EXPLAIN " + sql, params, String.class);
+
+				// 3.Check(前ページは降順のインデックス)
+				assertTrue(plan.contains(cursor == null ? index : index.replace("PRIMARY_KEY", "IDX_USER_ID") + "_DESC"), plan);
+				assertTrue(plan.contains("index sorted"), plan);
+
+				// 4.Log
+				log.info("結果：" + plan);
+			}
+		});
+	}
+
+	@Test
+	void DeleteAllメソッドで存在するユーザのみを1回のSQLで削除() {
+		// 1.Ready
+		insertUsers("bulk", 5);
+		List<String> userIds = List.of("bulk-00@yyy.co.jp", "bulk-03@yyy.co.jp", "missing@yyy.co.jp");
+
+		try {
+			// 2.Do
+			List<String> existing = target.findExistingIds(userIds);
+			int deleted = target.deleteAll(userIds);
+			List<String> remaining = target.findExistingIds(List.of("bulk-00@yyy.co.jp", "bulk-01@yyy.co.jp",
+					"bulk-02@yyy.co.jp", "bulk-03@yyy.co.jp", "bulk-04@yyy.co.jp"));
+
+			// 3.Check
+			assertEquals(List.of("bulk-00@yyy.co.jp", "bulk-03@yyy.co.jp"), existing.stream().sorted().toList());
+			assertEquals(2, deleted);
+			assertEquals(List.of("bulk-01@yyy.co.jp", "bulk-02@yyy.co.jp", "bulk-04@yyy.co.jp"),
+					remaining.stream().sorted().toList());
+
+			// 4.Log
+			log.info("結果：" + deleted);
+		} finally {
+			deleteUsers("bulk");
+		}
+	}
+
+	@Test
+	void FindRegisteredIdsメソッドで登録済みのユーザIDのみを取得() {
+		// 1.Ready
+		insertUsers("registered", 3);
+
+		try {
+			// 2.Do
+			List<String> registered = target.findRegisteredIds(
+					List.of("registered-00@yyy.co.jp", "registered-02@yyy.co.jp", "missing@yyy.co.jp"));
+
+			// 3.Check
+			assertEquals(List.of("registered-00@yyy.co.jp", "registered-02@yyy.co.jp"),
+					registered.stream().sorted().toList());
+
+			// 4.Log
+			log.info("結果：" + registered);
+		} finally {
+			deleteUsers("registered");
+		}
+	}
+
+	/**
+	 * テスト用のユーザを登録します(3人に1人は上位権限、5人に1人は無効)。
+	 */
+	private void insertUsers(String prefix, int count) {
+		List<Map<String, Object>> batch = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < count; i++) {
+			Map<String, Object> params = new HashMap<String, Object>();
+			params.put("userId", String.format("%s-%02d@yyy.co.jp", prefix, i));
+			params.put("username", "ページ利用者" + i);
+			params.put("role", i % 3 == 0 ? "ROLE_TOP" : "ROLE_GENERAL");
+			params.put("enabled", i % 5 != 0);
+			batch.add(params);
+		}
+		@SuppressWarnings("unchecked")
+		Map<String, Object>[] batchParams = batch.toArray(new Map[0]);
+		mock.batchUpdate("INSERT INTO m_user(user_id, encrypted_password, user_name, role, enabled)"
+				+ " VALUES(:userId, 'x', :username, :role, :enabled)", batchParams);
+	}
+
+	private void deleteUsers(String prefix) {
+		Map<String, Object> params = new HashMap<String, Object>();
+		params.put("prefix", prefix + "-%");
+		mock.update("DELETE FROM m_user WHERE user_id LIKE :prefix", params);
 	}
 
 //	@Test
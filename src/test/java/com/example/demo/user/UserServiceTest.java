@@ -8,14 +8,19 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import lombok.extern.slf4j.Slf4j;
 @Slf4j
@@ -30,16 +35,16 @@ class UserServiceTest {
 	private NamedParameterJdbcTemplate mock;
 	
 	@Test
-	void GetUserListメソッドのモック値にList型のMapを設定() {
+	void GetUserListメソッドのモック値にList型のUserDataを設定() {
 		 // 0.Mock
-        Map<String, Object> map = new HashMap<String, Object>();
-        map.put("user_id", "gon");
+        UserData data = new UserData();
+        data.setUserId("gon");
         
-        map.put("enabled", false);
+        data.setEnabled(false);
         
-        List<Map<String, Object>> returnValue = new ArrayList<Map<String, Object>>();
-        returnValue.add(map);
-        doReturn(returnValue).when(mock).queryForList(anyString(), anyMap());
+        List<UserData> returnValue = new ArrayList<UserData>();
+        returnValue.add(data);
+        doReturn(returnValue).when(mock).query(anyString(), anyMap(), any(RowMapper.class));
         
         // 1.Ready
         String expected = "gon";
@@ -97,6 +102,59 @@ class UserServiceTest {
 		log.info("結果：SQLExceptionが発生しない");
 	}
 
+	@Test
+	void ハッシュ化の待機件数が上限の場合は登録も更新もせずfalseを出力() throws Exception {
+		// 0.Mock
+		doReturn(1).when(mock).update(anyString(), anyMap());
+		UserService service = AopTestUtils.getTargetObject(target);
+		Object passwordEncoder = ReflectionTestUtils.getField(service, "passwordEncoder");
+		AdaptivePasswordEncoder saturated = new AdaptivePasswordEncoder(4, 0, 4, 16, 1, 1);
+		ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(saturated, "executor");
+		CountDownLatch latch = new CountDownLatch(1);
+		// 実行中1件、待機中1件で上限に達する
+		executor.execute(() -> {
+			try {
+				latch.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		executor.execute(() -> {
+		});
+		ReflectionTestUtils.setField(service, "passwordEncoder", saturated);
+
+		// 1.Ready
+		UserForm userForm = new UserForm();
+		userForm.setUserId("gon");
+		userForm.setPassword("123456");
+		userForm.setUsername("ごん");
+		userForm.setRole("a");
+		UpdateUserForm updateUserForm = new UpdateUserForm();
+		updateUserForm.setUserId("gon");
+		updateUserForm.setPassword("123456");
+		updateUserForm.setUser_name("ごん");
+		updateUserForm.setRole("a");
+		updateUserForm.setEnabled("true");
+
+		try {
+			// 2.Do
+			boolean inserted = target.insertOne(userForm);
+			boolean updated = target.updateOne(updateUserForm);
+
+			// 3.Check
+			assertFalse(inserted);
+			assertFalse(updated);
+			verify(mock, never()).update(anyString(), anyMap());
+
+			// 4.Log
+			log.info("結果：" + saturated.getMetrics());
+		} finally {
+			latch.countDown();
+			saturated.shutdown();
+			ReflectionTestUtils.setField(service, "passwordEncoder", passwordEncoder);
+		}
+	}
+
 	@Test
 	void GetUserメソッドにモック値1を設定しSQLExceptionを出力されない() {
 		// 0.Mock
@@ -246,4 +304,96 @@ class UserServiceTest {
 		log.info("結果：SQLExceptionが発生しない");
 	}
 
+	@Test
+	void GetUserPageメソッドでカーソルを指定し前後のページを取得() {
+		// 1.Ready
+		Object pageSize = ReflectionTestUtils.getField(target, "pageSize");
+		ReflectionTestUtils.setField(target, "pageSize", 4);
+		List<Map<String, Object>> batch = new ArrayList<Map<String, Object>>();
+		for (int i = 0; i < 10; i++) {
+			Map<String, Object> params = new HashMap<String, Object>();
+			params.put("userId", String.format("paging-%02d@yyy.co.jp", i));
+			params.put("username", "ページング" + (9 - i));
+			batch.add(params);
+		}
+		@SuppressWarnings("unchecked")
+		Map<String, Object>[] batchParams = batch.toArray(new Map[0]);
+		mock.batchUpdate("INSERT INTO m_user(user_id, encrypted_password, user_name, role, enabled)"
+				+ " VALUES(:userId, 'x', :username, 'ROLE_GENERAL', true)", batchParams);
+		UserSearchForm form = new UserSearchForm();
+		form.setKeyword("ページング");
+		form.setTarget(UserSearchForm.TARGET_USER_NAME);
+
+		try {
+			// 2.Do
+			UserEntity first = target.getUserPage(form);
+			form.setAfter(first.getNextCursor());
+			UserEntity second = target.getUserPage(form);
+			form.setAfter(second.getNextCursor());
+			UserEntity last = target.getUserPage(form);
+			form.setAfter(null);
+			form.setBefore(last.getPrevCursor());
+			UserEntity back = target.getUserPage(form);
+			form.setBefore("不正なカーソル");
+			UserEntity invalid = target.getUserPage(form);
+
+			// 3.Check(ユーザ名順)
+			assertEquals(List.of("ページング0", "ページング1", "ページング2", "ページング3"),
+					first.getUserlist().stream().map(UserData::getUser_name).toList());
+			assertNull(first.getPrevCursor());
+			assertEquals("ページング4", second.getUserlist().get(0).getUser_name());
+			assertNotNull(second.getPrevCursor());
+			assertEquals(List.of("ページング8", "ページング9"),
+					last.getUserlist().stream().map(UserData::getUser_name).toList());
+			assertNull(last.getNextCursor());
+			assertEquals(second.getUserlist(), back.getUserlist());
+			assertEquals(first.getUserlist(), invalid.getUserlist());
+
+			// 4.Log
+			log.info("結果：" + back);
+		} finally {
+			ReflectionTestUtils.setField(target, "pageSize", pageSize);
+			mock.update("DELETE FROM m_user WHERE user_id LIKE 'paging-%'", new HashMap<String, Object>());
+		}
+	}
+
+
+	@Test
+	void DeleteAllメソッドでユーザIDごとの結果を取得し上限を超える場合は削除しない() {
+		// 1.Ready
+		Object deleteMaxBatchSize = ReflectionTestUtils.getField(target, "deleteMaxBatchSize");
+		for (int i = 0; i < 3; i++) {
+			Map<String, Object> params = new HashMap<String, Object>();
+			params.put("userId", String.format("bulk-%02d@yyy.co.jp", i));
+			mock.update("INSERT INTO m_user(user_id, encrypted_password, user_name, role, enabled)"
+					+ " VALUES(:userId, 'x', '一括削除', 'ROLE_GENERAL', true)", params);
+		}
+		// 存在しないユーザと重複したユーザを含める
+		List<String> userIds = target.toUserIds("bulk-00@yyy.co.jp, bulk-01@yyy.co.jp,,missing@yyy.co.jp,bulk-00@yyy.co.jp");
+		Map<String, Object> params = new HashMap<String, Object>();
+
+		try {
+			// 2.Do
+			ReflectionTestUtils.setField(target, "deleteMaxBatchSize", 2);
+			UserBulkResult overLimit = target.deleteAll(userIds);
+			int overLimitRemaining = mock.queryForObject("SELECT COUNT(*) FROM m_user WHERE user_id LIKE 'bulk-%'", params, Integer.class);
+			ReflectionTestUtils.setField(target, "deleteMaxBatchSize", 3);
+			UserBulkResult result = target.deleteAll(userIds);
+			int remaining = mock.queryForObject("SELECT COUNT(*) FROM m_user WHERE user_id LIKE 'bulk-%'", params, Integer.class);
+
+			// 3.Check
+			assertNull(overLimit);
+			assertEquals(3, overLimitRemaining);
+			assertEquals(List.of("bulk-00@yyy.co.jp", "bulk-01@yyy.co.jp"), result.getDeleted());
+			assertEquals(List.of("missing@yyy.co.jp"), result.getNotFound());
+			assertEquals(1, remaining);
+
+			// 4.Log
+			log.info("結果：" + result);
+		} finally {
+			ReflectionTestUtils.setField(target, "deleteMaxBatchSize", deleteMaxBatchSize);
+			mock.update("DELETE FROM m_user WHERE user_id LIKE 'bulk-%'", params);
+		}
+	}
+
 }